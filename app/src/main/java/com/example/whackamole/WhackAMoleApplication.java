@@ -0,0 +1,122 @@
+package com.example.whackamole;
+
+import android.app.Application;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+
+import com.example.whackamole.repository.GameRepository;
+import com.example.whackamole.metrics.GameMetrics;
+import com.example.whackamole.repository.LeaderboardRepository;
+import com.example.whackamole.repository.MeteredGameRepository;
+import com.example.whackamole.repository.real.BinaryFileGameRepository;
+import com.example.whackamole.repository.real.FileLeaderboardRepository;
+import com.example.whackamole.session.SessionLogWriter;
+import com.example.whackamole.session.SessionRecorder;
+import com.example.whackamole.util.real.AndroidScheduler;
+import com.example.whackamole.viewmodel.WhackAMoleViewModelFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds the objects that live as long as the process, so every screen shares them.
+ * <p>
+ * There is a single {@link GameRepository}, and so a single in-memory high score: a new high score
+ * set by a game is already current when the main screen shows it, without re-reading storage, and
+ * only one object ever writes the high score file. The same holds for the
+ * {@link LeaderboardRepository}.
+ * <p>
+ * The {@link GameMetrics} are shared too, so they cover every game the process plays. They are
+ * recorded in debuggable builds, and dumped to a file in the app's files directory for offline
+ * analysis by {@link #dumpGameMetrics()}.
+ */
+public class WhackAMoleApplication extends Application {
+
+    private static final String PREFS_NAME = "WhackAMolePrefs";
+    private static final String HIGH_SCORE_FILE_NAME = "high_score.bin";
+    private static final String LEADERBOARD_FILE_NAME = "leaderboard.log";
+    private static final String SESSION_LOG_FILE_NAME = "sessions.log";
+    private static final String METRICS_FILE_NAME = "game_metrics.csv";
+    // A few thousand sessions; the log is rotated once past this, keeping at most two files
+    private static final long SESSION_LOG_MAX_BYTES = 512 * 1024;
+
+    private ScheduledExecutorService ioExecutor;
+    private GameMetrics gameMetrics;
+    private GameRepository gameRepository;
+    private LeaderboardRepository leaderboardRepository;
+    private WhackAMoleViewModelFactory viewModelFactory;
+
+    /**
+     * Creates the shared repositories. Their files are opened and read on a background thread,
+     * so this does no disk I/O on the main thread.
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        ioExecutor = Executors.newSingleThreadScheduledExecutor(
+                runnable -> new Thread(runnable, "HighScoreIO"));
+        gameMetrics = new GameMetrics(
+                (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
+        gameRepository = new MeteredGameRepository(new BinaryFileGameRepository(
+                new File(getFilesDir(), HIGH_SCORE_FILE_NAME), prefs, ioExecutor), gameMetrics);
+        leaderboardRepository = new FileLeaderboardRepository(
+                new File(getFilesDir(), LEADERBOARD_FILE_NAME), ioExecutor);
+        // Opened on the first write, which happens on the I/O thread
+        SessionLogWriter sessionLog = new SessionLogWriter(
+                new File(getFilesDir(), SESSION_LOG_FILE_NAME), SESSION_LOG_MAX_BYTES);
+        // Each game gets its own engine thread, owned and shut down by its ViewModel, and its own
+        // recorder, only used on that thread
+        viewModelFactory = new WhackAMoleViewModelFactory(gameRepository, leaderboardRepository,
+                () -> AndroidScheduler.startOnNewThread("GameEngine"),
+                () -> new SessionRecorder(sessionLog, ioExecutor), gameMetrics);
+    }
+
+    /**
+     * Writes the game metrics recorded so far to their file on the I/O thread, replacing the
+     * previous dump. Does nothing while the metrics are disabled.
+     */
+    public void dumpGameMetrics() {
+        if (!gameMetrics.isEnabled()) {
+            return;
+        }
+        File file = new File(getFilesDir(), METRICS_FILE_NAME);
+        ioExecutor.execute(() -> {
+            try {
+                gameMetrics.writeTo(file);
+            } catch (IOException e) {
+                // Metrics are diagnostics only; the next dump tries again
+            }
+        });
+    }
+
+    /**
+     * @return The metrics every screen and game records into.
+     */
+    public GameMetrics getGameMetrics() {
+        return gameMetrics;
+    }
+
+    /**
+     * @return The repository shared by every screen.
+     */
+    public GameRepository getGameRepository() {
+        return gameRepository;
+    }
+
+    /**
+     * @return The leaderboard shared by every screen.
+     */
+    public LeaderboardRepository getLeaderboardRepository() {
+        return leaderboardRepository;
+    }
+
+    /**
+     * @return The factory screens use to create their ViewModels.
+     */
+    public WhackAMoleViewModelFactory getViewModelFactory() {
+        return viewModelFactory;
+    }
+}
@@ -3,18 +3,17 @@ package com.example.whackamole.controller
 import android.content.Intent
 import android.os.Bundle
 import android.view.View
-import android.widget.ImageView
 import android.widget.TextView
 import android.widget.Toast
 import androidx.appcompat.app.AppCompatActivity
-import androidx.core.content.ContextCompat
 import androidx.lifecycle.Observer
+import androidx.lifecycle.ViewModelProvider
 import com.example.whackamole.R
+import com.example.whackamole.WhackAMoleApplication
+import com.example.whackamole.metrics.GameMetrics
 import com.example.whackamole.model.GameConfig
-import com.example.whackamole.model.Mole
-import com.example.whackamole.model.MoleColor
-import com.example.whackamole.repository.real.SharedPrefGameRepository
-import com.example.whackamole.util.real.AndroidScheduler
+import com.example.whackamole.view.MoleGridView
+import com.example.whackamole.view.PerformanceHudView
 import com.example.whackamole.viewmodel.GameViewModel
 
 /**
@@ -46,22 +45,33 @@ class GameActivity : AppCompatActivity() {
     private lateinit var timerTextView: TextView
 
     /**
-     * A list of `ImageView` objects representing the moles. The visibility of these
-     * views changes as moles appear and disappear. The mole views are identified by
-     * IDs such as `mole_0`, `mole_1`, and so on, up to `mole_8`. They can be layered
-     * on top of hill views using a `FrameLayout` or `RelativeLayout`.
+     * The `moleGridView` draws every mole in a single view, with as many cells as the game has
+     * moles, and reports taps on them.
      */
-    private val moleImageViews = mutableListOf<ImageView>()
+    private lateinit var moleGridView: MoleGridView
+
+    /**
+     * The `performanceHud` is a debug overlay with frame times and game metrics, shown and hidden
+     * by long-pressing the score label.
+     */
+    private lateinit var performanceHud: PerformanceHudView
+
+    /**
+     * The `metrics` shared by the whole app. Every observer below records how long it took to
+     * apply its update, which costs one flag check while the metrics are disabled.
+     */
+    private val metrics: GameMetrics by lazy {
+        (application as WhackAMoleApplication).gameMetrics
+    }
 
     /**
      * The `viewModel` provides the data for the game and handles the game logic.
-     * It is lazily initialized to ensure that it is created only when needed.
+     * It is lazily initialized to ensure that it is created only when needed. The factory gives
+     * it the application's shared repository and its own engine thread.
      */
     private val viewModel: GameViewModel by lazy {
-        val prefs = getSharedPreferences("WhackAMolePrefs", MODE_PRIVATE)
-        val repository = SharedPrefGameRepository(prefs)
-        val scheduler = AndroidScheduler(mainLooper)
-        GameViewModel(repository, scheduler)
+        val factory = (application as WhackAMoleApplication).viewModelFactory
+        ViewModelProvider(this, factory)[GameViewModel::class.java]
     }
 
     /**
@@ -82,12 +92,28 @@ class GameActivity : AppCompatActivity() {
         //TODO: Observe timer changes when added to viewmodel
         //timerTextView = findViewById(R.id.timer)
 
-        // Set up the mole views and click listeners
-        setupMoleViews()
+        // Set up the mole grid and its tap listener
+        moleGridView = findViewById(R.id.game_board)
+        moleGridView.onMoleTapListener = MoleGridView.OnMoleTapListener { moleId ->
+            onMoleWhacked(moleId)
+        }
+
+        // Set up the performance overlay, restoring whether it was shown
+        performanceHud = findViewById(R.id.performance_hud)
+        performanceHud.metrics = metrics
+        if (savedInstanceState?.getBoolean(KEY_PERFORMANCE_HUD) == true) {
+            performanceHud.visibility = View.VISIBLE
+        }
+        findViewById<View>(R.id.score_label).setOnLongClickListener {
+            togglePerformanceHud()
+            true
+        }
 
         // Observe score changes
         viewModel.score.observe(this, Observer { score ->
+            val start = metrics.startTimer()
             scoreTextView.text = getString(R.string.score_format, score)
+            metrics.recordDispatch(start)
         })
 
         //TODO: Observe timer changes when added to viewmodel
@@ -97,16 +123,19 @@ class GameActivity : AppCompatActivity() {
 
         // Observe misses/lives changes
         viewModel.misses.observe(this, Observer { misses ->
+            val start = metrics.startTimer()
             val livesRemaining = GameConfig.DEFAULT.maxMisses - misses
             livesTextView.text = getString(R.string.lives_format, livesRemaining)
+            metrics.recordDispatch(start)
         })
 
-        // Observe mole container changes - this updates ALL 9 positions
-        viewModel.moles.observe(this, Observer { moleContainer ->
-            // Loop through all 9 moles and update their visibility/color
-            moleContainer.moles.forEach { mole ->
-                updateMoleView(mole)
-            }
+        // Observe the full state for moles, so the snapshot and the changed cells always match.
+        // Only the cells that changed are redrawn.
+        viewModel.state.observe(this, Observer { state ->
+            val start = metrics.startTimer()
+            moleGridView.render(state)
+            metrics.recordDispatch(start)
+            performanceHud.currentInterval = state.currentInterval
         })
 
         // Observe game over state
@@ -118,78 +147,43 @@ class GameActivity : AppCompatActivity() {
     }
 
     /**
-     * Initializes the list of mole `ImageView`s and sets their click listeners.
-     * This function assumes that the XML layout contains `ImageView`s with IDs
-     * `mole_0` through `mole_8`.
+     * Called when the activity is leaving the foreground. Flushes the high score to storage, so
+     * it survives the process being killed in the background, and dumps the metrics recorded so
+     * far.
      */
-    private fun setupMoleViews() {
-        // Hardcoded list of mole IDs - more efficient than getIdentifier()
-        val moleIds = listOf(
-            R.id.mole_0, R.id.mole_1, R.id.mole_2,
-            R.id.mole_3, R.id.mole_4, R.id.mole_5,
-            R.id.mole_6, R.id.mole_7, R.id.mole_8
-        )
-
-        // Initialize mole ImageViews (the ones that appear/disappear) with kotlin lambda syntax
-        moleIds.forEachIndexed { index, moleId ->
-            val moleView = findViewById<ImageView>(moleId)
-
-            // Set click listener - when clicked, notify ViewModel
-            moleView.setOnClickListener {
-                onMoleWhacked(index)
-            }
-
-            // Initially hide all moles
-            moleView.visibility = View.INVISIBLE
-
-            moleImageViews.add(moleView)
-        }
+    override fun onPause() {
+        super.onPause()
+        viewModel.flushHighScore()
+        (application as WhackAMoleApplication).dumpGameMetrics()
     }
 
     /**
-     * Called when a mole `ImageView` is clicked. This function delegates the hit logic
-     * to the `GameViewModel`.
+     * Saves whether the performance overlay is shown, so it stays up across rotation.
      *
-     * @param moleId The ID of the mole that was clicked (0-8).
+     * @param outState Bundle in which to place the saved state.
      */
-    private fun onMoleWhacked(moleId: Int) {
-        viewModel.hitMole(moleId)
+    override fun onSaveInstanceState(outState: Bundle) {
+        super.onSaveInstanceState(outState)
+        outState.putBoolean(KEY_PERFORMANCE_HUD, performanceHud.visibility == View.VISIBLE)
     }
 
     /**
-     * Updates a single mole's `ImageView` based on its state, including its visibility
-     * and color. This function is called for all nine moles each time the `MoleContainer`
-     * changes.
-     *
-     * @param mole The `Mole` object containing the ID, visibility, and color information.
+     * Shows the performance overlay if it is hidden, and hides it if it is shown. While shown,
+     * it keeps the metrics enabled.
      */
-    private fun updateMoleView(mole: Mole) {
-        if (moleImageViews.isEmpty()) {
-            return  // Views not initialized yet
-        }
-
-        val moleView = moleImageViews[mole.id]
-
-        if (mole.isVisible) {
-            // Show the mole
-            moleView.visibility = View.VISIBLE
-
-            // Set the background tint color based on mole color
-            val colorResId = when (mole.color) {
-                MoleColor.RED -> R.color.mole_red
-                MoleColor.BLUE -> R.color.mole_blue
-                MoleColor.GREEN -> R.color.mole_green
-                MoleColor.YELLOW -> R.color.mole_yellow
-                MoleColor.PURPLE -> R.color.mole_purple
-            }
-
-            // Apply the color tint to the mole ImageView
-            moleView.backgroundTintList = ContextCompat.getColorStateList(this, colorResId)
+    private fun togglePerformanceHud() {
+        performanceHud.visibility =
+            if (performanceHud.visibility == View.VISIBLE) View.GONE else View.VISIBLE
+    }
 
-        } else {
-            // Hide the mole (hill remains visible if you have separate hill views)
-            moleView.visibility = View.INVISIBLE
-        }
+    /**
+     * Called when a cell of the mole grid is tapped. This function delegates the hit logic
+     * to the `GameViewModel`.
+     *
+     * @param moleId The ID of the mole that was tapped.
+     */
+    private fun onMoleWhacked(moleId: Int) {
+        viewModel.hitMole(moleId)
     }
 
     /**
@@ -231,4 +225,8 @@ class GameActivity : AppCompatActivity() {
     fun restartGame() {
         viewModel.resetGame()
     }
+
+    private companion object {
+        const val KEY_PERFORMANCE_HUD = "performanceHud"
+    }
 }
\ No newline at end of file
@@ -6,8 +6,9 @@ import android.widget.Button
 import android.widget.TextView
 import androidx.appcompat.app.AppCompatActivity
 import androidx.lifecycle.Observer
+import androidx.lifecycle.ViewModelProvider
 import com.example.whackamole.R
-import com.example.whackamole.repository.real.SharedPrefGameRepository
+import com.example.whackamole.WhackAMoleApplication
 import com.example.whackamole.viewmodel.MainViewModel
 
 /**
@@ -17,10 +18,13 @@ import com.example.whackamole.viewmodel.MainViewModel
  */
 class MainActivity : AppCompatActivity() {
 
+    /**
+     * The `mainViewModel` shares the application's repository, so the high score it shows is
+     * already current when a game ends.
+     */
     private val mainViewModel: MainViewModel by lazy {
-        val prefs = getSharedPreferences("WhackAMolePrefs", MODE_PRIVATE)
-        val repository = SharedPrefGameRepository(prefs)
-        MainViewModel(repository)
+        val factory = (application as WhackAMoleApplication).viewModelFactory
+        ViewModelProvider(this, factory)[MainViewModel::class.java]
     }
 
     private lateinit var highScoreTextView: TextView;
@@ -30,7 +34,8 @@ class MainActivity : AppCompatActivity() {
      * Initializes the activity, setting up the user interface and view model.
      * This function is called when the activity is first created. It inflates the layout,
      * finds UI elements, and sets up listeners for the start and clear score buttons.
-     * It also observes the high score from the view model to keep the display updated.
+     * It also observes the high score from the view model to keep the display updated; the
+     * observer stays registered for the activity's lifetime, so it covers returning from a game.
      * @param savedInstanceState If the activity is being re-initialized after previously being shut down,
      * this Bundle contains the data it most recently supplied in onSaveInstanceState(Bundle).
      * Otherwise, it is null.
@@ -56,16 +61,4 @@ class MainActivity : AppCompatActivity() {
             highScoreTextView.text = "High Score: $highScore"
         })
     }
-
-    /**
-     * Called when returning to main window after finishing a round.
-     * At this point, the activity is at the top of the activity stack, with user input going to it.
-     * This implementation ensures the high score is fresh every time the user returns to the main screen.
-     */
-    override fun onResume() {
-        super.onResume()
-        mainViewModel.highScore.observe(this, Observer { highScore ->
-            highScoreTextView.text = "High Score: $highScore"
-        })
-    }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.example.whackamole.repository;
 
 import androidx.lifecycle.LiveData;
 
+import java.util.Objects;
+
 /**
  * GameRepository defines the contract for storing and retrieving
  * the high score in the Whack-a-Mole game.
@@ -18,10 +20,37 @@ public interface GameRepository {
      */
     LiveData<Integer> getHighScore();
 
+    /**
+     * Returns the current high score, first waiting for it to be loaded if the implementation
+     * loads it in the background. Unlike the LiveData, the value is current as soon as it has been
+     * loaded or saved, without waiting for the main thread. Must not be called on the main thread.
+     *
+     * @return the high score as an int
+     */
+    default int awaitHighScore() {
+        return Objects.requireNonNull(getHighScore().getValue());
+    }
+
     /**
      * Updates the high score with the provided value.
      *
      * @param score the new high score to save
      */
     void saveHighScore(int score);
+
+    /**
+     * Resets the high score to 0. Unlike {@link #saveHighScore(int)} with 0, this is never
+     * mistaken for a stale score, by implementations that guard against those.
+     */
+    default void clearHighScore() {
+        saveHighScore(0);
+    }
+
+    /**
+     * Writes any high score that is buffered in memory through to storage. Callers flush at
+     * points where the value must survive, such as game over or leaving the game screen.
+     * Implementations that write immediately do nothing.
+     */
+    default void flush() {
+    }
 }
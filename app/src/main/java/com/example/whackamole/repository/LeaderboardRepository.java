@@ -0,0 +1,31 @@
+package com.example.whackamole.repository;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.whackamole.model.LeaderboardEntry;
+
+import java.util.List;
+
+/**
+ * LeaderboardRepository defines the contract for recording finished sessions and reading the
+ * best ones back, grouped by the {@link com.example.whackamole.model.GameConfig} they were played
+ * under.
+ */
+public interface LeaderboardRepository {
+
+    /**
+     * Records a finished session. Safe to call from any thread.
+     *
+     * @param entry the finished session
+     */
+    void recordSession(LeaderboardEntry entry);
+
+    /**
+     * Returns the best sessions for a config, best first. The LiveData is updated whenever a
+     * session enters them.
+     *
+     * @param configId the {@link com.example.whackamole.model.GameConfig#getConfigId() config ID}
+     * @return LiveData of the best sessions; empty until loaded or if there are none
+     */
+    LiveData<List<LeaderboardEntry>> getTopSessions(long configId);
+}
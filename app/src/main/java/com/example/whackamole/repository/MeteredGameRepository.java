@@ -0,0 +1,83 @@
+package com.example.whackamole.repository;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.whackamole.metrics.GameMetrics;
+
+/**
+ * MeteredGameRepository records how long each write to another {@link GameRepository} holds up
+ * its caller in {@link GameMetrics#getRepositoryWriteTime()}.
+ * <p>
+ * Saving, clearing and flushing the high score are timed. For a repository that writes on a
+ * background thread, that is the cost of handing the write over, which is what the engine thread
+ * pays when a tap sets a new high score. Reads are passed straight through. While the metrics are
+ * disabled, each write costs one extra flag check.
+ */
+public class MeteredGameRepository implements GameRepository {
+
+    private final GameRepository delegate;
+    private final GameMetrics metrics;
+
+    /**
+     * Constructor
+     *
+     * @param delegate the repository that actually stores the high score
+     * @param metrics  where to record write times
+     */
+    public MeteredGameRepository(GameRepository delegate, GameMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Get the underlying repository's high score as LiveData
+     *
+     * @return LiveData of the current high score
+     */
+    @Override
+    public LiveData<Integer> getHighScore() {
+        return delegate.getHighScore();
+    }
+
+    /**
+     * Wait for the underlying repository's high score
+     *
+     * @return the current high score
+     */
+    @Override
+    public int awaitHighScore() {
+        return delegate.awaitHighScore();
+    }
+
+    /**
+     * Save a new high score in the underlying repository, timing the call
+     *
+     * @param score the new high score to save
+     */
+    @Override
+    public void saveHighScore(int score) {
+        long start = metrics.startTimer();
+        delegate.saveHighScore(score);
+        metrics.recordRepositoryWrite(start);
+    }
+
+    /**
+     * Reset the high score in the underlying repository, timing the call
+     */
+    @Override
+    public void clearHighScore() {
+        long start = metrics.startTimer();
+        delegate.clearHighScore();
+        metrics.recordRepositoryWrite(start);
+    }
+
+    /**
+     * Flush the underlying repository, timing the call
+     */
+    @Override
+    public void flush() {
+        long start = metrics.startTimer();
+        delegate.flush();
+        metrics.recordRepositoryWrite(start);
+    }
+}
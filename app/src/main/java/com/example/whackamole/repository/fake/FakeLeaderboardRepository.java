@@ -0,0 +1,73 @@
+package com.example.whackamole.repository.fake;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.whackamole.model.LeaderboardEntry;
+import com.example.whackamole.repository.LeaderboardRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FakeLeaderboardRepository is an in-memory implementation of LeaderboardRepository
+ * for testing purposes. It keeps every session and does not persist data to disk.
+ */
+public class FakeLeaderboardRepository implements LeaderboardRepository {
+
+    private final List<LeaderboardEntry> sessions = new ArrayList<>();
+    private final Map<Long, MutableLiveData<List<LeaderboardEntry>>> topSessions = new HashMap<>();
+
+    /**
+     * Record a finished session and update its config's LiveData, if it has been requested.
+     *
+     * @param entry the finished session
+     */
+    @Override
+    public synchronized void recordSession(LeaderboardEntry entry) {
+        sessions.add(entry);
+        MutableLiveData<List<LeaderboardEntry>> liveData = topSessions.get(entry.getConfigId());
+        if (liveData != null) {
+            liveData.postValue(sessionsFor(entry.getConfigId()));
+        }
+    }
+
+    /**
+     * Get every recorded session for a config, best first.
+     *
+     * @param configId the config ID
+     * @return LiveData of the sessions
+     */
+    @Override
+    public synchronized LiveData<List<LeaderboardEntry>> getTopSessions(long configId) {
+        MutableLiveData<List<LeaderboardEntry>> liveData = topSessions.get(configId);
+        if (liveData == null) {
+            liveData = new MutableLiveData<>(sessionsFor(configId));
+            topSessions.put(configId, liveData);
+        }
+        return liveData;
+    }
+
+    /**
+     * Get every recorded session, in the order they were recorded.
+     *
+     * @return copy of the recorded sessions
+     */
+    public synchronized List<LeaderboardEntry> getSessions() {
+        return new ArrayList<>(sessions);
+    }
+
+    private List<LeaderboardEntry> sessionsFor(long configId) {
+        List<LeaderboardEntry> result = new ArrayList<>();
+        for (LeaderboardEntry session : sessions) {
+            if (session.getConfigId() == configId) {
+                result.add(session);
+            }
+        }
+        result.sort(LeaderboardEntry.BEST_FIRST);
+        return Collections.unmodifiableList(result);
+    }
+}
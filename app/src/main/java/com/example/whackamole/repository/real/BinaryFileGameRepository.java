@@ -0,0 +1,231 @@
+package com.example.whackamole.repository.real;
+
+import android.content.SharedPreferences;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.whackamole.repository.GameRepository;
+import com.example.whackamole.storage.HighScoreFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BinaryFileGameRepository stores the high score in a {@link HighScoreFile}: a small, memory
+ * mapped, checksummed binary file, which is far cheaper to read and update than SharedPreferences
+ * rewriting a whole XML file.
+ * <p>
+ * Nothing is read on the calling thread. The file is opened and read on the I/O executor, and the
+ * LiveData starts at 0 and is updated once the load finishes. The first time the file is created,
+ * the high score saved by {@link SharedPrefGameRepository} is migrated into it.
+ * <p>
+ * Saving is safe from any thread and writes behind: the latest score is kept in memory and shown
+ * by the LiveData at once, and written to the file at most once per write window, however many
+ * scores a record run saves in it. {@link #flush()} writes the latest score straight away and
+ * forces it to storage, so callers flush at game over and when leaving the game screen. A score
+ * saved before the load finished is merged with the stored one rather than replacing it: the game
+ * that saved it may not have known the stored high score yet, and must not overwrite it.
+ * <p>
+ * The LiveData is always updated with {@code postValue}, whichever thread saves. A background
+ * thread that must not start from a high score of 0, such as a game engine's, calls
+ * {@link #awaitHighScore()} instead, which waits for the load.
+ */
+public class BinaryFileGameRepository implements GameRepository {
+
+    private static final String LEGACY_KEY_HIGH_SCORE = "HIGH_SCORE";
+    private static final long DEFAULT_WRITE_WINDOW_MS = 2000;
+    private static final int NO_PENDING_SCORE = -1;
+
+    private final ScheduledExecutorService ioExecutor;
+    private final long writeWindowMs;
+    private final MutableLiveData<Integer> highScore = new MutableLiveData<>(0);
+    private final Runnable drain = this::drain;
+    private final CountDownLatch loadLatch = new CountDownLatch(1);
+    private volatile boolean loaded;
+    // The value last published to the LiveData, which may not have reached it yet
+    private volatile int currentScore;
+    // Guarded by this: the latest saved score not yet written, whether it must be merged with the
+    // stored score, and whether a drain is scheduled to write it
+    private int pendingScore = NO_PENDING_SCORE;
+    private boolean pendingMerge;
+    private boolean drainScheduled;
+    // Only accessed on the I/O executor; null if the file could not be opened
+    private HighScoreFile file;
+    private int storedScore;
+
+    /**
+     * Constructor. Starts loading the high score on the I/O executor.
+     *
+     * @param path        the binary high score file; created if it does not exist
+     * @param legacyPrefs the SharedPreferences previous versions stored the high score in
+     * @param ioExecutor  a serial executor for file access
+     */
+    public BinaryFileGameRepository(File path, SharedPreferences legacyPrefs,
+                                    ScheduledExecutorService ioExecutor) {
+        this(path, legacyPrefs, ioExecutor, DEFAULT_WRITE_WINDOW_MS);
+    }
+
+    /**
+     * Constructor. Starts loading the high score on the I/O executor.
+     *
+     * @param path          the binary high score file; created if it does not exist
+     * @param legacyPrefs   the SharedPreferences previous versions stored the high score in
+     * @param ioExecutor    a serial executor for file access
+     * @param writeWindowMs how long saved scores are coalesced before the latest is written
+     */
+    BinaryFileGameRepository(File path, SharedPreferences legacyPrefs,
+                             ScheduledExecutorService ioExecutor, long writeWindowMs) {
+        this.ioExecutor = ioExecutor;
+        this.writeWindowMs = writeWindowMs;
+        ioExecutor.execute(() -> load(path, legacyPrefs));
+    }
+
+    /**
+     * Get the stored high score as LiveData. It reads 0 until the file has been loaded.
+     *
+     * @return LiveData of the current high score
+     */
+    @Override
+    public LiveData<Integer> getHighScore() {
+        return highScore;
+    }
+
+    /**
+     * Wait until the file has been loaded, and return the current high score.
+     *
+     * @return the current high score
+     */
+    @Override
+    public int awaitHighScore() {
+        try {
+            loadLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return currentScore;
+    }
+
+    /**
+     * Save a new high score and update LiveData. The score is written when the current write
+     * window closes, or by the next {@link #flush()}, whichever comes first.
+     *
+     * @param score the new high score to save
+     */
+    @Override
+    public void saveHighScore(int score) {
+        publish(score);
+        boolean schedule;
+        synchronized (this) {
+            pendingScore = score;
+            pendingMerge |= !loaded;
+            schedule = !drainScheduled;
+            drainScheduled = true;
+        }
+        if (schedule) {
+            ioExecutor.schedule(drain, writeWindowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reset the high score to 0. This always replaces the stored score, even before the load
+     * has finished, and discards any score still waiting to be written.
+     */
+    @Override
+    public void clearHighScore() {
+        publish(0);
+        synchronized (this) {
+            pendingScore = NO_PENDING_SCORE;
+            pendingMerge = false;
+        }
+        boolean reload = !loaded;
+        ioExecutor.execute(() -> {
+            write(0, false);
+            if (reload) {
+                publish(0);  // The load posted the stored score after it was cleared
+            }
+        });
+    }
+
+    /**
+     * Writes the latest saved score without waiting for its write window, and forces written
+     * scores to the storage device, so they survive power loss as well as the process being
+     * killed.
+     */
+    @Override
+    public void flush() {
+        ioExecutor.execute(() -> {
+            drain();
+            if (file != null) {
+                file.sync();
+            }
+        });
+    }
+
+    private void load(File path, SharedPreferences legacyPrefs) {
+        try {
+            file = HighScoreFile.open(path);
+        } catch (IOException e) {
+            // Keep working from the old store's value in memory; nothing will be persisted
+            storedScore = legacyPrefs.getInt(LEGACY_KEY_HIGH_SCORE, 0);
+            publish(storedScore);
+            setLoaded();
+            return;
+        }
+
+        if (!file.hasRecord()) {
+            file.write(legacyPrefs.getInt(LEGACY_KEY_HIGH_SCORE, 0));
+            file.sync();
+            legacyPrefs.edit().remove(LEGACY_KEY_HIGH_SCORE).apply();
+        }
+        storedScore = file.getHighScore();
+        publish(storedScore);
+        setLoaded();
+    }
+
+    private void setLoaded() {
+        loaded = true;
+        loadLatch.countDown();
+    }
+
+    private void publish(int score) {
+        currentScore = score;
+        highScore.postValue(score);
+    }
+
+    /**
+     * Writes the pending score, if any. Runs on the I/O executor.
+     */
+    private void drain() {
+        int score;
+        boolean merge;
+        synchronized (this) {
+            drainScheduled = false;
+            score = pendingScore;
+            merge = pendingMerge;
+            pendingScore = NO_PENDING_SCORE;
+            pendingMerge = false;
+        }
+        if (score != NO_PENDING_SCORE) {
+            write(score, merge);
+        }
+    }
+
+    private void write(int score, boolean merge) {
+        if (merge && score <= storedScore) {
+            // Saved without knowing the stored high score, which beats it; undo the LiveData update
+            publish(storedScore);
+            return;
+        }
+        if (merge) {
+            publish(score);  // The load posted the lower stored score after it was set
+        }
+        storedScore = score;
+        if (file != null) {
+            file.write(score);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.whackamole.repository.real;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.whackamole.model.LeaderboardEntry;
+import com.example.whackamole.repository.LeaderboardRepository;
+import com.example.whackamole.storage.Leaderboard;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * FileLeaderboardRepository is the production implementation of LeaderboardRepository, backed by
+ * a {@link Leaderboard} log file.
+ * <p>
+ * The leaderboard is opened, and every session recorded, on the I/O executor, which also runs the
+ * leaderboard's checkpoints and compactions. Reading a config's best sessions only copies the
+ * in-memory index, so the LiveData is refreshed after each session that enters them without
+ * reading the log.
+ */
+public class FileLeaderboardRepository implements LeaderboardRepository {
+
+    private static final int SESSIONS_PER_CONFIG = 10;
+
+    private final Executor ioExecutor;
+    private final Map<Long, MutableLiveData<List<LeaderboardEntry>>> topSessions =
+            new ConcurrentHashMap<>();
+    // Only accessed on the I/O executor; null if the log could not be opened
+    private Leaderboard leaderboard;
+
+    /**
+     * Constructor. Starts opening the leaderboard on the I/O executor.
+     *
+     * @param logPath    the leaderboard log; created if it does not exist
+     * @param ioExecutor a serial executor for file access
+     */
+    public FileLeaderboardRepository(File logPath, Executor ioExecutor) {
+        this.ioExecutor = ioExecutor;
+        ioExecutor.execute(() -> open(logPath));
+    }
+
+    /**
+     * Record a finished session on the I/O executor.
+     *
+     * @param entry the finished session
+     */
+    @Override
+    public void recordSession(LeaderboardEntry entry) {
+        ioExecutor.execute(() -> {
+            if (leaderboard == null) {
+                return;
+            }
+            try {
+                if (leaderboard.record(entry)) {
+                    publish(entry.getConfigId());
+                }
+            } catch (IOException e) {
+                // The session is lost, but the leaderboard stays consistent
+            }
+        });
+    }
+
+    /**
+     * Get the best sessions for a config as LiveData. It is empty until the leaderboard has been
+     * opened.
+     *
+     * @param configId the config ID
+     * @return LiveData of the best sessions, best first
+     */
+    @Override
+    public LiveData<List<LeaderboardEntry>> getTopSessions(long configId) {
+        MutableLiveData<List<LeaderboardEntry>> liveData = topSessions.get(configId);
+        if (liveData == null) {
+            liveData = new MutableLiveData<>(Collections.emptyList());
+            MutableLiveData<List<LeaderboardEntry>> existing =
+                    topSessions.putIfAbsent(configId, liveData);
+            if (existing != null) {
+                return existing;
+            }
+            ioExecutor.execute(() -> publish(configId));
+        }
+        return liveData;
+    }
+
+    private void open(File logPath) {
+        try {
+            leaderboard = Leaderboard.open(logPath, SESSIONS_PER_CONFIG, ioExecutor);
+        } catch (IOException e) {
+            // Leave the leaderboard empty; sessions are not recorded
+        }
+    }
+
+    private void publish(long configId) {
+        MutableLiveData<List<LeaderboardEntry>> liveData = topSessions.get(configId);
+        if (liveData != null && leaderboard != null) {
+            liveData.postValue(leaderboard.top(configId));
+        }
+    }
+}
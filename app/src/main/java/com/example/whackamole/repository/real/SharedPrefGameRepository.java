@@ -1,6 +1,7 @@
 package com.example.whackamole.repository.real;
 
 import android.content.SharedPreferences;
+import android.os.Looper;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
@@ -10,6 +11,8 @@ import com.example.whackamole.repository.GameRepository;
 /**
  * SharedPrefGameRepository is the production implementation of GameRepository.
  * It stores and retrieves the high score using SharedPreferences.
+ * <p>
+ * Saving is safe from any thread, so the game engine can persist scores from its own thread.
  */
 public class SharedPrefGameRepository implements GameRepository {
 
@@ -39,7 +42,8 @@ public class SharedPrefGameRepository implements GameRepository {
     }
 
     /**
-     * Save a new high score and update LiveData
+     * Save a new high score and update LiveData. When called off the main thread, the LiveData
+     * update is posted to the main thread.
      *
      * @param score the new high score to save
      */
@@ -48,6 +52,10 @@ public class SharedPrefGameRepository implements GameRepository {
         prefs.edit()
                 .putInt(KEY_HIGH_SCORE, score)
                 .apply();
-        highScore.setValue(score);
+        if (Looper.getMainLooper().isCurrentThread()) {
+            highScore.setValue(score);
+        } else {
+            highScore.postValue(score);
+        }
     }
 }
@@ -1,17 +1,30 @@
 package com.example.whackamole.util.real;
 
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 
 import com.example.whackamole.util.Scheduler;
+import com.example.whackamole.util.TimerHandle;
 
 /**
  * AndroidScheduler uses Handler and Looper to post delayed tasks
- * on the main thread.
+ * on the main thread or on a dedicated background thread.
+ * <p>
+ * Its {@link TimerHandle}s are lazy, because removing a callback from a Looper means scanning its
+ * message queue: cancelling only marks the timer, and moving a timer later leaves the existing
+ * message in place and re-posts when it fires early. Only moving a timer earlier costs a removal.
  */
 public class AndroidScheduler implements Scheduler {
 
     private final Handler handler;
+    private final HandlerThread ownedThread;
+    // Bumped whenever every callback is removed, so timers know their message is gone. Volatile
+    // since shutdown() may come from another thread; timers only check that it changed, so two
+    // racing bumps that count as one still do.
+    private volatile int clearCount;
 
     /**
      * Creates a scheduler using the given Looper.
@@ -21,6 +34,25 @@ public class AndroidScheduler implements Scheduler {
      */
     public AndroidScheduler(Looper looper) {
         this.handler = new Handler(looper);
+        this.ownedThread = null;
+    }
+
+    private AndroidScheduler(HandlerThread thread) {
+        this.handler = new Handler(thread.getLooper());
+        this.ownedThread = thread;
+    }
+
+    /**
+     * Creates a scheduler backed by a new HandlerThread, so tasks run off the main thread.
+     * The thread is quit by {@link #shutdown()}.
+     *
+     * @param name name of the new thread
+     * @return scheduler owning the new thread
+     */
+    public static AndroidScheduler startOnNewThread(String name) {
+        HandlerThread thread = new HandlerThread(name, Process.THREAD_PRIORITY_DISPLAY);
+        thread.start();
+        return new AndroidScheduler(thread);
     }
 
     /**
@@ -34,6 +66,27 @@ public class AndroidScheduler implements Scheduler {
         handler.postDelayed(runnable, delayMillis);
     }
 
+    /**
+     * Post a Runnable to be executed at an absolute time.
+     *
+     * @param runnable Runnable task
+     * @param uptimeMs time to run at, in the {@link SystemClock#uptimeMillis()} time base
+     */
+    @Override
+    public void postAtTime(Runnable runnable, long uptimeMs) {
+        handler.postAtTime(runnable, uptimeMs);
+    }
+
+    /**
+     * Milliseconds since boot, not counting deep sleep. This is the clock Handler uses.
+     *
+     * @return current uptime in milliseconds
+     */
+    @Override
+    public long uptimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+
     /**
      * Remove pending executions of the given Runnable.
      *
@@ -45,12 +98,114 @@ public class AndroidScheduler implements Scheduler {
     }
 
     /**
-     * Remove all pending executions of the given Runnable.
+     * Remove pending executions of the given Runnable, or of every task and timer if it is null.
+     * Handler's own method matches a non-null token against message objects rather than
+     * callbacks, so a non-null Runnable is removed with {@link Handler#removeCallbacks} instead.
      *
-     * @param runnable Runnable task
+     * @param runnable Runnable task (can be null)
      */
     @Override
     public void removeCallbacksAndMessages(Runnable runnable) {
-        handler.removeCallbacksAndMessages(runnable);
+        if (runnable != null) {
+            handler.removeCallbacks(runnable);
+            return;
+        }
+        clearCount++;
+        handler.removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * Creates a lazy timer; see the class documentation.
+     *
+     * @param task Runnable task
+     * @return a new idle timer
+     */
+    @Override
+    public TimerHandle newTimer(Runnable task) {
+        return new LazyTimerHandle(task);
+    }
+
+    /**
+     * Check whether the caller is on this scheduler's Looper thread.
+     *
+     * @return true if called from the Looper thread
+     */
+    @Override
+    public boolean isCurrentThread() {
+        return handler.getLooper().isCurrentThread();
+    }
+
+    /**
+     * Remove all pending tasks and, if this scheduler owns its thread, quit it once the
+     * currently running task (if any) finishes.
+     */
+    @Override
+    public void shutdown() {
+        removeCallbacksAndMessages(null);
+        if (ownedThread != null) {
+            ownedThread.quitSafely();
+        }
+    }
+
+    /**
+     * Timer that keeps at most one message in the queue and moves it lazily.
+     */
+    private final class LazyTimerHandle implements TimerHandle, Runnable {
+
+        private static final long IDLE = Long.MIN_VALUE;
+
+        private final Runnable task;
+        // When the task should run, or IDLE
+        private long deadline = IDLE;
+        // When the posted message fires, or IDLE if none is posted
+        private long postedAt = IDLE;
+        private int postedClearCount;
+
+        LazyTimerHandle(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void reschedule(long delayMs) {
+            rescheduleAt(SystemClock.uptimeMillis() + Math.max(0, delayMs));
+        }
+
+        @Override
+        public void rescheduleAt(long uptimeMs) {
+            deadline = uptimeMs;
+            boolean posted = postedAt != IDLE && postedClearCount == clearCount;
+            if (posted && postedAt <= uptimeMs) {
+                return;  // The message fires first and re-posts itself for the new deadline
+            }
+            if (posted) {
+                handler.removeCallbacks(this);
+            }
+            post(uptimeMs);
+        }
+
+        @Override
+        public void cancel() {
+            deadline = IDLE;
+        }
+
+        @Override
+        public void run() {
+            postedAt = IDLE;
+            if (deadline == IDLE) {
+                return;  // Cancelled after posting
+            }
+            if (SystemClock.uptimeMillis() < deadline) {
+                post(deadline);  // Moved later after posting
+                return;
+            }
+            deadline = IDLE;
+            task.run();
+        }
+
+        private void post(long uptimeMs) {
+            postedAt = uptimeMs;
+            postedClearCount = clearCount;
+            handler.postAtTime(this, uptimeMs);
+        }
     }
 }
@@ -0,0 +1,300 @@
+package com.example.whackamole.view
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.PorterDuff
+import android.graphics.PorterDuffColorFilter
+import android.graphics.Rect
+import android.graphics.RectF
+import android.os.Bundle
+import android.util.AttributeSet
+import android.view.KeyEvent
+import android.view.MotionEvent
+import android.view.View
+import android.view.accessibility.AccessibilityEvent
+import androidx.core.content.ContextCompat
+import androidx.core.view.ViewCompat
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat
+import androidx.customview.widget.ExploreByTouchHelper
+import com.example.whackamole.R
+import com.example.whackamole.model.GameState
+import com.example.whackamole.model.Mole
+import com.example.whackamole.model.MoleColor
+import kotlin.math.ceil
+import kotlin.math.min
+import kotlin.math.sqrt
+
+/**
+ * Draws the whole mole grid in a single view, as many cells as the game has moles, and reports
+ * which cell was tapped.
+ *
+ * The cells are laid out row by row in the most nearly square grid that fits them, as large as
+ * the view allows and centered in it. A visible mole is drawn as the mole image tinted with its
+ * color; the tinting paints are resolved once per [MoleColor] when the view is created, so drawing
+ * does not allocate. A hidden mole's cell is left empty.
+ *
+ * [render] applies each [GameState]'s change set, and only invalidates the cells whose mole
+ * changed. When an update was missed, or the number of moles changed, every cell is updated from
+ * the state's snapshot instead.
+ *
+ * For accessibility services, each cell is a virtual view with its own description, bounds and
+ * click action, so cells can be explored by touch, focused in turn and tapped like the buttons
+ * the grid replaced.
+ */
+class MoleGridView @JvmOverloads constructor(
+    context: Context,
+    attrs: AttributeSet? = null
+) : View(context, attrs) {
+
+    /**
+     * Receives taps on the grid's cells.
+     */
+    fun interface OnMoleTapListener {
+
+        /**
+         * @param moleId The ID of the mole whose cell was tapped, whether or not it is visible.
+         */
+        fun onMoleTapped(moleId: Int)
+    }
+
+    /**
+     * Notified when a cell is touched.
+     */
+    var onMoleTapListener: OnMoleTapListener? = null
+
+    private val moleBitmap: Bitmap =
+        BitmapFactory.decodeResource(resources, R.drawable.mole_transparent)
+    private val molePaints = Array(MoleColor.values().size) { ordinal ->
+        Paint(Paint.ANTI_ALIAS_FLAG or Paint.FILTER_BITMAP_FLAG).apply {
+            colorFilter = PorterDuffColorFilter(
+                ContextCompat.getColor(context, colorResource(MoleColor.values()[ordinal])),
+                PorterDuff.Mode.SRC_IN)
+        }
+    }
+
+    // The color of each cell's mole, or null while it is hidden
+    private var cellColors = arrayOfNulls<MoleColor>(0)
+    // Each cell's bounds, for invalidating and hit testing, and where its mole is drawn
+    private var cellRects = emptyArray<Rect>()
+    private var moleRects = emptyArray<RectF>()
+    private var columns = 1
+    private var renderedVersion = -1L
+    private val accessibilityHelper = CellAccessibilityHelper()
+
+    init {
+        isFocusable = true
+        ViewCompat.setAccessibilityDelegate(this, accessibilityHelper)
+    }
+
+    /**
+     * Brings the grid up to date with a state. Only the cells that changed are invalidated.
+     *
+     * @param state The state to draw.
+     */
+    fun render(state: GameState) {
+        val changeSet = state.moleChanges
+        if (changeSet.version == renderedVersion) {
+            return  // Grid unchanged by this transition
+        }
+        val moles = state.moles.moles
+        if (moles.size != cellColors.size) {
+            setCellCount(moles.size)
+        }
+        if (changeSet.baseVersion == renderedVersion) {
+            val changes = changeSet.changes
+            for (i in 0 until changes.size) {
+                updateCell(changes[i].newMole)
+            }
+            renderedVersion = changeSet.version
+        } else {
+            // Missed an update (or first draw): update every cell from the snapshot
+            for (i in 0 until moles.size) {
+                updateCell(moles[i])
+            }
+            renderedVersion = state.moles.version
+        }
+    }
+
+    override fun onSizeChanged(w: Int, h: Int, oldw: Int, oldh: Int) {
+        super.onSizeChanged(w, h, oldw, oldh)
+        layoutCells()
+    }
+
+    override fun onDraw(canvas: Canvas) {
+        for (i in cellColors.indices) {
+            val color = cellColors[i] ?: continue
+            canvas.drawBitmap(moleBitmap, null, moleRects[i], molePaints[color.ordinal])
+        }
+    }
+
+    /**
+     * Reports a tap as soon as the finger goes down, as the buttons it replaces did on click.
+     */
+    override fun onTouchEvent(event: MotionEvent): Boolean {
+        when (event.actionMasked) {
+            MotionEvent.ACTION_DOWN -> {
+                val cell = cellAt(event.x.toInt(), event.y.toInt())
+                if (cell >= 0) {
+                    onMoleTapListener?.onMoleTapped(cell)
+                }
+            }
+            MotionEvent.ACTION_UP -> performClick()
+        }
+        return true
+    }
+
+    override fun performClick(): Boolean {
+        super.performClick()
+        return true
+    }
+
+    override fun dispatchHoverEvent(event: MotionEvent): Boolean =
+        accessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event)
+
+    override fun dispatchKeyEvent(event: KeyEvent): Boolean =
+        accessibilityHelper.dispatchKeyEvent(event) || super.dispatchKeyEvent(event)
+
+    override fun onFocusChanged(gainFocus: Boolean, direction: Int, previouslyFocusedRect: Rect?) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect)
+        accessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect)
+    }
+
+    private fun setCellCount(count: Int) {
+        cellColors = arrayOfNulls(count)
+        cellRects = Array(count) { Rect() }
+        moleRects = Array(count) { RectF() }
+        columns = maxOf(1, ceil(sqrt(count.toDouble())).toInt())
+        renderedVersion = -1
+        layoutCells()
+        invalidate()
+        accessibilityHelper.invalidateRoot()
+    }
+
+    /**
+     * Places the cells in the largest centered grid of square cells the view fits.
+     */
+    private fun layoutCells() {
+        val count = cellColors.size
+        if (count == 0) {
+            return
+        }
+        val rows = (count + columns - 1) / columns
+        val contentWidth = (width - paddingLeft - paddingRight).toFloat()
+        val contentHeight = (height - paddingTop - paddingBottom).toFloat()
+        val cellSize = maxOf(0f, min(contentWidth / columns, contentHeight / rows))
+        val left = paddingLeft + (contentWidth - cellSize * columns) / 2
+        val top = paddingTop + (contentHeight - cellSize * rows) / 2
+        val inset = cellSize * MOLE_INSET
+        for (i in 0 until count) {
+            val cellLeft = left + (i % columns) * cellSize
+            val cellTop = top + (i / columns) * cellSize
+            moleRects[i].set(cellLeft + inset, cellTop + inset,
+                cellLeft + cellSize - inset, cellTop + cellSize - inset)
+            cellRects[i].set(cellLeft.toInt(), cellTop.toInt(),
+                ceil(cellLeft + cellSize).toInt(), ceil(cellTop + cellSize).toInt())
+        }
+    }
+
+    private fun updateCell(mole: Mole) {
+        val color = if (mole.isVisible) mole.color else null
+        if (cellColors[mole.id] != color) {
+            cellColors[mole.id] = color
+            invalidateCell(mole.id)
+            // Does nothing unless an accessibility service is listening
+            accessibilityHelper.invalidateVirtualView(mole.id)
+        }
+    }
+
+    @Suppress("DEPRECATION")
+    private fun invalidateCell(cell: Int) {
+        // Hardware-accelerated windows redraw the whole view regardless, which is still one
+        // display list and no layout
+        invalidate(cellRects[cell])
+    }
+
+    private fun cellAt(x: Int, y: Int): Int {
+        for (i in cellRects.indices) {
+            if (cellRects[i].contains(x, y)) {
+                return i
+            }
+        }
+        return -1
+    }
+
+    private fun describeCell(cell: Int): String {
+        val color = cellColors[cell]
+        return if (color == null) {
+            resources.getString(R.string.mole_cell_empty, cell + 1)
+        } else {
+            resources.getString(R.string.mole_cell_visible, cell + 1,
+                resources.getString(colorName(color)))
+        }
+    }
+
+    /**
+     * Exposes each cell to accessibility services as a clickable virtual view.
+     */
+    private inner class CellAccessibilityHelper : ExploreByTouchHelper(this@MoleGridView) {
+
+        override fun getVirtualViewAt(x: Float, y: Float): Int {
+            val cell = cellAt(x.toInt(), y.toInt())
+            return if (cell >= 0) cell else ExploreByTouchHelper.INVALID_ID
+        }
+
+        override fun getVisibleVirtualViews(virtualViewIds: MutableList<Int>) {
+            for (i in cellColors.indices) {
+                virtualViewIds.add(i)
+            }
+        }
+
+        @Suppress("DEPRECATION")
+        override fun onPopulateNodeForVirtualView(
+            virtualViewId: Int,
+            node: AccessibilityNodeInfoCompat
+        ) {
+            node.contentDescription = describeCell(virtualViewId)
+            // ExploreByTouchHelper requires parent-relative bounds
+            node.setBoundsInParent(cellRects[virtualViewId])
+            node.isClickable = true
+            node.isFocusable = true
+            node.addAction(AccessibilityNodeInfoCompat.AccessibilityActionCompat.ACTION_CLICK)
+        }
+
+        override fun onPerformActionForVirtualView(
+            virtualViewId: Int,
+            action: Int,
+            arguments: Bundle?
+        ): Boolean {
+            if (action != AccessibilityNodeInfoCompat.ACTION_CLICK) {
+                return false
+            }
+            onMoleTapListener?.onMoleTapped(virtualViewId)
+            sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED)
+            return true
+        }
+    }
+
+    private companion object {
+        // The margin around each mole, as a fraction of its cell
+        const val MOLE_INSET = 0.1f
+
+        fun colorResource(color: MoleColor) = when (color) {
+            MoleColor.RED -> R.color.mole_red
+            MoleColor.BLUE -> R.color.mole_blue
+            MoleColor.GREEN -> R.color.mole_green
+            MoleColor.YELLOW -> R.color.mole_yellow
+            MoleColor.PURPLE -> R.color.mole_purple
+        }
+
+        fun colorName(color: MoleColor) = when (color) {
+            MoleColor.RED -> R.string.mole_color_red
+            MoleColor.BLUE -> R.string.mole_color_blue
+            MoleColor.GREEN -> R.string.mole_color_green
+            MoleColor.YELLOW -> R.string.mole_color_yellow
+            MoleColor.PURPLE -> R.string.mole_color_purple
+        }
+    }
+}
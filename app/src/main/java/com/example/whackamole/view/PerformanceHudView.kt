@@ -0,0 +1,284 @@
+package com.example.whackamole.view
+
+import android.content.Context
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.Typeface
+import android.os.Debug
+import android.util.AttributeSet
+import android.util.TypedValue
+import android.view.Choreographer
+import android.view.View
+import com.example.whackamole.metrics.FixedHistogram
+import com.example.whackamole.metrics.GameMetrics
+
+/**
+ * A debug overlay showing how smoothly the game screen runs, for diagnosing jank on a device
+ * without a profiler: the frame rate and frame times, how late spawns run, the current spawn
+ * interval, how long the screen's observers take to apply an update, and garbage collections.
+ *
+ * Frames are timed with a [Choreographer] callback for as long as the view is visible. The
+ * figures are refreshed twice a second, over the frames and [GameMetrics] values of the last
+ * half second, so the overlay itself only redraws twice a second. Refreshing and drawing reuse
+ * the same buffers and do not allocate, apart from reading the GC counters, and the view's size
+ * is fixed, so showing it never triggers a layout pass of the game screen.
+ *
+ * While visible, the overlay enables its [metrics] if they were disabled, and disables them
+ * again when hidden.
+ */
+class PerformanceHudView @JvmOverloads constructor(
+    context: Context,
+    attrs: AttributeSet? = null
+) : View(context, attrs), Choreographer.FrameCallback {
+
+    /**
+     * The metrics whose spawn jitter and dispatch times are shown.
+     */
+    var metrics: GameMetrics = GameMetrics.DISABLED
+        set(value) {
+            field = value
+            spawnJitter = HistogramWindow(value.spawnJitter)
+            dispatchTime = HistogramWindow(value.dispatchTime)
+        }
+
+    /**
+     * The spawn interval to show, in milliseconds. Shown from the next refresh.
+     */
+    var currentInterval = 0L
+
+    private val textPaint = Paint(Paint.ANTI_ALIAS_FLAG).apply {
+        color = 0xFFFFFFFF.toInt()
+        typeface = Typeface.MONOSPACE
+        textSize = TypedValue.applyDimension(
+            TypedValue.COMPLEX_UNIT_SP, TEXT_SIZE_SP, resources.displayMetrics)
+    }
+    private val backgroundPaint = Paint().apply { color = BACKGROUND_COLOR }
+    private val padding = TypedValue.applyDimension(
+        TypedValue.COMPLEX_UNIT_DIP, PADDING_DP, resources.displayMetrics)
+    private val lineHeight = textPaint.fontSpacing
+    private val lines = Array(LINE_COUNT) { StringBuilder(LINE_CAPACITY) }
+    private var spawnJitter = HistogramWindow(metrics.spawnJitter)
+    private var dispatchTime = HistogramWindow(metrics.dispatchTime)
+
+    private var monitoring = false
+    private var enabledMetrics = false
+    private var lastFrameNanos = 0L
+    private var windowStartNanos = 0L
+    private var windowFrames = 0
+    private var windowWorstNanos = 0L
+    private var lastGcCount = 0L
+
+    /**
+     * Sizes the overlay for its widest possible line, so it never changes size.
+     */
+    override fun onMeasure(widthMeasureSpec: Int, heightMeasureSpec: Int) {
+        val width = textPaint.measureText(WIDEST_LINE) + 2 * padding
+        val height = LINE_COUNT * lineHeight + 2 * padding
+        setMeasuredDimension(
+            resolveSize(Math.ceil(width.toDouble()).toInt(), widthMeasureSpec),
+            resolveSize(Math.ceil(height.toDouble()).toInt(), heightMeasureSpec))
+    }
+
+    override fun onDraw(canvas: Canvas) {
+        canvas.drawRect(0f, 0f, width.toFloat(), height.toFloat(), backgroundPaint)
+        var baseline = padding - textPaint.ascent()
+        for (line in lines) {
+            canvas.drawText(line, 0, line.length, padding, baseline, textPaint)
+            baseline += lineHeight
+        }
+    }
+
+    /**
+     * Starts timing frames when the overlay becomes visible, and stops when it is hidden or
+     * detached.
+     */
+    override fun onVisibilityAggregated(isVisible: Boolean) {
+        super.onVisibilityAggregated(isVisible)
+        if (isVisible) {
+            startMonitoring()
+        } else {
+            stopMonitoring()
+        }
+    }
+
+    override fun onDetachedFromWindow() {
+        stopMonitoring()
+        super.onDetachedFromWindow()
+    }
+
+    /**
+     * Counts one frame, and refreshes the figures once the current window is over.
+     *
+     * @param frameTimeNanos When the frame started rendering.
+     */
+    override fun doFrame(frameTimeNanos: Long) {
+        if (!monitoring) {
+            return
+        }
+        if (lastFrameNanos == 0L) {
+            windowStartNanos = frameTimeNanos
+        } else {
+            windowFrames++
+            windowWorstNanos = maxOf(windowWorstNanos, frameTimeNanos - lastFrameNanos)
+        }
+        lastFrameNanos = frameTimeNanos
+        if (frameTimeNanos - windowStartNanos >= WINDOW_NANOS) {
+            refresh(frameTimeNanos - windowStartNanos)
+            windowStartNanos = frameTimeNanos
+            windowFrames = 0
+            windowWorstNanos = 0
+            invalidate()
+        }
+        Choreographer.getInstance().postFrameCallback(this)
+    }
+
+    private fun startMonitoring() {
+        if (monitoring) {
+            return
+        }
+        monitoring = true
+        if (!metrics.isEnabled && metrics !== GameMetrics.DISABLED) {
+            metrics.isEnabled = true
+            enabledMetrics = true
+        }
+        lastFrameNanos = 0
+        windowFrames = 0
+        windowWorstNanos = 0
+        lastGcCount = gcCount()
+        spawnJitter.update()
+        dispatchTime.update()
+        lines.forEach { it.setLength(0) }
+        lines[0].append("measuring...")
+        Choreographer.getInstance().postFrameCallback(this)
+    }
+
+    private fun stopMonitoring() {
+        if (!monitoring) {
+            return
+        }
+        monitoring = false
+        Choreographer.getInstance().removeFrameCallback(this)
+        if (enabledMetrics) {
+            metrics.isEnabled = false
+            enabledMetrics = false
+        }
+    }
+
+    /**
+     * Rewrites every line from the window that just ended.
+     */
+    private fun refresh(windowNanos: Long) {
+        val frames = lines[0]
+        frames.setLength(0)
+        frames.append("FPS ")
+        appendTenths(frames, windowFrames * 10_000_000_000L / windowNanos)
+        frames.append("  frame ")
+        appendTenths(frames, if (windowFrames == 0) 0L else windowNanos / windowFrames / 100_000)
+        frames.append(" ms  worst ")
+        appendTenths(frames, windowWorstNanos / 100_000)
+        frames.append(" ms")
+
+        spawnJitter.update()
+        appendWindow(lines[1], "spawn jitter", spawnJitter)
+
+        val interval = lines[2]
+        interval.setLength(0)
+        interval.append("interval ").append(currentInterval).append(" ms")
+
+        dispatchTime.update()
+        appendWindow(lines[3], "dispatch", dispatchTime)
+
+        val gcCount = gcCount()
+        val gc = lines[4]
+        gc.setLength(0)
+        gc.append("GC ").append(gcCount).append(" (+").append(gcCount - lastGcCount)
+            .append(")  blocking ").append(runtimeStat(BLOCKING_GC_COUNT_STAT))
+        lastGcCount = gcCount
+    }
+
+    private fun appendWindow(line: StringBuilder, label: String, window: HistogramWindow) {
+        line.setLength(0)
+        line.append(label).append(" p50 ")
+        appendMicros(line, window.valueAtPercentile(50.0))
+        line.append("  p99 ")
+        appendMicros(line, window.valueAtPercentile(99.0))
+        line.append("  n=").append(window.count)
+    }
+
+    /**
+     * The values a [FixedHistogram] recorded since the previous [update], found by keeping the
+     * previous bucket counts.
+     */
+    private class HistogramWindow(private val histogram: FixedHistogram) {
+
+        private val previous = LongArray(histogram.bucketCount)
+        private val window = LongArray(histogram.bucketCount)
+
+        var count = 0L
+            private set
+
+        fun update() {
+            count = 0
+            for (i in window.indices) {
+                val total = histogram.getBucketValue(i)
+                window[i] = total - previous[i]
+                previous[i] = total
+                count += window[i]
+            }
+        }
+
+        /**
+         * @return The upper bound of the bucket the percentile falls in, the overall maximum for
+         * the overflow bucket, or 0 if the window is empty.
+         */
+        fun valueAtPercentile(percentile: Double): Long {
+            if (count == 0L) {
+                return 0
+            }
+            val rank = maxOf(1L, Math.ceil(percentile / 100 * count).toLong())
+            var seen = 0L
+            for (i in 0 until window.size - 1) {
+                seen += window[i]
+                if (seen >= rank) {
+                    return histogram.getBucketBound(i)
+                }
+            }
+            return histogram.max
+        }
+    }
+
+    private companion object {
+        const val LINE_COUNT = 5
+        const val LINE_CAPACITY = 64
+        const val WIDEST_LINE = "spawn jitter p50 10000.0 ms  p99 10000.0 ms  n=00000"
+        const val TEXT_SIZE_SP = 11f
+        const val PADDING_DP = 6f
+        val BACKGROUND_COLOR = 0xB3000000.toInt()
+        const val WINDOW_NANOS = 500_000_000L
+        const val GC_COUNT_STAT = "art.gc.gc-count"
+        const val BLOCKING_GC_COUNT_STAT = "art.gc.blocking-gc-count"
+
+        fun gcCount() = runtimeStat(GC_COUNT_STAT)
+
+        fun runtimeStat(name: String) = Debug.getRuntimeStat(name)?.toLongOrNull() ?: 0L
+
+        /**
+         * Appends a value given in tenths with one decimal place.
+         */
+        fun appendTenths(line: StringBuilder, tenths: Long) {
+            line.append(tenths / 10).append('.').append(tenths % 10)
+        }
+
+        /**
+         * Appends microseconds, switching to milliseconds from 1 ms.
+         */
+        fun appendMicros(line: StringBuilder, micros: Long) {
+            if (micros < 1000) {
+                line.append(micros).append(" us")
+            } else {
+                appendTenths(line, micros / 100)
+                line.append(" ms")
+            }
+        }
+    }
+}
@@ -2,205 +2,362 @@ package com.example.whackamole.viewmodel;
 
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.SavedStateHandle;
 import androidx.lifecycle.ViewModel;
 
+import com.example.whackamole.engine.GameEngine;
+import com.example.whackamole.engine.HighScoreStore;
+import com.example.whackamole.engine.SessionTrace;
+import com.example.whackamole.metrics.GameMetrics;
 import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.GameState;
+import com.example.whackamole.model.LeaderboardEntry;
+import com.example.whackamole.model.MoleColor;
 import com.example.whackamole.model.MoleContainer;
+import com.example.whackamole.model.SavedGame;
 import com.example.whackamole.repository.GameRepository;
+import com.example.whackamole.repository.LeaderboardRepository;
+import com.example.whackamole.repository.fake.FakeLeaderboardRepository;
+import com.example.whackamole.util.MpscIntQueue;
+import com.example.whackamole.util.RandomSource;
 import com.example.whackamole.util.Scheduler;
+import com.example.whackamole.util.random.XoroshiroRandomSource;
 
+import java.util.List;
 import java.util.Objects;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 /**
- * Manages the core logic, state, and data for the Whack-a-Mole game screen.
+ * Exposes the Whack-a-Mole game to the game screen.
  * <p>
- * This ViewModel is responsible for:
+ * The game rules themselves live in the platform-independent {@link GameEngine}; this ViewModel is
+ * a thin adapter that:
  * <ul>
- *   <li>Starting and stopping the game loop that spawns moles.</li>
- *   <li>Tracking the player's score, misses, and the current high score.</li>
- *   <li>Handling user interactions, such as hitting a mole.</li>
- *   <li>Managing the game-over state.</li>
- *   <li>Persisting the high score using a {@link GameRepository}.</li>
- *   <li>Resetting the game to a fresh state.</li>
+ *   <li>Starts the engine and stops it when the ViewModel is cleared.</li>
+ *   <li>Forwards user interactions, such as hitting a mole, to the engine.</li>
+ *   <li>Bridges high score persistence between the engine and a {@link GameRepository}, and
+ *       flushes it at game over.</li>
+ *   <li>Records every finished session in a {@link LeaderboardRepository}, and optionally
+ *       every session's inputs in a {@link SessionTrace} so it can be replayed.</li>
+ *   <li>Publishes the engine's state transitions as {@link GameState} snapshots.</li>
  * </ul>
- * It exposes game state to the UI (the Activity) via {@link LiveData} objects, ensuring that the
- * UI is always in sync with the underlying game data and that the logic is decoupled from the view.
+ * It exposes game state to the UI (the Activity) as a single {@link LiveData} stream of immutable
+ * {@link GameState}s, published once per transition, so the UI never sees a torn combination of
+ * fields. Per-field selectors such as {@link #getScore()} derive from that stream and only notify
+ * their observers when their field actually changes; read without an observer, they return the
+ * field of the latest state.
+ * <p>
+ * Created through {@link androidx.lifecycle.ViewModelProvider}, the ViewModel and its running
+ * engine outlive configuration changes such as rotation. To also survive the process being killed
+ * in the background, the session's seed, score, misses, spawn interval and visible moles are kept
+ * in a {@link SavedStateHandle}; a ViewModel created from a handle holding a saved game continues
+ * that game instead of starting a new one. See {@link GameEngine#restore(SavedGame)}.
+ * <p>
+ * The engine runs on its {@link Scheduler}'s thread. If that is the thread creating this ViewModel
+ * (the main thread in the app, or a fake scheduler in tests), calls go straight to the engine and
+ * state is published with {@code setValue}. Otherwise the engine runs on a background thread: user
+ * input is handed over through a lock-free queue, and state is published with {@code postValue},
+ * which coalesces updates the UI has not drawn yet. The engine is then also restored and started
+ * on its thread, so until that has run the UI sees the engine's initial state.
  */
 public class GameViewModel extends ViewModel {
 
-    private final Random random = new Random();
-
-    private final GameConfig gameConfig;
+    private static final int INPUT_QUEUE_CAPACITY = 64;
+    private static final int RESET_COMMAND = -1;
+    private static final String KEY_SESSION_SEED = "sessionSeed";
+    private static final String KEY_SCORE = "score";
+    private static final String KEY_MISSES = "misses";
+    private static final String KEY_GAME_OVER = "gameOver";
+    private static final String KEY_CURRENT_INTERVAL = "currentInterval";
+    private static final String KEY_VISIBLE_MOLE_IDS = "visibleMoleIds";
+    private static final String KEY_VISIBLE_COLORS = "visibleColors";
+
+    private final GameEngine engine;
     private final GameRepository gameRepository;
+    private final LeaderboardRepository leaderboardRepository;
     private final Scheduler scheduler;
-    private final Runnable spawnRunnable = this::spawnMole;
+    private final SavedStateHandle savedState;
+    private final Observer<GameState> stateSaver = this::saveState;
+    private final boolean engineOnCallerThread;
+    private final MpscIntQueue inputQueue = new MpscIntQueue(INPUT_QUEUE_CAPACITY);
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Runnable drainRunnable = this::drainInput;
     private final LiveData<Integer> highScore;
-    private final MutableLiveData<Integer> score;
-    private final MutableLiveData<Boolean> gameOver;
-    private final MutableLiveData<MoleContainer> moles;
-    private final MutableLiveData<Integer> misses;
-    private long currentInterval;
+    private final LiveData<List<LeaderboardEntry>> leaderboard;
+    private final MutableLiveData<GameState> state;
+    // The state published before a saved game is restored on the engine thread, which must not
+    // replace the saved game in the handle; only accessed on the main thread
+    private GameState unrestoredState;
+    private final LiveData<Integer> score;
+    private final LiveData<Boolean> gameOver;
+    private final LiveData<MoleContainer> moles;
+    private final LiveData<Integer> misses;
 
     /**
-     * Constructs a GameViewModel with a default game configuration.
-     *
-     * @param gameRepository The repository for handling high score persistence.
-     * @param scheduler      The scheduler for managing timed events like mole spawning.
+     * Builds a GameViewModel. Only the high score repository and the engine's scheduler are
+     * required. By default the game uses {@link GameConfig#DEFAULT} with a random first seed,
+     * records finished sessions on an in-memory leaderboard, saves its game in a new handle, and
+     * neither traces sessions nor records metrics.
      */
-    public GameViewModel(GameRepository gameRepository, Scheduler scheduler) {
-        this(gameRepository, scheduler, GameConfig.DEFAULT);
+    public static final class Builder {
+
+        private final GameRepository gameRepository;
+        private final Scheduler scheduler;
+        private LeaderboardRepository leaderboardRepository = new FakeLeaderboardRepository();
+        private GameConfig gameConfig = GameConfig.DEFAULT;
+        private RandomSource random = new XoroshiroRandomSource(0);
+        private long seed = ThreadLocalRandom.current().nextLong();
+        private SavedStateHandle savedState = new SavedStateHandle();
+        private SessionTrace trace = SessionTrace.NONE;
+        private GameMetrics metrics = GameMetrics.DISABLED;
+
+        /**
+         * Constructor
+         *
+         * @param gameRepository The repository for handling high score persistence.
+         * @param scheduler      The scheduler for managing timed events like mole spawning. The
+         *                       ViewModel takes ownership and shuts it down when cleared.
+         */
+        public Builder(GameRepository gameRepository, Scheduler scheduler) {
+            this.gameRepository = gameRepository;
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * @param leaderboardRepository The leaderboard finished sessions are recorded on.
+         * @return This builder.
+         */
+        public Builder leaderboardRepository(LeaderboardRepository leaderboardRepository) {
+            this.leaderboardRepository = leaderboardRepository;
+            return this;
+        }
+
+        /**
+         * @param gameConfig The configuration defining game rules (e.g., number of moles, miss
+         *                   limit).
+         * @return This builder.
+         */
+        public Builder gameConfig(GameConfig gameConfig) {
+            this.gameConfig = gameConfig;
+            return this;
+        }
+
+        /**
+         * @param random The source of the game's randomness, owned by the engine. Tests use this
+         *               with {@link #seed(long)} to make the sequence of moles reproducible.
+         * @return This builder.
+         */
+        public Builder random(RandomSource random) {
+            this.random = random;
+            return this;
+        }
+
+        /**
+         * @param seed The seed for the first session, unless a saved game is continued.
+         * @return This builder.
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @param savedState The handle the game is saved in. A game already saved there is
+         *                   continued instead of starting a new one.
+         * @return This builder.
+         */
+        public Builder savedState(SavedStateHandle savedState) {
+            this.savedState = savedState;
+            return this;
+        }
+
+        /**
+         * @param trace Receives each session's seed, rules, spawns and taps on the engine's
+         *              thread. A continued saved game is not traced.
+         * @return This builder.
+         */
+        public Builder trace(SessionTrace trace) {
+            this.trace = trace;
+            return this;
+        }
+
+        /**
+         * @param metrics Where the engine records its spawn jitter and tap latency.
+         * @return This builder.
+         */
+        public Builder metrics(GameMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Creates the ViewModel and starts its game. Must be called on the main thread.
+         *
+         * @return A new ViewModel.
+         */
+        public GameViewModel build() {
+            return new GameViewModel(this);
+        }
     }
 
     /**
-     * Constructs a GameViewModel with a custom game configuration.
+     * Constructs a GameViewModel from a builder.
      *
-     * @param gameRepository The repository for handling high score persistence.
-     * @param scheduler      The scheduler for managing timed events.
-     * @param gameConfig     The configuration defining game rules (e.g., number of moles, miss limit).
+     * @param builder The ViewModel's dependencies and options.
      */
-    public GameViewModel(GameRepository gameRepository, Scheduler scheduler,
-                         GameConfig gameConfig) {
-        this.gameConfig = gameConfig;
+    private GameViewModel(Builder builder) {
+        GameRepository gameRepository = builder.gameRepository;
+        LeaderboardRepository leaderboardRepository = builder.leaderboardRepository;
+        Scheduler scheduler = builder.scheduler;
+        GameConfig gameConfig = builder.gameConfig;
+        SavedStateHandle savedState = builder.savedState;
         this.gameRepository = gameRepository;
+        this.leaderboardRepository = leaderboardRepository;
         this.scheduler = scheduler;
-
+        this.savedState = savedState;
+        this.engineOnCallerThread = scheduler.isCurrentThread();
         this.highScore = gameRepository.getHighScore();
+        this.leaderboard = leaderboardRepository.getTopSessions(gameConfig.getConfigId());
+        this.engine = new GameEngine.Builder(gameConfig, scheduler, new EngineListener())
+                .highScoreStore(
+                        new RepositoryHighScoreStore(gameRepository, scheduler, engineOnCallerThread))
+                .random(builder.random)
+                .seed(builder.seed)
+                .trace(builder.trace)
+                .metrics(builder.metrics)
+                .build();
+
+        SavedGame savedGame = readSavedGame(savedState);
+        if (engineOnCallerThread) {
+            restoreSavedGame(savedGame);
+        } else if (savedGame != null) {
+            unrestoredState = engine.getState();
+        }
 
-        this.score = new MutableLiveData<>(0);
-        this.gameOver = new MutableLiveData<>(false);
-        this.moles = new MutableLiveData<>(
-                new MoleContainer(gameConfig.getNumMoles(),
-                        random.nextInt(gameConfig.getNumMoles())));
-        this.misses = new MutableLiveData<>(0);
-
-        this.currentInterval = gameConfig.getInitialInterval();
-
-        scheduler.postDelayed(spawnRunnable, gameConfig.getInitialInterval());
+        this.state = new MutableLiveData<>(engine.getState());
+        state.observeForever(stateSaver);
+        this.score = select(GameState::getScore);
+        this.gameOver = select(GameState::isGameOver);
+        this.moles = select(GameState::getMoles);
+        this.misses = select(GameState::getMisses);
+
+        if (engineOnCallerThread) {
+            engine.start();
+        } else {
+            scheduler.postDelayed(() -> {
+                if (savedGame != null) {
+                    restoreSavedGame(savedGame);
+                    state.postValue(engine.getState());
+                }
+                engine.start();
+            }, 0);
+        }
     }
 
     /**
-     * Core game loop action. This method is responsible for advancing the game state when a mole is missed.
-     * It increments the miss counter, checks for game-over conditions, and then selects a new mole
-     * to be visible. It also dynamically adjusts the spawn interval to increase difficulty.
-     * Finally, it schedules the next call to itself.
+     * Continues a saved game, if there is one, on the engine's thread.
      *
-     * @throws IllegalStateException if called after the game is already over.
+     * @param savedGame The game to continue, or null to keep the new game.
      */
-    private void spawnMole() {
-        boolean isGameOver = Objects.requireNonNull(gameOver.getValue());
-        if (isGameOver) {
-            throw new IllegalStateException("spawnMole should never be called after game over.");
-        }
-
-        MoleContainer currentMoles = Objects.requireNonNull(moles.getValue());
-
-        // Increment miss because previous mole was not hit
-        int currentMisses = Objects.requireNonNull(misses.getValue());
-        misses.setValue(currentMisses + 1);
-
-        if (misses.getValue() >= gameConfig.getMaxMisses()) {
-            gameOver.setValue(true);
-            scheduler.removeCallbacks(spawnRunnable);
+    private void restoreSavedGame(SavedGame savedGame) {
+        if (savedGame == null) {
             return;
         }
-
-        // Pick new mole ID avoiding previous one
-        int newVisibleId = random.nextInt(gameConfig.getNumMoles() - 1);
-        newVisibleId = newVisibleId >= currentMoles.getVisibleId() ? newVisibleId + 1 : newVisibleId;
-
-        moles.setValue(new MoleContainer(gameConfig.getNumMoles(), newVisibleId));
-
-        // Speed up interval
-        currentInterval = Math.max(gameConfig.getMinInterval(),
-                currentInterval - gameConfig.getIntervalDecrement());
-
-        // Schedule next spawn
-        scheduler.removeCallbacks(spawnRunnable);
-        scheduler.postDelayed(spawnRunnable, currentInterval);
+        try {
+            engine.restore(savedGame);
+        } catch (IllegalArgumentException e) {
+            // Saved under a different configuration; start a new game instead
+        }
     }
 
     /**
-     * Processes a user's tap on a mole.
-     * If the correct mole is hit, the score is incremented, the high score is updated if necessary,
-     * and the game loop is reset for the next mole. If the wrong mole is hit, the action is ignored.
+     * Processes a user's tap on a mole. See {@link GameEngine#hitMole(int)}.
+     * <p>
+     * When the engine runs on a background thread, the tap is queued for it instead, and taps that
+     * arrive after the game has ended are ignored rather than reported.
      *
      * @param moleId The ID of the mole that was tapped.
      * @throws IllegalStateException if called after the game is already over.
      */
     public void hitMole(int moleId) {
-        boolean isGameOver = Objects.requireNonNull(gameOver.getValue());
-        if (isGameOver) {
-            throw new IllegalStateException("hitMole should not be called after game over.");
-        }
-
-        MoleContainer currentMoles = Objects.requireNonNull(moles.getValue());
-        int currentScore = Objects.requireNonNull(score.getValue());
-        int currentHighScore = Objects.requireNonNull(highScore.getValue());
-
-        if (currentMoles.getVisibleId() != moleId) {
-            return;
-        }
-
-        // Increment score
-        int newScore = currentScore + currentMoles.getMoles().get(moleId).getColor().getPoints();
-        score.setValue(newScore);
-
-        // Update high score if needed
-        if (newScore > currentHighScore) {
-            gameRepository.saveHighScore(newScore);
-
+        if (engineOnCallerThread) {
+            engine.hitMole(moleId);
+        } else {
+            submit(moleId);
         }
-
-        // Pick new mole ID
-        int newVisibleId = random.nextInt(gameConfig.getNumMoles() - 1);
-        newVisibleId = newVisibleId >= currentMoles.getVisibleId() ? newVisibleId + 1 : newVisibleId;
-        moles.setValue(new MoleContainer(gameConfig.getNumMoles(), newVisibleId));
-
-        // Speed up interval
-        currentInterval = Math.max(gameConfig.getMinInterval(),
-                currentInterval - gameConfig.getIntervalDecrement());
-
-        // Reset spawn timer
-        scheduler.removeCallbacks(spawnRunnable);
-        scheduler.postDelayed(spawnRunnable, currentInterval);
     }
 
     /**
      * Resets the game to its initial state, allowing the player to start a new session.
-     * This method should only be called after the game is over.
-     * It resets the score, misses, and mole positions, and restarts the spawn scheduler.
+     * See {@link GameEngine#resetGame()}.
+     * <p>
+     * When the engine runs on a background thread, the reset is queued for it instead.
      *
      * @throws IllegalStateException if called while the game is still active.
      */
     public void resetGame() {
-        boolean isGameOver = Objects.requireNonNull(gameOver.getValue());
-        if (!isGameOver) {
-            throw new IllegalStateException("resetGame should only be called after game over.");
+        if (engineOnCallerThread) {
+            engine.resetGame();
+        } else {
+            submit(RESET_COMMAND);
         }
+    }
 
-        misses.setValue(0);
-        currentInterval = gameConfig.getInitialInterval();
+    /**
+     * Queues a command for the engine thread and makes sure a drain is scheduled.
+     * Commands that do not fit in the queue are dropped.
+     *
+     * @param command A mole ID to hit, or {@link #RESET_COMMAND}.
+     */
+    private void submit(int command) {
+        if (inputQueue.offer(command) && drainScheduled.compareAndSet(false, true)) {
+            scheduler.postDelayed(drainRunnable, 0);
+        }
+    }
 
-        score.setValue(0);
-        gameOver.setValue(false);
-        moles.setValue(new MoleContainer(gameConfig.getNumMoles(), random.nextInt(
-                gameConfig.getNumMoles())));
+    /**
+     * Runs on the engine thread and applies every queued command. Commands that are no longer
+     * valid by the time the engine sees them (e.g. a tap that raced with game over) are skipped.
+     */
+    private void drainInput() {
+        // Clear first, so a command queued after the last poll schedules another drain
+        drainScheduled.set(false);
+        int command;
+        while ((command = inputQueue.poll()) != MpscIntQueue.EMPTY) {
+            if (command == RESET_COMMAND) {
+                if (engine.isGameOver()) {
+                    engine.resetGame();
+                }
+            } else if (!engine.isGameOver()) {
+                engine.hitMole(command);
+            }
+        }
+    }
 
-        scheduler.postDelayed(spawnRunnable, currentInterval);
+    /**
+     * @return A LiveData stream of the complete {@link GameState}, updated once per transition.
+     * The UI observes this when it needs several fields that must be consistent with each other,
+     * such as the grid snapshot together with the cells that changed.
+     */
+    public LiveData<GameState> getState() {
+        return state;
     }
 
     /**
-     * @return A LiveData stream of the {@link MoleContainer}, which holds the state of all moles.
-     * The UI observes this to draw the moles on the screen.
+     * @return A selector on {@link #getState()} for the {@link MoleContainer}, which holds the state
+     * of all moles. It only notifies observers when the grid changes.
      */
     public LiveData<MoleContainer> getMoles() {
         return moles;
     }
 
     /**
-     * @return A LiveData stream of the current score.
+     * @return A selector on {@link #getState()} for the current score.
      * The UI observes this to display the player's score in real-time.
      */
     public LiveData<Integer> getScore() {
@@ -216,7 +373,15 @@ public class GameViewModel extends ViewModel {
     }
 
     /**
-     * @return A LiveData stream indicating whether the game is over.
+     * @return A LiveData stream of the best finished sessions played under this game's
+     * configuration, best first.
+     */
+    public LiveData<List<LeaderboardEntry>> getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * @return A selector on {@link #getState()} indicating whether the game is over.
      * The UI observes this to show or hide game-over screens or dialogs.
      */
     public LiveData<Boolean> getGameOver() {
@@ -224,20 +389,189 @@ public class GameViewModel extends ViewModel {
     }
 
     /**
-     * @return A LiveData stream of the current number of misses.
+     * @return A selector on {@link #getState()} for the current number of misses.
      * The UI observes this to show the player how many misses they have left.
      */
     public LiveData<Integer> getMisses() {
         return misses;
     }
 
+    /**
+     * Writes any buffered high score to storage. The UI calls this when leaving the game screen.
+     * See {@link GameRepository#flush()}.
+     */
+    public void flushHighScore() {
+        gameRepository.flush();
+    }
+
     /**
      * This method is called when the ViewModel is about to be destroyed.
-     * It cleans up resources by removing any pending callbacks from the scheduler,
-     * preventing memory leaks and stopping the game loop after the ViewModel is no longer in use.
+     * It flushes the high score and shuts down the scheduler, removing any pending callbacks and
+     * releasing its thread, preventing memory leaks and stopping the game loop after the ViewModel
+     * is no longer in use.
      */
     @Override
     protected void onCleared() {
-        scheduler.removeCallbacksAndMessages(null);
+        state.removeObserver(stateSaver);
+        gameRepository.flush();
+        scheduler.shutdown();
+    }
+
+    /**
+     * Keeps the saved game in the handle up to date. Runs on the main thread for every state
+     * the UI receives.
+     *
+     * @param newState The state to save.
+     */
+    private void saveState(GameState newState) {
+        if (newState == unrestoredState) {
+            return;
+        }
+        unrestoredState = null;
+        SavedGame savedGame = SavedGame.of(newState);
+        MoleColor[] colors = savedGame.getVisibleColors();
+        int[] colorOrdinals = new int[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            colorOrdinals[i] = colors[i].ordinal();
+        }
+        savedState.set(KEY_SESSION_SEED, savedGame.getSessionSeed());
+        savedState.set(KEY_SCORE, savedGame.getScore());
+        savedState.set(KEY_MISSES, savedGame.getMisses());
+        savedState.set(KEY_GAME_OVER, savedGame.isGameOver());
+        savedState.set(KEY_CURRENT_INTERVAL, savedGame.getCurrentInterval());
+        savedState.set(KEY_VISIBLE_MOLE_IDS, savedGame.getVisibleMoleIds());
+        savedState.set(KEY_VISIBLE_COLORS, colorOrdinals);
+    }
+
+    /**
+     * Reads the game saved by {@link #saveState(GameState)}.
+     *
+     * @param savedState The handle to read from.
+     * @return The saved game, or null if the handle holds none or it is incomplete.
+     */
+    private static SavedGame readSavedGame(SavedStateHandle savedState) {
+        Long sessionSeed = savedState.get(KEY_SESSION_SEED);
+        Integer score = savedState.get(KEY_SCORE);
+        Integer misses = savedState.get(KEY_MISSES);
+        Boolean gameOver = savedState.get(KEY_GAME_OVER);
+        Long currentInterval = savedState.get(KEY_CURRENT_INTERVAL);
+        int[] visibleMoleIds = savedState.get(KEY_VISIBLE_MOLE_IDS);
+        int[] colorOrdinals = savedState.get(KEY_VISIBLE_COLORS);
+        if (sessionSeed == null || score == null || misses == null || gameOver == null
+                || currentInterval == null || visibleMoleIds == null || colorOrdinals == null
+                || colorOrdinals.length != visibleMoleIds.length) {
+            return null;
+        }
+
+        MoleColor[] allColors = MoleColor.values();
+        MoleColor[] colors = new MoleColor[colorOrdinals.length];
+        for (int i = 0; i < colorOrdinals.length; i++) {
+            if (colorOrdinals[i] < 0 || colorOrdinals[i] >= allColors.length) {
+                return null;
+            }
+            colors[i] = allColors[colorOrdinals[i]];
+        }
+        return new SavedGame(sessionSeed, score, misses, gameOver, currentInterval,
+                visibleMoleIds, colors);
+    }
+
+    /**
+     * Derives a LiveData for one field of the state that only notifies when that field changes.
+     * Must be called on the main thread.
+     *
+     * @param selector Extracts the field from a state.
+     * @return LiveData of the selected field.
+     */
+    private <T> LiveData<T> select(Function<GameState, T> selector) {
+        Selector<T> selected = new Selector<>(state, selector);
+        selected.addSource(state, newState -> {
+            T value = selector.apply(newState);
+            if (!Objects.equals(selected.getValue(), value)) {
+                selected.setValue(value);
+            }
+        });
+        return selected;
+    }
+
+    /**
+     * A selector on the state stream. A MediatorLiveData only follows its source while it has
+     * active observers, so while it has none, reads derive the field from the current state
+     * instead of returning the value it last saw.
+     *
+     * @param <T> The type of the selected field.
+     */
+    private static final class Selector<T> extends MediatorLiveData<T> {
+
+        private final LiveData<GameState> source;
+        private final Function<GameState, T> selector;
+
+        Selector(LiveData<GameState> source, Function<GameState, T> selector) {
+            this.source = source;
+            this.selector = selector;
+            setValue(selector.apply(Objects.requireNonNull(source.getValue())));
+        }
+
+        @Override
+        public T getValue() {
+            if (hasActiveObservers()) {
+                return super.getValue();
+            }
+            return selector.apply(Objects.requireNonNull(source.getValue()));
+        }
+    }
+
+    /**
+     * Publishes engine state transitions to the UI, from whichever thread the engine runs on.
+     */
+    private final class EngineListener implements GameEngine.Listener {
+
+        @Override
+        public void onStateChanged(GameState newState) {
+            if (newState.isGameOver()) {
+                gameRepository.flush();
+                leaderboardRepository.recordSession(new LeaderboardEntry(newState.getScore(),
+                        engine.getGameConfig().getConfigId(),
+                        scheduler.uptimeMillis() - engine.getSessionStartTime(),
+                        System.currentTimeMillis()));
+            }
+            if (engineOnCallerThread) {
+                state.setValue(newState);
+            } else {
+                state.postValue(newState);
+            }
+        }
+    }
+
+    /**
+     * Adapts a {@link GameRepository} to the engine's {@link HighScoreStore}. On a background
+     * engine thread, reads wait for the repository to load the high score, so a game never starts
+     * from 0 and counts its first hit as a new high score; on the main thread they return what the
+     * repository has so far.
+     */
+    private static final class RepositoryHighScoreStore implements HighScoreStore {
+
+        private final GameRepository gameRepository;
+        private final Scheduler scheduler;
+        private final boolean engineOnCallerThread;
+
+        RepositoryHighScoreStore(GameRepository gameRepository, Scheduler scheduler,
+                                 boolean engineOnCallerThread) {
+            this.gameRepository = gameRepository;
+            this.scheduler = scheduler;
+            this.engineOnCallerThread = engineOnCallerThread;
+        }
+
+        @Override
+        public int getHighScore() {
+            if (!engineOnCallerThread && scheduler.isCurrentThread()) {
+                return gameRepository.awaitHighScore();
+            }
+            return Objects.requireNonNull(gameRepository.getHighScore().getValue());
+        }
+
+        @Override
+        public void saveHighScore(int score) {
+            gameRepository.saveHighScore(score);
+        }
     }
 }
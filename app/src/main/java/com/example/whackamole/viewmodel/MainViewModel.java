@@ -25,10 +25,10 @@ public class MainViewModel extends ViewModel {
     }
 
     /**
-     * Clears the high score by setting it to 0 in the repository.
+     * Clears the high score by resetting it to 0 in the repository.
      */
     public void clearHighScore() {
-        gameRepository.saveHighScore(0);
+        gameRepository.clearHighScore();
     }
 
     /**
@@ -0,0 +1,117 @@
+package com.example.whackamole.viewmodel;
+
+import androidx.lifecycle.SavedStateHandle;
+import androidx.lifecycle.SavedStateHandleSupport;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.viewmodel.CreationExtras;
+
+import com.example.whackamole.engine.SessionTrace;
+import com.example.whackamole.metrics.GameMetrics;
+import com.example.whackamole.repository.GameRepository;
+import com.example.whackamole.repository.LeaderboardRepository;
+import com.example.whackamole.util.Scheduler;
+
+import java.util.function.Supplier;
+
+/**
+ * Creates the app's ViewModels around the shared {@link GameRepository}, so every screen reads
+ * and writes the same high score. A {@link GameViewModel} created through a
+ * {@link ViewModelProvider} also gets a {@link SavedStateHandle}, so its game survives the process
+ * being killed in the background.
+ */
+public class WhackAMoleViewModelFactory implements ViewModelProvider.Factory {
+
+    private final GameRepository gameRepository;
+    private final LeaderboardRepository leaderboardRepository;
+    private final Supplier<Scheduler> engineSchedulers;
+    private final Supplier<? extends SessionTrace> sessionTraces;
+    private final GameMetrics metrics;
+
+    /**
+     * Constructor
+     *
+     * @param gameRepository        the repository shared by every ViewModel
+     * @param leaderboardRepository the leaderboard every game records its sessions on
+     * @param engineSchedulers      creates a new scheduler for each {@link GameViewModel}, which
+     *                              takes ownership of it
+     * @param sessionTraces         creates a new trace for each {@link GameViewModel}, which is
+     *                              only called on that game's engine thread
+     */
+    public WhackAMoleViewModelFactory(GameRepository gameRepository,
+                                      LeaderboardRepository leaderboardRepository,
+                                      Supplier<Scheduler> engineSchedulers,
+                                      Supplier<? extends SessionTrace> sessionTraces) {
+        this(gameRepository, leaderboardRepository, engineSchedulers, sessionTraces,
+                GameMetrics.DISABLED);
+    }
+
+    /**
+     * Constructor for a factory whose games record their engine metrics.
+     *
+     * @param gameRepository        the repository shared by every ViewModel
+     * @param leaderboardRepository the leaderboard every game records its sessions on
+     * @param engineSchedulers      creates a new scheduler for each {@link GameViewModel}, which
+     *                              takes ownership of it
+     * @param sessionTraces         creates a new trace for each {@link GameViewModel}, which is
+     *                              only called on that game's engine thread
+     * @param metrics               where every game's engine records its spawn jitter and tap
+     *                              latency
+     */
+    public WhackAMoleViewModelFactory(GameRepository gameRepository,
+                                      LeaderboardRepository leaderboardRepository,
+                                      Supplier<Scheduler> engineSchedulers,
+                                      Supplier<? extends SessionTrace> sessionTraces,
+                                      GameMetrics metrics) {
+        this.gameRepository = gameRepository;
+        this.leaderboardRepository = leaderboardRepository;
+        this.engineSchedulers = engineSchedulers;
+        this.sessionTraces = sessionTraces;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Creates a ViewModel of the given class, with a new, empty saved state.
+     *
+     * @param modelClass {@link MainViewModel} or {@link GameViewModel}
+     * @return a new ViewModel
+     * @throws IllegalArgumentException if the class is not one this factory creates
+     */
+    @Override
+    public <T extends ViewModel> T create(Class<T> modelClass) {
+        return newViewModel(modelClass, new SavedStateHandle());
+    }
+
+    /**
+     * Creates a ViewModel of the given class for a {@link ViewModelProvider}, with the saved state
+     * of its owner.
+     *
+     * @param modelClass {@link MainViewModel} or {@link GameViewModel}
+     * @param extras     the provider's extras, which identify the owner
+     * @return a new ViewModel
+     * @throws IllegalArgumentException if the class is not one this factory creates
+     */
+    @Override
+    public <T extends ViewModel> T create(Class<T> modelClass, CreationExtras extras) {
+        if (modelClass == GameViewModel.class) {
+            return newViewModel(modelClass, SavedStateHandleSupport.createSavedStateHandle(extras));
+        }
+        return create(modelClass);
+    }
+
+    private <T extends ViewModel> T newViewModel(Class<T> modelClass,
+                                                 SavedStateHandle savedState) {
+        if (modelClass == MainViewModel.class) {
+            return modelClass.cast(new MainViewModel(gameRepository));
+        }
+        if (modelClass == GameViewModel.class) {
+            return modelClass.cast(new GameViewModel.Builder(gameRepository, engineSchedulers.get())
+                    .leaderboardRepository(leaderboardRepository)
+                    .savedState(savedState)
+                    .trace(sessionTraces.get())
+                    .metrics(metrics)
+                    .build());
+        }
+        throw new IllegalArgumentException("Unknown ViewModel class: " + modelClass.getName());
+    }
+}
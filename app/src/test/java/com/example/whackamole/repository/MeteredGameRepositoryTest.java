@@ -0,0 +1,47 @@
+package com.example.whackamole.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.example.whackamole.metrics.GameMetrics;
+import com.example.whackamole.repository.fake.FakeGameRepository;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class MeteredGameRepositoryTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    /**
+     * Test that writes pass through and are timed only while the metrics are enabled.
+     * <p>
+     * Strategy:
+     * - Save, clear and flush through disabled metrics and verify storage changed but nothing
+     *   was recorded.
+     * - Enable the metrics and verify every write is recorded, and reads are not.
+     */
+    @Test
+    public void testWritesAreTimedWhileEnabled() {
+        FakeGameRepository storage = new FakeGameRepository(3);
+        GameMetrics metrics = new GameMetrics(false);
+        MeteredGameRepository repository = new MeteredGameRepository(storage, metrics);
+
+        assertSame(storage.getHighScore(), repository.getHighScore());
+        repository.saveHighScore(9);
+        repository.flush();
+        assertEquals(Integer.valueOf(9), storage.getHighScore().getValue());
+        assertEquals(0, metrics.getRepositoryWriteTime().getCount());
+
+        metrics.setEnabled(true);
+        repository.saveHighScore(12);
+        repository.clearHighScore();
+        repository.flush();
+        repository.getHighScore();
+        assertEquals(Integer.valueOf(0), storage.getHighScore().getValue());
+        assertEquals(3, metrics.getRepositoryWriteTime().getCount());
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.whackamole.repository.real;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.example.whackamole.storage.HighScoreFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class BinaryFileGameRepositoryTest {
+
+    private static final long NEVER_MS = TimeUnit.HOURS.toMillis(1);
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private ScheduledExecutorService ioExecutor;
+    private File path;
+
+    @Before
+    public void setUp() throws IOException {
+        ioExecutor = Executors.newSingleThreadScheduledExecutor();
+        path = File.createTempFile("high_score", ".bin");
+        path.delete();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        ioExecutor.shutdownNow();
+        ioExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        path.delete();
+    }
+
+    /**
+     * Test that a run of saves is held in memory and written once, on flush.
+     * <p>
+     * Strategy:
+     * - Save several increasing scores with a write window that never closes during the test.
+     * - Verify the LiveData shows the latest at once, but the file still holds the loaded score.
+     * - Flush, and verify the file holds the latest score.
+     */
+    @Test
+    public void testSavesAreCoalescedUntilFlush() throws Exception {
+        storeHighScore(5);
+        BinaryFileGameRepository repository =
+                new BinaryFileGameRepository(path, null, ioExecutor, NEVER_MS);
+        awaitIo();
+
+        for (int score = 6; score <= 20; score++) {
+            repository.saveHighScore(score);
+        }
+        awaitIo();
+        assertEquals(Integer.valueOf(20), repository.getHighScore().getValue());
+        assertEquals(5, readHighScore());
+
+        repository.flush();
+        awaitIo();
+        assertEquals(20, readHighScore());
+    }
+
+    /**
+     * Test that the latest score is written when the write window closes, without a flush.
+     * <p>
+     * Strategy:
+     * - Save two scores with a short write window.
+     * - Wait past the window and verify the file holds the second score.
+     */
+    @Test
+    public void testWriteWindowWritesLatestScore() throws Exception {
+        storeHighScore(5);
+        BinaryFileGameRepository repository =
+                new BinaryFileGameRepository(path, null, ioExecutor, 10);
+
+        repository.saveHighScore(8);
+        repository.saveHighScore(9);
+        Thread.sleep(50);
+        awaitIo();
+        assertEquals(9, readHighScore());
+    }
+
+    /**
+     * Test that a score saved before the load finished does not replace a higher stored score.
+     * <p>
+     * Strategy:
+     * - Block the I/O executor so the load is deferred, and save a score lower than the stored
+     *   one.
+     * - Unblock, flush, and verify both the file and the LiveData keep the stored score.
+     */
+    @Test
+    public void testSaveBeforeLoadKeepsHigherStoredScore() throws Exception {
+        storeHighScore(30);
+        CountDownLatch release = new CountDownLatch(1);
+        ioExecutor.execute(() -> awaitQuietly(release));
+        BinaryFileGameRepository repository =
+                new BinaryFileGameRepository(path, null, ioExecutor, NEVER_MS);
+
+        repository.saveHighScore(12);
+        release.countDown();
+        repository.flush();
+        awaitIo();
+        assertEquals(30, readHighScore());
+        assertEquals(Integer.valueOf(30), repository.getHighScore().getValue());
+    }
+
+    /**
+     * Test that clearing discards a score still waiting to be written.
+     * <p>
+     * Strategy:
+     * - Save a score, clear, then flush, and verify the file holds 0.
+     */
+    @Test
+    public void testClearDiscardsPendingScore() throws Exception {
+        storeHighScore(5);
+        BinaryFileGameRepository repository =
+                new BinaryFileGameRepository(path, null, ioExecutor, NEVER_MS);
+
+        repository.saveHighScore(40);
+        repository.clearHighScore();
+        repository.flush();
+        awaitIo();
+        assertEquals(0, readHighScore());
+        assertEquals(Integer.valueOf(0), repository.getHighScore().getValue());
+    }
+
+    private void storeHighScore(int score) throws IOException {
+        HighScoreFile file = HighScoreFile.open(path);
+        file.write(score);
+        file.close();
+    }
+
+    private int readHighScore() throws IOException {
+        HighScoreFile file = HighScoreFile.open(path);
+        try {
+            return file.getHighScore();
+        } finally {
+            file.close();
+        }
+    }
+
+    private void awaitIo() throws Exception {
+        ioExecutor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,33 +5,65 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.SavedStateHandle;
 
 import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.GameState;
+import com.example.whackamole.model.LeaderboardEntry;
+import com.example.whackamole.model.MissedTickPolicy;
+import com.example.whackamole.model.MoleColorDistribution;
 import com.example.whackamole.model.MoleContainer;
 import com.example.whackamole.repository.fake.FakeGameRepository;
+import com.example.whackamole.repository.fake.FakeLeaderboardRepository;
+import com.example.whackamole.repository.real.BinaryFileGameRepository;
+import com.example.whackamole.session.RecordedSession;
+import com.example.whackamole.session.SessionLog;
+import com.example.whackamole.session.SessionLogWriter;
+import com.example.whackamole.session.SessionRecorder;
+import com.example.whackamole.session.SessionReplayer;
+import com.example.whackamole.storage.HighScoreFile;
 import com.example.whackamole.util.fake.FakeScheduler;
+import com.example.whackamole.util.virtual.VirtualScheduler;
 
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class GameViewModelTest {
 
     @Rule
     public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private FakeGameRepository fakeGameRepository;
     private FakeScheduler fakeScheduler;
     private GameViewModel gameViewModel;
 
+    private static GameState state(GameViewModel viewModel) {
+        return Objects.requireNonNull(viewModel.getState().getValue());
+    }
+
     @Before
     public void setup() {
         fakeGameRepository = new FakeGameRepository(0);
         fakeScheduler = new FakeScheduler();
-        gameViewModel = new GameViewModel(fakeGameRepository, fakeScheduler,
-                new GameConfig(1, 5, 1000, 100, 50));
+        gameViewModel = new GameViewModel.Builder(fakeGameRepository, fakeScheduler)
+                .gameConfig(new GameConfig(1, 5, 1000, 100, 50))
+                .build();
     }
 
     /**
@@ -124,4 +156,339 @@ public class GameViewModelTest {
         assertFalse(Objects.requireNonNull(gameViewModel.getGameOver().getValue()));
         assertTrue(Objects.requireNonNull(gameViewModel.getMoles().getValue()).getVisibleId() >= 0);
     }
+
+    /**
+     * Test that input is queued for the engine thread when the engine runs on another thread.
+     * <p>
+     * Strategy:
+     * - Use a scheduler that reports the caller is not on its thread.
+     * - Hit the visible mole and verify the score has not changed yet.
+     * - Let the scheduler run the queued input and verify the score was updated.
+     * - End the game, then tap again and verify the late tap is ignored instead of throwing.
+     */
+    @Test
+    public void testHitMoleIsQueuedWhenEngineRunsOnAnotherThread() {
+        VirtualScheduler engineThread = new VirtualScheduler() {
+            @Override
+            public boolean isCurrentThread() {
+                return false;
+            }
+        };
+        GameViewModel threaded = new GameViewModel.Builder(new FakeGameRepository(0), engineThread)
+                .gameConfig(new GameConfig(1, 5, 1000, 100, 50))
+                .build();
+
+        MoleContainer moles = Objects.requireNonNull(threaded.getMoles().getValue());
+        int visibleId = moles.getVisibleId();
+        int expectedPoints = moles.getMoles().get(visibleId).getColor().getPoints();
+
+        threaded.hitMole(visibleId);
+        assertEquals(0, Objects.requireNonNull(threaded.getScore().getValue()).intValue());
+
+        engineThread.advanceBy(0);
+        assertEquals(expectedPoints,
+                Objects.requireNonNull(threaded.getScore().getValue()).intValue());
+
+        engineThread.runNext();
+        assertTrue(Objects.requireNonNull(threaded.getGameOver().getValue()));
+        threaded.hitMole(0);
+        engineThread.advanceBy(0);
+        assertTrue(Objects.requireNonNull(threaded.getGameOver().getValue()));
+    }
+
+    /**
+     * Test that a hit is published as one consistent state.
+     * <p>
+     * Strategy:
+     * - Observe the state stream and the score and misses selectors.
+     * - Hit the visible mole.
+     * - Verify the state was dispatched once, with score and moles from the same transition.
+     * - Verify the score selector fired and the unchanged misses selector did not.
+     */
+    @Test
+    public void testHitPublishesSingleConsistentState() {
+        List<GameState> states = new ArrayList<>();
+        List<Integer> scores = new ArrayList<>();
+        List<Integer> missCounts = new ArrayList<>();
+        gameViewModel.getState().observeForever(states::add);
+        gameViewModel.getScore().observeForever(scores::add);
+        gameViewModel.getMisses().observeForever(missCounts::add);
+        states.clear();
+        scores.clear();
+        missCounts.clear();
+
+        int visibleId = state(gameViewModel).getMoles().getVisibleId();
+        gameViewModel.hitMole(visibleId);
+
+        assertEquals(1, states.size());
+        GameState published = states.get(0);
+        assertTrue(published.getScore() > 0);
+        assertTrue(published.getMoles().getVisibleId() != visibleId);
+        assertEquals(published.getMoles().getVersion(), published.getMoleChanges().getVersion());
+        assertEquals(List.of(published.getScore()), scores);
+        assertTrue(missCounts.isEmpty());
+    }
+
+    /**
+     * Test that several visible moles are published and can each be hit.
+     * <p>
+     * Strategy:
+     * - Use a config with up to four visible moles and a long lifetime.
+     * - Advance until four moles are up and verify the published grid.
+     * - Hit every visible mole and verify the grid empties without misses.
+     */
+    @Test
+    public void testSeveralVisibleMoles() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        GameViewModel viewModel = new GameViewModel.Builder(fakeGameRepository, scheduler)
+                .gameConfig(new GameConfig(3, 9, 100, 100, 0, MissedTickPolicy.SKIP,
+                        MoleColorDistribution.UNIFORM, 4, 10_000))
+                .build();
+
+        scheduler.advanceTo(1000);
+        MoleContainer moles = state(viewModel).getMoles();
+        assertEquals(4, moles.getVisibleCount());
+
+        for (int i = 0; i < moles.getMoles().size(); i++) {
+            if (moles.getMoles().get(i).isVisible()) {
+                viewModel.hitMole(i);
+            }
+        }
+
+        assertEquals(0, state(viewModel).getMoles().getVisibleCount());
+        assertEquals(0, state(viewModel).getMisses());
+        assertTrue(state(viewModel).getScore() >= 4);
+    }
+
+    /**
+     * Test that a game saved in a SavedStateHandle is continued by a new ViewModel, as after the
+     * process was killed in the background.
+     * <p>
+     * Strategy:
+     * - Play a game with a handle: one hit and one miss.
+     * - Create a new ViewModel, on a new scheduler, from the same handle.
+     * - Verify it shows the same score, misses, interval, seed and mole, and keeps playing.
+     */
+    @Test
+    public void testSavedGameIsRestored() {
+        SavedStateHandle handle = new SavedStateHandle();
+        GameConfig config = new GameConfig(3, 5, 1000, 100, 50);
+        FakeScheduler scheduler = new FakeScheduler();
+        GameViewModel viewModel = new GameViewModel.Builder(fakeGameRepository, scheduler)
+                .gameConfig(config)
+                .seed(42)
+                .savedState(handle)
+                .build();
+        viewModel.hitMole(state(viewModel).getMoles().getVisibleId());
+        scheduler.runNext();
+        GameState saved = state(viewModel);
+
+        FakeScheduler newScheduler = new FakeScheduler();
+        GameViewModel restored = new GameViewModel.Builder(fakeGameRepository, newScheduler)
+                .gameConfig(config)
+                .seed(7)
+                .savedState(handle)
+                .build();
+        GameState state = state(restored);
+
+        assertEquals(saved.getScore(), state.getScore());
+        assertEquals(1, state.getMisses());
+        assertEquals(saved.getCurrentInterval(), state.getCurrentInterval());
+        assertEquals(42, state.getSessionSeed());
+        assertEquals(saved.getMoles().getVisibleId(), state.getMoles().getVisibleId());
+        assertEquals(1, newScheduler.pendingTasks());
+
+        newScheduler.runNext();
+        assertEquals(2, state(restored).getMisses());
+        assertEquals(Integer.valueOf(2), handle.get("misses"));
+    }
+
+    /**
+     * Test that a saved game is restored and started on the engine's thread when the engine runs
+     * on another thread.
+     * <p>
+     * Strategy:
+     * - Play a game with a handle: one hit.
+     * - Create a new ViewModel from the same handle, on a scheduler that reports the caller is
+     *   not on its thread.
+     * - Verify nothing ran on the engine yet: it shows a new game, with no spawn scheduled, and
+     *   the handle still holds the saved game.
+     * - Let the scheduler run and verify the saved game was continued and its spawn scheduled.
+     */
+    @Test
+    public void testSavedGameIsRestoredOnEngineThread() {
+        SavedStateHandle handle = new SavedStateHandle();
+        GameConfig config = new GameConfig(3, 5, 1000, 100, 50);
+        GameViewModel viewModel = new GameViewModel.Builder(fakeGameRepository, new FakeScheduler())
+                .gameConfig(config)
+                .seed(42)
+                .savedState(handle)
+                .build();
+        viewModel.hitMole(state(viewModel).getMoles().getVisibleId());
+        int savedScore = state(viewModel).getScore();
+
+        VirtualScheduler engineThread = new VirtualScheduler() {
+            @Override
+            public boolean isCurrentThread() {
+                return false;
+            }
+        };
+        GameViewModel restored = new GameViewModel.Builder(fakeGameRepository, engineThread)
+                .gameConfig(config)
+                .seed(7)
+                .savedState(handle)
+                .build();
+        assertEquals(0, state(restored).getScore());
+        assertEquals(1, engineThread.pendingTasks());
+        assertEquals(Integer.valueOf(savedScore), handle.get("score"));
+
+        engineThread.advanceBy(0);
+        assertEquals(savedScore, state(restored).getScore());
+        assertEquals(42, state(restored).getSessionSeed());
+        assertEquals(1, engineThread.pendingTasks());
+        assertEquals(Integer.valueOf(savedScore), handle.get("score"));
+    }
+
+    /**
+     * Test that an engine on its own thread starts from the stored high score even when the
+     * repository has not loaded it yet.
+     * <p>
+     * Strategy:
+     * - Store a high score of 30 in a binary file, and block the repository's I/O executor so
+     *   the load is deferred.
+     * - Create a ViewModel whose engine runs on another thread, and verify it shows 0 so far.
+     * - Start the engine on its thread while the load is still blocked, releasing it shortly
+     *   after from a third thread.
+     * - Verify the engine waited and publishes 30, and a first hit is not saved as a new high
+     *   score.
+     */
+    @Test
+    public void testEngineThreadWaitsForHighScoreLoad() throws Exception {
+        File path = folder.newFile("high_score.bin");
+        HighScoreFile file = HighScoreFile.open(path);
+        file.write(30);
+        file.close();
+        ScheduledExecutorService ioExecutor = Executors.newSingleThreadScheduledExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        ioExecutor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        BinaryFileGameRepository repository = new BinaryFileGameRepository(path, null, ioExecutor);
+
+        AtomicBoolean onEngineThread = new AtomicBoolean();
+        VirtualScheduler engineThread = new VirtualScheduler() {
+            @Override
+            public boolean isCurrentThread() {
+                return onEngineThread.get();
+            }
+        };
+        GameViewModel viewModel = new GameViewModel.Builder(repository, engineThread)
+                .gameConfig(new GameConfig(1, 5, 1000, 100, 50))
+                .build();
+        assertEquals(0, state(viewModel).getHighScore());
+
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        }).start();
+        onEngineThread.set(true);
+        engineThread.advanceBy(0);
+        assertEquals(30, state(viewModel).getHighScore());
+
+        viewModel.hitMole(state(viewModel).getMoles().getVisibleId());
+        engineThread.advanceBy(0);
+        assertTrue(state(viewModel).getScore() > 0);
+        assertEquals(30, state(viewModel).getHighScore());
+        assertEquals(30, repository.awaitHighScore());
+
+        ioExecutor.shutdownNow();
+        ioExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Test that a finished session is recorded on the leaderboard for its config.
+     * <p>
+     * Strategy:
+     * - Play a game on a virtual clock: score once, then let the moles run out the misses.
+     * - Verify one session was recorded with the final score, the config's ID and the time
+     *   played, and that it shows up in the ViewModel's leaderboard.
+     */
+    @Test
+    public void testFinishedSessionIsRecorded() {
+        FakeLeaderboardRepository leaderboardRepository = new FakeLeaderboardRepository();
+        VirtualScheduler scheduler = new VirtualScheduler();
+        GameConfig config = new GameConfig(2, 5, 1000, 1000, 0);
+        GameViewModel viewModel = new GameViewModel.Builder(fakeGameRepository, scheduler)
+                .leaderboardRepository(leaderboardRepository)
+                .gameConfig(config)
+                .seed(42)
+                .build();
+
+        viewModel.hitMole(state(viewModel).getMoles().getVisibleId());
+        int score = state(viewModel).getScore();
+        scheduler.advanceTo(5000);
+        assertTrue(state(viewModel).isGameOver());
+
+        List<LeaderboardEntry> sessions = leaderboardRepository.getSessions();
+        assertEquals(1, sessions.size());
+        assertEquals(score, sessions.get(0).getScore());
+        assertEquals(config.getConfigId(), sessions.get(0).getConfigId());
+        assertEquals(2000, sessions.get(0).getDurationMs());
+        assertEquals(sessions, viewModel.getLeaderboard().getValue());
+    }
+
+    /**
+     * Test that a session recorded through the ViewModel replays through a new one.
+     * <p>
+     * Strategy:
+     * - Play two sessions on a virtual clock with a recorder writing to a session log, tapping
+     *   the visible mole or a wrong one at irregular times.
+     * - Read the log back and replay each session through a new ViewModel on the replay's clock.
+     * - Verify both replays match and reach the recorded scores.
+     */
+    @Test
+    public void testRecordedSessionReplaysThroughViewModel() throws IOException {
+        File logPath = new File(folder.getRoot(), "sessions.log");
+        SessionLogWriter writer = new SessionLogWriter(logPath);
+        VirtualScheduler scheduler = new VirtualScheduler();
+        GameViewModel viewModel = new GameViewModel.Builder(fakeGameRepository, scheduler)
+                .seed(7)
+                .trace(new SessionRecorder(writer, Runnable::run))
+                .build();
+
+        List<Integer> scores = new ArrayList<>();
+        for (int tap = 0; scores.size() < 2; tap++) {
+            scheduler.advanceBy(150 + (tap * 97) % 600);
+            GameState state = state(viewModel);
+            if (state.isGameOver()) {
+                scores.add(state.getScore());
+                viewModel.resetGame();
+            } else {
+                viewModel.hitMole(tap % 4 == 0 ? (tap / 4) % 9 : state.getMoles().getVisibleId());
+            }
+        }
+        writer.close();
+
+        List<RecordedSession> sessions = SessionLog.read(logPath);
+        assertEquals(2, sessions.size());
+        for (int i = 0; i < sessions.size(); i++) {
+            SessionReplayer.Result result = SessionReplayer.replay(sessions.get(i),
+                    (gameConfig, seed, replayScheduler, trace) -> new GameViewModel.Builder(
+                            new FakeGameRepository(0), replayScheduler)
+                            .gameConfig(gameConfig)
+                            .seed(seed)
+                            .trace(trace)
+                            .build()::hitMole);
+            assertTrue(result.isMatch());
+            assertEquals(scores.get(i).intValue(), result.getReplayedScore());
+        }
+    }
 }
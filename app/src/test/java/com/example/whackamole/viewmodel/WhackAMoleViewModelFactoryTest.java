@@ -0,0 +1,81 @@
+package com.example.whackamole.viewmodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.ViewModel;
+
+import com.example.whackamole.engine.SessionTrace;
+import com.example.whackamole.repository.fake.FakeGameRepository;
+import com.example.whackamole.repository.fake.FakeLeaderboardRepository;
+import com.example.whackamole.util.fake.FakeScheduler;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Objects;
+
+public class WhackAMoleViewModelFactoryTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantExecutorRule = new InstantTaskExecutorRule();
+
+    private FakeGameRepository repository;
+    private int schedulersCreated;
+    private WhackAMoleViewModelFactory factory;
+
+    @Before
+    public void setUp() {
+        repository = new FakeGameRepository(5);
+        factory = new WhackAMoleViewModelFactory(repository, new FakeLeaderboardRepository(),
+                () -> {
+                    schedulersCreated++;
+                    return new FakeScheduler();
+                }, () -> SessionTrace.NONE);
+    }
+
+    /**
+     * Test that both screens see one high score.
+     * <p>
+     * Strategy:
+     * - Create the main and game ViewModels from the same factory.
+     * - Change the high score from the game side and verify the main side sees it, then clear
+     *   it from the main side and verify the game side sees that.
+     */
+    @Test
+    public void testViewModelsShareHighScore() {
+        MainViewModel mainViewModel = factory.create(MainViewModel.class);
+        GameViewModel gameViewModel = factory.create(GameViewModel.class);
+
+        repository.saveHighScore(12);
+        assertEquals(12, value(mainViewModel.getHighScore()));
+        assertEquals(12, value(gameViewModel.getHighScore()));
+
+        mainViewModel.clearHighScore();
+        assertEquals(0, value(gameViewModel.getHighScore()));
+    }
+
+    /**
+     * Test that every game gets a scheduler of its own.
+     */
+    @Test
+    public void testEachGameGetsNewScheduler() {
+        factory.create(GameViewModel.class);
+        factory.create(GameViewModel.class);
+        factory.create(MainViewModel.class);
+
+        assertEquals(2, schedulersCreated);
+    }
+
+    @Test
+    public void testUnknownClassIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> factory.create(ViewModel.class));
+    }
+
+    private static int value(LiveData<Integer> liveData) {
+        return Objects.requireNonNull(liveData.getValue());
+    }
+}
@@ -0,0 +1,40 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Benchmarks live in src/jmh/java; run with ./gradlew :engine:jmh
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    profilers = listOf("gc")
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+}
+
+// Replays session logs and reports sessions whose score does not match what the engine produces:
+// ./gradlew :engine:verifySessions --args="[--threads N] sessions.log ..."
+tasks.register<JavaExec>("verifySessions") {
+    description = "Replays recorded session logs and reports tampered or divergent sessions."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.whackamole.session.BatchVerifier")
+}
+
+// Hosts game sessions for clients on localhost, printing sessions per core and tick latency:
+// ./gradlew :engine:runServer --args="[--port N] [--loops N]"
+tasks.register<JavaExec>("runServer") {
+    description = "Runs the headless multi-session game server."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.whackamole.server.GameServer")
+}
+
+dependencies {
+
+    compileOnly(libs.androidx.annotation)
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,97 @@
+package com.example.whackamole.benchmark;
+
+import com.example.whackamole.engine.GameEngine;
+import com.example.whackamole.engine.HighScoreStore;
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.GameState;
+import com.example.whackamole.model.MoleColor;
+import com.example.whackamole.model.MoleContainer;
+import com.example.whackamole.model.MoleGrid;
+import com.example.whackamole.util.RandomSource;
+import com.example.whackamole.util.fake.FakeScheduler;
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the game loop: next-mole selection on its own, and full spawn and hit transitions
+ * driven through a {@link GameEngine} with a {@link FakeScheduler}.
+ */
+@State(Scope.Thread)
+public class GameLoopBenchmark {
+
+    @Param({"9", "100", "10000"})
+    public int numMoles;
+
+    private final RandomSource random = new XoroshiroRandomSource(42);
+    private MoleGrid grid;
+    private FakeScheduler scheduler;
+    private GameEngine engine;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        grid = new MoleGrid(numMoles, 0, MoleColor.RED);
+        scheduler = new FakeScheduler();
+        // Effectively endless game, so spawns never hit game over
+        GameConfig config = new GameConfig(Integer.MAX_VALUE, numMoles, 2000, 500, 100);
+        engine = new GameEngine.Builder(config, scheduler, new BlackholeListener(blackhole))
+                .highScoreStore(new BlackholeHighScoreStore(blackhole))
+                .build();
+        engine.start();
+    }
+
+    @Benchmark
+    public int nextMoleSelection() {
+        return grid.randomHiddenId(random);
+    }
+
+    @Benchmark
+    public MoleContainer spawnMole() {
+        scheduler.runNext();
+        return engine.getMoles();
+    }
+
+    @Benchmark
+    public int hitMole() {
+        engine.hitMole(engine.getMoles().getVisibleId());
+        return engine.getScore();
+    }
+
+    private static final class BlackholeHighScoreStore implements HighScoreStore {
+
+        private final Blackhole blackhole;
+
+        BlackholeHighScoreStore(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public int getHighScore() {
+            return 0;
+        }
+
+        @Override
+        public void saveHighScore(int score) {
+            blackhole.consume(score);
+        }
+    }
+
+    private static final class BlackholeListener implements GameEngine.Listener {
+
+        private final Blackhole blackhole;
+
+        BlackholeListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onStateChanged(GameState state) {
+            blackhole.consume(state);
+        }
+    }
+}
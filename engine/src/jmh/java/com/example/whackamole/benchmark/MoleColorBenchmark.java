@@ -0,0 +1,85 @@
+package com.example.whackamole.benchmark;
+
+import com.example.whackamole.model.MoleColor;
+import com.example.whackamole.model.MoleColorDistribution;
+import com.example.whackamole.util.RandomSource;
+import com.example.whackamole.util.random.AliasTable;
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures color selection, uniform and weighted, both per draw and per grid (one draw for every mole, which is what
+ * building a full {@link com.example.whackamole.model.MoleContainer} costs).
+ */
+@State(Scope.Thread)
+public class MoleColorBenchmark {
+
+    @Param({"9", "100", "10000"})
+    public int numMoles;
+
+    private final RandomSource random = new XoroshiroRandomSource(42);
+    private final Random javaUtilRandom = new Random(42);
+    private final MoleColorDistribution weighted = new MoleColorDistribution(Map.of(
+            MoleColor.RED, 2, MoleColor.BLUE, 4, MoleColor.GREEN, 6, MoleColor.YELLOW, 8,
+            MoleColor.PURPLE, 1));
+    private AliasTable table;
+
+    /**
+     * Builds an alias table with one uneven weight per mole, to show that sampling cost does not
+     * depend on the number of entries.
+     */
+    @Setup
+    public void setup() {
+        double[] weights = new double[numMoles];
+        for (int i = 0; i < numMoles; i++) {
+            weights[i] = 1 + i % 10;
+        }
+        table = new AliasTable(weights);
+    }
+
+    @Benchmark
+    public MoleColor randomColor() {
+        return MoleColor.randomColor();
+    }
+
+    @Benchmark
+    public MoleColor randomColorWithRandomSource() {
+        return MoleColor.randomColor(random);
+    }
+
+    @Benchmark
+    public MoleColor weightedColor() {
+        return weighted.sample(random);
+    }
+
+    @Benchmark
+    public int aliasTableSample() {
+        return table.sample(random);
+    }
+
+    @Benchmark
+    public int javaUtilRandomNextInt() {
+        return javaUtilRandom.nextInt(numMoles);
+    }
+
+    @Benchmark
+    public int randomSourceNextInt() {
+        return random.nextInt(numMoles);
+    }
+
+    @Benchmark
+    public void randomColorPerMole(Blackhole blackhole) {
+        for (int i = 0; i < numMoles; i++) {
+            blackhole.consume(MoleColor.randomColor());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.whackamole.benchmark;
+
+import com.example.whackamole.model.MoleColor;
+import com.example.whackamole.model.MoleContainer;
+import com.example.whackamole.model.MoleGrid;
+import com.example.whackamole.util.RandomSource;
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the cost of producing the grid state handed to the UI: building a {@link MoleContainer}
+ * from scratch versus updating a {@link MoleGrid} in place and taking a snapshot, with one or
+ * several moles visible.
+ */
+@State(Scope.Thread)
+public class MoleContainerBenchmark {
+
+    private static final int MAX_VISIBLE_MOLES = 4;
+
+    @Param({"9", "100", "10000"})
+    public int numMoles;
+
+    private final RandomSource random = new XoroshiroRandomSource(42);
+    private MoleGrid grid;
+    private MoleGrid multiGrid;
+
+    @Setup
+    public void setup() {
+        grid = new MoleGrid(numMoles, 0, MoleColor.RED);
+        multiGrid = new MoleGrid(numMoles, 0, MoleColor.RED);
+    }
+
+    @Benchmark
+    public MoleContainer construct() {
+        return new MoleContainer(numMoles, random.nextInt(numMoles));
+    }
+
+    @Benchmark
+    public MoleContainer showAndSnapshot() {
+        grid.show(grid.randomHiddenId(random), MoleColor.randomColor(random));
+        return grid.snapshot();
+    }
+
+    @Benchmark
+    public MoleContainer revealAndSnapshot() {
+        if (multiGrid.getVisibleCount() == MAX_VISIBLE_MOLES) {
+            multiGrid.hide(multiGrid.getVisibleIdAt(0));
+        }
+        multiGrid.reveal(multiGrid.randomHiddenId(random), MoleColor.randomColor(random));
+        return multiGrid.snapshot();
+    }
+}
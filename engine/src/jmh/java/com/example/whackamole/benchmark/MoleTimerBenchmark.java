@@ -0,0 +1,61 @@
+package com.example.whackamole.benchmark;
+
+import com.example.whackamole.util.Scheduler;
+import com.example.whackamole.util.TimerHandle;
+import com.example.whackamole.util.virtual.VirtualScheduler;
+import com.example.whackamole.util.wheel.HashedWheelScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures per-mole timer cost with numMoles timers pending: moving one expiry, on a heap-backed
+ * scheduler versus a {@link HashedWheelScheduler} over it, with a remove-then-post pair versus a
+ * {@link TimerHandle}.
+ */
+@State(Scope.Thread)
+public class MoleTimerBenchmark {
+
+    @Param({"9", "100", "10000"})
+    public int numMoles;
+
+    @Param({"heap", "wheel"})
+    public String timers;
+
+    private Scheduler scheduler;
+    private Runnable[] tasks;
+    private TimerHandle[] timerHandles;
+    private int next;
+
+    @Setup
+    public void setup() {
+        VirtualScheduler clock = new VirtualScheduler();
+        scheduler = "wheel".equals(timers) ? new HashedWheelScheduler(clock, 16, 512) : clock;
+        tasks = new Runnable[numMoles];
+        timerHandles = new TimerHandle[numMoles];
+        for (int i = 0; i < numMoles; i++) {
+            tasks[i] = () -> { };
+            scheduler.postDelayed(tasks[i], 1000 + i);
+            timerHandles[i] = scheduler.newTimer(tasks[i]);
+            timerHandles[i].reschedule(1000 + i);
+        }
+    }
+
+    @Benchmark
+    public void rescheduleExpiry() {
+        Runnable task = tasks[next];
+        next = next + 1 == numMoles ? 0 : next + 1;
+        scheduler.removeCallbacks(task);
+        scheduler.postDelayed(task, 1000 + next);
+    }
+
+    @Benchmark
+    public void rescheduleTimerHandle() {
+        TimerHandle timer = timerHandles[next];
+        next = next + 1 == numMoles ? 0 : next + 1;
+        timer.reschedule(1000 + next);
+    }
+}
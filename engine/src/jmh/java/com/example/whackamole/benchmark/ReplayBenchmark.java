@@ -0,0 +1,88 @@
+package com.example.whackamole.benchmark;
+
+import com.example.whackamole.engine.GameEngine;
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.session.BatchVerifier;
+import com.example.whackamole.session.SessionLogWriter;
+import com.example.whackamole.session.SessionRecorder;
+import com.example.whackamole.util.virtual.VirtualScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how {@link BatchVerifier} throughput scales with worker threads. Each operation is one
+ * session replayed, so the score reads as sessions per second; with linear scaling it doubles
+ * with every doubling of parallelism, up to the number of cores.
+ */
+@State(Scope.Benchmark)
+public class ReplayBenchmark {
+
+    private static final int FILES = 8;
+    private static final int SESSIONS_PER_FILE = 250;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private final List<File> logs = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            File log = File.createTempFile("sessions", ".log");
+            try (SessionLogWriter writer = new SessionLogWriter(log)) {
+                record(writer, i);
+            }
+            logs.add(log);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File log : logs) {
+            log.delete();
+        }
+        logs.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES * SESSIONS_PER_FILE)
+    public BatchVerifier.Report verify() {
+        return new BatchVerifier(parallelism).verify(logs);
+    }
+
+    /**
+     * Plays sessions of the default game with a player who hits three moles in four, 300ms after
+     * each spawn.
+     */
+    private static void record(SessionLogWriter writer, long seed) {
+        Random taps = new Random(seed);
+        VirtualScheduler scheduler = new VirtualScheduler();
+        GameEngine engine = new GameEngine.Builder(GameConfig.DEFAULT, scheduler, state -> { })
+                .seed(seed)
+                .trace(new SessionRecorder(writer, Runnable::run))
+                .build();
+        engine.start();
+        int sessions = 0;
+        while (sessions < SESSIONS_PER_FILE) {
+            scheduler.advanceTo(engine.getNextSpawnTime() + 300);
+            if (engine.isGameOver()) {
+                sessions++;
+                engine.resetGame();
+            } else if (taps.nextInt(4) > 0) {
+                engine.hitMole(engine.getMoles().getVisibleId());
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.whackamole.benchmark;
+
+import com.example.whackamole.engine.GameEngine;
+import com.example.whackamole.engine.HighScoreStore;
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.GameState;
+import com.example.whackamole.storage.HighScoreFile;
+import com.example.whackamole.util.fake.FakeScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Measures high score writes: the store on its own, and a record-breaking hit (every hit beats the
+ * high score, so every hit writes) through a {@link GameEngine}. The "file" store writes a
+ * {@link HighScoreFile} without syncing, as the app does between lifecycle flushes.
+ */
+@State(Scope.Thread)
+public class RepositoryBenchmark {
+
+    @Param({"9", "100", "10000"})
+    public int numMoles;
+
+    @Param({"memory", "file"})
+    public String store;
+
+    private HighScoreStore highScoreStore;
+    private GameEngine engine;
+    private int nextScore;
+
+    @Setup
+    public void setup() {
+        highScoreStore = createStore(store);
+        GameConfig config = new GameConfig(Integer.MAX_VALUE, numMoles, 2000, 500, 100);
+        engine = new GameEngine.Builder(config, new FakeScheduler(), new NoOpListener())
+                .highScoreStore(highScoreStore)
+                .build();
+        engine.start();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (highScoreStore instanceof FileHighScoreStore) {
+            ((FileHighScoreStore) highScoreStore).close();
+        }
+    }
+
+    @Benchmark
+    public void saveHighScore() {
+        highScoreStore.saveHighScore(++nextScore);
+    }
+
+    @Benchmark
+    public int recordBreakingHit() {
+        engine.hitMole(engine.getMoles().getVisibleId());
+        return highScoreStore.getHighScore();
+    }
+
+    private static HighScoreStore createStore(String store) {
+        switch (store) {
+            case "memory":
+                return new MemoryHighScoreStore();
+            case "file":
+                return new FileHighScoreStore();
+            default:
+                throw new IllegalArgumentException("Unknown store: " + store);
+        }
+    }
+
+    private static final class MemoryHighScoreStore implements HighScoreStore {
+
+        private volatile int highScore;
+
+        @Override
+        public int getHighScore() {
+            return highScore;
+        }
+
+        @Override
+        public void saveHighScore(int score) {
+            highScore = score;
+        }
+    }
+
+    private static final class FileHighScoreStore implements HighScoreStore {
+
+        private final File path;
+        private final HighScoreFile file;
+
+        FileHighScoreStore() {
+            try {
+                path = File.createTempFile("high_score", ".bin");
+                file = HighScoreFile.open(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int getHighScore() {
+            return file.getHighScore();
+        }
+
+        @Override
+        public void saveHighScore(int score) {
+            file.write(score);
+        }
+
+        void close() throws IOException {
+            file.close();
+            if (!path.delete()) {
+                path.deleteOnExit();
+            }
+        }
+    }
+
+    private static final class NoOpListener implements GameEngine.Listener {
+
+        @Override
+        public void onStateChanged(GameState state) {
+        }
+    }
+}
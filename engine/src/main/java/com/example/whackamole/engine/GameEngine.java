@@ -0,0 +1,683 @@
+package com.example.whackamole.engine;
+
+import com.example.whackamole.metrics.GameMetrics;
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.GameState;
+import com.example.whackamole.model.MissedTickPolicy;
+import com.example.whackamole.model.MoleChangeSet;
+import com.example.whackamole.model.MoleColor;
+import com.example.whackamole.model.MoleContainer;
+import com.example.whackamole.model.MoleGrid;
+import com.example.whackamole.model.SavedGame;
+import com.example.whackamole.util.RandomSource;
+import com.example.whackamole.util.Scheduler;
+import com.example.whackamole.util.TimerHandle;
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+import com.example.whackamole.util.wheel.HashedWheelScheduler;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Platform-independent core of the Whack-a-Mole game.
+ * <p>
+ * The engine owns all game rules:
+ * <ul>
+ *   <li>Spawning moles on a timer and counting misses when a mole is not hit in time.</li>
+ *   <li>Scoring hits and persisting new high scores through a {@link HighScoreStore}.</li>
+ *   <li>Speeding up the spawn interval as the game progresses.</li>
+ *   <li>Detecting game over and resetting for a new session.</li>
+ * </ul>
+ * Spawns are scheduled at absolute times on the {@link Scheduler}'s monotonic clock rather than
+ * relative to when the previous spawn actually ran, so callback latency does not accumulate into
+ * drift. How spawns that were missed entirely are handled is set by the config's
+ * {@link MissedTickPolicy}.
+ * <p>
+ * When the config allows several visible moles, each spawn pops up another mole with its own
+ * expiry, and a mole that expires before it is hit counts as a miss. Expiries are kept on a
+ * {@link HashedWheelScheduler} layered over the engine's scheduler, so any number of moles costs
+ * O(1) per pop-up, hit and expiry, and a single underlying tick.
+ * <p>
+ * All randomness (which mole appears, and its color) is drawn from a single {@link RandomSource}
+ * that is reseeded at the start of every session. The session's seed is part of each
+ * {@link GameState}, so a session can be reproduced by replaying its inputs with the same seed.
+ * Those inputs are reported to a {@link SessionTrace} as they happen.
+ * <p>
+ * How late each spawn ran and how long each tap took are recorded in {@link GameMetrics}, which
+ * cost one flag check per call while disabled.
+ * <p>
+ * A game can be continued in a new engine with {@link #restore(SavedGame)}, for example after
+ * the process was killed in the background.
+ * <p>
+ * Engines are created with a {@link Builder}. Every state transition is reported to a
+ * {@link Listener} as a single immutable {@link GameState}. The engine is not thread-safe; all
+ * calls, including the callbacks run by its {@link Scheduler}, must happen on a single thread.
+ */
+public final class GameEngine {
+
+    /**
+     * Receives the engine's state transitions. Callbacks are invoked synchronously on the engine's
+     * thread, once per transition (a spawn, a hit or a reset), in the order they happen.
+     */
+    public interface Listener {
+
+        /**
+         * @param state The complete game state after the transition.
+         */
+        void onStateChanged(GameState state);
+    }
+
+    /**
+     * Builds a GameEngine. Only the configuration, scheduler and listener are required; every
+     * other dependency defaults to a no-op or, for randomness, a fresh source and seed.
+     */
+    public static final class Builder {
+
+        private final GameConfig gameConfig;
+        private final Scheduler scheduler;
+        private final Listener listener;
+        private HighScoreStore highScoreStore = HighScoreStore.NONE;
+        private RandomSource random = new XoroshiroRandomSource(0);
+        private long seed = ThreadLocalRandom.current().nextLong();
+        private SessionTrace trace = SessionTrace.NONE;
+        private GameMetrics metrics = GameMetrics.DISABLED;
+
+        /**
+         * Constructor
+         *
+         * @param gameConfig The configuration defining game rules (e.g., number of moles, miss
+         *                   limit).
+         * @param scheduler  The scheduler for managing timed events like mole spawning.
+         * @param listener   The listener notified of every state transition.
+         */
+        public Builder(GameConfig gameConfig, Scheduler scheduler, Listener listener) {
+            this.gameConfig = gameConfig;
+            this.scheduler = scheduler;
+            this.listener = listener;
+        }
+
+        /**
+         * @param highScoreStore The store for handling high score persistence. It is read when
+         *                       the engine is created, when it starts and on every reset; in
+         *                       between the engine tracks the high score itself and only writes
+         *                       to the store. Defaults to {@link HighScoreStore#NONE}.
+         * @return This builder.
+         */
+        public Builder highScoreStore(HighScoreStore highScoreStore) {
+            this.highScoreStore = highScoreStore;
+            return this;
+        }
+
+        /**
+         * @param random The source of all the engine's randomness. It is owned by the engine,
+         *               which reseeds it at the start of every session.
+         * @return This builder.
+         */
+        public Builder random(RandomSource random) {
+            this.random = random;
+            return this;
+        }
+
+        /**
+         * @param seed The seed for the first session. Defaults to a random one.
+         * @return This builder.
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @param trace Receives each session's seed, rules, spawns and taps, so sessions can be
+         *              recorded and replayed. Defaults to {@link SessionTrace#NONE}.
+         * @return This builder.
+         */
+        public Builder trace(SessionTrace trace) {
+            this.trace = trace;
+            return this;
+        }
+
+        /**
+         * @param metrics Where to record how late spawns run and how long taps take. Defaults to
+         *                {@link GameMetrics#DISABLED}.
+         * @return This builder.
+         */
+        public Builder metrics(GameMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @return A new engine. No callbacks are made and no timers are scheduled until
+         * {@link GameEngine#start()} is called.
+         */
+        public GameEngine build() {
+            return new GameEngine(this);
+        }
+    }
+
+    private static final long MOLE_TIMER_TICK_MS = 16;
+    private static final int MOLE_TIMER_WHEEL_SIZE = 512;
+
+    private final GameConfig gameConfig;
+    private final RandomSource random;
+    private final Scheduler scheduler;
+    private final HighScoreStore highScoreStore;
+    private final Listener listener;
+    private final SessionTrace trace;
+    private final GameMetrics metrics;
+    private final TimerHandle spawnTimer;
+    private final MoleGrid moleGrid;
+    private final boolean multiMole;
+    private final HashedWheelScheduler moleTimers;
+    private final TimerHandle[] expiryTimers;
+    private GameState state;
+    private int score;
+    private int highScore;
+    private int misses;
+    private boolean gameOver;
+    private long currentInterval;
+    private long nextSpawnTime;
+    private long sessionSeed;
+    private long sessionStartTime;
+    private boolean restored;
+
+    /**
+     * Constructs a GameEngine from a builder. No callbacks are made and no timers are scheduled
+     * until {@link #start()} is called, so the caller can read the initial state first.
+     *
+     * @param builder The engine's dependencies and options.
+     */
+    private GameEngine(Builder builder) {
+        this.gameConfig = builder.gameConfig;
+        this.trace = builder.trace;
+        this.metrics = builder.metrics;
+        this.scheduler = builder.scheduler;
+        this.highScoreStore = builder.highScoreStore;
+        this.listener = builder.listener;
+        this.random = builder.random;
+        this.sessionSeed = builder.seed;
+
+        random.setSeed(sessionSeed);
+        this.moleGrid = new MoleGrid(gameConfig.getNumMoles(),
+                random.nextInt(gameConfig.getNumMoles()), nextColor());
+        this.multiMole = gameConfig.getMaxVisibleMoles() > 1;
+        this.moleTimers = multiMole ? new HashedWheelScheduler(scheduler,
+                MOLE_TIMER_TICK_MS, MOLE_TIMER_WHEEL_SIZE) : null;
+        this.expiryTimers = multiMole ? new TimerHandle[gameConfig.getNumMoles()] : null;
+        if (multiMole) {
+            // Created up front, so a mole tapped before start() has a timer to cancel
+            for (int i = 0; i < expiryTimers.length; i++) {
+                int moleId = i;
+                expiryTimers[i] = moleTimers.newTimer(() -> expireMole(moleId));
+            }
+        }
+        this.spawnTimer = scheduler.newTimer(this::spawnMole);
+        this.currentInterval = gameConfig.getInitialInterval();
+        this.highScore = highScoreStore.getHighScore();
+
+        MoleChangeSet initialChanges = moleGrid.drainChanges();
+        this.state = new GameState(score, highScore, misses, gameOver, currentInterval,
+                moleGrid.snapshot(), initialChanges, sessionSeed);
+    }
+
+    /**
+     * Continues a saved game instead of starting a new one. Like the constructor, this makes no
+     * callbacks and schedules no timers; it must be called before {@link #start()}.
+     * <p>
+     * The random source is reseeded from the saved session seed mixed with the saved score and
+     * misses, so the rest of the session is drawn afresh rather than continuing the original
+     * sequence, and does not repeat the moles the session opened with. Visible moles get
+     * a full lifetime again, and the next spawn is a full interval away.
+     *
+     * @param savedGame The game to continue.
+     * @throws IllegalArgumentException if the saved game does not fit this engine's config, e.g.
+     *                                  its moles are out of bounds or too many are visible.
+     */
+    public void restore(SavedGame savedGame) {
+        int[] ids = savedGame.getVisibleMoleIds();
+        MoleColor[] colors = savedGame.getVisibleColors();
+        int minVisible = multiMole || savedGame.isGameOver() ? 0 : 1;
+        if (ids.length < minVisible || ids.length > gameConfig.getMaxVisibleMoles()) {
+            throw new IllegalArgumentException("saved game has " + ids.length
+                    + " visible moles, which this config does not allow");
+        }
+        boolean[] seen = new boolean[moleGrid.size()];
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            if (id < 0 || id >= seen.length || seen[id] || colors[i] == null) {
+                throw new IllegalArgumentException("saved game has an invalid mole " + id);
+            }
+            seen[id] = true;
+        }
+        if (savedGame.getMisses() < 0 || savedGame.getCurrentInterval() < 0) {
+            throw new IllegalArgumentException("saved game has negative misses or interval");
+        }
+
+        sessionSeed = savedGame.getSessionSeed();
+        random.setSeed(XoroshiroRandomSource.mix(sessionSeed ^ XoroshiroRandomSource.mix(
+                ((long) savedGame.getScore() << 32) | savedGame.getMisses())));
+        score = savedGame.getScore();
+        misses = savedGame.getMisses();
+        gameOver = savedGame.isGameOver();
+        currentInterval = savedGame.getCurrentInterval();
+        highScore = Math.max(highScore, score);
+        restored = true;
+
+        moleGrid.hideAll();
+        for (int i = 0; i < ids.length; i++) {
+            moleGrid.reveal(ids[i], colors[i]);
+        }
+
+        MoleChangeSet changes = moleGrid.drainChanges();
+        state = new GameState(score, highScore, misses, gameOver, currentInterval,
+                moleGrid.snapshot(), changes, sessionSeed);
+    }
+
+    /**
+     * Starts the game loop by scheduling the first spawn, and the visible moles' expiries if
+     * moles expire individually. A game restored after it ended stays over.
+     * <p>
+     * The high score is read again first, on the thread that starts the engine, for stores that
+     * only have it once they have loaded it; a higher stored score is published.
+     */
+    public void start() {
+        if (gameOver) {
+            return;
+        }
+        int storedHighScore = highScoreStore.getHighScore();
+        if (storedHighScore > highScore) {
+            highScore = storedHighScore;
+            publishState();
+        }
+        long now = scheduler.uptimeMillis();
+        sessionStartTime = now;
+        if (!restored) {
+            trace.onSessionStarted(gameConfig, sessionSeed, now);
+        }
+        if (multiMole) {
+            for (int i = 0; i < moleGrid.getVisibleCount(); i++) {
+                scheduleExpiry(moleGrid.getVisibleIdAt(i), now);
+            }
+        }
+        scheduleNextSpawn(now + currentInterval);
+    }
+
+    /**
+     * Stops the game loop by cancelling the engine's timers. Other tasks on the scheduler are left
+     * alone.
+     */
+    public void stop() {
+        if (moleTimers != null) {
+            moleTimers.shutdown();
+        }
+        spawnTimer.cancel();
+    }
+
+    /**
+     * Core game loop action. This method is responsible for advancing the game state when a mole is missed.
+     * It counts a miss for every spawn that has fallen due, as allowed by the {@link MissedTickPolicy},
+     * publishes the resulting state once, and then schedules the next call to itself at the next
+     * absolute spawn time. When moles expire individually, spawns pop up moles instead of
+     * counting misses.
+     *
+     * @throws IllegalStateException if called after the game is already over.
+     */
+    private void spawnMole() {
+        if (gameOver) {
+            throw new IllegalStateException("spawnMole should never be called after game over.");
+        }
+
+        long now = scheduler.uptimeMillis();
+        trace.onSpawn(now);
+        metrics.recordSpawn(nextSpawnTime, now);
+        int spawns = 0;
+        do {
+            if (multiMole) {
+                popUpMole();
+            } else {
+                missMole();
+                if (gameOver) {
+                    trace.onSessionEnded(score, now);
+                    publishState();
+                    return;
+                }
+            }
+            nextSpawnTime += currentInterval;
+            spawns++;
+        } while (gameConfig.getMissedTickPolicy() == MissedTickPolicy.CATCH_UP
+                && nextSpawnTime <= now);
+        if (spawns > 1) {
+            metrics.countCaughtUpSpawns(spawns - 1);
+        }
+
+        if (nextSpawnTime <= now) {
+            // Skip whole intervals we slept through, keeping the original phase
+            long interval = Math.max(1, currentInterval);
+            long skipped = (now - nextSpawnTime) / interval + 1;
+            nextSpawnTime += skipped * interval;
+            metrics.countSkippedSpawns(skipped);
+        }
+
+        publishState();
+        scheduleNextSpawn(nextSpawnTime);
+    }
+
+    /**
+     * Handles a single spawn tick: increments the miss counter, checks for game-over conditions,
+     * and then selects a new mole to be visible. It also dynamically adjusts the spawn interval to
+     * increase difficulty.
+     */
+    private void missMole() {
+        // Increment miss because previous mole was not hit
+        misses++;
+
+        if (misses >= gameConfig.getMaxMisses()) {
+            gameOver = true;
+            spawnTimer.cancel();
+            return;
+        }
+
+        showNextMole();
+
+        // Speed up interval
+        currentInterval = Math.max(gameConfig.getMinInterval(),
+                currentInterval - gameConfig.getIntervalDecrement());
+    }
+
+    /**
+     * Handles a single spawn tick when moles expire individually: pops up another mole, if fewer
+     * than the maximum are visible, and speeds up the spawn interval. The mole's lifetime counts
+     * from the spawn's scheduled time, so catching up after a stall gives the same result as
+     * spawning on time.
+     */
+    private void popUpMole() {
+        if (moleGrid.getVisibleCount() < gameConfig.getMaxVisibleMoles()) {
+            int moleId = moleGrid.randomHiddenId(random);
+            moleGrid.reveal(moleId, nextColor());
+            scheduleExpiry(moleId, nextSpawnTime);
+        }
+
+        // Speed up interval
+        currentInterval = Math.max(gameConfig.getMinInterval(),
+                currentInterval - gameConfig.getIntervalDecrement());
+    }
+
+    /**
+     * Schedules the given mole to expire one lifetime after the given time.
+     */
+    private void scheduleExpiry(int moleId, long shownAt) {
+        expiryTimers[moleId].rescheduleAt(shownAt + gameConfig.getMoleLifetime());
+    }
+
+    /**
+     * Hides a mole that was not hit within its lifetime and counts it as a miss, ending the game
+     * once the miss limit is reached.
+     */
+    private void expireMole(int moleId) {
+        if (gameOver || !moleGrid.hide(moleId)) {
+            return;
+        }
+        trace.onExpiry(scheduler.uptimeMillis());
+        misses++;
+        if (misses >= gameConfig.getMaxMisses()) {
+            gameOver = true;
+            spawnTimer.cancel();
+            moleTimers.removeCallbacksAndMessages(null);
+            trace.onSessionEnded(score, scheduler.uptimeMillis());
+        }
+        publishState();
+    }
+
+    /**
+     * Moves the spawn timer to the given absolute time, replacing any pending spawn.
+     *
+     * @param uptimeMs The time of the next spawn, on the scheduler's clock.
+     */
+    private void scheduleNextSpawn(long uptimeMs) {
+        nextSpawnTime = uptimeMs;
+        spawnTimer.rescheduleAt(nextSpawnTime);
+    }
+
+    /**
+     * Moves the visible mole to a new, randomly chosen position (never the current one) with a
+     * fresh color.
+     */
+    private void showNextMole() {
+        // Pick new mole ID avoiding previous one
+        moleGrid.show(moleGrid.randomHiddenId(random), nextColor());
+    }
+
+    /**
+     * @return A color drawn from the config's color distribution.
+     */
+    private MoleColor nextColor() {
+        return gameConfig.getColorDistribution().sample(random);
+    }
+
+    /**
+     * Publishes the current state to the listener as one immutable {@link GameState}, including
+     * the cells that changed since the previous publish. The grid snapshot is only rebuilt if the
+     * grid actually changed.
+     */
+    private void publishState() {
+        MoleChangeSet changes = moleGrid.drainChanges();
+        MoleContainer moles = changes.getChanges().isEmpty()
+                ? state.getMoles() : moleGrid.snapshot();
+        state = new GameState(score, highScore, misses, gameOver, currentInterval, moles, changes,
+                sessionSeed);
+        listener.onStateChanged(state);
+    }
+
+    /**
+     * Processes a user's tap on a mole.
+     * If the correct mole is hit, the score is incremented, the high score is updated if necessary,
+     * and the game loop is reset for the next mole. If the wrong mole is hit, the action is ignored.
+     *
+     * @param moleId The ID of the mole that was tapped.
+     * @throws IllegalStateException if called after the game is already over.
+     */
+    public void hitMole(int moleId) {
+        if (gameOver) {
+            throw new IllegalStateException("hitMole should not be called after game over.");
+        }
+        long start = metrics.startTimer();
+        trace.onHit(moleId, scheduler.uptimeMillis());
+        processHit(moleId);
+        metrics.recordTap(start);
+    }
+
+    /**
+     * Applies a tap for {@link #hitMole(int)}, publishing the new state if it scored.
+     */
+    private void processHit(int moleId) {
+        if (multiMole) {
+            hitOneOfManyMoles(moleId);
+            return;
+        }
+
+        if (moleGrid.getVisibleId() != moleId) {
+            return;
+        }
+
+        // Increment score
+        score += moleGrid.getVisibleColor().getPoints();
+
+        // Update high score if needed
+        if (score > highScore) {
+            highScore = score;
+            highScoreStore.saveHighScore(score);
+        }
+
+        showNextMole();
+
+        // Speed up interval
+        currentInterval = Math.max(gameConfig.getMinInterval(),
+                currentInterval - gameConfig.getIntervalDecrement());
+
+        publishState();
+
+        // Reset spawn timer
+        scheduleNextSpawn(scheduler.uptimeMillis() + currentInterval);
+    }
+
+    /**
+     * Processes a tap when moles expire individually: a visible mole is scored, hidden and its
+     * expiry cancelled. Other moles and the spawn schedule are unaffected.
+     */
+    private void hitOneOfManyMoles(int moleId) {
+        if (moleId < 0 || moleId >= moleGrid.size() || !moleGrid.isVisible(moleId)) {
+            return;
+        }
+
+        score += moleGrid.getMole(moleId).getColor().getPoints();
+        if (score > highScore) {
+            highScore = score;
+            highScoreStore.saveHighScore(score);
+        }
+
+        moleGrid.hide(moleId);
+        expiryTimers[moleId].cancel();
+
+        // Speed up interval
+        currentInterval = Math.max(gameConfig.getMinInterval(),
+                currentInterval - gameConfig.getIntervalDecrement());
+
+        publishState();
+    }
+
+    /**
+     * Resets the game to its initial state, allowing the player to start a new session.
+     * This method should only be called after the game is over.
+     * It resets the score, misses, and mole positions, and restarts the spawn scheduler.
+     * The new session's seed is drawn from the previous session's random source.
+     *
+     * @throws IllegalStateException if called while the game is still active.
+     */
+    public void resetGame() {
+        if (!gameOver) {
+            throw new IllegalStateException("resetGame should only be called after game over.");
+        }
+
+        resetGame(random.nextLong());
+    }
+
+    /**
+     * Resets the game like {@link #resetGame()}, starting the new session from the given seed.
+     *
+     * @param seed The seed for the new session.
+     * @throws IllegalStateException if called while the game is still active.
+     */
+    public void resetGame(long seed) {
+        if (!gameOver) {
+            throw new IllegalStateException("resetGame should only be called after game over.");
+        }
+
+        sessionSeed = seed;
+        random.setSeed(seed);
+        restored = false;
+        misses = 0;
+        currentInterval = gameConfig.getInitialInterval();
+
+        score = 0;
+        highScore = highScoreStore.getHighScore();
+        gameOver = false;
+        // Start from a grid like a new engine's, so the session only depends on its seed
+        moleGrid.reset(random.nextInt(gameConfig.getNumMoles()), nextColor());
+        publishState();
+
+        long now = scheduler.uptimeMillis();
+        sessionStartTime = now;
+        trace.onSessionStarted(gameConfig, seed, now);
+        if (multiMole) {
+            moleTimers.removeCallbacksAndMessages(null);
+            scheduleExpiry(moleGrid.getVisibleId(), now);
+        }
+        scheduleNextSpawn(now + currentInterval);
+    }
+
+    /**
+     * @return The configuration this engine was created with.
+     */
+    public GameConfig getGameConfig() {
+        return gameConfig;
+    }
+
+    /**
+     * @return The state as of the last transition.
+     */
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * @return A snapshot of the grid as of the last transition.
+     */
+    public MoleContainer getMoles() {
+        return state.getMoles();
+    }
+
+    /**
+     * @return The cells changed by the last transition.
+     */
+    public MoleChangeSet getMoleChanges() {
+        return state.getMoleChanges();
+    }
+
+    /**
+     * @return The current score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The best score known to the engine: the stored high score, or this session's score
+     * if it is higher.
+     */
+    public int getHighScore() {
+        return highScore;
+    }
+
+    /**
+     * @return The current number of misses.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Whether the game is over.
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * @return The current interval in milliseconds between mole spawns.
+     */
+    public long getCurrentInterval() {
+        return currentInterval;
+    }
+
+    /**
+     * @return The seed the current session was started from.
+     */
+    public long getSessionSeed() {
+        return sessionSeed;
+    }
+
+    /**
+     * @return When the current session was started or last reset, on the scheduler's clock. For a
+     * restored game, this is when the engine continuing it was started.
+     */
+    public long getSessionStartTime() {
+        return sessionStartTime;
+    }
+
+    /**
+     * @return The absolute time of the next spawn, on the scheduler's clock.
+     */
+    public long getNextSpawnTime() {
+        return nextSpawnTime;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.whackamole.engine;
+
+/**
+ * HighScoreStore is the engine's view of high score persistence.
+ * <p>
+ * It mirrors the app's GameRepository without depending on Android, so the engine can run against
+ * SharedPreferences in the app, an in-memory value in tests and benchmarks, or anything else.
+ */
+public interface HighScoreStore {
+
+    /**
+     * A store that never keeps a high score, for engines such as replays, bots and server
+     * sessions whose scores are not player records.
+     */
+    HighScoreStore NONE = new HighScoreStore() {
+        @Override
+        public int getHighScore() {
+            return 0;
+        }
+
+        @Override
+        public void saveHighScore(int score) {
+        }
+    };
+
+    /**
+     * Returns the current high score.
+     *
+     * @return the high score. Defaults to 0 if no score is saved.
+     */
+    int getHighScore();
+
+    /**
+     * Updates the high score with the provided value.
+     *
+     * @param score the new high score to save
+     */
+    void saveHighScore(int score);
+}
@@ -0,0 +1,82 @@
+package com.example.whackamole.engine;
+
+import com.example.whackamole.model.GameConfig;
+
+/**
+ * SessionTrace receives the inputs that decide how a session plays out: its seed and rules, when
+ * the spawn loop ran and moles expired, and which moles were tapped when. Replaying these against an engine with the
+ * same seed and rules reproduces the session exactly.
+ * <p>
+ * Callbacks are made synchronously on the engine's thread, so implementations must be cheap and
+ * should not allocate. Times are read from the engine's
+ * {@link com.example.whackamole.util.Scheduler}.
+ * A game continued with {@link GameEngine#restore} does not start a traced session, since the rest
+ * of it cannot be reproduced from its seed alone.
+ */
+public interface SessionTrace {
+
+    /**
+     * A trace that ignores every call.
+     */
+    SessionTrace NONE = new SessionTrace() {
+        @Override
+        public void onSessionStarted(GameConfig gameConfig, long seed, long timeMs) {
+        }
+
+        @Override
+        public void onSpawn(long timeMs) {
+        }
+
+        @Override
+        public void onHit(int moleId, long timeMs) {
+        }
+
+        @Override
+        public void onExpiry(long timeMs) {
+        }
+
+        @Override
+        public void onSessionEnded(int score, long timeMs) {
+        }
+    };
+
+    /**
+     * A new session started, when the engine was first started or reset.
+     *
+     * @param gameConfig the session's rules
+     * @param seed       the session's seed
+     * @param timeMs     when the session started
+     */
+    void onSessionStarted(GameConfig gameConfig, long seed, long timeMs);
+
+    /**
+     * The spawn loop ran. Spawns it caught up on in the same run are not reported separately.
+     *
+     * @param timeMs when the spawn loop ran, which is after its scheduled time if it ran late
+     */
+    void onSpawn(long timeMs);
+
+    /**
+     * The engine processed a tap, whether or not it hit a visible mole.
+     *
+     * @param moleId the tapped mole
+     * @param timeMs when the engine processed the tap
+     */
+    void onHit(int moleId, long timeMs);
+
+    /**
+     * A mole was hidden because its lifetime ran out, in a game that shows several moles at once.
+     * Moles that expire on the same tick of the engine's timer are each reported.
+     *
+     * @param timeMs when the expiry ran, which is after the mole's lifetime ended if it ran late
+     */
+    void onExpiry(long timeMs);
+
+    /**
+     * The session ended.
+     *
+     * @param score  the final score
+     * @param timeMs when the session ended
+     */
+    void onSessionEnded(int score, long timeMs);
+}
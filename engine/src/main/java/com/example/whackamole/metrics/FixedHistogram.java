@@ -0,0 +1,171 @@
+package com.example.whackamole.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values over a fixed ladder of bucket bounds, which any number of
+ * threads can record into at once.
+ * <p>
+ * Recording is a binary search over the bounds and a few atomic adds: it takes no lock and never
+ * allocates, so it can sit on the game loop or the main thread. Unlike
+ * {@link com.example.whackamole.util.LatencyHistogram}, the buckets are few and coarse, so a
+ * histogram is small enough to keep one per metric for the life of the process and to dump bucket
+ * by bucket. A percentile read back is the upper bound of the bucket it falls in.
+ * <p>
+ * Reads are not atomic with respect to each other: read while values are being recorded, the
+ * count, sum and buckets may each include a value the others do not yet.
+ */
+public final class FixedHistogram {
+
+    /**
+     * A 1-2-5 ladder from 1 to 10,000,000, suitable for latencies in microseconds.
+     */
+    public static final long[] MICROSECOND_BOUNDS = {
+            1, 2, 5, 10, 20, 50, 100, 200, 500,
+            1_000, 2_000, 5_000, 10_000, 20_000, 50_000, 100_000, 200_000, 500_000,
+            1_000_000, 2_000_000, 5_000_000, 10_000_000
+    };
+
+    private final long[] bounds;
+    // One more than the bounds: the last bucket counts values above the highest bound
+    private final AtomicLongArray counts;
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param bounds the inclusive upper bound of each bucket, in increasing order; values above
+     *               the last bound are counted in an overflow bucket
+     * @throws IllegalArgumentException if there are no bounds or they are not increasing
+     */
+    public FixedHistogram(long[] bounds) {
+        if (bounds.length == 0) {
+            throw new IllegalArgumentException("at least one bound is required");
+        }
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("bounds must be increasing");
+            }
+        }
+        this.bounds = bounds.clone();
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /**
+     * Counts one value. Negative values are counted as 0. Safe to call from any thread.
+     *
+     * @param value the value, in the unit of the bounds
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(indexOf(v));
+        sum.addAndGet(v);
+        long current = max.get();
+        while (v > current && !max.compareAndSet(current, v)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Forgets every value counted so far. Values recorded while resetting may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * @return The number of buckets, including the overflow bucket.
+     */
+    public int getBucketCount() {
+        return counts.length();
+    }
+
+    /**
+     * @param bucket a bucket index, from 0 to {@link #getBucketCount()} - 1
+     * @return The bucket's inclusive upper bound, or {@link Long#MAX_VALUE} for the overflow bucket.
+     */
+    public long getBucketBound(int bucket) {
+        return bucket < bounds.length ? bounds[bucket] : Long.MAX_VALUE;
+    }
+
+    /**
+     * @param bucket a bucket index, from 0 to {@link #getBucketCount()} - 1
+     * @return The number of values counted in the bucket.
+     */
+    public long getBucketValue(int bucket) {
+        return counts.get(bucket);
+    }
+
+    /**
+     * @return The number of values counted.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return The largest value counted, or 0 if none was.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return The mean of the values counted, or 0 if none was.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * Returns the upper bound of the bucket that the given percentile of values falls in. For the
+     * overflow bucket, this is the largest value counted.
+     *
+     * @param percentile from 0 to 100
+     * @return the percentile's bucket bound, or 0 if no value was counted
+     * @throws IllegalArgumentException if the percentile is not between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bounds[i], getMax());
+            }
+        }
+        return getMax();
+    }
+
+    private int indexOf(long value) {
+        int low = 0;
+        int high = bounds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.whackamole.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms for the game's hot paths, collected on real devices:
+ * <ul>
+ *   <li>Spawn jitter: how late the spawn loop ran after its scheduled time, and how many spawns
+ *       it had to catch up on or skip.</li>
+ *   <li>Tap latency: how long a tap took the engine, from {@code hitMole} being called until the
+ *       resulting state had been published.</li>
+ *   <li>Dispatch time: how long the screen's observers took to apply a state update.</li>
+ *   <li>Repository write time: how long saving the high score held up its caller.</li>
+ * </ul>
+ * All latencies are in microseconds, in {@link FixedHistogram}s.
+ * <p>
+ * Recording takes no lock and never allocates, and may happen on any thread. While metrics are
+ * disabled, every recording method returns after reading one volatile flag, so instrumented code
+ * can stay in place in release builds. Timed sections are bracketed by {@link #startTimer()}, which
+ * does not even read the clock while disabled, and one of the {@code record} methods.
+ * <p>
+ * The metrics can be dumped with {@link #writeCsv} or {@link #writeTo(File)} for offline analysis.
+ */
+public final class GameMetrics {
+
+    /**
+     * Metrics that are always disabled, for code that is not instrumented.
+     */
+    public static final GameMetrics DISABLED = new GameMetrics(false, false);
+
+    /**
+     * Returned by {@link #startTimer()} while disabled; recording a section started with it does
+     * nothing.
+     */
+    public static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final boolean switchable;
+    private volatile boolean enabled;
+    private final FixedHistogram spawnJitter = new FixedHistogram(FixedHistogram.MICROSECOND_BOUNDS);
+    private final FixedHistogram tapLatency = new FixedHistogram(FixedHistogram.MICROSECOND_BOUNDS);
+    private final FixedHistogram dispatchTime =
+            new FixedHistogram(FixedHistogram.MICROSECOND_BOUNDS);
+    private final FixedHistogram repositoryWriteTime =
+            new FixedHistogram(FixedHistogram.MICROSECOND_BOUNDS);
+    private final AtomicLong caughtUpSpawns = new AtomicLong();
+    private final AtomicLong skippedSpawns = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param enabled whether to start recording straight away
+     */
+    public GameMetrics(boolean enabled) {
+        this(enabled, true);
+    }
+
+    private GameMetrics(boolean enabled, boolean switchable) {
+        this.enabled = enabled;
+        this.switchable = switchable;
+    }
+
+    /**
+     * @return Whether values are being recorded.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops recording. Values already recorded are kept.
+     *
+     * @param enabled whether to record values from now on
+     * @throws UnsupportedOperationException if called on {@link #DISABLED} to enable it
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !switchable) {
+            throw new UnsupportedOperationException("these metrics are always disabled");
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts timing a section.
+     *
+     * @return the start time to pass to a {@code record} method, or {@link #NOT_TIMED} while
+     * disabled
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * Records one run of the spawn loop.
+     *
+     * @param scheduledMs when the spawn was scheduled to run, on the scheduler's clock
+     * @param actualMs    when it ran, on the same clock
+     */
+    public void recordSpawn(long scheduledMs, long actualMs) {
+        if (enabled) {
+            spawnJitter.record((actualMs - scheduledMs) * 1000);
+        }
+    }
+
+    /**
+     * Counts spawns that ran late enough to be caught up on in the same run as another.
+     *
+     * @param spawns the number of spawns caught up on
+     */
+    public void countCaughtUpSpawns(long spawns) {
+        if (enabled) {
+            caughtUpSpawns.addAndGet(spawns);
+        }
+    }
+
+    /**
+     * Counts spawns that were missed entirely and skipped.
+     *
+     * @param spawns the number of spawns skipped
+     */
+    public void countSkippedSpawns(long spawns) {
+        if (enabled) {
+            skippedSpawns.addAndGet(spawns);
+        }
+    }
+
+    /**
+     * Records how long the engine took to process a tap.
+     *
+     * @param startNanos the value {@link #startTimer()} returned when the tap arrived
+     */
+    public void recordTap(long startNanos) {
+        record(tapLatency, startNanos);
+    }
+
+    /**
+     * Records how long the UI took to apply a state update.
+     *
+     * @param startNanos the value {@link #startTimer()} returned before the update was applied
+     */
+    public void recordDispatch(long startNanos) {
+        record(dispatchTime, startNanos);
+    }
+
+    /**
+     * Records how long a write to the high score repository held up its caller.
+     *
+     * @param startNanos the value {@link #startTimer()} returned before the write
+     */
+    public void recordRepositoryWrite(long startNanos) {
+        record(repositoryWriteTime, startNanos);
+    }
+
+    /**
+     * @return How late each run of the spawn loop was, in microseconds.
+     */
+    public FixedHistogram getSpawnJitter() {
+        return spawnJitter;
+    }
+
+    /**
+     * @return How long each tap took the engine, in microseconds.
+     */
+    public FixedHistogram getTapLatency() {
+        return tapLatency;
+    }
+
+    /**
+     * @return How long each state update took the UI to apply, in microseconds.
+     */
+    public FixedHistogram getDispatchTime() {
+        return dispatchTime;
+    }
+
+    /**
+     * @return How long each high score write held up its caller, in microseconds.
+     */
+    public FixedHistogram getRepositoryWriteTime() {
+        return repositoryWriteTime;
+    }
+
+    /**
+     * @return The number of spawns caught up on in the same run as another.
+     */
+    public long getCaughtUpSpawns() {
+        return caughtUpSpawns.get();
+    }
+
+    /**
+     * @return The number of spawns skipped.
+     */
+    public long getSkippedSpawns() {
+        return skippedSpawns.get();
+    }
+
+    /**
+     * Forgets every value recorded so far.
+     */
+    public void reset() {
+        spawnJitter.reset();
+        tapLatency.reset();
+        dispatchTime.reset();
+        repositoryWriteTime.reset();
+        caughtUpSpawns.set(0);
+        skippedSpawns.set(0);
+    }
+
+    /**
+     * Writes the metrics as CSV with a header row, one {@code section,name,value} row per figure.
+     * Each histogram is a section with its count, mean, a ladder of percentiles and maximum,
+     * followed by one {@code le_BOUND} row per bucket.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("section,name,value\n");
+        row(out, "counters", "caught_up_spawns", String.valueOf(getCaughtUpSpawns()));
+        row(out, "counters", "skipped_spawns", String.valueOf(getSkippedSpawns()));
+        writeHistogram(out, "spawn_jitter_us", spawnJitter);
+        writeHistogram(out, "tap_us", tapLatency);
+        writeHistogram(out, "dispatch_us", dispatchTime);
+        writeHistogram(out, "repository_write_us", repositoryWriteTime);
+    }
+
+    /**
+     * Writes the metrics as CSV to a file, replacing it. The file is written under a temporary
+     * name first, so a reader never sees a partial dump.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(temp),
+                StandardCharsets.UTF_8)) {
+            writeCsv(out);
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("cannot replace " + file);
+        }
+    }
+
+    private static void record(FixedHistogram histogram, long startNanos) {
+        if (startNanos != NOT_TIMED) {
+            histogram.record((System.nanoTime() - startNanos) / 1000);
+        }
+    }
+
+    private static void writeHistogram(Appendable out, String section, FixedHistogram histogram)
+            throws IOException {
+        row(out, section, "count", String.valueOf(histogram.getCount()));
+        row(out, section, "mean", String.format(Locale.ROOT, "%.2f", histogram.getMean()));
+        for (double percentile : PERCENTILES) {
+            String name = "p" + (percentile == Math.rint(percentile)
+                    ? String.valueOf((long) percentile)
+                    : String.valueOf(percentile).replace('.', '_'));
+            row(out, section, name, String.valueOf(histogram.getValueAtPercentile(percentile)));
+        }
+        row(out, section, "max", String.valueOf(histogram.getMax()));
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            long bound = histogram.getBucketBound(i);
+            row(out, section, bound == Long.MAX_VALUE ? "le_inf" : "le_" + bound,
+                    String.valueOf(histogram.getBucketValue(i)));
+        }
+    }
+
+    private static void row(Appendable out, String section, String name, String value)
+            throws IOException {
+        out.append(section).append(',').append(name).append(',').append(value).append('\n');
+    }
+}
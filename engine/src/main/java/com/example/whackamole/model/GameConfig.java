@@ -0,0 +1,229 @@
+package com.example.whackamole.model;
+
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+
+/**
+ * Holds immutable configuration values for the Whack-a-Mole game.
+ * <p>
+ * Each configuration has a {@link #getConfigId() config ID} derived from its rules, so scores
+ * can be grouped by the rules they were played under.
+ */
+public final class GameConfig {
+
+    private final int maxMisses;
+    private final int numMoles;
+    private final long initialInterval;
+    private final long minInterval;
+    private final long intervalDecrement;
+    private final MissedTickPolicy missedTickPolicy;
+    private final MoleColorDistribution colorDistribution;
+    private final int maxVisibleMoles;
+    private final long moleLifetime;
+    private final long configId;
+
+    /**
+     * Default game configuration, providing a standard set of rules for a balanced game.
+     * <ul>
+     *   <li>maxMisses: 5</li>
+     *   <li>numMoles: 9</li>
+     *   <li>initialInterval: 2000ms</li>
+     *   <li>minInterval: 500ms</li>
+     *   <li>intervalDecrement: 100ms</li>
+     *   <li>missedTickPolicy: SKIP</li>
+     *   <li>colorDistribution: UNIFORM</li>
+     *   <li>maxVisibleMoles: 1</li>
+     * </ul>
+     */
+    public static final GameConfig DEFAULT = new GameConfig(
+            5,     // maxMisses
+            9,     // numMoles
+            2000,  // initialInterval in ms
+            500,   // minInterval in ms
+            100    // intervalDecrement per spawn
+    );
+
+    /**
+     * Constructs a new game configuration.
+     *
+     * @param maxMisses         The number of allowed misses before the game ends.
+     * @param numMoles          The total number of moles (or holes) available in the game grid.
+     * @param initialInterval   The initial time in milliseconds between mole appearances.
+     * @param minInterval       The minimum time in milliseconds between mole appearances, representing the max difficulty.
+     * @param intervalDecrement The amount of time in milliseconds to reduce the interval by after each successful hit, speeding up the game.
+     */
+    public GameConfig(int maxMisses, int numMoles, long initialInterval, long minInterval,
+                      long intervalDecrement) {
+        this(maxMisses, numMoles, initialInterval, minInterval, intervalDecrement,
+                MissedTickPolicy.SKIP);
+    }
+
+    /**
+     * Constructs a new game configuration with an explicit missed-tick policy.
+     *
+     * @param maxMisses         The number of allowed misses before the game ends.
+     * @param numMoles          The total number of moles (or holes) available in the game grid.
+     * @param initialInterval   The initial time in milliseconds between mole appearances.
+     * @param minInterval       The minimum time in milliseconds between mole appearances, representing the max difficulty.
+     * @param intervalDecrement The amount of time in milliseconds to reduce the interval by after each successful hit, speeding up the game.
+     * @param missedTickPolicy  What the spawn loop does when whole intervals were missed.
+     */
+    public GameConfig(int maxMisses, int numMoles, long initialInterval, long minInterval,
+                      long intervalDecrement, MissedTickPolicy missedTickPolicy) {
+        this(maxMisses, numMoles, initialInterval, minInterval, intervalDecrement,
+                missedTickPolicy, MoleColorDistribution.UNIFORM);
+    }
+
+    /**
+     * Constructs a new game configuration with an explicit missed-tick policy and color weights.
+     *
+     * @param maxMisses         The number of allowed misses before the game ends.
+     * @param numMoles          The total number of moles (or holes) available in the game grid.
+     * @param initialInterval   The initial time in milliseconds between mole appearances.
+     * @param minInterval       The minimum time in milliseconds between mole appearances, representing the max difficulty.
+     * @param intervalDecrement The amount of time in milliseconds to reduce the interval by after each successful hit, speeding up the game.
+     * @param missedTickPolicy  What the spawn loop does when whole intervals were missed.
+     * @param colorDistribution How likely each color is for a newly shown mole.
+     */
+    public GameConfig(int maxMisses, int numMoles, long initialInterval, long minInterval,
+                      long intervalDecrement, MissedTickPolicy missedTickPolicy,
+                      MoleColorDistribution colorDistribution) {
+        this(maxMisses, numMoles, initialInterval, minInterval, intervalDecrement,
+                missedTickPolicy, colorDistribution, 1, 0);
+    }
+
+    /**
+     * Constructs a new game configuration that can show several moles at once.
+     * <p>
+     * With a single visible mole, the classic rules apply: every spawn moves the mole, and a spawn
+     * that finds the previous mole still up counts as a miss. With more, each spawn pops up an
+     * additional mole (while fewer than maxVisibleMoles are up), and each mole counts as a miss
+     * only if it is not hit within its own lifetime.
+     *
+     * @param maxMisses         The number of allowed misses before the game ends.
+     * @param numMoles          The total number of moles (or holes) available in the game grid.
+     * @param initialInterval   The initial time in milliseconds between mole appearances.
+     * @param minInterval       The minimum time in milliseconds between mole appearances, representing the max difficulty.
+     * @param intervalDecrement The amount of time in milliseconds to reduce the interval by after each successful hit, speeding up the game.
+     * @param missedTickPolicy  What the spawn loop does when whole intervals were missed.
+     * @param colorDistribution How likely each color is for a newly shown mole.
+     * @param maxVisibleMoles   The maximum number of moles visible at once; 1 for the classic game.
+     * @param moleLifetime      How long in milliseconds each mole stays up when several can be visible.
+     *                          Ignored when maxVisibleMoles is 1.
+     * @throws IllegalArgumentException if maxVisibleMoles is not between 1 and numMoles, or
+     *                                  moleLifetime is not positive when it is used
+     */
+    public GameConfig(int maxMisses, int numMoles, long initialInterval, long minInterval,
+                      long intervalDecrement, MissedTickPolicy missedTickPolicy,
+                      MoleColorDistribution colorDistribution, int maxVisibleMoles,
+                      long moleLifetime) {
+        if (maxVisibleMoles < 1 || (maxVisibleMoles > 1 && maxVisibleMoles > numMoles)) {
+            throw new IllegalArgumentException("maxVisibleMoles must be between 1 and numMoles");
+        }
+        if (maxVisibleMoles > 1 && moleLifetime <= 0) {
+            throw new IllegalArgumentException("moleLifetime must be greater than 0");
+        }
+        this.maxMisses = maxMisses;
+        this.numMoles = numMoles;
+        this.initialInterval = initialInterval;
+        this.minInterval = minInterval;
+        this.intervalDecrement = intervalDecrement;
+        this.missedTickPolicy = missedTickPolicy;
+        this.colorDistribution = colorDistribution;
+        this.maxVisibleMoles = maxVisibleMoles;
+        this.moleLifetime = moleLifetime;
+        this.configId = computeConfigId();
+    }
+
+    /**
+     * Hashes every rule that affects play. Settings that the rules ignore, such as the lifetime
+     * in the classic game, do not change the ID.
+     */
+    private long computeConfigId() {
+        long id = XoroshiroRandomSource.mix(maxMisses);
+        id = XoroshiroRandomSource.mix(id ^ numMoles);
+        id = XoroshiroRandomSource.mix(id ^ initialInterval);
+        id = XoroshiroRandomSource.mix(id ^ minInterval);
+        id = XoroshiroRandomSource.mix(id ^ intervalDecrement);
+        id = XoroshiroRandomSource.mix(id ^ missedTickPolicy.ordinal());
+        for (MoleColor color : MoleColor.values()) {
+            id = XoroshiroRandomSource.mix(
+                    id ^ Double.doubleToLongBits(colorDistribution.getProbability(color)));
+        }
+        id = XoroshiroRandomSource.mix(id ^ maxVisibleMoles);
+        if (maxVisibleMoles > 1) {
+            id = XoroshiroRandomSource.mix(id ^ moleLifetime);
+        }
+        return id;
+    }
+
+    /**
+     * @return The maximum number of allowed misses.
+     */
+    public int getMaxMisses() {
+        return maxMisses;
+    }
+
+    /**
+     * @return The total number of moles in the game grid.
+     */
+    public int getNumMoles() {
+        return numMoles;
+    }
+
+    /**
+     * @return The initial interval in milliseconds between mole appearances.
+     */
+    public long getInitialInterval() {
+        return initialInterval;
+    }
+
+    /**
+     * @return The minimum interval in milliseconds between mole appearances.
+     */
+    public long getMinInterval() {
+        return minInterval;
+    }
+
+    /**
+     * @return The amount of time in milliseconds to decrease the spawn interval by.
+     */
+    public long getIntervalDecrement() {
+        return intervalDecrement;
+    }
+
+    /**
+     * @return What the spawn loop does when whole intervals were missed.
+     */
+    public MissedTickPolicy getMissedTickPolicy() {
+        return missedTickPolicy;
+    }
+
+    /**
+     * @return How likely each color is for a newly shown mole.
+     */
+    public MoleColorDistribution getColorDistribution() {
+        return colorDistribution;
+    }
+
+    /**
+     * @return The maximum number of moles visible at once; 1 for the classic game.
+     */
+    public int getMaxVisibleMoles() {
+        return maxVisibleMoles;
+    }
+
+    /**
+     * @return How long in milliseconds each mole stays up when several can be visible.
+     */
+    public long getMoleLifetime() {
+        return moleLifetime;
+    }
+
+    /**
+     * @return A stable ID for this configuration's rules: equal rules always give the same ID,
+     * also across runs, and different rules give different IDs with overwhelming probability.
+     */
+    public long getConfigId() {
+        return configId;
+    }
+}
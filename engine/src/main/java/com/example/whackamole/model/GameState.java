@@ -0,0 +1,115 @@
+package com.example.whackamole.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Immutable snapshot of everything the UI shows about a game, published once per state transition.
+ * <p>
+ * Because all fields come from the same transition, observers never see torn combinations such as
+ * a new score together with the previous moles.
+ */
+public final class GameState {
+
+    private final int score;
+    private final int highScore;
+    private final int misses;
+    private final boolean gameOver;
+    private final long currentInterval;
+    private final MoleContainer moles;
+    private final MoleChangeSet moleChanges;
+    private final long sessionSeed;
+
+    /**
+     * Constructor
+     *
+     * @param score           the current score
+     * @param highScore       the best score known, including this session's
+     * @param misses          the current number of misses
+     * @param gameOver        whether the game is over
+     * @param currentInterval the current spawn interval in milliseconds
+     * @param moles           snapshot of the grid
+     * @param moleChanges     cells changed by the transition that produced this state
+     * @param sessionSeed     the seed the current session's randomness was started from
+     */
+    public GameState(int score, int highScore, int misses, boolean gameOver, long currentInterval,
+                     MoleContainer moles, MoleChangeSet moleChanges, long sessionSeed) {
+        this.score = score;
+        this.highScore = highScore;
+        this.misses = misses;
+        this.gameOver = gameOver;
+        this.currentInterval = currentInterval;
+        this.moles = moles;
+        this.moleChanges = moleChanges;
+        this.sessionSeed = sessionSeed;
+    }
+
+    /**
+     * @return The current score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The best score known, including this session's.
+     */
+    public int getHighScore() {
+        return highScore;
+    }
+
+    /**
+     * @return The current number of misses.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Whether the game is over.
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * @return The current spawn interval in milliseconds.
+     */
+    public long getCurrentInterval() {
+        return currentInterval;
+    }
+
+    /**
+     * @return Snapshot of the grid. The same instance is reused while the grid does not change.
+     */
+    public MoleContainer getMoles() {
+        return moles;
+    }
+
+    /**
+     * @return The cells changed by the transition that produced this state; empty if none.
+     */
+    public MoleChangeSet getMoleChanges() {
+        return moleChanges;
+    }
+
+    /**
+     * @return The seed the current session's randomness was started from. Replaying the same
+     * inputs at the same times with this seed reproduces the session.
+     */
+    public long getSessionSeed() {
+        return sessionSeed;
+    }
+
+    /**
+     * String constructor for game states
+     *
+     * @return string representing the state
+     */
+    @Override
+    @NonNull
+    public String toString() {
+        return "GameState{" + "score=" + score + ", highScore=" + highScore + ", misses=" + misses
+                + ", gameOver=" + gameOver + ", currentInterval=" + currentInterval
+                + ", visibleId=" + moles.getVisibleId() + ", sessionSeed=" + sessionSeed + '}';
+    }
+}
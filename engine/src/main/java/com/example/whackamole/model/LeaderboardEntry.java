@@ -0,0 +1,80 @@
+package com.example.whackamole.model;
+
+import androidx.annotation.NonNull;
+
+import java.util.Comparator;
+
+/**
+ * Immutable record of one finished session on the leaderboard.
+ */
+public final class LeaderboardEntry {
+
+    /**
+     * Orders entries best first: higher scores first, then among equal scores the one set
+     * earlier, then the shorter session.
+     */
+    public static final Comparator<LeaderboardEntry> BEST_FIRST =
+            Comparator.comparingInt(LeaderboardEntry::getScore).reversed()
+                    .thenComparingLong(LeaderboardEntry::getTimestampMs)
+                    .thenComparingLong(LeaderboardEntry::getDurationMs);
+
+    private final int score;
+    private final long configId;
+    private final long durationMs;
+    private final long timestampMs;
+
+    /**
+     * Constructor
+     *
+     * @param score       the final score
+     * @param configId    the {@link GameConfig#getConfigId() ID} of the rules it was played under
+     * @param durationMs  how long the session lasted in milliseconds
+     * @param timestampMs when the session ended, in milliseconds since the epoch
+     */
+    public LeaderboardEntry(int score, long configId, long durationMs, long timestampMs) {
+        this.score = score;
+        this.configId = configId;
+        this.durationMs = durationMs;
+        this.timestampMs = timestampMs;
+    }
+
+    /**
+     * @return The final score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The ID of the rules the session was played under.
+     */
+    public long getConfigId() {
+        return configId;
+    }
+
+    /**
+     * @return How long the session lasted in milliseconds.
+     */
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    /**
+     * @return When the session ended, in milliseconds since the epoch.
+     */
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    /**
+     * String constructor for leaderboard entries
+     *
+     * @return string representing the entry
+     */
+    @Override
+    @NonNull
+    public String toString() {
+        return "LeaderboardEntry{" + "score=" + score + ", configId=" + configId
+                + ", durationMs=" + durationMs + ", timestampMs=" + timestampMs + '}';
+    }
+}
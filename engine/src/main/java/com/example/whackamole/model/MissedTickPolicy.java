@@ -0,0 +1,21 @@
+package com.example.whackamole.model;
+
+/**
+ * Decides what the spawn loop does when it wakes up so late that one or more whole spawn intervals
+ * have already passed, e.g. after the main thread was blocked.
+ * <p>
+ * Lateness shorter than an interval is always compensated: the next spawn stays on its original
+ * absolute schedule rather than being pushed back by the delay.
+ */
+public enum MissedTickPolicy {
+    /**
+     * Process every overdue spawn immediately, counting a miss for each, until the loop is back on
+     * schedule. Keeps the total number of spawns exact.
+     */
+    CATCH_UP,
+    /**
+     * Process only one overdue spawn and drop the rest, then continue on the original schedule.
+     * A long stall costs the player at most one miss.
+     */
+    SKIP
+}
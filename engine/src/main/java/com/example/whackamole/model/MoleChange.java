@@ -0,0 +1,65 @@
+package com.example.whackamole.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Immutable description of a single grid cell changing state, e.g. a mole appearing or hiding.
+ */
+public final class MoleChange {
+
+    private final int cellId;
+    private final Mole oldMole;
+    private final Mole newMole;
+
+    /**
+     * Constructor
+     *
+     * @param cellId  ID of the cell (mole) that changed
+     * @param oldMole state of the cell before the change
+     * @param newMole state of the cell after the change
+     */
+    public MoleChange(int cellId, Mole oldMole, Mole newMole) {
+        this.cellId = cellId;
+        this.oldMole = oldMole;
+        this.newMole = newMole;
+    }
+
+    /**
+     * Get the ID of the changed cell
+     *
+     * @return cell ID
+     */
+    public int getCellId() {
+        return cellId;
+    }
+
+    /**
+     * Get the state of the cell before the change
+     *
+     * @return previous mole state
+     */
+    public Mole getOldMole() {
+        return oldMole;
+    }
+
+    /**
+     * Get the state of the cell after the change
+     *
+     * @return new mole state
+     */
+    public Mole getNewMole() {
+        return newMole;
+    }
+
+    /**
+     * String constructor for mole changes
+     *
+     * @return string representing the change
+     */
+    @Override
+    @NonNull
+    public String toString() {
+        return "MoleChange{" + "cellId=" + cellId + ", oldMole=" + oldMole + ", newMole="
+                + newMole + '}';
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.whackamole.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable set of cell changes that takes the grid from one published version to the next.
+ * <p>
+ * A renderer that last drew version {@link #getBaseVersion()} can apply {@link #getChanges()} to
+ * reach {@link #getVersion()} while touching only the affected cells. If the renderer is at any
+ * other version (e.g. it was just created, or it missed an update), it must redraw fully from the
+ * latest {@link MoleContainer} snapshot instead.
+ */
+public final class MoleChangeSet {
+
+    private final long baseVersion;
+    private final long version;
+    private final List<MoleChange> changes;
+
+    /**
+     * Constructor
+     *
+     * @param baseVersion grid version these changes apply on top of
+     * @param version     grid version after applying these changes
+     * @param changes     the changed cells
+     */
+    public MoleChangeSet(long baseVersion, long version, MoleChange... changes) {
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.changes = Collections.unmodifiableList(Arrays.asList(changes));
+    }
+
+    /**
+     * Get the grid version these changes must be applied on top of
+     *
+     * @return base version
+     */
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * Get the grid version after applying these changes
+     *
+     * @return resulting version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the changed cells
+     *
+     * @return unmodifiable list of changes
+     */
+    public List<MoleChange> getChanges() {
+        return changes;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.whackamole.model;
 
-import java.util.Random;
+import com.example.whackamole.util.RandomSource;
+
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Represents the different types of moles that can appear, each with a distinct color and point value.
@@ -18,6 +20,8 @@ public enum MoleColor {
     /** A rare purple mole, worth 10 points. */
     PURPLE(10);
 
+    private static final MoleColor[] VALUES = values();
+
     private final int points;
 
     MoleColor(int points) {
@@ -35,12 +39,23 @@ public enum MoleColor {
 
     /**
      * Selects and returns a random MoleColor from the set of all possible colors.
-     * Each color has an equal chance of being chosen.
+     * Each color has an equal chance of being chosen. The result is not reproducible; the game
+     * loop uses {@link #randomColor(RandomSource)} with its seeded source instead.
      *
      * @return A randomly selected {@link MoleColor}.
      */
     public static MoleColor randomColor() {
-        MoleColor[] values = values();
-        return values[new Random().nextInt(values.length)];
+        return VALUES[ThreadLocalRandom.current().nextInt(VALUES.length)];
+    }
+
+    /**
+     * Selects a random MoleColor using the given source of randomness.
+     * This does not allocate and is safe to call on the game loop.
+     *
+     * @param random The random source to draw from.
+     * @return A randomly selected {@link MoleColor}.
+     */
+    public static MoleColor randomColor(RandomSource random) {
+        return VALUES[random.nextInt(VALUES.length)];
     }
 }
@@ -0,0 +1,82 @@
+package com.example.whackamole.model;
+
+import com.example.whackamole.util.RandomSource;
+import com.example.whackamole.util.random.AliasTable;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable distribution of mole colors, used to pick the color of every mole the game shows.
+ * <p>
+ * The weights are turned into an {@link AliasTable} once, when the distribution is created, so
+ * picking a color on the spawn path is O(1) and allocation-free however the weights are set.
+ */
+public final class MoleColorDistribution {
+
+    private static final MoleColor[] COLORS = MoleColor.values();
+
+    /**
+     * Every color is equally likely.
+     */
+    public static final MoleColorDistribution UNIFORM = uniform();
+
+    private final double[] weights;
+    private final AliasTable table;
+
+    /**
+     * Constructor
+     *
+     * @param weights relative weight of each color; colors that are not present have weight 0.
+     *                Weights must be finite, non-negative and not all zero.
+     * @throws IllegalArgumentException if the weights are invalid
+     */
+    public MoleColorDistribution(Map<MoleColor, ? extends Number> weights) {
+        this.weights = new double[COLORS.length];
+        for (Map.Entry<MoleColor, ? extends Number> entry : weights.entrySet()) {
+            this.weights[entry.getKey().ordinal()] = entry.getValue().doubleValue();
+        }
+        this.table = new AliasTable(this.weights);
+    }
+
+    private MoleColorDistribution(double[] weights) {
+        this.weights = weights;
+        this.table = new AliasTable(weights);
+    }
+
+    private static MoleColorDistribution uniform() {
+        double[] weights = new double[COLORS.length];
+        Arrays.fill(weights, 1);
+        return new MoleColorDistribution(weights);
+    }
+
+    /**
+     * @param color a color
+     * @return The weight the distribution was created with for the given color.
+     */
+    public double getWeight(MoleColor color) {
+        return weights[color.ordinal()];
+    }
+
+    /**
+     * @param color a color
+     * @return The probability of picking the given color.
+     */
+    public double getProbability(MoleColor color) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        return weights[color.ordinal()] / total;
+    }
+
+    /**
+     * Picks a color with probability proportional to its weight.
+     *
+     * @param random the random source to draw from
+     * @return the picked color
+     */
+    public MoleColor sample(RandomSource random) {
+        return COLORS[table.sample(random)];
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.whackamole.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable container for a list of moles.
+ * Tracks which mole is currently visible, and how many are visible in modes with several moles.
+ * <p>
+ * Instances are read-only snapshots; the game loop itself mutates a {@link MoleGrid} and
+ * publishes containers via {@link MoleGrid#snapshot()}.
+ */
+public final class MoleContainer {
+
+    private final List<Mole> moles;
+    private final int visibleMoleId;
+    private final int visibleCount;
+    private final long version;
+
+    /**
+     * Constructor
+     *
+     * @param totalMoles    total number of moles
+     * @param visibleMoleId the ID of the mole that should be visible initially
+     * @throws IllegalArgumentException if visibleMoleId is out of bounds
+     */
+    public MoleContainer(int totalMoles, int visibleMoleId) {
+        this(new MoleGrid(totalMoles, visibleMoleId, MoleColor.randomColor()).snapshot());
+    }
+
+    private MoleContainer(MoleContainer snapshot) {
+        this.moles = snapshot.moles;
+        this.visibleMoleId = snapshot.visibleMoleId;
+        this.visibleCount = snapshot.visibleCount;
+        this.version = snapshot.version;
+    }
+
+    /**
+     * Snapshot constructor used by {@link MoleGrid}.
+     *
+     * @param hiddenMoles   shared hidden mole flyweights, indexed by ID; never mutated
+     * @param visibleMoles  a private array of the visible moles, in any order
+     * @param visibleMoleId the ID reported by {@link #getVisibleId()}, or -1 if none is visible
+     * @param version       the grid version as of the last {@link MoleGrid#drainChanges()}
+     */
+    MoleContainer(Mole[] hiddenMoles, Mole[] visibleMoles, int visibleMoleId, long version) {
+        this.moles = new MoleListView(hiddenMoles, visibleMoles);
+        this.visibleMoleId = visibleMoleId;
+        this.visibleCount = visibleMoles.length;
+        this.version = version;
+    }
+
+    /**
+     * Get the ID of the currently visible mole. When several moles are visible, this is the most
+     * recently revealed one; use {@link #getMoles()} to find the others.
+     *
+     * @return visible mole ID, or -1 if no mole is visible
+     */
+    public int getVisibleId() {
+        return visibleMoleId;
+    }
+
+    /**
+     * Get the number of visible moles
+     *
+     * @return visible mole count
+     */
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    /**
+     * Get the grid version this snapshot was taken at. It matches
+     * {@link MoleChangeSet#getVersion()} of the last change set drained before the snapshot, so a
+     * renderer that draws this snapshot can continue with the change set based on this version.
+     *
+     * @return grid version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the list of moles
+     *
+     * @return unmodifiable list of moles
+     */
+    public List<Mole> getMoles() {
+        return moles;
+    }
+
+    /**
+     * Read-only list view over the shared hidden moles with the visible moles overlaid. Building
+     * one costs O(visible moles) rather than O(moles), and so does each lookup; only a few moles
+     * are ever visible at once.
+     */
+    private static final class MoleListView extends AbstractList<Mole> implements RandomAccess {
+
+        private final Mole[] hiddenMoles;
+        private final Mole[] visibleMoles;
+
+        MoleListView(Mole[] hiddenMoles, Mole[] visibleMoles) {
+            this.hiddenMoles = hiddenMoles;
+            this.visibleMoles = visibleMoles;
+        }
+
+        @Override
+        public Mole get(int index) {
+            for (Mole visibleMole : visibleMoles) {
+                if (visibleMole.getId() == index) {
+                    return visibleMole;
+                }
+            }
+            return hiddenMoles[index];
+        }
+
+        @Override
+        public int size() {
+            return hiddenMoles.length;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.whackamole.model;
+
+import com.example.whackamole.util.RandomSource;
+
+import java.util.Arrays;
+
+/**
+ * Mutable, engine-side state of the mole grid.
+ * <p>
+ * The game loop updates this in place on every spawn and hit. The UI never sees this class
+ * directly; instead the game loop publishes read-only {@link MoleContainer} snapshots through
+ * {@link #snapshot()}.
+ * <p>
+ * Each cell holds either its hidden mole or a visible one, and any number of cells can be visible
+ * at once. The classic game uses {@link #show(int, MoleColor)} to keep exactly one mole visible;
+ * modes with several moles use {@link #reveal(int, MoleColor)} and {@link #hide(int)}. Visible and
+ * hidden cell IDs are kept partitioned in a single permutation, so revealing, hiding and picking a
+ * random hidden cell are all O(1) and do not allocate.
+ * <p>
+ * Moles are flyweights created once per grid and shared by every snapshot: one hidden mole per
+ * cell, and one visible mole per cell and color, so revealing a mole only looks its instance up.
+ * A snapshot overlays a copy of just the visible moles on the shared hidden ones, so publishing
+ * costs O(visible moles) regardless of the number of moles. The grid also remembers what it last
+ * published, so {@link #drainChanges()} can hand renderers just the cells that changed since.
+ */
+public final class MoleGrid {
+
+    private static final MoleColor[] COLORS = MoleColor.values();
+
+    private final Mole[] hiddenMoles;
+    // visibleMoles[id * COLORS.length + color.ordinal()] is cell id showing a mole of that color
+    private final Mole[] visibleMoles;
+    private final Mole[] cells;
+    private final Mole[] publishedCells;
+    // IDs of visible cells first, then hidden ones; positions[id] is the index of id in order
+    private final int[] order;
+    private final int[] positions;
+    private int visibleCount;
+    private final int[] dirtyCells;
+    private final boolean[] dirty;
+    private int dirtyCount;
+    private boolean published;
+    private MoleContainer snapshot;
+    private long version;
+
+    /**
+     * Constructor
+     *
+     * @param totalMoles    total number of moles
+     * @param visibleMoleId the ID of the mole that should be visible initially
+     * @param visibleColor  the color of the initially visible mole
+     * @throws IllegalArgumentException if totalMoles or visibleMoleId is out of bounds
+     */
+    public MoleGrid(int totalMoles, int visibleMoleId, MoleColor visibleColor) {
+        if (totalMoles <= 0) {
+            throw new IllegalArgumentException("totalMoles must be greater than 0");
+        }
+
+        this.hiddenMoles = new Mole[totalMoles];
+        this.visibleMoles = new Mole[totalMoles * COLORS.length];
+        this.order = new int[totalMoles];
+        this.positions = new int[totalMoles];
+        for (int i = 0; i < totalMoles; i++) {
+            hiddenMoles[i] = new Mole(i, false);
+            for (MoleColor color : COLORS) {
+                visibleMoles[i * COLORS.length + color.ordinal()] = new Mole(i, true, color);
+            }
+            order[i] = i;
+            positions[i] = i;
+        }
+        this.cells = hiddenMoles.clone();
+        this.publishedCells = hiddenMoles.clone();
+        this.dirtyCells = new int[totalMoles];
+        this.dirty = new boolean[totalMoles];
+
+        show(visibleMoleId, visibleColor);
+    }
+
+    /**
+     * Makes the given mole the only visible one, hiding every other visible mole.
+     *
+     * @param moleId the ID of the mole to show
+     * @param color  the color of the shown mole
+     * @throws IllegalArgumentException if moleId is out of bounds
+     */
+    public void show(int moleId, MoleColor color) {
+        checkId(moleId);
+        hideAll();
+        reveal(moleId, color);
+    }
+
+    /**
+     * Returns the grid to the state it was constructed in, with only the given mole visible. Unlike
+     * {@link #show(int, MoleColor)}, this also forgets the order the moles were shown and hidden
+     * in, so the moles later drawn by {@link #randomHiddenId(RandomSource)} depend only on the
+     * random source, as they do in a new grid.
+     *
+     * @param visibleMoleId the ID of the mole that should be visible
+     * @param visibleColor  the color of the visible mole
+     * @throws IllegalArgumentException if visibleMoleId is out of bounds
+     */
+    public void reset(int visibleMoleId, MoleColor visibleColor) {
+        checkId(visibleMoleId);
+        hideAll();
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            positions[i] = i;
+        }
+        show(visibleMoleId, visibleColor);
+    }
+
+    /**
+     * Makes the given mole visible, leaving any other visible moles in place. If it is already
+     * visible, only its color changes. This method does not allocate.
+     *
+     * @param moleId the ID of the mole to reveal
+     * @param color  the color of the revealed mole
+     * @throws IllegalArgumentException if moleId is out of bounds
+     */
+    public void reveal(int moleId, MoleColor color) {
+        checkId(moleId);
+        if (!isVisible(moleId)) {
+            swap(positions[moleId], visibleCount++);
+        }
+        cells[moleId] = visibleMoles[moleId * COLORS.length + color.ordinal()];
+        markDirty(moleId);
+    }
+
+    /**
+     * Hides the given mole if it is visible.
+     *
+     * @param moleId the ID of the mole to hide
+     * @return true if the mole was visible
+     * @throws IllegalArgumentException if moleId is out of bounds
+     */
+    public boolean hide(int moleId) {
+        checkId(moleId);
+        if (!isVisible(moleId)) {
+            return false;
+        }
+        swap(positions[moleId], --visibleCount);
+        cells[moleId] = hiddenMoles[moleId];
+        markDirty(moleId);
+        return true;
+    }
+
+    /**
+     * Hides every visible mole.
+     */
+    public void hideAll() {
+        while (visibleCount > 0) {
+            hide(order[visibleCount - 1]);
+        }
+    }
+
+    /**
+     * Picks a uniformly random mole ID among the hidden ones.
+     * This method does not allocate.
+     *
+     * @param random the random source to draw from
+     * @return a hidden mole ID
+     * @throws IllegalStateException if no mole is hidden
+     */
+    public int randomHiddenId(RandomSource random) {
+        int hiddenCount = hiddenMoles.length - visibleCount;
+        if (hiddenCount < 1) {
+            throw new IllegalStateException("grid has no hidden moles to choose from");
+        }
+        return order[visibleCount + random.nextInt(hiddenCount)];
+    }
+
+    /**
+     * Get the total number of moles in the grid
+     *
+     * @return number of moles
+     */
+    public int size() {
+        return hiddenMoles.length;
+    }
+
+    /**
+     * Get the number of currently visible moles
+     *
+     * @return visible mole count
+     */
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    /**
+     * Check whether a mole is visible
+     *
+     * @param moleId the ID of the mole
+     * @return true if visible
+     */
+    public boolean isVisible(int moleId) {
+        return positions[moleId] < visibleCount;
+    }
+
+    /**
+     * Get the current mole in a cell
+     *
+     * @param moleId the ID of the mole
+     * @return the visible or hidden mole in that cell
+     */
+    public Mole getMole(int moleId) {
+        return cells[moleId];
+    }
+
+    /**
+     * Get the ID of the most recently revealed visible mole; in the classic game, the only one
+     *
+     * @return visible mole ID, or -1 if no mole is visible
+     */
+    public int getVisibleId() {
+        return visibleCount == 0 ? -1 : order[visibleCount - 1];
+    }
+
+    /**
+     * Get the ID of one of the visible moles, for iterating over all of them. Index
+     * {@code getVisibleCount() - 1} is the mole returned by {@link #getVisibleId()}; the order of
+     * the others changes as moles are hidden.
+     *
+     * @param index from 0 to {@code getVisibleCount() - 1}
+     * @return visible mole ID
+     * @throws IndexOutOfBoundsException if index is out of bounds
+     */
+    public int getVisibleIdAt(int index) {
+        if (index < 0 || index >= visibleCount) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + visibleCount);
+        }
+        return order[index];
+    }
+
+    /**
+     * Get the color of the mole returned by {@link #getVisibleId()}
+     *
+     * @return visible mole color, or null if no mole is visible
+     */
+    public MoleColor getVisibleColor() {
+        return visibleCount == 0 ? null : cells[order[visibleCount - 1]].getColor();
+    }
+
+    /**
+     * Creates an immutable snapshot of the current grid state for publishing to the UI.
+     * The same instance is returned until the grid changes.
+     *
+     * @return read-only view of the grid at this moment
+     */
+    public MoleContainer snapshot() {
+        if (snapshot == null) {
+            Mole[] visibleMoles = new Mole[visibleCount];
+            for (int i = 0; i < visibleCount; i++) {
+                visibleMoles[i] = cells[order[i]];
+            }
+            snapshot = new MoleContainer(hiddenMoles, visibleMoles, getVisibleId(), version);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Computes the cells that changed since the previous call and marks the current state as
+     * published. The first call reports the initially visible mole appearing. A cell that was
+     * changed and then changed back (e.g. re-shown with the same color) is not reported.
+     *
+     * @return changes taking the grid from the previously published version to the current one;
+     * empty if nothing changed
+     */
+    public MoleChangeSet drainChanges() {
+        long baseVersion = version;
+        MoleChange[] changes = new MoleChange[dirtyCount];
+        int changeCount = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            int cell = dirtyCells[i];
+            dirty[cell] = false;
+            Mole before = publishedCells[cell];
+            Mole after = cells[cell];
+            if (published && sameState(before, after)) {
+                // Keep the instance the renderer already has
+                cells[cell] = before;
+                continue;
+            }
+            changes[changeCount++] = new MoleChange(cell, before, after);
+            publishedCells[cell] = after;
+        }
+        dirtyCount = 0;
+        published = true;
+
+        if (changeCount == 0) {
+            return new MoleChangeSet(baseVersion, baseVersion);
+        }
+        version++;
+        snapshot = null;
+        return new MoleChangeSet(baseVersion, version, changeCount == changes.length
+                ? changes : Arrays.copyOf(changes, changeCount));
+    }
+
+    private static boolean sameState(Mole a, Mole b) {
+        return a.isVisible() == b.isVisible() && a.getColor() == b.getColor();
+    }
+
+    private void markDirty(int moleId) {
+        snapshot = null;
+        if (!dirty[moleId]) {
+            dirty[moleId] = true;
+            dirtyCells[dirtyCount++] = moleId;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int a = order[i];
+        int b = order[j];
+        order[i] = b;
+        order[j] = a;
+        positions[b] = i;
+        positions[a] = j;
+    }
+
+    private void checkId(int moleId) {
+        if (moleId < 0 || moleId >= hiddenMoles.length) {
+            throw new IllegalArgumentException(
+                    "visibleMoleId must be between 0 and totalMoles - 1"
+            );
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.whackamole.model;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The part of a game that has to be saved to continue it later: the session's seed, score,
+ * misses, spawn interval and which moles are visible in which colors.
+ * <p>
+ * Everything else, such as the timers and the grid snapshot, is rebuilt from these values, and
+ * the high score is read back from storage. The values are plain numbers and arrays, so they fit
+ * in a saved instance state.
+ */
+public final class SavedGame {
+
+    private final long sessionSeed;
+    private final int score;
+    private final int misses;
+    private final boolean gameOver;
+    private final long currentInterval;
+    private final int[] visibleMoleIds;
+    private final MoleColor[] visibleColors;
+
+    /**
+     * Constructor
+     *
+     * @param sessionSeed     the seed the session was started from
+     * @param score           the score
+     * @param misses          the number of misses
+     * @param gameOver        whether the game is over
+     * @param currentInterval the spawn interval in milliseconds
+     * @param visibleMoleIds  the IDs of the visible moles, the most recently revealed last
+     * @param visibleColors   the colors of the visible moles, in the same order
+     * @throws IllegalArgumentException if the ID and color arrays differ in length
+     */
+    public SavedGame(long sessionSeed, int score, int misses, boolean gameOver,
+                     long currentInterval, int[] visibleMoleIds, MoleColor[] visibleColors) {
+        if (visibleMoleIds.length != visibleColors.length) {
+            throw new IllegalArgumentException("every visible mole needs exactly one color");
+        }
+        this.sessionSeed = sessionSeed;
+        this.score = score;
+        this.misses = misses;
+        this.gameOver = gameOver;
+        this.currentInterval = currentInterval;
+        this.visibleMoleIds = visibleMoleIds.clone();
+        this.visibleColors = visibleColors.clone();
+    }
+
+    /**
+     * Extracts what has to be saved from a published state. While at most one mole is visible
+     * this is O(1); otherwise the grid is scanned for the visible moles.
+     *
+     * @param state the state to save
+     * @return the saved game
+     */
+    public static SavedGame of(GameState state) {
+        MoleContainer moles = state.getMoles();
+        int[] ids = new int[moles.getVisibleCount()];
+        MoleColor[] colors = new MoleColor[ids.length];
+        if (ids.length == 1) {
+            ids[0] = moles.getVisibleId();
+            colors[0] = moles.getMoles().get(ids[0]).getColor();
+        } else if (ids.length > 1) {
+            List<Mole> cells = moles.getMoles();
+            int count = 0;
+            for (int i = 0; i < cells.size() && count < ids.length; i++) {
+                Mole mole = cells.get(i);
+                if (mole.isVisible() && mole.getId() != moles.getVisibleId()) {
+                    ids[count] = mole.getId();
+                    colors[count++] = mole.getColor();
+                }
+            }
+            // Keep the most recently revealed mole last, as the grid reports it
+            ids[count] = moles.getVisibleId();
+            colors[count] = moles.getMoles().get(ids[count]).getColor();
+        }
+        return new SavedGame(state.getSessionSeed(), state.getScore(), state.getMisses(),
+                state.isGameOver(), state.getCurrentInterval(), ids, colors);
+    }
+
+    /**
+     * @return The seed the session was started from.
+     */
+    public long getSessionSeed() {
+        return sessionSeed;
+    }
+
+    /**
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The number of misses.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Whether the game is over.
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * @return The spawn interval in milliseconds.
+     */
+    public long getCurrentInterval() {
+        return currentInterval;
+    }
+
+    /**
+     * @return A copy of the visible mole IDs; the most recently revealed one is last.
+     */
+    public int[] getVisibleMoleIds() {
+        return visibleMoleIds.clone();
+    }
+
+    /**
+     * @return A copy of the visible moles' colors, in the same order as their IDs.
+     */
+    public MoleColor[] getVisibleColors() {
+        return visibleColors.clone();
+    }
+
+    /**
+     * String constructor for saved games
+     *
+     * @return string representing the saved game
+     */
+    @Override
+    @NonNull
+    public String toString() {
+        return "SavedGame{" + "sessionSeed=" + sessionSeed + ", score=" + score
+                + ", misses=" + misses + ", gameOver=" + gameOver
+                + ", currentInterval=" + currentInterval
+                + ", visibleMoleIds=" + Arrays.toString(visibleMoleIds) + '}';
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.whackamole.server;
+
+import com.example.whackamole.util.LatencyHistogram;
+import com.example.whackamole.util.Scheduler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single thread that multiplexes socket I/O, tasks handed over from other threads and timers,
+ * in the style of a Netty event loop.
+ * <p>
+ * Each turn of the loop runs the tasks handed over with {@link #execute(Runnable)}, then the
+ * timers that fell due, then waits on a {@link Selector} until the next timer is due or a channel
+ * becomes ready, and dispatches the ready channels to their {@link Handler}s. Work posted with
+ * {@link #runAfterEvents(Runnable)} runs at the end of the turn, which lets handlers coalesce
+ * writes made while handling many events into one system call.
+ * <p>
+ * As a {@link Scheduler}, the loop is meant to back a
+ * {@link com.example.whackamole.util.wheel.HashedWheelScheduler}: its own timer queue is a
+ * binary heap, which is cheap for the wheel's single tick but not for thousands of timers. How
+ * late each timer finished running is recorded in a {@link LatencyHistogram}, in microseconds;
+ * for a wheel's tick that is the latency of every task that fell due on the tick.
+ * <p>
+ * A task or timer that throws does not stop the loop: the exception is handed to the thread's
+ * uncaught exception handler and the loop carries on. Tasks that belong to a connection or a
+ * session should catch their own failures and close only what they belong to, as channel
+ * handlers have their channel closed when they throw.
+ * <p>
+ * Only {@link #execute(Runnable)} and {@link #close()} may be called from other threads. Like
+ * every {@link Scheduler}, everything else must be called on the loop's thread.
+ */
+public final class EventLoop implements Scheduler, Executor, Closeable {
+
+    /**
+     * Handles readiness of a channel registered with {@link #register}.
+     */
+    public interface Handler {
+
+        /**
+         * Called on the loop's thread when the channel is ready for the operations its key is
+         * interested in.
+         *
+         * @param key the channel's selection key
+         * @throws IOException to close the channel
+         */
+        void onReady(SelectionKey key) throws IOException;
+
+        /**
+         * Called on the loop's thread after the loop closed the channel, because
+         * {@link #onReady} threw or the loop itself was closed. Not called when the handler
+         * closes the channel itself.
+         */
+        void onClosed();
+    }
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> inbox = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    private final ArrayDeque<Runnable> afterEvents = new ArrayDeque<>();
+    private final LatencyHistogram timerLatency = new LatencyHistogram();
+    private final long origin;
+    private long nextSequence;
+    private volatile boolean running = true;
+
+    /**
+     * Creates and starts a loop on a new thread.
+     *
+     * @param name the thread's name
+     * @throws UncheckedIOException if no selector can be opened
+     */
+    public EventLoop(String name) {
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.origin = System.nanoTime();
+        this.thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs the task on the loop's thread at the start of its next turn. Safe to call from any
+     * thread.
+     *
+     * @throws RejectedExecutionException if the loop has been closed
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (!running) {
+            throw new RejectedExecutionException("event loop closed");
+        }
+        inbox.add(task);
+        if (!isCurrentThread()) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Registers a channel with the loop's selector. The channel is switched to non-blocking mode.
+     *
+     * @param channel   the channel
+     * @param interests the operations to wait for, as {@link SelectionKey} bits
+     * @param handler   called when the channel is ready
+     * @return the channel's selection key
+     * @throws IOException if the channel cannot be registered
+     */
+    public SelectionKey register(SelectableChannel channel, int interests, Handler handler)
+            throws IOException {
+        channel.configureBlocking(false);
+        return channel.register(selector, interests, handler);
+    }
+
+    /**
+     * Runs the task at the end of the current turn, after every ready channel and due timer has
+     * been handled.
+     *
+     * @param task the task
+     */
+    public void runAfterEvents(Runnable task) {
+        afterEvents.add(task);
+    }
+
+    /**
+     * @return How late each timer finished running, in microseconds. Only valid on the loop's
+     * thread.
+     */
+    public LatencyHistogram getTimerLatency() {
+        return timerLatency;
+    }
+
+    @Override
+    public void postDelayed(Runnable r, long delayMs) {
+        postAtTime(r, uptimeMillis() + Math.max(0, delayMs));
+    }
+
+    @Override
+    public void postAtTime(Runnable r, long uptimeMs) {
+        timers.add(new Timer(r, origin + TimeUnit.MILLISECONDS.toNanos(uptimeMs),
+                nextSequence++));
+    }
+
+    @Override
+    public void removeCallbacks(Runnable r) {
+        timers.removeIf(timer -> timer.task == r);
+    }
+
+    @Override
+    public void removeCallbacksAndMessages(Runnable r) {
+        if (r == null) {
+            timers.clear();
+        } else {
+            removeCallbacks(r);
+        }
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - origin);
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Closes the loop, as {@link #close()} does.
+     */
+    @Override
+    public void shutdown() {
+        close();
+    }
+
+    /**
+     * Stops the loop and closes every channel registered with it. Tasks that have not run yet
+     * are dropped. When called from another thread, waits for the loop's thread to finish.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        if (!isCurrentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                runInbox();
+                long waitNanos = runDueTimers();
+                if (!inbox.isEmpty() || !afterEvents.isEmpty()) {
+                    selector.selectNow();
+                } else if (waitNanos < 0) {
+                    selector.select();
+                } else {
+                    // select(0) would wait forever, so round up to at least a millisecond
+                    long waitMs = TimeUnit.NANOSECONDS.toMillis(waitNanos + 999_999);
+                    selector.select(Math.max(1, waitMs));
+                }
+                dispatchReadyChannels();
+                runAfterEvents();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            running = false;
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    private void runInbox() {
+        Runnable task;
+        while ((task = inbox.poll()) != null) {
+            runSafely(task);
+        }
+    }
+
+    /**
+     * Runs every timer that is due.
+     *
+     * @return nanoseconds until the next timer is due, or -1 if none is pending
+     */
+    private long runDueTimers() {
+        while (!timers.isEmpty()) {
+            Timer timer = timers.peek();
+            long now = System.nanoTime();
+            if (timer.deadline - now > 0) {
+                return timer.deadline - now;
+            }
+            timers.poll();
+            runSafely(timer.task);
+            long lateNanos = System.nanoTime() - timer.deadline;
+            timerLatency.record(TimeUnit.NANOSECONDS.toMicros(lateNanos));
+        }
+        return -1;
+    }
+
+    private void dispatchReadyChannels() {
+        Iterator<SelectionKey> ready = selector.selectedKeys().iterator();
+        while (ready.hasNext()) {
+            SelectionKey key = ready.next();
+            ready.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            try {
+                ((Handler) key.attachment()).onReady(key);
+            } catch (IOException | RuntimeException e) {
+                close(key);
+            }
+        }
+    }
+
+    private void runAfterEvents() {
+        Runnable task;
+        while ((task = afterEvents.poll()) != null) {
+            runSafely(task);
+        }
+    }
+
+    /**
+     * Runs a task, reporting a runtime exception it throws instead of letting it end the loop.
+     */
+    private void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    private static void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // Already closed or broken; either way it is gone
+        }
+        ((Handler) key.attachment()).onClosed();
+    }
+
+    /**
+     * A pending timer, ordered by deadline and then by when it was posted.
+     */
+    private static final class Timer implements Comparable<Timer> {
+        final Runnable task;
+        final long deadline;
+        final long sequence;
+
+        Timer(Runnable task, long deadline, long sequence) {
+            this.task = task;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+            long difference = deadline - other.deadline;
+            if (difference != 0) {
+                return difference < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.whackamole.server;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A client for {@link GameServer}, for tests, tools and bots running in the same JVM or on the
+ * same machine.
+ * <p>
+ * Requests are written from the calling thread, and may be sent from any thread. Updates are read
+ * on a daemon thread of the client's own and passed to its {@link Listener} in the order the
+ * server sent them.
+ */
+public final class GameClient implements Closeable {
+
+    /**
+     * Receives the server's messages, on the client's reader thread.
+     */
+    public interface Listener {
+
+        /**
+         * Called for every state transition of a session started by this client.
+         *
+         * @param update the session's new state
+         */
+        void onUpdate(SessionUpdate update);
+
+        /**
+         * Called once when the connection is closed, by either side.
+         *
+         * @param error why the connection broke, or null if it was closed by {@link #close()}
+         */
+        default void onClosed(IOException error) {
+        }
+    }
+
+    private final SocketChannel channel;
+    private final Listener listener;
+    private final ByteBuffer request = GameProtocol.allocate(GameProtocol.LENGTH_SIZE
+            + GameProtocol.START_BODY);
+    private final Thread reader;
+    private volatile boolean closing;
+
+    /**
+     * Connects to a server.
+     *
+     * @param address  the server's address
+     * @param listener receives the server's updates
+     * @throws IOException if the server cannot be reached
+     */
+    public GameClient(InetSocketAddress address, Listener listener) throws IOException {
+        this.channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        this.listener = listener;
+        this.reader = new Thread(this::readUpdates, "game-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Starts a session, or a new game in a session whose game is over.
+     *
+     * @param sessionId the ID to refer to the session by, unique on this connection
+     * @param seed      the seed for the session's game
+     * @throws IOException if the connection is broken
+     */
+    public synchronized void start(int sessionId, long seed) throws IOException {
+        request.clear();
+        request.putInt(GameProtocol.START_BODY);
+        request.put(GameProtocol.START);
+        request.putInt(sessionId);
+        request.putLong(seed);
+        send();
+    }
+
+    /**
+     * Taps a mole.
+     *
+     * @param sessionId the session
+     * @param moleId    the tapped mole
+     * @throws IOException if the connection is broken
+     */
+    public synchronized void hit(int sessionId, int moleId) throws IOException {
+        request.clear();
+        request.putInt(GameProtocol.HIT_BODY);
+        request.put(GameProtocol.HIT);
+        request.putInt(sessionId);
+        request.putInt(moleId);
+        send();
+    }
+
+    /**
+     * Stops a session. The server sends no further updates for it, and the ID may be reused.
+     *
+     * @param sessionId the session
+     * @throws IOException if the connection is broken
+     */
+    public synchronized void end(int sessionId) throws IOException {
+        request.clear();
+        request.putInt(GameProtocol.END_BODY);
+        request.put(GameProtocol.END);
+        request.putInt(sessionId);
+        send();
+    }
+
+    /**
+     * Closes the connection, which ends every session it started, and waits for the reader
+     * thread to finish.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Closed either way
+        }
+        if (Thread.currentThread() != reader) {
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void send() throws IOException {
+        request.flip();
+        while (request.hasRemaining()) {
+            channel.write(request);
+        }
+    }
+
+    private void readUpdates() {
+        ByteBuffer in = GameProtocol.allocate(64 * 1024);
+        IOException error = null;
+        try {
+            while (true) {
+                if (channel.read(in) < 0) {
+                    throw new EOFException("server closed the connection");
+                }
+                in.flip();
+                while (in.remaining() >= GameProtocol.LENGTH_SIZE) {
+                    int length = in.getInt(in.position());
+                    if (length < 1 || length > GameProtocol.MAX_BODY) {
+                        throw new IOException("bad frame length " + length);
+                    }
+                    if (in.remaining() < GameProtocol.LENGTH_SIZE + length) {
+                        break;
+                    }
+                    int end = in.position() + GameProtocol.LENGTH_SIZE + length;
+                    in.position(in.position() + GameProtocol.LENGTH_SIZE);
+                    ByteBuffer body = in.slice().order(in.order());
+                    body.limit(length);
+                    if (body.get() == GameProtocol.STATE) {
+                        SessionUpdate update = GameProtocol.getState(body);
+                        if (update != null) {
+                            listener.onUpdate(update);
+                        }
+                    }
+                    in.position(end);
+                }
+                in.compact();
+            }
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Closed either way
+            }
+            listener.onClosed(closing ? null : error);
+        }
+    }
+}
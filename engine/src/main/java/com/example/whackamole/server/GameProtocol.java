@@ -0,0 +1,97 @@
+package com.example.whackamole.server;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The wire format between {@link GameClient} and {@link GameServer}.
+ * <p>
+ * Every message is a frame: a 4-byte length, then that many bytes of body. A body starts with a
+ * 1-byte opcode and the 4-byte ID of the session it is about, which the client chooses, so one
+ * connection can carry any number of sessions. All numbers are little-endian.
+ * <pre>
+ *   client to server
+ *     START  seed (8)          start a session, or a new game in a session that is over
+ *     HIT    moleId (4)        tap a mole
+ *     END    -                 stop a session and forget it
+ *   server to client
+ *     STATE  score (4) misses (4) gameOver (1) visibleCount (4) moleId (4) * visibleCount
+ * </pre>
+ * The server sends a STATE for every state transition of a session, starting with its initial
+ * state. Messages about unknown sessions, taps after the game is over and unknown opcodes are
+ * ignored.
+ */
+final class GameProtocol {
+
+    static final byte START = 1;
+    static final byte HIT = 2;
+    static final byte END = 3;
+    static final byte STATE = 16;
+
+    static final int LENGTH_SIZE = 4;
+    static final int MAX_BODY = 64 * 1024;
+    static final int START_BODY = 1 + 4 + 8;
+    static final int HIT_BODY = 1 + 4 + 4;
+    static final int END_BODY = 1 + 4;
+
+    private GameProtocol() {
+    }
+
+    /**
+     * @param capacity the buffer's size
+     * @return A heap buffer in the protocol's byte order.
+     */
+    static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return The size of a STATE frame with the given number of visible moles.
+     */
+    static int stateFrameSize(int visibleCount) {
+        return LENGTH_SIZE + 1 + 4 + 4 + 4 + 1 + 4 + 4 * visibleCount;
+    }
+
+    /**
+     * Writes a STATE frame. The buffer must have room for {@link #stateFrameSize(int)} bytes.
+     */
+    static void putState(ByteBuffer out, int sessionId, int score, int misses, boolean gameOver,
+                         int[] visibleMoleIds, int visibleCount) {
+        out.putInt(stateFrameSize(visibleCount) - LENGTH_SIZE);
+        out.put(STATE);
+        out.putInt(sessionId);
+        out.putInt(score);
+        out.putInt(misses);
+        out.put((byte) (gameOver ? 1 : 0));
+        out.putInt(visibleCount);
+        for (int i = 0; i < visibleCount; i++) {
+            out.putInt(visibleMoleIds[i]);
+        }
+    }
+
+    /**
+     * Reads the body of a STATE frame, after its opcode.
+     *
+     * @return the update, or null if the body is malformed
+     */
+    static SessionUpdate getState(ByteBuffer body) {
+        try {
+            int sessionId = body.getInt();
+            int score = body.getInt();
+            int misses = body.getInt();
+            boolean gameOver = body.get() != 0;
+            int visibleCount = body.getInt();
+            if (visibleCount < 0 || visibleCount > body.remaining() / 4) {
+                return null;
+            }
+            int[] visibleMoleIds = new int[visibleCount];
+            for (int i = 0; i < visibleCount; i++) {
+                visibleMoleIds[i] = body.getInt();
+            }
+            return new SessionUpdate(sessionId, score, misses, gameOver, visibleMoleIds);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,683 @@
+package com.example.whackamole.server;
+
+import com.example.whackamole.engine.GameEngine;
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.GameState;
+import com.example.whackamole.model.Mole;
+import com.example.whackamole.util.LatencyHistogram;
+import com.example.whackamole.util.RandomSource;
+import com.example.whackamole.util.Scheduler;
+import com.example.whackamole.util.TimerHandle;
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+import com.example.whackamole.util.wheel.HashedWheelScheduler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Hosts many independent game sessions, each an authoritative {@link GameEngine} with the same
+ * rules the app plays by, driven by clients over {@link GameProtocol}.
+ * <p>
+ * Sessions run on a small pool of {@link EventLoop}s, by default one per core. Each connection
+ * is owned by one loop, and so are the sessions it starts, so a session's engine, its socket and
+ * its timers are only ever touched by one thread and need no locking. Each loop has a single
+ * {@link HashedWheelScheduler} that every engine on the loop uses as its scheduler, so thousands
+ * of spawn and expiry timers cost one pooled wheel entry each and one tick of the loop, rather
+ * than a heap entry or a thread each. State updates are encoded into the connection's buffer as
+ * they happen and written once per turn of the loop.
+ * <p>
+ * A session whose engine throws, from a tap or from one of its timers, is failed on its own: its
+ * engine is stopped, its client is sent a final state with the game over, and the other sessions
+ * on the loop and the connection keep playing.
+ * <p>
+ * How late each wheel tick finished, which bounds how late any spawn ran, is recorded per loop;
+ * {@link #getStats()} merges the loops' histograms with the session counts.
+ */
+public final class GameServer implements Closeable {
+
+    /**
+     * The wheel's resolution. Spawns run up to this late, on top of the loop's own latency.
+     */
+    private static final long TICK_MS = 5;
+    private static final int WHEEL_SIZE = 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_WRITE = 4 * 1024 * 1024;
+    private static final int[] NO_MOLES = new int[0];
+
+    private final GameConfig gameConfig;
+    private final Supplier<? extends RandomSource> randoms;
+    private final Worker[] workers;
+    private ServerSocketChannel acceptor;
+    private int nextWorker;
+
+    /**
+     * Creates a server and starts its loops. It accepts no connections until {@link #bind} is
+     * called.
+     *
+     * @param gameConfig the rules every session is played by
+     * @param loops      the number of event loops, normally the number of cores
+     * @throws IllegalArgumentException if loops is not positive
+     */
+    public GameServer(GameConfig gameConfig, int loops) {
+        this(gameConfig, loops, () -> new XoroshiroRandomSource(0));
+    }
+
+    /**
+     * Creates a server whose sessions draw from random sources made by the given supplier.
+     *
+     * @param gameConfig the rules every session is played by
+     * @param loops      the number of event loops
+     * @param randoms    makes each session's random source; called on the session's loop
+     * @throws IllegalArgumentException if loops is not positive
+     */
+    GameServer(GameConfig gameConfig, int loops, Supplier<? extends RandomSource> randoms) {
+        if (loops < 1) {
+            throw new IllegalArgumentException("loops must be greater than 0");
+        }
+        this.gameConfig = gameConfig;
+        this.randoms = randoms;
+        this.workers = new Worker[loops];
+        for (int i = 0; i < loops; i++) {
+            workers[i] = new Worker(new EventLoop("game-loop-" + i));
+        }
+    }
+
+    /**
+     * Starts accepting connections. New connections are handed to the loops in turn.
+     *
+     * @param address the address to listen on; port 0 picks a free port
+     * @return the address actually bound
+     * @throws IOException if the address cannot be bound
+     */
+    public InetSocketAddress bind(InetSocketAddress address) throws IOException {
+        acceptor = ServerSocketChannel.open();
+        acceptor.bind(address);
+        InetSocketAddress bound = (InetSocketAddress) acceptor.getLocalAddress();
+        CompletableFuture<Void> registered = new CompletableFuture<>();
+        EventLoop acceptLoop = workers[0].loop;
+        acceptLoop.execute(() -> {
+            try {
+                acceptLoop.register(acceptor, SelectionKey.OP_ACCEPT, new Acceptor());
+                registered.complete(null);
+            } catch (IOException e) {
+                registered.completeExceptionally(e);
+            }
+        });
+        await(registered);
+        return bound;
+    }
+
+    /**
+     * Collects the loops' counters. Must not be called from a loop's thread.
+     *
+     * @return a snapshot of every loop's sessions and tick latency
+     * @throws IOException if a loop does not answer in time
+     */
+    public Stats getStats() throws IOException {
+        List<CompletableFuture<Stats>> snapshots = new ArrayList<>();
+        for (Worker worker : workers) {
+            CompletableFuture<Stats> snapshot = new CompletableFuture<>();
+            worker.loop.execute(() -> snapshot.complete(new Stats(worker)));
+            snapshots.add(snapshot);
+        }
+        Stats total = new Stats();
+        for (CompletableFuture<Stats> snapshot : snapshots) {
+            total.add(await(snapshot));
+        }
+        return total;
+    }
+
+    /**
+     * Stops accepting connections, closes every connection and stops the loops.
+     */
+    @Override
+    public void close() {
+        if (acceptor != null) {
+            try {
+                acceptor.close();
+            } catch (IOException ignored) {
+                // Closing the loops below releases the rest
+            }
+        }
+        for (Worker worker : workers) {
+            worker.loop.close();
+        }
+    }
+
+    /**
+     * Runs a server until the process is killed, printing its stats every few seconds.
+     *
+     * @param args {@code [--port N] [--loops N]}
+     * @throws IOException if the port cannot be bound
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 7070;
+        int loops = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if ("--port".equals(args[i])) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if ("--loops".equals(args[i])) {
+                loops = Integer.parseInt(args[i + 1]);
+            } else {
+                System.err.println("usage: GameServer [--port N] [--loops N]");
+                System.exit(2);
+            }
+        }
+
+        GameServer server = new GameServer(GameConfig.DEFAULT, loops);
+        InetSocketAddress address = server.bind(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        System.out.println("listening on " + address + " with " + loops + " loops");
+        while (true) {
+            Thread.sleep(5000);
+            System.out.println(server.getStats());
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IOException("event loop did not answer", e);
+        }
+    }
+
+    /**
+     * A snapshot of the server's sessions and tick latency.
+     */
+    public static final class Stats {
+
+        private final LatencyHistogram tickLatency;
+        private int loops;
+        private long activeSessions;
+        private long sessionsStarted;
+
+        private Stats() {
+            this.tickLatency = new LatencyHistogram();
+        }
+
+        private Stats(Worker worker) {
+            this.tickLatency = worker.loop.getTimerLatency().copy();
+            this.loops = 1;
+            this.activeSessions = worker.activeSessions;
+            this.sessionsStarted = worker.sessionsStarted;
+        }
+
+        private void add(Stats other) {
+            tickLatency.add(other.tickLatency);
+            loops += other.loops;
+            activeSessions += other.activeSessions;
+            sessionsStarted += other.sessionsStarted;
+        }
+
+        /**
+         * @return The number of event loops.
+         */
+        public int getLoops() {
+            return loops;
+        }
+
+        /**
+         * @return The number of sessions currently hosted, including games that are over but
+         * have not been ended by their client.
+         */
+        public long getActiveSessions() {
+            return activeSessions;
+        }
+
+        /**
+         * @return The number of games started since the server started, including new games in
+         * existing sessions.
+         */
+        public long getSessionsStarted() {
+            return sessionsStarted;
+        }
+
+        /**
+         * @return Hosted sessions per core the loops can run on at once.
+         */
+        public double getSessionsPerCore() {
+            int cores = Math.min(loops, Runtime.getRuntime().availableProcessors());
+            return (double) activeSessions / Math.max(1, cores);
+        }
+
+        /**
+         * @return How late each wheel tick finished, in microseconds, since the server started.
+         */
+        public LatencyHistogram getTickLatency() {
+            return tickLatency;
+        }
+
+        /**
+         * @return The 99th percentile of {@link #getTickLatency()}, in microseconds.
+         */
+        public long getP99TickLatencyMicros() {
+            return tickLatency.getValueAtPercentile(99);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d sessions on %d loops (%.1f per core), %d started,"
+                            + " %d ticks, tick latency p50 %d us, p99 %d us, max %d us",
+                    activeSessions, loops, getSessionsPerCore(), sessionsStarted,
+                    tickLatency.getCount(), tickLatency.getValueAtPercentile(50),
+                    getP99TickLatencyMicros(), tickLatency.getMax());
+        }
+    }
+
+    /**
+     * One event loop, its timer wheel and its counters. Everything but the loop itself is only
+     * touched on the loop's thread.
+     */
+    private static final class Worker {
+        final EventLoop loop;
+        final HashedWheelScheduler wheel;
+        long activeSessions;
+        long sessionsStarted;
+        private int[] visibleIds = new int[1];
+
+        Worker(EventLoop loop) {
+            this.loop = loop;
+            this.wheel = new HashedWheelScheduler(loop, TICK_MS, WHEEL_SIZE);
+        }
+
+        /**
+         * @return The IDs of the state's visible moles, in a buffer reused by every call.
+         */
+        int[] visibleIds(GameState state, int visibleCount) {
+            if (visibleIds.length < visibleCount) {
+                visibleIds = new int[visibleCount];
+            }
+            int count = 0;
+            for (Mole mole : state.getMoles().getMoles()) {
+                if (mole.isVisible() && count < visibleCount) {
+                    visibleIds[count++] = mole.getId();
+                }
+            }
+            return visibleIds;
+        }
+    }
+
+    /**
+     * Accepts connections on the first loop and hands each to the next loop in turn.
+     */
+    private final class Acceptor implements EventLoop.Handler {
+
+        @Override
+        public void onReady(SelectionKey key) throws IOException {
+            SocketChannel channel;
+            while ((channel = acceptor.accept()) != null) {
+                channel.socket().setTcpNoDelay(true);
+                Worker worker = workers[nextWorker];
+                nextWorker = (nextWorker + 1) % workers.length;
+                SocketChannel accepted = channel;
+                worker.loop.execute(() -> {
+                    Connection connection = new Connection(worker, accepted);
+                    try {
+                        connection.key = worker.loop.register(accepted, SelectionKey.OP_READ,
+                                connection);
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void onClosed() {
+        }
+    }
+
+    /**
+     * A client connection and the sessions it started.
+     */
+    private final class Connection implements EventLoop.Handler {
+
+        private final Worker worker;
+        private final SocketChannel channel;
+        private final Map<Integer, Session> sessions = new HashMap<>();
+        private final ByteBuffer in = GameProtocol.allocate(READ_BUFFER_SIZE);
+        private ByteBuffer out = GameProtocol.allocate(4096);
+        private final Runnable flush = this::flush;
+        private boolean flushScheduled;
+        private boolean closed;
+        SelectionKey key;
+
+        Connection(Worker worker, SocketChannel channel) {
+            this.worker = worker;
+            this.channel = channel;
+        }
+
+        @Override
+        public void onReady(SelectionKey key) throws IOException {
+            if (key.isWritable()) {
+                flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                read();
+            }
+        }
+
+        @Override
+        public void onClosed() {
+            close();
+        }
+
+        private void read() throws IOException {
+            int read = 0;
+            while (!closed && (read = channel.read(in)) > 0) {
+                in.flip();
+                while (!closed && in.remaining() >= GameProtocol.LENGTH_SIZE) {
+                    int length = in.getInt(in.position());
+                    if (length < 1 || length > GameProtocol.MAX_BODY) {
+                        throw new IOException("bad frame length " + length);
+                    }
+                    if (in.remaining() < GameProtocol.LENGTH_SIZE + length) {
+                        break;
+                    }
+                    int end = in.position() + GameProtocol.LENGTH_SIZE + length;
+                    in.position(in.position() + GameProtocol.LENGTH_SIZE);
+                    handle(length);
+                    in.position(end);
+                }
+                in.compact();
+            }
+            if (read < 0) {
+                close();
+            }
+        }
+
+        /**
+         * Handles the frame body at the read buffer's position.
+         */
+        private void handle(int length) {
+            byte opcode = in.get();
+            if (length < GameProtocol.END_BODY) {
+                return;
+            }
+            int sessionId = in.getInt();
+            Session session = sessions.get(sessionId);
+            switch (opcode) {
+                case GameProtocol.START:
+                    if (length >= GameProtocol.START_BODY) {
+                        start(session, sessionId, in.getLong());
+                    }
+                    break;
+                case GameProtocol.HIT:
+                    if (length >= GameProtocol.HIT_BODY && session != null
+                            && !session.engine.isGameOver()) {
+                        session.hitMole(in.getInt());
+                    }
+                    break;
+                case GameProtocol.END:
+                    if (session != null) {
+                        sessions.remove(sessionId);
+                        end(session);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void start(Session session, int sessionId, long seed) {
+            if (session == null) {
+                session = new Session(this, sessionId, seed);
+                sessions.put(sessionId, session);
+                worker.activeSessions++;
+                worker.sessionsStarted++;
+                send(sessionId, session.engine.getState());
+                session.engine.start();
+            } else if (session.engine.isGameOver()) {
+                worker.sessionsStarted++;
+                session.engine.resetGame(seed);
+            }
+        }
+
+        private void end(Session session) {
+            session.engine.stop();
+            worker.activeSessions--;
+        }
+
+        private void endAll() {
+            for (Session session : sessions.values()) {
+                end(session);
+            }
+            sessions.clear();
+        }
+
+        /**
+         * Queues a STATE frame, to be written at the end of the loop's turn.
+         */
+        void send(int sessionId, GameState state) {
+            int visibleCount = state.getMoles().getVisibleCount();
+            send(sessionId, state.getScore(), state.getMisses(), state.isGameOver(),
+                    worker.visibleIds(state, visibleCount), visibleCount);
+        }
+
+        /**
+         * Queues a STATE frame with the given fields, to be written at the end of the loop's turn.
+         */
+        void send(int sessionId, int score, int misses, boolean gameOver, int[] visibleIds,
+                  int visibleCount) {
+            if (closed) {
+                return;
+            }
+            int frameSize = GameProtocol.stateFrameSize(visibleCount);
+            if (out.remaining() < frameSize) {
+                if (out.position() + frameSize > MAX_PENDING_WRITE) {
+                    // The client is not reading; drop it rather than buffer without bound
+                    close();
+                    return;
+                }
+                ByteBuffer larger = GameProtocol.allocate(
+                        Math.max(out.capacity() * 2, out.position() + frameSize));
+                out.flip();
+                larger.put(out);
+                out = larger;
+            }
+            GameProtocol.putState(out, sessionId, score, misses, gameOver, visibleIds,
+                    visibleCount);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                worker.loop.runAfterEvents(flush);
+            }
+        }
+
+        private void flush() {
+            flushScheduled = false;
+            if (closed) {
+                return;
+            }
+            out.flip();
+            try {
+                channel.write(out);
+            } catch (IOException e) {
+                close();
+                return;
+            } finally {
+                out.compact();
+            }
+            int interests = out.position() > 0
+                    ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+            if (key != null && key.isValid() && key.interestOps() != interests) {
+                key.interestOps(interests);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            endAll();
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Already broken
+            }
+        }
+    }
+
+    /**
+     * One hosted game. Its engine runs on the connection's loop, on the loop's shared wheel.
+     */
+    private final class Session implements GameEngine.Listener {
+
+        private final Connection connection;
+        private final int sessionId;
+        final GameEngine engine;
+
+        Session(Connection connection, int sessionId, long seed) {
+            this.connection = connection;
+            this.sessionId = sessionId;
+            this.engine = new GameEngine.Builder(gameConfig, new SessionScheduler(this), this)
+                    .random(randoms.get())
+                    .seed(seed)
+                    .build();
+        }
+
+        @Override
+        public void onStateChanged(GameState state) {
+            connection.send(sessionId, state);
+        }
+
+        void hitMole(int moleId) {
+            try {
+                engine.hitMole(moleId);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Ends this session after its engine threw, and tells the client its game is over.
+         */
+        void fail(RuntimeException e) {
+            if (connection.sessions.remove(sessionId, this)) {
+                connection.end(this);
+                connection.send(sessionId, engine.getScore(), engine.getMisses(), true,
+                        NO_MOLES, 0);
+            }
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * The loop's wheel as one session's engine sees it. A task of the session that throws fails
+     * that session alone, instead of escaping from the wheel's tick and stopping the tasks of
+     * every other session due on the same tick.
+     */
+    private final class SessionScheduler implements Scheduler {
+
+        private final Session session;
+        private final HashedWheelScheduler wheel;
+        // Each task posted directly, and the guard actually posted for it
+        private final Map<Runnable, Runnable> guards = new IdentityHashMap<>();
+        private final List<TimerHandle> timers = new ArrayList<>();
+
+        SessionScheduler(Session session) {
+            this.session = session;
+            this.wheel = session.connection.worker.wheel;
+        }
+
+        @Override
+        public void postDelayed(Runnable r, long delayMs) {
+            wheel.postDelayed(guard(r), delayMs);
+        }
+
+        @Override
+        public void postAtTime(Runnable r, long uptimeMs) {
+            wheel.postAtTime(guard(r), uptimeMs);
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return wheel.uptimeMillis();
+        }
+
+        @Override
+        public void removeCallbacks(Runnable r) {
+            Runnable guard = guards.get(r);
+            if (guard != null) {
+                wheel.removeCallbacks(guard);
+            }
+        }
+
+        /**
+         * Removes the given task, or every task and timer of this session if it is null. Other
+         * sessions' tasks on the wheel are left alone.
+         */
+        @Override
+        public void removeCallbacksAndMessages(Runnable r) {
+            if (r != null) {
+                removeCallbacks(r);
+                return;
+            }
+            for (Runnable guard : guards.values()) {
+                wheel.removeCallbacks(guard);
+            }
+            for (TimerHandle timer : timers) {
+                timer.cancel();
+            }
+        }
+
+        @Override
+        public TimerHandle newTimer(Runnable task) {
+            TimerHandle timer = wheel.newTimer(() -> runGuarded(task));
+            timers.add(timer);
+            return timer;
+        }
+
+        @Override
+        public boolean isCurrentThread() {
+            return wheel.isCurrentThread();
+        }
+
+        /**
+         * Removes this session's tasks; the wheel is shared and keeps running.
+         */
+        @Override
+        public void shutdown() {
+            removeCallbacksAndMessages(null);
+        }
+
+        private Runnable guard(Runnable task) {
+            return guards.computeIfAbsent(task, t -> () -> runGuarded(t));
+        }
+
+        private void runGuarded(Runnable task) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                session.fail(e);
+            }
+        }
+    }
+}
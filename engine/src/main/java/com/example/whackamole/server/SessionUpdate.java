@@ -0,0 +1,86 @@
+package com.example.whackamole.server;
+
+import java.util.Arrays;
+
+/**
+ * The state of a hosted session as sent to its client after a transition.
+ */
+public final class SessionUpdate {
+
+    private final int sessionId;
+    private final int score;
+    private final int misses;
+    private final boolean gameOver;
+    private final int[] visibleMoleIds;
+
+    /**
+     * Constructor
+     *
+     * @param sessionId      the ID the client gave the session
+     * @param score          the current score
+     * @param misses         the current number of misses
+     * @param gameOver       whether the game is over
+     * @param visibleMoleIds the IDs of the visible moles; owned by the update from now on
+     */
+    SessionUpdate(int sessionId, int score, int misses, boolean gameOver, int[] visibleMoleIds) {
+        this.sessionId = sessionId;
+        this.score = score;
+        this.misses = misses;
+        this.gameOver = gameOver;
+        this.visibleMoleIds = visibleMoleIds;
+    }
+
+    /**
+     * @return The ID the client gave the session.
+     */
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return The current score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The current number of misses.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Whether the game is over.
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * @return The number of visible moles.
+     */
+    public int getVisibleCount() {
+        return visibleMoleIds.length;
+    }
+
+    /**
+     * @param index between 0 and {@link #getVisibleCount()}
+     * @return The ID of a visible mole.
+     */
+    public int getVisibleMoleId(int index) {
+        return visibleMoleIds[index];
+    }
+
+    @Override
+    public String toString() {
+        return "SessionUpdate{"
+                + "sessionId=" + sessionId
+                + ", score=" + score
+                + ", misses=" + misses
+                + ", gameOver=" + gameOver
+                + ", visibleMoleIds=" + Arrays.toString(visibleMoleIds)
+                + '}';
+    }
+}
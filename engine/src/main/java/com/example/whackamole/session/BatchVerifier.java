@@ -0,0 +1,334 @@
+package com.example.whackamole.session;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies archives of session logs by replaying every session and checking it reaches the score
+ * it was recorded with, for example to catch tampered high scores.
+ * <p>
+ * Each log file is memory-mapped and decoded by one task, which hands batches of sessions to a
+ * {@link ForkJoinPool}. Batches split in half until they are small, so idle workers steal replays
+ * from busy ones and all cores stay busy even when one file is much larger than the others.
+ * Replays share nothing (each builds its own engine on its own {@link
+ * com.example.whackamole.util.virtual.VirtualScheduler}), so throughput grows with the number of
+ * workers. Decoding a file is sequential, since frames have no fixed size, but it is far cheaper
+ * than replaying what it decodes.
+ * <p>
+ * Only mismatches are kept, so memory stays bounded by the sessions in flight however large the
+ * archive is.
+ */
+public final class BatchVerifier {
+
+    private static final int BATCH_SIZE = 256;
+    private static final int SPLIT_THRESHOLD = 16;
+
+    private final int parallelism;
+
+    /**
+     * Constructor
+     *
+     * @param parallelism the number of worker threads
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public BatchVerifier(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Replays every session in the given log files.
+     *
+     * @param logs the session log files
+     * @return the outcome; a file that cannot be read is reported rather than failing the batch
+     */
+    public Report verify(List<File> logs) {
+        Counters counters = new Counters();
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<FileTask> tasks = new ArrayList<>();
+            for (File log : logs) {
+                tasks.add(new FileTask(log, counters));
+            }
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        return new Report(counters, System.nanoTime() - start);
+    }
+
+    /**
+     * Verifies the log files named on the command line and prints a report. Exits with status 1
+     * if any session did not replay to its recorded score or any file could not be read.
+     *
+     * @param args {@code [--threads N] file...}
+     */
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<File> logs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                logs.add(new File(args[i]));
+            }
+        }
+        if (logs.isEmpty()) {
+            System.err.println("usage: BatchVerifier [--threads N] file...");
+            System.exit(2);
+        }
+
+        Report report = new BatchVerifier(threads).verify(logs);
+        for (Mismatch mismatch : report.getMismatches()) {
+            System.out.println(mismatch);
+        }
+        for (String error : report.getErrors()) {
+            System.out.println("error: " + error);
+        }
+        System.out.printf("%d sessions, %d mismatched, %d corrupt frames, %.0f sessions/s"
+                        + " on %d threads%n", report.getSessions(), report.getMismatches().size(),
+                report.getCorruptFrames(), report.getSessionsPerSecond(), threads);
+        System.exit(report.getMismatches().isEmpty() && report.getErrors().isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * The outcome of a batch.
+     */
+    public static final class Report {
+
+        private final long sessions;
+        private final long corruptFrames;
+        private final List<Mismatch> mismatches;
+        private final List<String> errors;
+        private final long elapsedNanos;
+
+        private Report(Counters counters, long elapsedNanos) {
+            this.sessions = counters.sessions.sum();
+            this.corruptFrames = counters.corruptFrames.sum();
+            List<Mismatch> sorted = new ArrayList<>(counters.mismatches);
+            sorted.sort((a, b) -> a.file.equals(b.file)
+                    ? Integer.compare(a.index, b.index) : a.file.compareTo(b.file));
+            this.mismatches = Collections.unmodifiableList(sorted);
+            this.errors = Collections.unmodifiableList(new ArrayList<>(counters.errors));
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return The number of sessions replayed.
+         */
+        public long getSessions() {
+            return sessions;
+        }
+
+        /**
+         * @return The number of complete frames skipped because they were corrupt.
+         */
+        public long getCorruptFrames() {
+            return corruptFrames;
+        }
+
+        /**
+         * @return The sessions that did not replay as recorded, by file and position.
+         */
+        public List<Mismatch> getMismatches() {
+            return mismatches;
+        }
+
+        /**
+         * @return The files that could not be read, with the reason.
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return The wall-clock time the batch took, in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return Sessions replayed per second of wall-clock time.
+         */
+        public double getSessionsPerSecond() {
+            return elapsedNanos == 0 ? 0 : sessions * 1e9 / elapsedNanos;
+        }
+    }
+
+    /**
+     * A session that did not replay as recorded.
+     */
+    public static final class Mismatch {
+
+        private final File file;
+        private final int index;
+        private final SessionReplayer.Result result;
+
+        Mismatch(File file, int index, SessionReplayer.Result result) {
+            this.file = file;
+            this.index = index;
+            this.result = result;
+        }
+
+        /**
+         * @return The log file the session was read from.
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return The position of the session among the intact sessions in its file.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return The replay's outcome.
+         */
+        public SessionReplayer.Result getResult() {
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return file + "#" + index + ": recorded score " + result.getSession().getFinalScore()
+                    + ", replayed " + result.getReplayedScore() + ", diverged at event "
+                    + result.getDivergedAt();
+        }
+    }
+
+    private static final class Counters {
+        final LongAdder sessions = new LongAdder();
+        final LongAdder corruptFrames = new LongAdder();
+        final Queue<Mismatch> mismatches = new ConcurrentLinkedQueue<>();
+        final Queue<String> errors = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Maps one log file and forks its sessions off in batches. ForkJoinTask is Serializable, but
+     * tasks are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private final class FileTask extends RecursiveAction {
+
+        private final File file;
+        private final Counters counters;
+
+        FileTask(File file, Counters counters) {
+            this.file = file;
+            this.counters = counters;
+        }
+
+        @Override
+        protected void compute() {
+            SessionLog.Reader reader;
+            try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+                FileChannel channel = input.getChannel();
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("larger than 2 GiB");
+                }
+                // The mapping stays valid after the channel is closed
+                MappedByteBuffer mapped =
+                        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                reader = new SessionLog.Reader(mapped);
+            } catch (IOException e) {
+                counters.errors.add(file + ": " + e.getMessage());
+                return;
+            }
+
+            // Bound the sessions held in memory: join the oldest batch once enough are in flight
+            ArrayDeque<ForkJoinTask<?>> inFlight = new ArrayDeque<>();
+            int index = 0;
+            RecordedSession[] batch = new RecordedSession[BATCH_SIZE];
+            int count = 0;
+            RecordedSession session;
+            while ((session = reader.next()) != null) {
+                batch[count++] = session;
+                if (count == BATCH_SIZE) {
+                    inFlight.add(new ReplayBatch(file, batch, index, 0, count, counters).fork());
+                    index += count;
+                    batch = new RecordedSession[BATCH_SIZE];
+                    count = 0;
+                    if (inFlight.size() > 2 * parallelism) {
+                        inFlight.poll().join();
+                    }
+                }
+            }
+            if (count > 0) {
+                inFlight.add(new ReplayBatch(file, Arrays.copyOf(batch, count), index, 0, count,
+                        counters).fork());
+            }
+            while (!inFlight.isEmpty()) {
+                inFlight.poll().join();
+            }
+            counters.corruptFrames.add(reader.getCorruptFrames());
+        }
+    }
+
+    /**
+     * Replays a range of a batch, splitting it in half while it is large enough to share. Never
+     * serialized, like {@link FileTask}.
+     */
+    @SuppressWarnings("serial")
+    private static final class ReplayBatch extends RecursiveAction {
+
+        private final File file;
+        private final RecordedSession[] sessions;
+        private final int firstIndex;
+        private final int from;
+        private final int to;
+        private final Counters counters;
+
+        ReplayBatch(File file, RecordedSession[] sessions, int firstIndex, int from, int to,
+                    Counters counters) {
+            this.file = file;
+            this.sessions = sessions;
+            this.firstIndex = firstIndex;
+            this.from = from;
+            this.to = to;
+            this.counters = counters;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ReplayBatch(file, sessions, firstIndex, from, middle, counters),
+                        new ReplayBatch(file, sessions, firstIndex, middle, to, counters));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                SessionReplayer.Result result = SessionReplayer.replay(sessions[i]);
+                if (!result.isMatch()) {
+                    counters.mismatches.add(new Mismatch(file, firstIndex + i, result));
+                }
+            }
+            counters.sessions.add(to - from);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.whackamole.session;
+
+import com.example.whackamole.model.GameConfig;
+
+/**
+ * A finished session read back from a {@link SessionLog}: everything needed to replay it, and the
+ * outcome the replay must reproduce.
+ * <p>
+ * Events are spawns, hits and expiries in the order the engine saw them. Times are on the recording
+ * engine's scheduler clock.
+ */
+public final class RecordedSession {
+
+    /**
+     * The {@link #getHitMoleId(int) mole ID} of a spawn event.
+     */
+    public static final int SPAWN = -1;
+
+    /**
+     * The {@link #getHitMoleId(int) mole ID} of an expiry event.
+     */
+    public static final int EXPIRY = -2;
+
+    private final long seed;
+    private final GameConfig gameConfig;
+    private final long startTime;
+    private final long[] eventTimes;
+    private final int[] hitMoleIds;
+    private final int finalScore;
+    private final long endTime;
+
+    /**
+     * Constructor
+     *
+     * @param seed       the session's seed
+     * @param gameConfig the session's rules
+     * @param startTime  when the session started
+     * @param eventTimes when each event happened, in order
+     * @param hitMoleIds the tapped mole for each hit event, or {@link #SPAWN} or
+     *                   {@link #EXPIRY} for a spawn or an expiry
+     * @param finalScore the score the session ended with
+     * @param endTime    when the session ended
+     * @throws IllegalArgumentException if the event arrays differ in length
+     */
+    public RecordedSession(long seed, GameConfig gameConfig, long startTime, long[] eventTimes,
+                           int[] hitMoleIds, int finalScore, long endTime) {
+        if (eventTimes.length != hitMoleIds.length) {
+            throw new IllegalArgumentException("every event needs exactly one time");
+        }
+        this.seed = seed;
+        this.gameConfig = gameConfig;
+        this.startTime = startTime;
+        this.eventTimes = eventTimes.clone();
+        this.hitMoleIds = hitMoleIds.clone();
+        this.finalScore = finalScore;
+        this.endTime = endTime;
+    }
+
+    /**
+     * @return The seed the session was started from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The rules the session was played under.
+     */
+    public GameConfig getGameConfig() {
+        return gameConfig;
+    }
+
+    /**
+     * @return When the session started.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return The number of spawn, hit and expiry events.
+     */
+    public int getEventCount() {
+        return eventTimes.length;
+    }
+
+    /**
+     * @param index an event index
+     * @return When the event happened.
+     */
+    public long getEventTime(int index) {
+        return eventTimes[index];
+    }
+
+    /**
+     * @param index an event index
+     * @return Whether the event is a run of the spawn loop.
+     */
+    public boolean isSpawn(int index) {
+        return hitMoleIds[index] == SPAWN;
+    }
+
+    /**
+     * @param index an event index
+     * @return Whether the event is a mole expiring.
+     */
+    public boolean isExpiry(int index) {
+        return hitMoleIds[index] == EXPIRY;
+    }
+
+    /**
+     * @param index an event index
+     * @return The tapped mole, or {@link #SPAWN} or {@link #EXPIRY} if the event is not a hit.
+     */
+    public int getHitMoleId(int index) {
+        return hitMoleIds[index];
+    }
+
+    /**
+     * @return The score the session ended with.
+     */
+    public int getFinalScore() {
+        return finalScore;
+    }
+
+    /**
+     * @return When the session ended.
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+}
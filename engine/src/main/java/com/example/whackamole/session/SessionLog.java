@@ -0,0 +1,223 @@
+package com.example.whackamole.session;
+
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.MissedTickPolicy;
+import com.example.whackamole.model.MoleColor;
+import com.example.whackamole.model.MoleColorDistribution;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The session log format, and reading it back.
+ * <p>
+ * A session log is a header followed by one frame per finished session. Fixed-size fields are
+ * little-endian; everything else is a varint, 7 bits per byte with the high bit set on all but
+ * the last byte, and fields that may be negative are zigzag-encoded first.
+ * <pre>
+ *   log header (8 bytes): magic ("WAMS"), format version
+ *   frame:                body length (4 bytes), body, CRC-32 of the body (4 bytes)
+ *   body:                 seed (8 bytes), start time,
+ *                         max misses, moles, initial interval, min interval, interval decrement,
+ *                         missed-tick policy, max visible moles, mole lifetime,
+ *                         color weights (8 bytes each, in {@link MoleColor} order),
+ *                         events
+ *   event:                time since the previous event &lt;&lt; 2 | kind, then
+ *                         the mole ID for a hit, or the final score for the end
+ * </pre>
+ * The end event is always last. A spawn or an expiry typically takes one or two bytes and a hit
+ * two or three, so a whole session fits in a few hundred bytes.
+ * <p>
+ * Frames are only appended, so a crash can at worst leave a torn frame at the end of the log,
+ * which readers stop at. A complete frame whose checksum or contents are wrong is skipped.
+ */
+public final class SessionLog {
+
+    static final int MAGIC = 0x57414D53;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int FRAME_OVERHEAD = 8;
+    static final int SPAWN = 0;
+    static final int HIT = 1;
+    static final int END = 2;
+    static final int EXPIRY = 3;
+
+    private static final MissedTickPolicy[] POLICIES = MissedTickPolicy.values();
+    private static final MoleColor[] COLORS = MoleColor.values();
+
+    private SessionLog() {
+    }
+
+    /**
+     * Reads every intact session in a log file.
+     *
+     * @param file the log file
+     * @return the sessions, in the order they were recorded
+     * @throws IOException if the file cannot be read or is not a session log
+     */
+    public static List<RecordedSession> read(File file) throws IOException {
+        byte[] contents;
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            if (input.length() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to read at once");
+            }
+            contents = new byte[(int) input.length()];
+            input.readFully(contents);
+        }
+        Reader reader = new Reader(ByteBuffer.wrap(contents));
+        List<RecordedSession> sessions = new ArrayList<>();
+        RecordedSession session;
+        while ((session = reader.next()) != null) {
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    /**
+     * Reads sessions one at a time from a log held in a buffer, such as a memory-mapped file.
+     * Only the frame being decoded is copied. This class is not thread-safe.
+     */
+    public static final class Reader {
+
+        private final ByteBuffer log;
+        private final CRC32 crc = new CRC32();
+        private byte[] body = new byte[256];
+        private int corruptFrames;
+
+        /**
+         * Constructor. Reads the log header at the buffer's position.
+         *
+         * @param log the log, from its header to its end; the reader takes a view of it, so the
+         *            caller's position and byte order are left alone
+         * @throws IOException if the buffer does not start with a session log header
+         */
+        public Reader(ByteBuffer log) throws IOException {
+            this.log = log.slice().order(ByteOrder.LITTLE_ENDIAN);
+            if (this.log.remaining() < HEADER_SIZE || this.log.getInt() != MAGIC) {
+                throw new IOException("not a session log");
+            }
+            int version = this.log.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("unsupported session log version " + version);
+            }
+        }
+
+        /**
+         * Reads the next intact session, skipping corrupt frames.
+         *
+         * @return the session, or null at the end of the log or at a torn frame
+         */
+        public RecordedSession next() {
+            while (log.remaining() >= FRAME_OVERHEAD) {
+                int length = log.getInt();
+                if (length < 0 || length > log.remaining() - 4) {
+                    // Torn by a crash while appending; nothing valid follows
+                    log.position(log.limit());
+                    return null;
+                }
+                if (body.length < length) {
+                    body = new byte[Math.max(length, body.length * 2)];
+                }
+                log.get(body, 0, length);
+                crc.reset();
+                crc.update(body, 0, length);
+                if (log.getInt() != (int) crc.getValue()) {
+                    corruptFrames++;
+                    continue;
+                }
+                try {
+                    return decode(ByteBuffer.wrap(body, 0, length).order(ByteOrder.LITTLE_ENDIAN));
+                } catch (RuntimeException e) {
+                    // Intact but not a session this version can read
+                    corruptFrames++;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return The number of complete frames skipped so far because they were corrupt.
+         */
+        public int getCorruptFrames() {
+            return corruptFrames;
+        }
+    }
+
+    /**
+     * Decodes a frame body.
+     *
+     * @throws RuntimeException if the body is malformed
+     */
+    private static RecordedSession decode(ByteBuffer body) {
+        long seed = body.getLong();
+        long startTime = readVarLong(body);
+        int maxMisses = (int) readZigZag(body);
+        int numMoles = (int) readZigZag(body);
+        long initialInterval = readZigZag(body);
+        long minInterval = readZigZag(body);
+        long intervalDecrement = readZigZag(body);
+        MissedTickPolicy policy = POLICIES[(int) readVarLong(body)];
+        int maxVisibleMoles = (int) readVarLong(body);
+        long moleLifetime = readZigZag(body);
+        Map<MoleColor, Double> weights = new EnumMap<>(MoleColor.class);
+        for (MoleColor color : COLORS) {
+            weights.put(color, body.getDouble());
+        }
+        GameConfig gameConfig = new GameConfig(maxMisses, numMoles, initialInterval, minInterval,
+                intervalDecrement, policy, new MoleColorDistribution(weights), maxVisibleMoles,
+                moleLifetime);
+
+        long[] times = new long[64];
+        int[] moleIds = new int[64];
+        int count = 0;
+        long time = startTime;
+        while (true) {
+            long event = readVarLong(body);
+            time += event >>> 2;
+            int kind = (int) (event & 3);
+            if (kind == END) {
+                int finalScore = (int) readVarLong(body);
+                if (body.hasRemaining()) {
+                    throw new IllegalArgumentException("data after the end of the session");
+                }
+                return new RecordedSession(seed, gameConfig, startTime,
+                        Arrays.copyOf(times, count), Arrays.copyOf(moleIds, count), finalScore,
+                        time);
+            }
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+                moleIds = Arrays.copyOf(moleIds, count * 2);
+            }
+            times[count] = time;
+            moleIds[count] = kind == HIT ? (int) readVarLong(body)
+                    : kind == SPAWN ? RecordedSession.SPAWN : RecordedSession.EXPIRY;
+            count++;
+        }
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint is too long");
+    }
+
+    private static long readZigZag(ByteBuffer buffer) {
+        long value = readVarLong(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
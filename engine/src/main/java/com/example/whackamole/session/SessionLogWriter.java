@@ -0,0 +1,200 @@
+package com.example.whackamole.session;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Appends finished sessions to a {@link SessionLog} file.
+ * <p>
+ * The file is opened on the first write rather than in the constructor, so the writer can be
+ * created on the main thread and only touched on a background one. Opening it cuts off a frame
+ * torn by a crash, so new frames are never written behind one. Each frame goes to the file in a
+ * single write, and reaches the page cache before {@link #write(byte[], int)} returns.
+ * <p>
+ * A writer can cap the log's size. When the next frame would take the log past the cap, the log is
+ * renamed to {@link #getRotatedPath()}, replacing the one rotated out before it, and a new log is
+ * started, so the two files together never hold much more than twice the cap and the newest
+ * sessions are always kept.
+ * <p>
+ * This class is thread-safe, so several {@link SessionRecorder}s can share one log.
+ */
+public final class SessionLogWriter implements SessionRecorder.Sink, Closeable {
+
+    private final File path;
+    private final File rotatedPath;
+    private final long maxBytes;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer frameBuffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+    private RandomAccessFile file;
+    private long size;
+    private boolean closed;
+
+    /**
+     * Constructor for a log that grows without bound. Does not touch the file.
+     *
+     * @param path the log file; created on the first write if it does not exist
+     */
+    public SessionLogWriter(File path) {
+        this(path, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructor for a log that is rotated once it reaches a size. Does not touch the file.
+     *
+     * @param path     the log file; created on the first write if it does not exist
+     * @param maxBytes the size past which the log is rotated before the next frame is written.
+     *                 A single frame larger than this still goes into a log of its own.
+     * @throws IllegalArgumentException if maxBytes is not positive
+     */
+    public SessionLogWriter(File path, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.path = path;
+        this.rotatedPath = new File(path.getPath() + ".1");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the file the log is renamed to when it is rotated. It is a complete session log of the
+     * sessions written before the current log was started, if it exists.
+     *
+     * @return the rotated log file
+     */
+    public File getRotatedPath() {
+        return rotatedPath;
+    }
+
+    /**
+     * Appends one session as a frame.
+     *
+     * @param body   the encoded session
+     * @param length the number of bytes of body to write
+     * @throws IOException if the file cannot be written, or exists but is not a session log
+     */
+    @Override
+    public synchronized void write(byte[] body, int length) throws IOException {
+        if (closed) {
+            throw new IOException("session log is closed");
+        }
+        if (file == null) {
+            open();
+        }
+        if (size > SessionLog.HEADER_SIZE && size + length + SessionLog.FRAME_OVERHEAD > maxBytes) {
+            rotate();
+        }
+        if (frameBuffer.capacity() < length + SessionLog.FRAME_OVERHEAD) {
+            frameBuffer = ByteBuffer.allocate(Math.max(length + SessionLog.FRAME_OVERHEAD,
+                    frameBuffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        crc.reset();
+        crc.update(body, 0, length);
+        frameBuffer.clear();
+        frameBuffer.putInt(length).put(body, 0, length).putInt((int) crc.getValue());
+        frameBuffer.flip();
+        writeFully(file.getChannel(), frameBuffer, size);
+        size += frameBuffer.limit();
+    }
+
+    /**
+     * Closes the file. Later writes fail.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    /**
+     * Renames the full log to the rotated path and opens a new, empty one in its place.
+     */
+    private void rotate() throws IOException {
+        file.close();
+        file = null;
+        if (!path.renameTo(rotatedPath)) {
+            throw new IOException("could not rotate " + path + " to " + rotatedPath);
+        }
+        open();
+    }
+
+    /**
+     * Opens the file, writing the header if it is new and otherwise finding the end of its last
+     * complete frame.
+     */
+    private void open() throws IOException {
+        RandomAccessFile opened = new RandomAccessFile(path, "rw");
+        try {
+            FileChannel channel = opened.getChannel();
+            long length = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(SessionLog.HEADER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (length < SessionLog.HEADER_SIZE) {
+                // New, or torn while writing the header
+                header.putInt(SessionLog.MAGIC).putInt(SessionLog.FORMAT_VERSION).flip();
+                channel.truncate(0);
+                writeFully(channel, header, 0);
+                size = SessionLog.HEADER_SIZE;
+            } else {
+                readFully(channel, header, 0);
+                if (header.getInt(0) != SessionLog.MAGIC
+                        || header.getInt(4) != SessionLog.FORMAT_VERSION) {
+                    throw new IOException(path + " is not a session log this version can write");
+                }
+                size = endOfLastFrame(channel, length);
+                if (size < length) {
+                    channel.truncate(size);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            opened.close();
+            throw e;
+        }
+        file = opened;
+    }
+
+    /**
+     * Walks the frame lengths from the header to the first frame that does not fit in the file.
+     */
+    private static long endOfLastFrame(FileChannel channel, long length) throws IOException {
+        ByteBuffer lengthField = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        long position = SessionLog.HEADER_SIZE;
+        while (length - position >= SessionLog.FRAME_OVERHEAD) {
+            lengthField.clear();
+            readFully(channel, lengthField, position);
+            int bodyLength = lengthField.getInt(0);
+            long end = position + SessionLog.FRAME_OVERHEAD + bodyLength;
+            if (bodyLength < 0 || end > length) {
+                break;
+            }
+            position = end;
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("unexpected end of session log");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
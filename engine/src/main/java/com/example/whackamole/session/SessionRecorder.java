@@ -0,0 +1,181 @@
+package com.example.whackamole.session;
+
+import com.example.whackamole.engine.SessionTrace;
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.MoleColor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * SessionRecorder encodes each session an engine plays into a {@link SessionLog} frame body and
+ * hands finished sessions to a {@link Sink} on a background executor.
+ * <p>
+ * Events are encoded straight into a byte array as they happen, so recording a spawn or a hit
+ * does not allocate once the array has grown to fit a typical session. When a session ends, its
+ * buffer is handed to the executor, which writes it to the sink and returns it to a small pool for
+ * later sessions; the engine's thread never waits for I/O. A session that is still running when
+ * the engine goes away is not written, since it could not be verified by replaying it anyway.
+ * <p>
+ * Like the engine that drives it, this class must be used from a single thread.
+ */
+public final class SessionRecorder implements SessionTrace {
+
+    /**
+     * Receives finished sessions. Called on the recorder's executor.
+     */
+    public interface Sink {
+
+        /**
+         * Writes one session.
+         *
+         * @param body   the encoded session, a {@link SessionLog} frame body
+         * @param length the number of bytes of body to write
+         * @throws IOException if the session cannot be written; it is then dropped
+         */
+        void write(byte[] body, int length) throws IOException;
+    }
+
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int POOLED_BUFFERS = 2;
+    private static final MoleColor[] COLORS = MoleColor.values();
+
+    private final Sink sink;
+    private final Executor executor;
+    private final ArrayBlockingQueue<Frame> freeFrames = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+    // The session being recorded, or null between sessions
+    private Frame frame;
+    private long lastEventTime;
+
+    /**
+     * Constructor
+     *
+     * @param sink     receives finished sessions
+     * @param executor runs the writes to the sink, off the engine's thread
+     */
+    public SessionRecorder(Sink sink, Executor executor) {
+        this.sink = sink;
+        this.executor = executor;
+    }
+
+    @Override
+    public void onSessionStarted(GameConfig gameConfig, long seed, long timeMs) {
+        if (frame == null) {
+            frame = obtainFrame();
+        }
+        frame.length = 0;
+        lastEventTime = timeMs;
+        putLong(seed);
+        putVarLong(timeMs);
+        putZigZag(gameConfig.getMaxMisses());
+        putZigZag(gameConfig.getNumMoles());
+        putZigZag(gameConfig.getInitialInterval());
+        putZigZag(gameConfig.getMinInterval());
+        putZigZag(gameConfig.getIntervalDecrement());
+        putVarLong(gameConfig.getMissedTickPolicy().ordinal());
+        putVarLong(gameConfig.getMaxVisibleMoles());
+        putZigZag(gameConfig.getMoleLifetime());
+        for (MoleColor color : COLORS) {
+            putLong(Double.doubleToLongBits(gameConfig.getColorDistribution().getWeight(color)));
+        }
+    }
+
+    @Override
+    public void onSpawn(long timeMs) {
+        if (frame != null) {
+            putEvent(SessionLog.SPAWN, timeMs);
+        }
+    }
+
+    @Override
+    public void onHit(int moleId, long timeMs) {
+        // Negative IDs never hit a mole, so they do not affect the session
+        if (frame != null && moleId >= 0) {
+            putEvent(SessionLog.HIT, timeMs);
+            putVarLong(moleId);
+        }
+    }
+
+    @Override
+    public void onExpiry(long timeMs) {
+        if (frame != null) {
+            putEvent(SessionLog.EXPIRY, timeMs);
+        }
+    }
+
+    @Override
+    public void onSessionEnded(int score, long timeMs) {
+        if (frame == null) {
+            return;
+        }
+        putEvent(SessionLog.END, timeMs);
+        putVarLong(score);
+        executor.execute(frame);
+        frame = null;
+    }
+
+    private Frame obtainFrame() {
+        Frame free = freeFrames.poll();
+        // Only allocates while the executor is still writing every pooled buffer
+        return free != null ? free : new Frame();
+    }
+
+    private void putEvent(int kind, long timeMs) {
+        putVarLong((Math.max(0, timeMs - lastEventTime) << 2) | kind);
+        lastEventTime = timeMs;
+    }
+
+    private void putLong(long value) {
+        ensureCapacity(8);
+        byte[] data = frame.data;
+        int position = frame.length;
+        for (int i = 0; i < 8; i++) {
+            data[position + i] = (byte) (value >>> (8 * i));
+        }
+        frame.length = position + 8;
+    }
+
+    private void putZigZag(long value) {
+        putVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void putVarLong(long value) {
+        ensureCapacity(10);
+        byte[] data = frame.data;
+        int position = frame.length;
+        while ((value & ~0x7FL) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+        frame.length = position;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (frame.length + bytes > frame.data.length) {
+            frame.data = Arrays.copyOf(frame.data, frame.data.length * 2);
+        }
+    }
+
+    /**
+     * A session's encoded body. Running it writes the body to the sink and returns the frame to
+     * the pool.
+     */
+    private final class Frame implements Runnable {
+        byte[] data = new byte[INITIAL_CAPACITY];
+        int length;
+
+        @Override
+        public void run() {
+            try {
+                sink.write(data, length);
+            } catch (IOException e) {
+                // The session is lost, but later sessions are still recorded
+            } finally {
+                freeFrames.offer(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.whackamole.session;
+
+import com.example.whackamole.engine.GameEngine;
+import com.example.whackamole.engine.SessionTrace;
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.util.Scheduler;
+import com.example.whackamole.util.virtual.VirtualScheduler;
+
+/**
+ * Replays recorded sessions on a {@link VirtualScheduler} and checks that they play out as they
+ * did when recorded.
+ * <p>
+ * The session is restarted from its seed and rules, and every recorded event is fed back at its
+ * recorded time, in its recorded order:
+ * <ul>
+ *   <li>A hit is applied with the clock at the hit's time, and nothing else runs before it. A
+ *       spawn or expiry that was already due only runs at its own recorded event, since the tap
+ *       may have been processed while the engine's thread was too busy to run it.</li>
+ *   <li>A spawn or an expiry runs at its recorded time, even if it originally ran late, so the
+ *       engine sees the same clock it saw when recorded. Whatever is due runs in deadline order,
+ *       one task at a time, until the game has caught up with the recorded event.</li>
+ * </ul>
+ * The replay diverges if the spawn loop runs or a mole expires when the recording says it did not,
+ * or not when it did, or if the game ends at a different time or with a different score. Sessions are
+ * only reproducible if the engine was given the same inputs in the same order, so a divergence
+ * means a bug in the engine's determinism or a tampered log.
+ * <p>
+ * The game being replayed is created by a {@link PlayerFactory}, so a session can be replayed
+ * against a bare {@link GameEngine} or against anything wrapping one.
+ */
+public final class SessionReplayer {
+
+    /**
+     * A game being replayed.
+     */
+    public interface Player {
+
+        /**
+         * Applies a tap, as {@link GameEngine#hitMole(int)} does.
+         *
+         * @param moleId the tapped mole
+         */
+        void hitMole(int moleId);
+    }
+
+    /**
+     * Creates and starts the game a session is replayed against.
+     */
+    public interface PlayerFactory {
+
+        /**
+         * @param gameConfig the session's rules
+         * @param seed       the session's seed
+         * @param scheduler  the virtual clock the game must run on
+         * @param trace      must receive the started game's {@link SessionTrace} callbacks
+         * @return the started game
+         */
+        Player start(GameConfig gameConfig, long seed, Scheduler scheduler, SessionTrace trace);
+    }
+
+    /**
+     * Replays against a bare {@link GameEngine}.
+     */
+    public static final PlayerFactory ENGINE = SessionReplayer::startEngine;
+
+    private SessionReplayer() {
+    }
+
+    /**
+     * Replays a session against a bare {@link GameEngine}.
+     *
+     * @param session the session to replay
+     * @return the outcome
+     */
+    public static Result replay(RecordedSession session) {
+        return replay(session, ENGINE);
+    }
+
+    /**
+     * Replays a session against a game created by the given factory.
+     *
+     * @param session the session to replay
+     * @param players creates the game to replay against
+     * @return the outcome
+     */
+    public static Result replay(RecordedSession session, PlayerFactory players) {
+        VirtualScheduler scheduler = new VirtualScheduler(session.getStartTime());
+        ReplayTrace trace = new ReplayTrace();
+        Player player = players.start(session.getGameConfig(), session.getSeed(), scheduler,
+                trace);
+
+        int spawns = 0;
+        int expiries = 0;
+        for (int i = 0; i < session.getEventCount(); i++) {
+            holdUntil(scheduler, session.getEventTime(i));
+            if (session.isSpawn(i) || session.isExpiry(i)) {
+                if (session.isSpawn(i)) {
+                    spawns++;
+                } else {
+                    expiries++;
+                }
+                runUntilCaughtUp(scheduler, trace, spawns, expiries);
+                if (trace.spawns != spawns || trace.expiries != expiries) {
+                    return new Result(session, trace, i);
+                }
+            } else {
+                if (trace.spawns != spawns || trace.expiries != expiries || trace.ended) {
+                    return new Result(session, trace, i);
+                }
+                player.hitMole(session.getHitMoleId(i));
+            }
+        }
+
+        // The game ends in the spawn or expiry that reached the miss limit, so nothing more runs
+        boolean matched = trace.spawns == spawns && trace.expiries == expiries && trace.ended
+                && trace.endTime == session.getEndTime()
+                && trace.finalScore == session.getFinalScore();
+        return new Result(session, trace, matched ? -1 : session.getEventCount());
+    }
+
+    private static Player startEngine(GameConfig gameConfig, long seed, Scheduler scheduler,
+                                      SessionTrace trace) {
+        GameEngine engine = new GameEngine.Builder(gameConfig, scheduler, state -> { })
+                .seed(seed)
+                .trace(trace)
+                .build();
+        engine.start();
+        return engine::hitMole;
+    }
+
+    /**
+     * Moves the clock to the given time without running anything that falls due by it.
+     */
+    private static void holdUntil(VirtualScheduler scheduler, long timeMs) {
+        if (timeMs > scheduler.now()) {
+            scheduler.stallTo(timeMs);
+        }
+    }
+
+    /**
+     * Runs what is due by the current time, one task at a time in deadline order, until the game
+     * has run as many spawns and expiries as given, or nothing more is due.
+     */
+    private static void runUntilCaughtUp(VirtualScheduler scheduler, ReplayTrace trace,
+                                         int spawns, int expiries) {
+        while ((trace.spawns < spawns || trace.expiries < expiries)
+                && scheduler.nextDeadline() <= scheduler.now()) {
+            scheduler.runNext();
+        }
+    }
+
+    /**
+     * The outcome of a replay.
+     */
+    public static final class Result {
+
+        private final RecordedSession session;
+        private final int replayedScore;
+        private final int divergedAt;
+
+        private Result(RecordedSession session, ReplayTrace trace, int divergedAt) {
+            this.session = session;
+            this.replayedScore = trace.ended ? trace.finalScore : -1;
+            this.divergedAt = divergedAt;
+        }
+
+        /**
+         * @return Whether the replay played out exactly as recorded.
+         */
+        public boolean isMatch() {
+            return divergedAt < 0;
+        }
+
+        /**
+         * @return The replayed session.
+         */
+        public RecordedSession getSession() {
+            return session;
+        }
+
+        /**
+         * @return The score the replay ended with, or -1 if it stopped before the game ended.
+         */
+        public int getReplayedScore() {
+            return replayedScore;
+        }
+
+        /**
+         * @return The index of the first event the replay disagreed with, the event count if
+         * only the end disagreed, or -1 if the replay matched.
+         */
+        public int getDivergedAt() {
+            return divergedAt;
+        }
+    }
+
+    /**
+     * Watches the replayed game.
+     */
+    private static final class ReplayTrace implements SessionTrace {
+        int spawns;
+        int expiries;
+        boolean ended;
+        int finalScore;
+        long endTime;
+
+        @Override
+        public void onSessionStarted(GameConfig gameConfig, long seed, long timeMs) {
+        }
+
+        @Override
+        public void onSpawn(long timeMs) {
+            spawns++;
+        }
+
+        @Override
+        public void onHit(int moleId, long timeMs) {
+        }
+
+        @Override
+        public void onExpiry(long timeMs) {
+            expiries++;
+        }
+
+        @Override
+        public void onSessionEnded(int score, long timeMs) {
+            ended = true;
+            finalScore = score;
+            endTime = timeMs;
+        }
+    }
+}
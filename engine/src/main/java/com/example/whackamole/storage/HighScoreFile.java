@@ -0,0 +1,148 @@
+package com.example.whackamole.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A high score kept in a small fixed-layout binary file, memory mapped for cheap updates.
+ * <p>
+ * The file holds two slots, each a complete record protected by a CRC-32:
+ * <pre>
+ *   offset  size  field
+ *   0       4     magic ("WAMH")
+ *   4       8     sequence number
+ *   12      4     high score
+ *   16      4     CRC-32 of bytes 0..15
+ * </pre>
+ * Writes alternate between the slots, always overwriting the older record, and the newest slot
+ * whose checksum is valid wins on read. A write that is torn by a crash or power loss can only
+ * damage the slot being written, so the previous value survives. Writes go to the shared mapping,
+ * so they survive the process being killed as soon as {@link #write(int)} returns; {@link #sync()}
+ * additionally forces them to the storage device.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class HighScoreFile implements Closeable {
+
+    private static final int MAGIC = 0x57414D48;
+    private static final int SLOT_SIZE = 32;
+    private static final int CHECKED_SIZE = 16;
+    private static final int FILE_SIZE = 2 * SLOT_SIZE;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private final byte[] record = new byte[CHECKED_SIZE];
+    private long sequence;
+    private int highScore;
+    private boolean hasRecord;
+
+    private HighScoreFile(RandomAccessFile file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        readSlot(0);
+        readSlot(1);
+    }
+
+    /**
+     * Opens the file, creating it if it does not exist.
+     *
+     * @param path the file to open
+     * @return the opened file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static HighScoreFile open(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            MappedByteBuffer buffer = file.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            return new HighScoreFile(file, buffer);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Whether the file holds a valid record. A new or fully corrupted file does not.
+     */
+    public synchronized boolean hasRecord() {
+        return hasRecord;
+    }
+
+    /**
+     * @return The stored high score, or 0 if there is no valid record.
+     */
+    public synchronized int getHighScore() {
+        return highScore;
+    }
+
+    /**
+     * Stores a new high score in the slot holding the older record. This method does not
+     * allocate.
+     *
+     * @param score the high score to store
+     */
+    public synchronized void write(int score) {
+        long nextSequence = sequence + 1;
+        int base = (int) (nextSequence & 1) * SLOT_SIZE;
+        buffer.putInt(base, MAGIC);
+        buffer.putLong(base + 4, nextSequence);
+        buffer.putInt(base + 12, score);
+        buffer.putInt(base + CHECKED_SIZE, checksum(base));
+        sequence = nextSequence;
+        highScore = score;
+        hasRecord = true;
+    }
+
+    /**
+     * Forces written records to the storage device.
+     */
+    public synchronized void sync() {
+        buffer.force();
+    }
+
+    /**
+     * Closes the file. Written records stay in the page cache and reach storage eventually even
+     * without {@link #sync()}.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Adopts the record in the given slot if it is valid and newer than what has been read.
+     */
+    private void readSlot(int slot) {
+        int base = slot * SLOT_SIZE;
+        if (buffer.getInt(base) != MAGIC
+                || buffer.getInt(base + CHECKED_SIZE) != checksum(base)) {
+            return;
+        }
+        long slotSequence = buffer.getLong(base + 4);
+        if (!hasRecord || slotSequence > sequence) {
+            sequence = slotSequence;
+            highScore = buffer.getInt(base + 12);
+            hasRecord = true;
+        }
+    }
+
+    private int checksum(int base) {
+        for (int i = 0; i < CHECKED_SIZE; i++) {
+            record[i] = buffer.get(base + i);
+        }
+        crc.reset();
+        crc.update(record, 0, CHECKED_SIZE);
+        return (int) crc.getValue();
+    }
+}
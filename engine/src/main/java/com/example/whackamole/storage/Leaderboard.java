@@ -0,0 +1,395 @@
+package com.example.whackamole.storage;
+
+import com.example.whackamole.model.LeaderboardEntry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+
+/**
+ * Leaderboard of finished sessions, stored as an append-only log with an in-memory index of the
+ * best entries for each game configuration.
+ * <p>
+ * Every recorded session is appended to the log as a fixed-size record protected by a CRC-32:
+ * <pre>
+ *   log header (16 bytes): magic ("WAML"), format version, generation
+ *   record (32 bytes):     config ID, timestamp, duration, score, CRC-32 of the first 28 bytes
+ * </pre>
+ * A bounded {@link TopScoreIndex} keeps the best {@code capacity} entries per config, so
+ * {@link #top(long)} is O(K) and never reads the log.
+ * <p>
+ * The index is checkpointed to a file next to the log, with the log offset it covers. Opening the
+ * leaderboard loads the checkpoint and replays only the log records after that offset; without a
+ * usable checkpoint the whole log is replayed. A torn record at the end of the log, left by a
+ * crash during an append, is cut off.
+ * <p>
+ * Records that can no longer reach any config's top entries are dead weight, so once the log
+ * holds many more records than the index, it is compacted on the background executor: the index
+ * entries are written to a new log with the next generation, which then replaces the old one.
+ * Checkpoints name the generation they belong to, so a checkpoint is never applied to the wrong
+ * log. Checkpoints are also written in the background every {@value #CHECKPOINT_INTERVAL} records
+ * and on {@link #close()}.
+ * <p>
+ * This class is thread-safe. Background work takes the same lock as recording, so a record made
+ * during a compaction waits for it; compactions only write the index, so they are short.
+ */
+public final class Leaderboard implements Closeable {
+
+    private static final int LOG_MAGIC = 0x57414D4C;
+    private static final int CHECKPOINT_MAGIC = 0x57414D43;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 32;
+    private static final int CHECKED_SIZE = 28;
+    private static final int CHECKPOINT_HEADER_SIZE = 28;
+    private static final int REPLAY_BATCH_RECORDS = 2048;
+    private static final int CHECKPOINT_INTERVAL = 256;
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+
+    private final File logPath;
+    private final File checkpointPath;
+    private final Executor background;
+    private final TopScoreIndex index;
+    private final ByteBuffer recordBuffer =
+            ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+    private RandomAccessFile log;
+    private long generation;
+    private long logSize;
+    private long checkpointedSize;
+    private boolean backgroundWorkScheduled;
+    private boolean closed;
+
+    private Leaderboard(File logPath, int capacity, Executor background) {
+        this.logPath = logPath;
+        this.checkpointPath = new File(logPath.getPath() + ".ckpt");
+        this.background = background;
+        this.index = new TopScoreIndex(capacity);
+    }
+
+    /**
+     * Opens the leaderboard, creating its log if it does not exist, and rebuilds the index from
+     * the checkpoint and the log records after it.
+     *
+     * @param logPath    the log file; the checkpoint is kept next to it
+     * @param capacity   how many entries to keep for each config
+     * @param background runs checkpoints and compactions
+     * @return the opened leaderboard
+     * @throws IOException if the log cannot be read or written, or is not a leaderboard log
+     */
+    public static Leaderboard open(File logPath, int capacity, Executor background)
+            throws IOException {
+        Leaderboard leaderboard = new Leaderboard(logPath, capacity, background);
+        leaderboard.log = new RandomAccessFile(logPath, "rw");
+        try {
+            leaderboard.load();
+        } catch (IOException | RuntimeException e) {
+            leaderboard.log.close();
+            throw e;
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Appends a finished session to the log and adds it to the index if it ranks among its
+     * config's best. The record reaches the page cache before this returns; {@link #sync()}
+     * forces it to the storage device.
+     *
+     * @param entry the session to record
+     * @return whether the session entered its config's top entries
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized boolean record(LeaderboardEntry entry) throws IOException {
+        ensureOpen();
+        writeRecord(log.getChannel(), logSize, entry);
+        logSize += RECORD_SIZE;
+        boolean ranked = index.offer(entry);
+        if (!backgroundWorkScheduled && (needsCompaction()
+                || logSize - checkpointedSize >= (long) CHECKPOINT_INTERVAL * RECORD_SIZE)) {
+            backgroundWorkScheduled = true;
+            background.execute(this::runBackgroundWork);
+        }
+        return ranked;
+    }
+
+    /**
+     * @param configId a {@link com.example.whackamole.model.GameConfig#getConfigId() config ID}
+     * @return The best entries recorded for the config, best first; empty if there are none.
+     */
+    public synchronized List<LeaderboardEntry> top(long configId) {
+        return index.top(configId);
+    }
+
+    /**
+     * Forces recorded sessions to the storage device.
+     *
+     * @throws IOException if syncing fails
+     */
+    public synchronized void sync() throws IOException {
+        ensureOpen();
+        log.getChannel().force(false);
+    }
+
+    /**
+     * Rewrites the log to hold only the indexed entries, and checkpoints the new log. This
+     * normally runs in the background on its own; it is public so it can also be run on demand.
+     *
+     * @throws IOException if the new log cannot be written; the old log is then kept
+     */
+    public synchronized void compact() throws IOException {
+        ensureOpen();
+        File compactedPath = new File(logPath.getPath() + ".tmp");
+        long compactedGeneration = generation + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + index.size() * RECORD_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(LOG_MAGIC).putInt(FORMAT_VERSION).putLong(compactedGeneration);
+        putIndex(buffer);
+        buffer.flip();
+        try (RandomAccessFile compacted = new RandomAccessFile(compactedPath, "rw")) {
+            compacted.setLength(0);
+            writeFully(compacted.getChannel(), buffer, 0);
+            compacted.getChannel().force(true);
+        }
+
+        log.close();
+        boolean replaced = compactedPath.renameTo(logPath);
+        log = new RandomAccessFile(logPath, "rw");
+        if (!replaced) {
+            throw new IOException("could not replace " + logPath + " with its compacted log");
+        }
+        generation = compactedGeneration;
+        logSize = buffer.limit();
+        checkpointedSize = 0;
+        writeCheckpoint();
+    }
+
+    /**
+     * Checkpoints the index if records were added since the last checkpoint, and closes the
+     * log. Pending background work does nothing once the leaderboard is closed.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (logSize != checkpointedSize) {
+                writeCheckpoint();
+            }
+        } finally {
+            log.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("leaderboard is closed");
+        }
+    }
+
+    private boolean needsCompaction() {
+        long records = (logSize - HEADER_SIZE) / RECORD_SIZE;
+        return records >= Math.max(MIN_COMPACTION_RECORDS, 4L * index.size());
+    }
+
+    private synchronized void runBackgroundWork() {
+        backgroundWorkScheduled = false;
+        if (closed) {
+            return;
+        }
+        try {
+            if (needsCompaction()) {
+                compact();
+            } else {
+                writeCheckpoint();
+            }
+        } catch (IOException e) {
+            // The log is still complete; the work is retried after later records
+        }
+    }
+
+    private void load() throws IOException {
+        FileChannel channel = log.getChannel();
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE) {
+            // New, or a crash interrupted creating it before any record was written
+            channel.truncate(0);
+            writeHeader(channel, 0);
+            channel.force(true);
+            logSize = HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != FORMAT_VERSION) {
+            throw new IOException(logPath + " is not a leaderboard log");
+        }
+        generation = header.getLong(8);
+
+        long replayFrom = readCheckpoint(fileSize);
+        checkpointedSize = replayFrom;
+        logSize = replay(channel, replayFrom == 0 ? HEADER_SIZE : replayFrom, fileSize);
+        if (logSize < fileSize) {
+            channel.truncate(logSize);
+        }
+    }
+
+    /**
+     * Reads records from the given offset into the index until the end of the log or the first
+     * invalid record.
+     *
+     * @return The offset just after the last valid record.
+     */
+    private long replay(FileChannel channel, long from, long fileSize) throws IOException {
+        ByteBuffer batch = ByteBuffer.allocate(REPLAY_BATCH_RECORDS * RECORD_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long position = from;
+        while (position + RECORD_SIZE <= fileSize) {
+            batch.clear();
+            batch.limit((int) Math.min(batch.capacity(),
+                    (fileSize - position) / RECORD_SIZE * RECORD_SIZE));
+            readFully(channel, batch, position);
+            for (int offset = 0; offset < batch.limit(); offset += RECORD_SIZE) {
+                if (batch.getInt(offset + CHECKED_SIZE) != checksum(batch.array(), offset,
+                        CHECKED_SIZE)) {
+                    return position + offset;
+                }
+                index.offer(readEntry(batch, offset));
+            }
+            position += batch.limit();
+        }
+        return position;
+    }
+
+    /**
+     * Loads the checkpointed index, if the checkpoint is intact and belongs to this log.
+     *
+     * @return The log offset the checkpoint covers, or 0 if it cannot be used.
+     */
+    private long readCheckpoint(long fileSize) throws IOException {
+        if (!checkpointPath.isFile() || checkpointPath.length() > Integer.MAX_VALUE) {
+            return 0;
+        }
+        byte[] bytes = new byte[(int) checkpointPath.length()];
+        try (RandomAccessFile checkpoint = new RandomAccessFile(checkpointPath, "r")) {
+            checkpoint.readFully(bytes);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < CHECKPOINT_HEADER_SIZE + 4
+                || buffer.getInt(0) != CHECKPOINT_MAGIC
+                || buffer.getInt(4) != FORMAT_VERSION
+                || buffer.getInt(bytes.length - 4) != checksum(bytes, 0, bytes.length - 4)) {
+            return 0;
+        }
+        long checkpointGeneration = buffer.getLong(8);
+        long coveredSize = buffer.getLong(16);
+        int count = buffer.getInt(24);
+        if (checkpointGeneration != generation || coveredSize > fileSize
+                || coveredSize < HEADER_SIZE || (coveredSize - HEADER_SIZE) % RECORD_SIZE != 0
+                || bytes.length != CHECKPOINT_HEADER_SIZE + count * RECORD_SIZE + 4) {
+            return 0;
+        }
+        for (int i = 0; i < count; i++) {
+            index.offer(readEntry(buffer, CHECKPOINT_HEADER_SIZE + i * RECORD_SIZE));
+        }
+        return coveredSize;
+    }
+
+    /**
+     * Writes the index and the log size it covers to a new checkpoint file, which then replaces
+     * the previous one.
+     */
+    private void writeCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer
+                .allocate(CHECKPOINT_HEADER_SIZE + index.size() * RECORD_SIZE + 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(CHECKPOINT_MAGIC).putInt(FORMAT_VERSION).putLong(generation)
+                .putLong(logSize).putInt(index.size());
+        putIndex(buffer);
+        buffer.putInt(checksum(buffer.array(), 0, buffer.position()));
+
+        File newCheckpoint = new File(checkpointPath.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(newCheckpoint)) {
+            out.write(buffer.array());
+            out.getFD().sync();
+        }
+        if (!newCheckpoint.renameTo(checkpointPath)) {
+            throw new IOException("could not replace " + checkpointPath);
+        }
+        checkpointedSize = logSize;
+    }
+
+    private static void writeHeader(FileChannel channel, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(LOG_MAGIC).putInt(FORMAT_VERSION).putLong(generation).flip();
+        writeFully(channel, header, 0);
+    }
+
+    private void writeRecord(FileChannel channel, long position, LeaderboardEntry entry)
+            throws IOException {
+        recordBuffer.clear();
+        putEntry(recordBuffer, 0, entry);
+        writeFully(channel, recordBuffer, position);
+    }
+
+    /**
+     * Puts every indexed entry as a record at the buffer's position, advancing it.
+     */
+    private void putIndex(ByteBuffer buffer) {
+        index.forEach(entry -> {
+            putEntry(buffer, buffer.position(), entry);
+            buffer.position(buffer.position() + RECORD_SIZE);
+        });
+    }
+
+    /**
+     * Puts an entry and, in the record's last four bytes, its checksum.
+     */
+    private void putEntry(ByteBuffer buffer, int offset, LeaderboardEntry entry) {
+        buffer.putLong(offset, entry.getConfigId());
+        buffer.putLong(offset + 8, entry.getTimestampMs());
+        buffer.putLong(offset + 16, entry.getDurationMs());
+        buffer.putInt(offset + 24, entry.getScore());
+        buffer.putInt(offset + CHECKED_SIZE,
+                checksum(buffer.array(), buffer.arrayOffset() + offset, CHECKED_SIZE));
+    }
+
+    private static LeaderboardEntry readEntry(ByteBuffer buffer, int offset) {
+        return new LeaderboardEntry(buffer.getInt(offset + 24), buffer.getLong(offset),
+                buffer.getLong(offset + 16), buffer.getLong(offset + 8));
+    }
+
+    private int checksum(byte[] bytes, int offset, int length) {
+        crc.reset();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
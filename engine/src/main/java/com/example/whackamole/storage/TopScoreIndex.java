@@ -0,0 +1,100 @@
+package com.example.whackamole.storage;
+
+import com.example.whackamole.model.LeaderboardEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The best entries for each config, at most a fixed number per config, each kept sorted best
+ * first in a small array. Offering an entry and listing a config's entries are O(K). Not
+ * thread-safe.
+ */
+final class TopScoreIndex {
+
+    private final int capacity;
+    private final Map<Long, Board> boards = new HashMap<>();
+    private int size;
+
+    TopScoreIndex(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds an entry if it ranks among its config's best, pushing out the lowest one if the
+     * config is full.
+     *
+     * @return whether the entry was added
+     */
+    boolean offer(LeaderboardEntry entry) {
+        Board board = boards.get(entry.getConfigId());
+        if (board == null) {
+            board = new Board(capacity);
+            boards.put(entry.getConfigId(), board);
+        }
+        int position = board.size;
+        while (position > 0
+                && LeaderboardEntry.BEST_FIRST.compare(entry, board.entries[position - 1]) < 0) {
+            position--;
+        }
+        if (position == capacity) {
+            return false;
+        }
+        int moved = Math.min(board.size, capacity - 1) - position;
+        System.arraycopy(board.entries, position, board.entries, position + 1, moved);
+        board.entries[position] = entry;
+        if (board.size < capacity) {
+            board.size++;
+            size++;
+        }
+        return true;
+    }
+
+    /**
+     * @return The config's entries, best first; empty if it has none.
+     */
+    List<LeaderboardEntry> top(long configId) {
+        Board board = boards.get(configId);
+        if (board == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(
+                new ArrayList<>(Arrays.asList(board.entries).subList(0, board.size)));
+    }
+
+    /**
+     * @return The number of entries over all configs.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Passes every entry to the action, config by config, best first within a config.
+     */
+    void forEach(Consumer<LeaderboardEntry> action) {
+        for (Board board : boards.values()) {
+            for (int i = 0; i < board.size; i++) {
+                action.accept(board.entries[i]);
+            }
+        }
+    }
+
+    private static final class Board {
+
+        final LeaderboardEntry[] entries;
+        int size;
+
+        Board(int capacity) {
+            this.entries = new LeaderboardEntry[capacity];
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.whackamole.util;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size histogram of non-negative latencies with bounded relative error, in the style of
+ * HdrHistogram.
+ * <p>
+ * Values below 64 are counted exactly. Larger values are counted in one of 32 equal buckets per
+ * power of two, so a percentile read back is never more than about 3% above the value recorded,
+ * however large. Recording is a few shifts and an array increment and never allocates, so it can
+ * sit on a hot path such as every tick of a game loop.
+ * <p>
+ * Histograms recorded separately (e.g. one per thread) can be combined with {@link #add}. This
+ * class is not thread-safe.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = EXACT + (62 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private long max;
+    private long sum;
+
+    /**
+     * Counts one value. Negative values are counted as 0.
+     *
+     * @param value the value, in whatever unit the caller uses throughout
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts[indexOf(v)]++;
+        totalCount++;
+        sum += v;
+        if (v > max) {
+            max = v;
+        }
+    }
+
+    /**
+     * Adds every value counted by another histogram to this one.
+     *
+     * @param other the histogram to add; it is not changed
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return A copy of this histogram.
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * Forgets every value counted so far.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * @return The number of values counted.
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return The largest value counted, or 0 if none was.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return The mean of the values counted, or 0 if none was.
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Returns the value at the given percentile: the smallest value such that at least that
+     * percentage of the counted values are no larger than it, rounded up to the top of its
+     * bucket but never above {@link #getMax()}.
+     *
+     * @param percentile between 0 and 100
+     * @return the value, or 0 if nothing was counted
+     * @throws IllegalArgumentException if percentile is out of range
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, highestValueIn(i));
+            }
+        }
+        return max;
+    }
+
+    private static int indexOf(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueIn(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long subBucket = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
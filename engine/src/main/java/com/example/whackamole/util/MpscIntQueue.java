@@ -0,0 +1,88 @@
+package com.example.whackamole.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue of ints for handing input from any number of producer threads to a
+ * single consumer thread, e.g. taps from the UI thread to the game engine's thread.
+ * <p>
+ * Each slot carries a sequence number that tells producers and the consumer whose turn it is, so
+ * offering and polling never block and never allocate. Values must be non-negative or otherwise
+ * distinct from {@link #EMPTY}.
+ */
+public final class MpscIntQueue {
+
+    /**
+     * Returned by {@link #poll()} when the queue is empty.
+     */
+    public static final int EMPTY = Integer.MIN_VALUE;
+
+    private final int mask;
+    private final int[] values;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * Constructor
+     *
+     * @param capacity maximum number of queued values; rounded up to a power of two
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public MpscIntQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(1, size);
+        this.mask = size - 1;
+        this.values = new int[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a value to the queue. Safe to call from any thread.
+     *
+     * @param value the value to add; must not be {@link #EMPTY}
+     * @return true if added, false if the queue was full
+     */
+    public boolean offer(int value) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    values[index] = value;
+                    // Publishes the value to the consumer
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            // Another producer claimed this slot first; retry with the new tail
+        }
+    }
+
+    /**
+     * Removes the oldest value. Must only be called from the single consumer thread.
+     *
+     * @return the oldest value, or {@link #EMPTY} if the queue is empty
+     */
+    public int poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return EMPTY;
+        }
+        int value = values[index];
+        // Hands the slot back to producers for the next lap
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return value;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.whackamole.util;
+
+/**
+ * Default {@link TimerHandle} for schedulers that can remove a posted Runnable cheaply. Arming
+ * removes the handle's previous post and posts it again; the handle posts itself rather than the
+ * task, so posts of the same task made directly on the scheduler are left alone.
+ */
+final class PostingTimerHandle implements TimerHandle, Runnable {
+
+    private final Scheduler scheduler;
+    private final Runnable task;
+
+    PostingTimerHandle(Scheduler scheduler, Runnable task) {
+        this.scheduler = scheduler;
+        this.task = task;
+    }
+
+    @Override
+    public void reschedule(long delayMs) {
+        rescheduleAt(scheduler.uptimeMillis() + Math.max(0, delayMs));
+    }
+
+    @Override
+    public void rescheduleAt(long uptimeMs) {
+        scheduler.removeCallbacks(this);
+        scheduler.postAtTime(this, uptimeMs);
+    }
+
+    @Override
+    public void cancel() {
+        scheduler.removeCallbacks(this);
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.whackamole.util;
+
+/**
+ * A source of random numbers for the game loop.
+ * <p>
+ * Unlike {@link java.util.Random}, implementations are not required to be thread-safe, which lets
+ * them avoid atomic updates on every draw. They must be fully deterministic for a given seed, so a
+ * session can be reproduced from the seed it was started with.
+ */
+public interface RandomSource {
+
+    /**
+     * Resets this source so that it produces the sequence determined by the given seed.
+     *
+     * @param seed the seed
+     */
+    void setSeed(long seed);
+
+    /**
+     * @return A uniformly distributed random long.
+     */
+    long nextLong();
+
+    /**
+     * Returns a uniformly distributed int between 0 (inclusive) and bound (exclusive).
+     *
+     * @param bound the upper bound; must be positive
+     * @return a random int in [0, bound)
+     * @throws IllegalArgumentException if bound is not positive
+     */
+    int nextInt(int bound);
+
+    /**
+     * @return A uniformly distributed random double in [0, 1).
+     */
+    double nextDouble();
+}
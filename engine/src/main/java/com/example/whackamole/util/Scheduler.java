@@ -0,0 +1,80 @@
+package com.example.whackamole.util;
+
+/**
+ * An interface that abstracts the Android Handler class to allow for easier testing.
+ * Implementations of this interface can either use a real Android Handler or a fake scheduler
+ * for unit tests, enabling control over timing-dependent logic.
+ */
+public interface Scheduler {
+    /**
+     * Causes the Runnable r to be added to the message queue, to be run after the specified
+     * amount of time elapses.
+     *
+     * @param r The Runnable that will be executed.
+     * @param delayMs The delay (in milliseconds) until the Runnable will be executed.
+     */
+    void postDelayed(Runnable r, long delayMs);
+
+    /**
+     * Causes the Runnable r to be added to the message queue, to be run at a specific time given
+     * by {@link #uptimeMillis()}. If that time has already passed, r runs as soon as possible.
+     *
+     * @param r        The Runnable that will be executed.
+     * @param uptimeMs The absolute time at which the Runnable should run, in the
+     *                 {@link #uptimeMillis()} time base.
+     */
+    void postAtTime(Runnable r, long uptimeMs);
+
+    /**
+     * Returns the current time of this scheduler's monotonic clock. The clock never goes backwards
+     * and is the time base for {@link #postAtTime(Runnable, long)}.
+     *
+     * @return The current time in milliseconds.
+     */
+    long uptimeMillis();
+
+    /**
+     * Remove any pending posts of Runnable r that are in the message queue.
+     *
+     * @param r The Runnable to remove from the queue.
+     */
+    void removeCallbacks(Runnable r);
+
+    /**
+     * Remove any pending posts of Runnable r, exactly like {@link #removeCallbacks(Runnable)}. If r
+     * is null, every pending task posted through this scheduler is removed and every
+     * {@link TimerHandle} it created becomes idle. Tasks posted by other users of the same
+     * underlying thread are not affected.
+     *
+     * @param r The Runnable to remove from the queue (can be null).
+     */
+    void removeCallbacksAndMessages(Runnable r);
+
+    /**
+     * Creates a reusable, initially idle timer for the given task. Moving a timer with
+     * {@link TimerHandle#rescheduleAt(long)} replaces the remove-then-post pair, and lets
+     * implementations avoid scanning their queue; see {@link TimerHandle} for the semantics.
+     * <p>
+     * The default implementation removes and re-posts the handle on every arming.
+     *
+     * @param task The task to run when the timer fires.
+     * @return A new idle timer.
+     */
+    default TimerHandle newTimer(Runnable task) {
+        return new PostingTimerHandle(this, task);
+    }
+
+    /**
+     * Returns whether the calling thread is the thread this scheduler runs its tasks on.
+     * Schedulers that run tasks on whichever thread drives them (e.g. test fakes) return true.
+     *
+     * @return true if called from the scheduler's thread.
+     */
+    boolean isCurrentThread();
+
+    /**
+     * Removes all pending tasks and releases any thread this scheduler owns. The scheduler must
+     * not be used afterwards.
+     */
+    void shutdown();
+}
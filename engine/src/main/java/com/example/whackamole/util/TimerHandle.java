@@ -0,0 +1,44 @@
+package com.example.whackamole.util;
+
+/**
+ * A reusable timer for one task, created by {@link Scheduler#newTimer(Runnable)}.
+ * <p>
+ * A handle is either idle or armed for a single time. The semantics are the same on every
+ * {@link Scheduler}:
+ * <ul>
+ *   <li>A new handle is idle.</li>
+ *   <li>{@link #reschedule(long)} and {@link #rescheduleAt(long)} arm the handle, replacing any
+ *       earlier arming: the task runs once, at the latest time given, never twice.</li>
+ *   <li>{@link #cancel()} makes the handle idle; cancelling an idle handle does nothing.</li>
+ *   <li>Just before the task runs, the handle becomes idle, so the task may re-arm its own
+ *       handle.</li>
+ *   <li>{@link Scheduler#removeCallbacksAndMessages(Runnable) removeCallbacksAndMessages(null)}
+ *       and {@link Scheduler#shutdown()} make every handle of that scheduler idle.</li>
+ * </ul>
+ * Like the scheduler's other methods, handles must be used from the thread the scheduler runs its
+ * tasks on. Re-arming a handle is the cheapest way to move a timer: implementations avoid the
+ * remove-then-post round trip where they can.
+ */
+public interface TimerHandle {
+
+    /**
+     * Arms the timer to run its task after the given delay, replacing any earlier arming.
+     *
+     * @param delayMs The delay (in milliseconds) until the task will run.
+     */
+    void reschedule(long delayMs);
+
+    /**
+     * Arms the timer to run its task at the given time, replacing any earlier arming. If that time
+     * has already passed, the task runs as soon as possible.
+     *
+     * @param uptimeMs The time at which the task should run, in the
+     *                 {@link Scheduler#uptimeMillis()} time base.
+     */
+    void rescheduleAt(long uptimeMs);
+
+    /**
+     * Makes the timer idle, so its task does not run unless the timer is armed again.
+     */
+    void cancel();
+}
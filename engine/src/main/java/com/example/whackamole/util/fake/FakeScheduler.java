@@ -19,6 +19,22 @@ public class FakeScheduler implements Scheduler {
         tasks.add(r);
     }
 
+    @Override
+    public void postAtTime(Runnable r, long uptimeMs) {
+        // Ignore the time, just queue the task
+        tasks.add(r);
+    }
+
+    /**
+     * Time never moves for a FakeScheduler.
+     *
+     * @return Always 0.
+     */
+    @Override
+    public long uptimeMillis() {
+        return 0;
+    }
+
     @Override
     public void removeCallbacks(Runnable r) {
         // Remove all occurrences of the Runnable
@@ -27,9 +43,28 @@ public class FakeScheduler implements Scheduler {
 
     @Override
     public void removeCallbacksAndMessages(Runnable r) {
+        if (r != null) {
+            removeCallbacks(r);
+            return;
+        }
         tasks.clear();
     }
 
+    /**
+     * Tasks run on whichever thread drives this scheduler.
+     *
+     * @return Always true.
+     */
+    @Override
+    public boolean isCurrentThread() {
+        return true;
+    }
+
+    @Override
+    public void shutdown() {
+        removeCallbacksAndMessages(null);
+    }
+
     /**
      * Runs the next scheduled task if any.
      */
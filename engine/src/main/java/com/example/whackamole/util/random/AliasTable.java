@@ -0,0 +1,98 @@
+package com.example.whackamole.util.random;
+
+import com.example.whackamole.util.RandomSource;
+
+/**
+ * Samples indices from a fixed discrete distribution in constant time, using Vose's alias method.
+ * <p>
+ * Building the table is O(n). Each sample then costs one random draw, one array lookup and one
+ * comparison regardless of the number of entries, and allocates nothing. The table is immutable
+ * and can be shared between threads; the {@link RandomSource} passed to {@link #sample} cannot.
+ */
+public final class AliasTable {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * Constructor
+     *
+     * @param weights relative weight of each index; must be finite, non-negative and not all zero
+     * @throws IllegalArgumentException if the weights are invalid
+     */
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("weights must not be empty");
+        }
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("weights must be finite and non-negative");
+            }
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("at least one weight must be positive");
+        }
+
+        probability = new double[n];
+        alias = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            alias[i] = i;
+            if (scaled[i] < 1) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        // Pair each under-full column with an over-full one that tops it up
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // Whatever is left is full, up to rounding error
+        while (largeSize > 0) {
+            probability[large[--largeSize]] = 1;
+        }
+        while (smallSize > 0) {
+            probability[small[--smallSize]] = 1;
+        }
+    }
+
+    /**
+     * @return The number of indices in the distribution.
+     */
+    public int size() {
+        return probability.length;
+    }
+
+    /**
+     * Draws an index with probability proportional to its weight.
+     *
+     * @param random the random source to draw from
+     * @return an index in [0, size())
+     */
+    public int sample(RandomSource random) {
+        int n = probability.length;
+        // One draw picks both the column (integer part) and the coin toss (fractional part)
+        double scaled = random.nextDouble() * n;
+        int column = Math.min((int) scaled, n - 1);
+        return scaled - column < probability[column] ? column : alias[column];
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.whackamole.util.random;
+
+import com.example.whackamole.util.RandomSource;
+
+/**
+ * Fast, non-synchronized {@link RandomSource} based on the xoroshiro128++ generator.
+ * <p>
+ * State is two longs, each draw is a handful of shifts and adds, and nothing is allocated. Seeds
+ * are expanded with SplitMix64, so any seed (including 0) gives a well-mixed starting state.
+ * Bounded ints use Lemire's multiply-shift method, which is unbiased and usually needs no division.
+ * Not thread-safe; give each game its own instance.
+ */
+public final class XoroshiroRandomSource implements RandomSource {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state0;
+    private long state1;
+
+    /**
+     * Constructor
+     *
+     * @param seed the initial seed
+     */
+    public XoroshiroRandomSource(long seed) {
+        setSeed(seed);
+    }
+
+    /**
+     * Derives a well-mixed value from a seed; used to expand seeds and to step seed sequences.
+     *
+     * @param seed any value
+     * @return the SplitMix64 mix of seed
+     */
+    public static long mix(long seed) {
+        long z = seed;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        state0 = mix(seed + GOLDEN_GAMMA);
+        state1 = mix(seed + 2 * GOLDEN_GAMMA);
+        if ((state0 | state1) == 0) {
+            state1 = GOLDEN_GAMMA;
+        }
+    }
+
+    @Override
+    public long nextLong() {
+        long s0 = state0;
+        long s1 = state1;
+        long result = Long.rotateLeft(s0 + s1, 17) + s0;
+        s1 ^= s0;
+        state0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+        state1 = Long.rotateLeft(s1, 28);
+        return result;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be greater than 0");
+        }
+        long product = (nextLong() >>> 32) * bound;
+        long low = product & 0xFFFFFFFFL;
+        if (low < bound) {
+            // Reject the few values that would bias the result: 2^32 mod bound of them
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                product = (nextLong() >>> 32) * bound;
+                low = product & 0xFFFFFFFFL;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+}
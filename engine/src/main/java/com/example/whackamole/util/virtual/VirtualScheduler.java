@@ -0,0 +1,326 @@
+package com.example.whackamole.util.virtual;
+
+import com.example.whackamole.util.Scheduler;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * VirtualScheduler runs tasks against a virtual clock instead of real time.
+ * <p>
+ * Unlike {@link com.example.whackamole.util.fake.FakeScheduler}, it honours delays: tasks run in
+ * deadline order, and tasks with equal deadlines run in the order they were posted. Time only moves
+ * when {@link #advanceBy(long)}, {@link #advanceTo(long)}, {@link #stallTo(long)} or
+ * {@link #runNext()} is called, which makes it suitable both for unit tests with several
+ * interacting timers and for running long simulations far faster than real time.
+ * <p>
+ * Pending tasks are kept in a binary min-heap, so posting and cancelling cost O(log n). Heap
+ * entries are pooled and the indexes are open-addressing maps, so steady-state scheduling does not
+ * allocate. This class is not thread-safe.
+ */
+public class VirtualScheduler implements Scheduler {
+
+    private Entry[] heap = new Entry[16];
+    private int size;
+    private long nextSequence;
+    private long now;
+    private Entry freeList;
+    private final IdentityHashMap<Runnable, Entry> entriesByTask = new IdentityHashMap<>();
+
+    /**
+     * Creates a scheduler whose clock starts at 0.
+     */
+    public VirtualScheduler() {
+        this(0);
+    }
+
+    /**
+     * Creates a scheduler whose clock starts at the given time.
+     *
+     * @param startTimeMs initial virtual time in milliseconds
+     */
+    public VirtualScheduler(long startTimeMs) {
+        this.now = startTimeMs;
+    }
+
+    @Override
+    public void postDelayed(Runnable r, long delayMs) {
+        postAtTime(r, now + Math.max(0, delayMs));
+    }
+
+    /**
+     * Schedules r at the given virtual time. A time in the past is treated as now.
+     *
+     * @param r        The Runnable that will be executed.
+     * @param uptimeMs The virtual time at which the Runnable should run.
+     */
+    @Override
+    public void postAtTime(Runnable r, long uptimeMs) {
+        Entry entry = obtainEntry();
+        entry.task = r;
+        entry.deadline = Math.max(now, uptimeMs);
+        entry.sequence = nextSequence++;
+
+        // Link into the per-task chain so removeCallbacks can find it
+        Entry head = entriesByTask.put(r, entry);
+        entry.nextForTask = head;
+        if (head != null) {
+            head.previousForTask = entry;
+        }
+
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        entry.heapIndex = size;
+        heap[size++] = entry;
+        siftUp(entry.heapIndex);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable r) {
+        Entry entry = entriesByTask.remove(r);
+        while (entry != null) {
+            Entry next = entry.nextForTask;
+            removeAt(entry.heapIndex);
+            recycle(entry);
+            entry = next;
+        }
+    }
+
+    /**
+     * Removes pending posts of Runnable r, or every pending task if r is null.
+     *
+     * @param r The Runnable to remove from the queue (can be null).
+     */
+    @Override
+    public void removeCallbacksAndMessages(Runnable r) {
+        if (r != null) {
+            removeCallbacks(r);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            recycle(heap[i]);
+            heap[i] = null;
+        }
+        size = 0;
+        entriesByTask.clear();
+    }
+
+    /**
+     * Tasks run on whichever thread drives this scheduler.
+     *
+     * @return Always true.
+     */
+    @Override
+    public boolean isCurrentThread() {
+        return true;
+    }
+
+    @Override
+    public void shutdown() {
+        removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * @return The current virtual time in milliseconds.
+     */
+    public long now() {
+        return now;
+    }
+
+    /**
+     * @return The current virtual time in milliseconds; same as {@link #now()}.
+     */
+    @Override
+    public long uptimeMillis() {
+        return now;
+    }
+
+    /**
+     * Moves the clock forward by the given amount, running every task that falls due on the way.
+     *
+     * @param deltaMs how far to advance, in milliseconds
+     * @return the number of tasks that ran
+     * @throws IllegalArgumentException if deltaMs is negative
+     */
+    public int advanceBy(long deltaMs) {
+        if (deltaMs < 0) {
+            throw new IllegalArgumentException("deltaMs must not be negative");
+        }
+        return advanceTo(now + deltaMs);
+    }
+
+    /**
+     * Moves the clock forward to the given time, running every task whose deadline is at or before
+     * it in deadline order. Tasks posted while advancing run too if they fall due in time. The clock
+     * reads each task's deadline while it runs, or the current time for a task overdue after
+     * {@link #stallTo(long)}, and reads timeMs afterwards.
+     *
+     * @param timeMs the virtual time to advance to, in milliseconds
+     * @return the number of tasks that ran
+     * @throws IllegalArgumentException if timeMs is before the current time
+     */
+    public int advanceTo(long timeMs) {
+        if (timeMs < now) {
+            throw new IllegalArgumentException("Cannot move the clock backwards");
+        }
+        int ran = 0;
+        while (size > 0 && heap[0].deadline <= timeMs) {
+            runHead();
+            ran++;
+        }
+        now = timeMs;
+        return ran;
+    }
+
+    /**
+     * Moves the clock forward to the given time without running the tasks that fall due on the way,
+     * as if the thread running them had been busy. Those tasks run late, on the next advance, with
+     * the clock reading the time they actually run at rather than their deadline.
+     *
+     * @param timeMs the virtual time to move to, in milliseconds
+     * @throws IllegalArgumentException if timeMs is before the current time
+     */
+    public void stallTo(long timeMs) {
+        if (timeMs < now) {
+            throw new IllegalArgumentException("Cannot move the clock backwards");
+        }
+        now = timeMs;
+    }
+
+    /**
+     * Advances the clock to the earliest pending deadline, unless it is already past it, and runs
+     * that task.
+     *
+     * @return true if a task ran, false if nothing was pending
+     */
+    public boolean runNext() {
+        if (size == 0) {
+            return false;
+        }
+        runHead();
+        return true;
+    }
+
+    /**
+     * @return The deadline of the earliest pending task, or {@link Long#MAX_VALUE} if none.
+     */
+    public long nextDeadline() {
+        return size == 0 ? Long.MAX_VALUE : heap[0].deadline;
+    }
+
+    /**
+     * @return The number of pending tasks.
+     */
+    public int pendingTasks() {
+        return size;
+    }
+
+    private void runHead() {
+        Entry entry = heap[0];
+        Runnable task = entry.task;
+        now = Math.max(now, entry.deadline);
+        unlinkFromTask(entry);
+        removeAt(0);
+        recycle(entry);
+        task.run();
+    }
+
+    private void unlinkFromTask(Entry entry) {
+        if (entry.previousForTask != null) {
+            entry.previousForTask.nextForTask = entry.nextForTask;
+        } else if (entry.nextForTask != null) {
+            entriesByTask.put(entry.task, entry.nextForTask);
+        } else {
+            entriesByTask.remove(entry.task);
+        }
+        if (entry.nextForTask != null) {
+            entry.nextForTask.previousForTask = entry.previousForTask;
+        }
+    }
+
+    private void removeAt(int index) {
+        Entry last = heap[--size];
+        heap[size] = null;
+        if (index == size) {
+            return;
+        }
+        heap[index] = last;
+        last.heapIndex = index;
+        siftDown(index);
+        siftUp(last.heapIndex);
+    }
+
+    private void siftUp(int index) {
+        Entry entry = heap[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            Entry parent = heap[parentIndex];
+            if (!entry.before(parent)) {
+                break;
+            }
+            heap[index] = parent;
+            parent.heapIndex = index;
+            index = parentIndex;
+        }
+        heap[index] = entry;
+        entry.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+        Entry entry = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            Entry child = heap[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && heap[rightIndex].before(child)) {
+                childIndex = rightIndex;
+                child = heap[childIndex];
+            }
+            if (!child.before(entry)) {
+                break;
+            }
+            heap[index] = child;
+            child.heapIndex = index;
+            index = childIndex;
+        }
+        heap[index] = entry;
+        entry.heapIndex = index;
+    }
+
+    private Entry obtainEntry() {
+        Entry entry = freeList;
+        if (entry == null) {
+            return new Entry();
+        }
+        freeList = entry.nextForTask;
+        entry.nextForTask = null;
+        return entry;
+    }
+
+    private void recycle(Entry entry) {
+        entry.task = null;
+        entry.previousForTask = null;
+        entry.nextForTask = freeList;
+        entry.heapIndex = -1;
+        freeList = entry;
+    }
+
+    /**
+     * A pending task. Ordered by deadline, then by posting order.
+     */
+    private static final class Entry {
+        Runnable task;
+        long deadline;
+        long sequence;
+        int heapIndex;
+        Entry previousForTask;
+        Entry nextForTask;
+
+        boolean before(Entry other) {
+            return deadline < other.deadline
+                    || (deadline == other.deadline && sequence < other.sequence);
+        }
+    }
+}
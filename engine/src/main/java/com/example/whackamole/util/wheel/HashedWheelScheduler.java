@@ -0,0 +1,352 @@
+package com.example.whackamole.util.wheel;
+
+import com.example.whackamole.util.Scheduler;
+import com.example.whackamole.util.TimerHandle;
+
+import java.util.IdentityHashMap;
+
+/**
+ * HashedWheelScheduler multiplexes many timers onto a single repeating tick of a backing
+ * {@link Scheduler}.
+ * <p>
+ * Time is divided into ticks of a fixed length, and pending tasks are hashed by their tick into a
+ * ring of buckets. Posting and cancelling a task are O(1) and only touch a doubly linked bucket;
+ * each tick only visits the bucket that falls due. However many tasks are pending, the backing
+ * scheduler sees at most one posted callback, and none at all while the wheel is empty. This makes
+ * it suitable for large numbers of short-lived timers, such as one expiry per visible mole, that
+ * would otherwise flood a Looper's message queue.
+ * <p>
+ * The price is resolution: a task runs on the first tick at or after its deadline, so up to one
+ * tick late, and never early. Tasks that fall due on the same tick run in the order they were
+ * posted. Ticks fall on whole multiples of the tick length on the backing clock, so wheels created
+ * at different times over the same clock run a task posted for the same deadline at the same time,
+ * which keeps replays of recorded sessions exact. Entries are pooled, so steady-state scheduling
+ * does not allocate. Like the backing scheduler's thread model, this class is not thread-safe: it
+ * must be used from the thread the backing scheduler runs its tasks on.
+ */
+public class HashedWheelScheduler implements Scheduler {
+
+    private static final int IN_WHEEL = 0;
+    private static final int EXPIRED = 1;
+    private static final int CANCELLED = 2;
+
+    private final Scheduler backing;
+    private final long tickMs;
+    private final long startTime;
+    private final Entry[] heads;
+    private final Entry[] tails;
+    private final int mask;
+    private final IdentityHashMap<Runnable, Entry> entriesByTask = new IdentityHashMap<>();
+    private final TimerHandle tickTimer;
+    private long currentTick;
+    private int size;
+    private boolean tickScheduled;
+    private Entry expiredHead;
+    private Entry expiredTail;
+    private Entry freeList;
+
+    /**
+     * Constructor
+     *
+     * @param backing   the scheduler that drives the wheel's tick and provides its clock. It is
+     *                  not owned by the wheel, and may be shared with other users.
+     * @param tickMs    the length of a tick in milliseconds, i.e. the timer resolution
+     * @param wheelSize the number of buckets; rounded up to a power of two. Tasks further than
+     *                  wheelSize ticks away stay in their bucket for several turns of the wheel.
+     * @throws IllegalArgumentException if tickMs or wheelSize is not positive
+     */
+    public HashedWheelScheduler(Scheduler backing, long tickMs, int wheelSize) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be greater than 0");
+        }
+        if (wheelSize <= 0 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("wheelSize must be between 1 and 2^30");
+        }
+        int buckets = Integer.highestOneBit(wheelSize);
+        if (buckets < wheelSize) {
+            buckets <<= 1;
+        }
+        this.backing = backing;
+        this.tickMs = tickMs;
+        this.startTime = Math.floorDiv(backing.uptimeMillis(), tickMs) * tickMs;
+        this.heads = new Entry[buckets];
+        this.tails = new Entry[buckets];
+        this.mask = buckets - 1;
+        this.tickTimer = backing.newTimer(this::tick);
+    }
+
+    @Override
+    public void postDelayed(Runnable r, long delayMs) {
+        postAtTime(r, backing.uptimeMillis() + Math.max(0, delayMs));
+    }
+
+    /**
+     * Schedules r to run on the first tick at or after the given time. A time in the past runs on
+     * the next tick.
+     *
+     * @param r        The Runnable that will be executed.
+     * @param uptimeMs The time at which the Runnable should run, on the backing scheduler's clock.
+     */
+    @Override
+    public void postAtTime(Runnable r, long uptimeMs) {
+        if (size == 0 && !tickScheduled) {
+            // The wheel was idle and has not been ticking; catch its position up with the clock
+            currentTick = Math.max(currentTick, elapsedTicks(backing.uptimeMillis()));
+        }
+
+        Entry entry = obtainEntry();
+        entry.task = r;
+        entry.state = IN_WHEEL;
+        entry.tick = Math.max(currentTick + 1,
+                Math.floorDiv(uptimeMs - startTime + tickMs - 1, tickMs));
+        linkIntoBucket(entry);
+        size++;
+
+        // Link into the per-task chain so removeCallbacks can find it
+        Entry head = entriesByTask.put(r, entry);
+        entry.nextForTask = head;
+        if (head != null) {
+            head.previousForTask = entry;
+        }
+
+        ensureTicking();
+    }
+
+    @Override
+    public void removeCallbacks(Runnable r) {
+        Entry entry = entriesByTask.remove(r);
+        while (entry != null) {
+            Entry next = entry.nextForTask;
+            cancel(entry);
+            entry = next;
+        }
+        stopTickingIfIdle();
+    }
+
+    /**
+     * Removes pending posts of Runnable r, or every pending task if r is null. Only tasks posted
+     * to this wheel are affected, never other users of the backing scheduler.
+     *
+     * @param r The Runnable to remove from the queue (can be null).
+     */
+    @Override
+    public void removeCallbacksAndMessages(Runnable r) {
+        if (r != null) {
+            removeCallbacks(r);
+            return;
+        }
+        for (int i = 0; i < heads.length; i++) {
+            Entry entry = heads[i];
+            while (entry != null) {
+                Entry next = entry.nextInBucket;
+                recycle(entry);
+                entry = next;
+            }
+            heads[i] = null;
+            tails[i] = null;
+        }
+        for (Entry entry = expiredHead; entry != null; entry = entry.nextInBucket) {
+            entry.state = CANCELLED;
+        }
+        size = 0;
+        entriesByTask.clear();
+        stopTickingIfIdle();
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return backing.uptimeMillis();
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        return backing.isCurrentThread();
+    }
+
+    /**
+     * Removes every pending task and stops ticking. The backing scheduler is not shut down, since
+     * the wheel does not own it.
+     */
+    @Override
+    public void shutdown() {
+        removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * @return The number of pending tasks.
+     */
+    public int pendingTasks() {
+        return size;
+    }
+
+    /**
+     * Runs every task that has fallen due since the previous tick. If the tick itself ran late,
+     * all the ticks it missed are processed at once; a stall longer than a whole turn of the wheel
+     * costs one pass over the buckets rather than one per missed tick.
+     */
+    private void tick() {
+        tickScheduled = false;
+        long target = elapsedTicks(backing.uptimeMillis());
+        if (target > currentTick) {
+            long steps = Math.min(target - currentTick, heads.length);
+            for (long t = currentTick + 1; t <= currentTick + steps; t++) {
+                collectExpired((int) (t & mask), target);
+            }
+            currentTick = target;
+        }
+        runExpired();
+        ensureTicking();
+    }
+
+    /**
+     * Moves every entry of the bucket that is due at or before the given tick to the expired list.
+     */
+    private void collectExpired(int bucket, long target) {
+        Entry entry = heads[bucket];
+        while (entry != null) {
+            Entry next = entry.nextInBucket;
+            if (entry.tick <= target) {
+                unlinkFromBucket(entry);
+                size--;
+                entry.state = EXPIRED;
+                entry.nextInBucket = null;
+                if (expiredTail == null) {
+                    expiredHead = entry;
+                } else {
+                    expiredTail.nextInBucket = entry;
+                }
+                expiredTail = entry;
+            }
+            entry = next;
+        }
+    }
+
+    /**
+     * Runs the expired entries. Tasks may post or remove tasks while this runs; entries removed
+     * before they ran are marked cancelled and skipped.
+     */
+    private void runExpired() {
+        while (expiredHead != null) {
+            Entry entry = expiredHead;
+            expiredHead = entry.nextInBucket;
+            if (expiredHead == null) {
+                expiredTail = null;
+            }
+            if (entry.state == CANCELLED) {
+                recycle(entry);
+                continue;
+            }
+            unlinkFromTaskChain(entry);
+            Runnable task = entry.task;
+            recycle(entry);
+            task.run();
+        }
+    }
+
+    private void ensureTicking() {
+        if (!tickScheduled && (size > 0 || expiredHead != null)) {
+            tickScheduled = true;
+            tickTimer.rescheduleAt(startTime + (currentTick + 1) * tickMs);
+        }
+    }
+
+    private void stopTickingIfIdle() {
+        if (tickScheduled && size == 0 && expiredHead == null) {
+            tickScheduled = false;
+            tickTimer.cancel();
+        }
+    }
+
+    private long elapsedTicks(long uptimeMs) {
+        return Math.floorDiv(uptimeMs - startTime, tickMs);
+    }
+
+    /**
+     * Removes a single entry, wherever it is. An entry that has already been moved to the expired
+     * list is only marked, since the running tick owns that list.
+     */
+    private void cancel(Entry entry) {
+        if (entry.state == IN_WHEEL) {
+            unlinkFromBucket(entry);
+            size--;
+            recycle(entry);
+        } else {
+            entry.state = CANCELLED;
+            entry.task = null;
+        }
+    }
+
+    private void linkIntoBucket(Entry entry) {
+        int bucket = (int) (entry.tick & mask);
+        entry.previousInBucket = tails[bucket];
+        entry.nextInBucket = null;
+        if (tails[bucket] == null) {
+            heads[bucket] = entry;
+        } else {
+            tails[bucket].nextInBucket = entry;
+        }
+        tails[bucket] = entry;
+    }
+
+    private void unlinkFromBucket(Entry entry) {
+        int bucket = (int) (entry.tick & mask);
+        if (entry.previousInBucket == null) {
+            heads[bucket] = entry.nextInBucket;
+        } else {
+            entry.previousInBucket.nextInBucket = entry.nextInBucket;
+        }
+        if (entry.nextInBucket == null) {
+            tails[bucket] = entry.previousInBucket;
+        } else {
+            entry.nextInBucket.previousInBucket = entry.previousInBucket;
+        }
+    }
+
+    private void unlinkFromTaskChain(Entry entry) {
+        Entry previous = entry.previousForTask;
+        Entry next = entry.nextForTask;
+        if (previous != null) {
+            previous.nextForTask = next;
+        } else if (next != null) {
+            entriesByTask.put(entry.task, next);
+        } else {
+            entriesByTask.remove(entry.task);
+        }
+        if (next != null) {
+            next.previousForTask = previous;
+        }
+    }
+
+    private Entry obtainEntry() {
+        Entry entry = freeList;
+        if (entry == null) {
+            return new Entry();
+        }
+        freeList = entry.nextInBucket;
+        entry.nextInBucket = null;
+        return entry;
+    }
+
+    private void recycle(Entry entry) {
+        entry.task = null;
+        entry.previousInBucket = null;
+        entry.previousForTask = null;
+        entry.nextForTask = null;
+        entry.nextInBucket = freeList;
+        freeList = entry;
+    }
+
+    /**
+     * A pending task. While in the wheel it is linked into its bucket; once expired, nextInBucket
+     * links the expired list instead, and once recycled, the free list.
+     */
+    private static final class Entry {
+        Runnable task;
+        long tick;
+        int state;
+        Entry previousInBucket;
+        Entry nextInBucket;
+        Entry previousForTask;
+        Entry nextForTask;
+    }
+}
@@ -0,0 +1,514 @@
+package com.example.whackamole.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.GameState;
+import com.example.whackamole.model.MissedTickPolicy;
+import com.example.whackamole.model.MoleColor;
+import com.example.whackamole.model.MoleColorDistribution;
+import com.example.whackamole.model.MoleContainer;
+import com.example.whackamole.model.SavedGame;
+import com.example.whackamole.util.fake.FakeScheduler;
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+import com.example.whackamole.util.virtual.VirtualScheduler;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class GameEngineTest {
+
+    private FakeScheduler fakeScheduler;
+    private InMemoryHighScoreStore highScoreStore;
+    private RecordingListener listener;
+    private GameEngine engine;
+    private final List<Long> spawnTimes = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        fakeScheduler = new FakeScheduler();
+        highScoreStore = new InMemoryHighScoreStore();
+        listener = new RecordingListener();
+        engine = new GameEngine.Builder(new GameConfig(3, 5, 1000, 100, 50), fakeScheduler,
+                listener).highScoreStore(highScoreStore).build();
+        engine.start();
+    }
+
+    /**
+     * Test that constructing and starting the engine does not emit any transitions.
+     * <p>
+     * Strategy:
+     * - Verify no events were recorded.
+     * - Verify exactly one spawn is scheduled.
+     */
+    @Test
+    public void testStartOnlySchedulesFirstSpawn() {
+        assertTrue(listener.states.isEmpty());
+        assertEquals(1, fakeScheduler.pendingTasks());
+        assertEquals(0, engine.getScore());
+        assertFalse(engine.isGameOver());
+    }
+
+    /**
+     * Test hitting the visible mole.
+     * <p>
+     * Strategy:
+     * - Hit the visible mole.
+     * - Verify score and high score, and that exactly one consistent state was published.
+     * - Verify the mole moved and the interval sped up.
+     */
+    @Test
+    public void testHitMoleScoresAndMovesMole() {
+        MoleContainer before = engine.getMoles();
+        int visibleId = before.getVisibleId();
+        int points = before.getMoles().get(visibleId).getColor().getPoints();
+
+        engine.hitMole(visibleId);
+
+        assertEquals(points, engine.getScore());
+        assertEquals(points, highScoreStore.getHighScore());
+        assertEquals(1, listener.states.size());
+        GameState state = listener.states.get(0);
+        assertEquals(points, state.getScore());
+        assertEquals(points, state.getHighScore());
+        assertEquals(950, state.getCurrentInterval());
+        assertNotEquals(visibleId, state.getMoles().getVisibleId());
+        assertEquals(state.getMoles().getVersion(), state.getMoleChanges().getVersion());
+        assertNotEquals(visibleId, engine.getMoles().getVisibleId());
+        assertEquals(950, engine.getCurrentInterval());
+        assertEquals(2, engine.getMoleChanges().getChanges().size());
+    }
+
+    /**
+     * Test that missing moles until the limit ends the game.
+     * <p>
+     * Strategy:
+     * - Run the scheduled spawns until max misses is reached.
+     * - Verify the game is over and nothing is left scheduled.
+     * - Verify hitting after game over is rejected.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testMissesEndGame() {
+        fakeScheduler.runAll();
+
+        assertEquals(3, engine.getMisses());
+        assertTrue(engine.isGameOver());
+        assertEquals(0, fakeScheduler.pendingTasks());
+        assertEquals(3, listener.states.size());
+        assertTrue(listener.states.get(2).isGameOver());
+        assertTrue(listener.states.get(2).getMoleChanges().getChanges().isEmpty());
+
+        engine.hitMole(engine.getMoles().getVisibleId());
+    }
+
+    /**
+     * Test resetting after game over restores the initial state and restarts the loop.
+     */
+    @Test
+    public void testResetGameAfterGameOver() {
+        fakeScheduler.runAll();
+        engine.resetGame();
+
+        assertEquals(0, engine.getScore());
+        assertEquals(0, engine.getMisses());
+        assertFalse(engine.isGameOver());
+        assertEquals(1000, engine.getCurrentInterval());
+        assertEquals(1, fakeScheduler.pendingTasks());
+    }
+
+    /**
+     * Test that two engines with the same seed produce the same sequence of moles, and that a
+     * reset with a seed starts that sequence again.
+     * <p>
+     * Strategy:
+     * - Run two seeded engines to game over and compare every published grid.
+     * - Reset one of them with the same seed and compare its first grid.
+     */
+    @Test
+    public void testSameSeedReproducesSession() {
+        GameConfig config = new GameConfig(20, 100, 1000, 100, 50);
+        FakeScheduler firstScheduler = new FakeScheduler();
+        RecordingListener firstListener = new RecordingListener();
+        GameEngine first = new GameEngine.Builder(config, firstScheduler, firstListener)
+                .highScoreStore(highScoreStore)
+                .random(new XoroshiroRandomSource(0))
+                .seed(1234)
+                .build();
+        FakeScheduler secondScheduler = new FakeScheduler();
+        RecordingListener secondListener = new RecordingListener();
+        GameEngine second = new GameEngine.Builder(config, secondScheduler, secondListener)
+                .highScoreStore(highScoreStore)
+                .random(new XoroshiroRandomSource(99))
+                .seed(1234)
+                .build();
+        int initialId = first.getMoles().getVisibleId();
+        first.start();
+        second.start();
+
+        assertEquals(initialId, second.getMoles().getVisibleId());
+        firstScheduler.runAll();
+        secondScheduler.runAll();
+        assertEquals(firstListener.states.size(), secondListener.states.size());
+        for (int i = 0; i < firstListener.states.size(); i++) {
+            MoleContainer expected = firstListener.states.get(i).getMoles();
+            MoleContainer actual = secondListener.states.get(i).getMoles();
+            assertEquals(expected.getVisibleId(), actual.getVisibleId());
+            assertEquals(expected.getMoles().get(expected.getVisibleId()).getColor(),
+                    actual.getMoles().get(actual.getVisibleId()).getColor());
+        }
+        assertEquals(1234, first.getState().getSessionSeed());
+
+        first.resetGame(1234);
+        assertEquals(1234, first.getSessionSeed());
+        assertEquals(initialId, first.getMoles().getVisibleId());
+    }
+
+    /**
+     * Test that a reset without a seed starts a new session with a different seed.
+     */
+    @Test
+    public void testResetDrawsNewSessionSeed() {
+        long seed = engine.getSessionSeed();
+        fakeScheduler.runAll();
+        engine.resetGame();
+
+        assertNotEquals(seed, engine.getSessionSeed());
+        assertEquals(engine.getSessionSeed(), engine.getState().getSessionSeed());
+    }
+
+    /**
+     * Test that moles are colored according to the config's color distribution.
+     */
+    @Test
+    public void testColorDistributionIsApplied() {
+        GameConfig config = new GameConfig(10, 5, 1000, 100, 50, MissedTickPolicy.SKIP,
+                new MoleColorDistribution(Map.of(MoleColor.PURPLE, 1)));
+        GameEngine purpleEngine = new GameEngine.Builder(config, fakeScheduler, listener)
+                .highScoreStore(highScoreStore).build();
+
+        for (int i = 0; i < 20; i++) {
+            MoleContainer moles = purpleEngine.getMoles();
+            assertEquals(MoleColor.PURPLE, moles.getMoles().get(moles.getVisibleId()).getColor());
+            purpleEngine.hitMole(moles.getVisibleId());
+        }
+        assertEquals(200, purpleEngine.getScore());
+    }
+
+    /**
+     * Test several moles with individual lifetimes.
+     * <p>
+     * Strategy:
+     * - Use a 1000ms spawn interval, up to three visible moles and a 2500ms lifetime.
+     * - Verify moles accumulate up to the maximum without counting misses.
+     * - Hit one and verify it is scored and no longer expires.
+     * - Let the rest expire and verify each counts as one miss.
+     */
+    @Test
+    public void testSeveralMolesExpireIndividually() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        GameConfig config = new GameConfig(5, 20, 1000, 1000, 0, MissedTickPolicy.SKIP,
+                MoleColorDistribution.UNIFORM, 3, 2500);
+        GameEngine multi = new GameEngine.Builder(config, scheduler, listener)
+                .highScoreStore(highScoreStore).build();
+        multi.start();
+
+        scheduler.advanceTo(2000);
+        assertEquals(3, multi.getMoles().getVisibleCount());
+        assertEquals(0, multi.getMisses());
+
+        int hitId = multi.getMoles().getVisibleId();
+        int points = multi.getMoles().getMoles().get(hitId).getColor().getPoints();
+        multi.hitMole(hitId);
+        assertEquals(points, multi.getScore());
+        assertEquals(2, multi.getMoles().getVisibleCount());
+        assertFalse(multi.getMoles().getMoles().get(hitId).isVisible());
+
+        // The initial mole (shown at 0) expires at 2500, within one 16ms tick
+        scheduler.advanceTo(2520);
+        assertEquals(1, multi.getMisses());
+
+        multi.hitMole(hitId);
+        assertEquals(points, multi.getScore());
+    }
+
+    /**
+     * Test that the initial mole can be hit before the engine is started when several moles are
+     * visible at once.
+     * <p>
+     * Strategy:
+     * - Hit the initial mole of a multi-mole engine that has not been started.
+     * - Verify it was scored and hidden, and that starting the engine leaves no expiry for it.
+     */
+    @Test
+    public void testHitBeforeStartWithSeveralMoles() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        GameConfig config = new GameConfig(5, 20, 1000, 1000, 0, MissedTickPolicy.SKIP,
+                MoleColorDistribution.UNIFORM, 3, 2500);
+        GameEngine multi = new GameEngine.Builder(config, scheduler, listener)
+                .highScoreStore(highScoreStore).build();
+
+        int hitId = multi.getMoles().getVisibleId();
+        int points = multi.getMoles().getMoles().get(hitId).getColor().getPoints();
+        multi.hitMole(hitId);
+        assertEquals(points, multi.getScore());
+        assertEquals(0, multi.getMoles().getVisibleCount());
+
+        multi.start();
+        scheduler.advanceTo(2520);
+        assertEquals(0, multi.getMisses());
+    }
+
+    /**
+     * Test that expired moles end the game and stop all timers.
+     */
+    @Test
+    public void testExpiredMolesEndGame() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        GameConfig config = new GameConfig(3, 20, 500, 500, 0, MissedTickPolicy.SKIP,
+                MoleColorDistribution.UNIFORM, 10, 1000);
+        GameEngine multi = new GameEngine.Builder(config, scheduler, listener)
+                .highScoreStore(highScoreStore).build();
+        multi.start();
+
+        scheduler.advanceTo(10_000);
+
+        assertTrue(multi.isGameOver());
+        assertEquals(3, multi.getMisses());
+        assertEquals(0, scheduler.pendingTasks());
+
+        multi.resetGame();
+        assertEquals(0, multi.getMisses());
+        assertEquals(1, multi.getMoles().getVisibleCount());
+        assertTrue(scheduler.pendingTasks() > 0);
+    }
+
+    /**
+     * Test that a saved game continues in a new engine.
+     * <p>
+     * Strategy:
+     * - Play a multi-mole game until it has a score, misses and several visible moles.
+     * - Save its state and restore it into a new engine on a new scheduler.
+     * - Verify the restored state matches, the moles get fresh expiries and the game continues.
+     */
+    @Test
+    public void testRestoreContinuesSavedGame() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        GameConfig config = new GameConfig(5, 20, 1000, 1000, 0, MissedTickPolicy.SKIP,
+                MoleColorDistribution.UNIFORM, 3, 2500);
+        GameEngine original = new GameEngine.Builder(config, scheduler, listener)
+                .highScoreStore(highScoreStore).build();
+        original.start();
+        scheduler.advanceTo(2000);
+        original.hitMole(original.getMoles().getVisibleId());
+        scheduler.advanceTo(3000);
+        SavedGame saved = SavedGame.of(original.getState());
+
+        VirtualScheduler newScheduler = new VirtualScheduler();
+        GameEngine restored = new GameEngine.Builder(config, newScheduler, listener)
+                .highScoreStore(highScoreStore).build();
+        restored.restore(saved);
+        GameState state = restored.getState();
+
+        assertEquals(original.getScore(), state.getScore());
+        assertEquals(original.getMisses(), state.getMisses());
+        assertEquals(original.getSessionSeed(), state.getSessionSeed());
+        assertEquals(original.getCurrentInterval(), state.getCurrentInterval());
+        assertEquals(original.getMoles().getVisibleId(), state.getMoles().getVisibleId());
+        assertArrayEquals(saved.getVisibleMoleIds(), SavedGame.of(state).getVisibleMoleIds());
+        assertArrayEquals(saved.getVisibleColors(), SavedGame.of(state).getVisibleColors());
+
+        int misses = restored.getMisses();
+        int visible = restored.getMoles().getVisibleCount();
+        assertTrue(visible > 1);
+        restored.start();
+        newScheduler.advanceTo(2520);
+        assertEquals(misses + visible, restored.getMisses());
+    }
+
+    /**
+     * Test that a restored game does not replay the random sequence its session opened with.
+     * <p>
+     * Strategy:
+     * - Save a session's first state, and its state after a hit and a miss.
+     * - Restore each into an engine and verify the engine's random source does not start over
+     *   from the session seed, and that the two saves continue differently.
+     */
+    @Test
+    public void testRestoreDoesNotReplayOpening() {
+        GameConfig config = new GameConfig(20, 100, 1000, 100, 50);
+        FakeScheduler scheduler = new FakeScheduler();
+        GameEngine original = new GameEngine.Builder(config, scheduler, listener)
+                .highScoreStore(highScoreStore)
+                .seed(1234)
+                .build();
+        SavedGame opening = SavedGame.of(original.getState());
+        original.start();
+        original.hitMole(original.getMoles().getVisibleId());
+        scheduler.runNext();
+        SavedGame later = SavedGame.of(original.getState());
+
+        long openingDraw = new XoroshiroRandomSource(1234).nextLong();
+        XoroshiroRandomSource openingRandom = new XoroshiroRandomSource(0);
+        new GameEngine.Builder(config, new FakeScheduler(), listener)
+                .highScoreStore(highScoreStore)
+                .random(openingRandom)
+                .seed(99)
+                .build()
+                .restore(opening);
+        XoroshiroRandomSource laterRandom = new XoroshiroRandomSource(0);
+        new GameEngine.Builder(config, new FakeScheduler(), listener)
+                .highScoreStore(highScoreStore)
+                .random(laterRandom)
+                .seed(99)
+                .build()
+                .restore(later);
+
+        long continuedDraw = openingRandom.nextLong();
+        long laterDraw = laterRandom.nextLong();
+        assertNotEquals(openingDraw, continuedDraw);
+        assertNotEquals(openingDraw, laterDraw);
+        assertNotEquals(continuedDraw, laterDraw);
+    }
+
+    /**
+     * Test that a game saved after it ended stays over, and one that does not fit the config is
+     * rejected.
+     */
+    @Test
+    public void testRestoreGameOverAndInvalidGame() {
+        GameEngine restored = new GameEngine.Builder(new GameConfig(3, 5, 1000, 100, 50),
+                new FakeScheduler(), listener).highScoreStore(highScoreStore).build();
+        restored.restore(new SavedGame(7, 12, 3, true, 900, new int[]{2},
+                new MoleColor[]{MoleColor.BLUE}));
+        restored.start();
+        assertTrue(restored.isGameOver());
+        assertEquals(12, restored.getHighScore());
+
+        GameEngine invalid = new GameEngine.Builder(new GameConfig(3, 5, 1000, 100, 50),
+                new FakeScheduler(), listener).highScoreStore(highScoreStore).build();
+        assertThrows(IllegalArgumentException.class, () -> invalid.restore(new SavedGame(7, 0, 0,
+                false, 900, new int[]{1, 2}, new MoleColor[]{MoleColor.RED, MoleColor.RED})));
+        assertThrows(IllegalArgumentException.class, () -> invalid.restore(new SavedGame(7, 0, 0,
+                false, 900, new int[]{5}, new MoleColor[]{MoleColor.RED})));
+    }
+
+    /**
+     * Test that late spawn callbacks do not push back later spawns.
+     * <p>
+     * Strategy:
+     * - Use a scheduler whose callbacks always run 300ms late and a constant 1000ms interval.
+     * - Verify spawns run at 1300, 2300, 3300 (on the original schedule plus the lag) rather than
+     *   drifting by the lag on every spawn.
+     */
+    @Test
+    public void testSpawnsDoNotDriftWhenCallbacksRunLate() {
+        LaggingScheduler scheduler = new LaggingScheduler(300);
+        GameEngine driftEngine = new GameEngine.Builder(new GameConfig(10, 5, 1000, 1000, 0),
+                scheduler, new SpawnTimeListener(scheduler)).highScoreStore(highScoreStore).build();
+        driftEngine.start();
+
+        scheduler.advanceTo(3500);
+
+        assertEquals(List.of(1300L, 2300L, 3300L), spawnTimes);
+        assertEquals(4000, driftEngine.getNextSpawnTime());
+    }
+
+    /**
+     * Test that CATCH_UP counts a miss for every spawn slept through.
+     */
+    @Test
+    public void testCatchUpPolicyCountsEveryMissedSpawn() {
+        GameEngine stalled = startStalledEngine(MissedTickPolicy.CATCH_UP);
+
+        assertEquals(3, stalled.getMisses());
+        assertEquals(4000, stalled.getNextSpawnTime());
+    }
+
+    /**
+     * Test that SKIP counts one miss for a stall and keeps the original phase.
+     */
+    @Test
+    public void testSkipPolicyCountsOneMissForAStall() {
+        GameEngine stalled = startStalledEngine(MissedTickPolicy.SKIP);
+
+        assertEquals(1, stalled.getMisses());
+        assertEquals(4000, stalled.getNextSpawnTime());
+    }
+
+    /**
+     * Starts an engine with a 1000ms interval whose first spawn callback runs 2500ms late.
+     */
+    private GameEngine startStalledEngine(MissedTickPolicy policy) {
+        LaggingScheduler scheduler = new LaggingScheduler(2500);
+        GameEngine stalled = new GameEngine.Builder(new GameConfig(10, 5, 1000, 1000, 0, policy),
+                scheduler, listener).highScoreStore(highScoreStore).build();
+        stalled.start();
+        scheduler.runNext();
+        return stalled;
+    }
+
+    /**
+     * Virtual scheduler whose callbacks always run a fixed amount of time after they are due.
+     */
+    private static final class LaggingScheduler extends VirtualScheduler {
+
+        private final long lagMs;
+
+        LaggingScheduler(long lagMs) {
+            this.lagMs = lagMs;
+        }
+
+        @Override
+        public void postAtTime(Runnable r, long uptimeMs) {
+            super.postAtTime(r, uptimeMs + lagMs);
+        }
+    }
+
+    private final class SpawnTimeListener implements GameEngine.Listener {
+
+        private final VirtualScheduler scheduler;
+
+        SpawnTimeListener(VirtualScheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public void onStateChanged(GameState state) {
+            spawnTimes.add(scheduler.now());
+        }
+    }
+
+    private static final class InMemoryHighScoreStore implements HighScoreStore {
+
+        private int highScore;
+
+        @Override
+        public int getHighScore() {
+            return highScore;
+        }
+
+        @Override
+        public void saveHighScore(int score) {
+            highScore = score;
+        }
+    }
+
+    private static final class RecordingListener implements GameEngine.Listener {
+
+        final List<GameState> states = new ArrayList<>();
+
+        @Override
+        public void onStateChanged(GameState state) {
+            states.add(state);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.whackamole.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.engine.GameEngine;
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.MissedTickPolicy;
+import com.example.whackamole.util.virtual.VirtualScheduler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GameMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that values land in the bucket of the smallest bound not below them.
+     * <p>
+     * Strategy:
+     * - Record values on, between and beyond the bounds, and a negative one.
+     * - Verify each bucket's count, the maximum and the bucket bounds read back as percentiles.
+     */
+    @Test
+    public void testHistogramBuckets() {
+        FixedHistogram histogram = new FixedHistogram(new long[]{10, 100, 1000});
+        histogram.record(-5);
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(100);
+        histogram.record(5000);
+
+        assertEquals(4, histogram.getBucketCount());
+        assertEquals(2, histogram.getBucketValue(0));
+        assertEquals(2, histogram.getBucketValue(1));
+        assertEquals(0, histogram.getBucketValue(2));
+        assertEquals(1, histogram.getBucketValue(3));
+        assertEquals(Long.MAX_VALUE, histogram.getBucketBound(3));
+        assertEquals(5, histogram.getCount());
+        assertEquals(5000, histogram.getMax());
+        assertEquals(10, histogram.getValueAtPercentile(40));
+        assertEquals(100, histogram.getValueAtPercentile(80));
+        assertEquals(5000, histogram.getValueAtPercentile(100));
+        assertThrows(IllegalArgumentException.class, () -> new FixedHistogram(new long[]{2, 2}));
+    }
+
+    /**
+     * Test that no value is lost when several threads record at once.
+     * <p>
+     * Strategy:
+     * - Record the same values from four threads.
+     * - Verify the count, sum and maximum include every value.
+     */
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        FixedHistogram histogram = new FixedHistogram(FixedHistogram.MICROSECOND_BOUNDS);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i % 1000 + offset);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(1002, histogram.getMax());
+        assertEquals(501, histogram.getMean(), 0.01);
+    }
+
+    /**
+     * Test that disabled metrics record nothing and that {@link GameMetrics#DISABLED} stays so.
+     * <p>
+     * Strategy:
+     * - Record through disabled metrics and verify nothing was counted.
+     * - Enable them and verify the same calls are counted.
+     */
+    @Test
+    public void testDisabledMetricsRecordNothing() {
+        GameMetrics metrics = new GameMetrics(false);
+        long start = metrics.startTimer();
+        assertEquals(GameMetrics.NOT_TIMED, start);
+        metrics.recordTap(start);
+        metrics.recordSpawn(0, 10);
+        metrics.countSkippedSpawns(3);
+        assertEquals(0, metrics.getTapLatency().getCount());
+        assertEquals(0, metrics.getSpawnJitter().getCount());
+        assertEquals(0, metrics.getSkippedSpawns());
+
+        metrics.setEnabled(true);
+        metrics.recordTap(metrics.startTimer());
+        metrics.recordSpawn(0, 10);
+        assertEquals(1, metrics.getTapLatency().getCount());
+        assertEquals(10_000, metrics.getSpawnJitter().getMax());
+
+        assertFalse(GameMetrics.DISABLED.isEnabled());
+        assertThrows(UnsupportedOperationException.class,
+                () -> GameMetrics.DISABLED.setEnabled(true));
+    }
+
+    /**
+     * Test that the engine records late spawns and taps.
+     * <p>
+     * Strategy:
+     * - Run an engine whose spawn callbacks run 2500ms late, under each missed tick policy.
+     * - Verify the jitter and the spawns caught up on or skipped.
+     * - Tap and verify the tap was timed.
+     */
+    @Test
+    public void testEngineRecordsSpawnJitterAndTaps() {
+        GameMetrics catchUp = runStalledEngine(MissedTickPolicy.CATCH_UP);
+        assertEquals(1, catchUp.getSpawnJitter().getCount());
+        assertEquals(2_500_000, catchUp.getSpawnJitter().getMax());
+        assertEquals(2, catchUp.getCaughtUpSpawns());
+        assertEquals(0, catchUp.getSkippedSpawns());
+        assertEquals(1, catchUp.getTapLatency().getCount());
+
+        GameMetrics skip = runStalledEngine(MissedTickPolicy.SKIP);
+        assertEquals(0, skip.getCaughtUpSpawns());
+        assertEquals(2, skip.getSkippedSpawns());
+    }
+
+    /**
+     * Test the file dump.
+     * <p>
+     * Strategy:
+     * - Record a few values and dump the metrics over an existing file.
+     * - Verify the file holds the counters, summaries and buckets, and no temporary file is left.
+     */
+    @Test
+    public void testWriteToFile() throws IOException {
+        GameMetrics metrics = new GameMetrics(true);
+        metrics.countCaughtUpSpawns(4);
+        metrics.getDispatchTime().record(300);
+        metrics.getDispatchTime().record(700);
+        File file = folder.newFile("metrics.csv");
+
+        metrics.writeTo(file);
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals("section,name,value", lines.get(0));
+        assertTrue(lines.contains("counters,caught_up_spawns,4"));
+        assertTrue(lines.contains("dispatch_us,count,2"));
+        assertTrue(lines.contains("dispatch_us,mean,500.00"));
+        assertTrue(lines.contains("dispatch_us,p50,500"));
+        assertTrue(lines.contains("dispatch_us,max,700"));
+        assertTrue(lines.contains("dispatch_us,le_1000,1"));
+        assertTrue(lines.contains("tap_us,le_inf,0"));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        metrics.reset();
+        assertEquals(0, metrics.getDispatchTime().getCount());
+        assertEquals(0, metrics.getCaughtUpSpawns());
+    }
+
+    /**
+     * Starts an engine with a 1000ms interval whose first spawn callback runs 2500ms late, then
+     * taps once.
+     */
+    private static GameMetrics runStalledEngine(MissedTickPolicy policy) {
+        GameMetrics metrics = new GameMetrics(true);
+        VirtualScheduler scheduler = new VirtualScheduler() {
+            @Override
+            public void postAtTime(Runnable r, long uptimeMs) {
+                super.postAtTime(r, uptimeMs + 2500);
+            }
+        };
+        GameEngine engine = new GameEngine.Builder(new GameConfig(10, 5, 1000, 1000, 0, policy),
+                scheduler, state -> { })
+                .seed(1)
+                .metrics(metrics)
+                .build();
+        engine.start();
+        scheduler.runNext();
+        engine.hitMole(engine.getMoles().getVisibleId());
+        return metrics;
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.whackamole.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class MoleGridTest {
+
+    /**
+     * Test that a snapshot reflects the grid at the time it was taken.
+     * <p>
+     * Strategy:
+     * - Take a snapshot, then move the visible mole in the grid.
+     * - Verify the old snapshot still reports the original visible mole and color.
+     * - Verify a new snapshot reports the moved mole.
+     */
+    @Test
+    public void testSnapshotIsUnaffectedByLaterMutation() {
+        MoleGrid grid = new MoleGrid(9, 2, MoleColor.RED);
+        MoleContainer before = grid.snapshot();
+
+        grid.show(7, MoleColor.PURPLE);
+        MoleContainer after = grid.snapshot();
+
+        assertEquals(2, before.getVisibleId());
+        assertTrue(before.getMoles().get(2).isVisible());
+        assertEquals(MoleColor.RED, before.getMoles().get(2).getColor());
+        assertFalse(before.getMoles().get(7).isVisible());
+
+        assertEquals(7, after.getVisibleId());
+        assertTrue(after.getMoles().get(7).isVisible());
+        assertEquals(MoleColor.PURPLE, after.getMoles().get(7).getColor());
+        assertFalse(after.getMoles().get(2).isVisible());
+    }
+
+    /**
+     * Test that snapshots share hidden moles instead of rebuilding them.
+     * <p>
+     * Strategy:
+     * - Take two snapshots with different visible moles.
+     * - Verify a mole hidden in both is the same instance in both.
+     * - Verify every mole reports its own index as ID.
+     */
+    @Test
+    public void testSnapshotsShareHiddenMoles() {
+        MoleGrid grid = new MoleGrid(100, 0, MoleColor.BLUE);
+        MoleContainer first = grid.snapshot();
+        grid.show(1, MoleColor.GREEN);
+        MoleContainer second = grid.snapshot();
+
+        assertSame(first.getMoles().get(50), second.getMoles().get(50));
+        assertEquals(100, second.getMoles().size());
+        for (int i = 0; i < second.getMoles().size(); i++) {
+            assertEquals(i, second.getMoles().get(i).getId());
+        }
+    }
+
+    /**
+     * Test that snapshots with several visible moles also share hidden moles, and only differ in
+     * the visible ones.
+     * <p>
+     * Strategy:
+     * - Reveal three moles and take a snapshot, then move one of them and take another.
+     * - Verify a mole hidden in both is the same instance in both.
+     * - Verify each snapshot reports its own visible moles.
+     */
+    @Test
+    public void testSeveralVisibleSnapshotsShareHiddenMoles() {
+        MoleGrid grid = new MoleGrid(100, 0, MoleColor.BLUE);
+        grid.reveal(10, MoleColor.RED);
+        grid.reveal(20, MoleColor.GREEN);
+        MoleContainer first = grid.snapshot();
+        grid.hide(10);
+        grid.reveal(30, MoleColor.PURPLE);
+        MoleContainer second = grid.snapshot();
+
+        assertSame(first.getMoles().get(50), second.getMoles().get(50));
+        assertEquals(3, first.getVisibleCount());
+        assertTrue(first.getMoles().get(10).isVisible());
+        assertFalse(first.getMoles().get(30).isVisible());
+        assertEquals(3, second.getVisibleCount());
+        assertEquals(30, second.getVisibleId());
+        assertFalse(second.getMoles().get(10).isVisible());
+        assertEquals(MoleColor.PURPLE, second.getMoles().get(30).getColor());
+        assertEquals(MoleColor.GREEN, second.getMoles().get(20).getColor());
+    }
+
+    /**
+     * Test that the snapshot list is read-only.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotIsUnmodifiable() {
+        new MoleGrid(9, 0, MoleColor.YELLOW).snapshot().getMoles()
+                .set(0, new Mole(0, true, MoleColor.RED));
+    }
+
+    /**
+     * Test that showing an out-of-range mole is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testShowRejectsOutOfBoundsId() {
+        new MoleGrid(9, 0, MoleColor.YELLOW).show(9, MoleColor.RED);
+    }
+
+    /**
+     * Test that drained changes only describe the cells that changed.
+     * <p>
+     * Strategy:
+     * - Drain the initial changes and verify the visible mole appears.
+     * - Move the mole and verify exactly two changes: old cell hidden, new cell shown.
+     * - Verify versions chain from one change set to the next.
+     * - Drain again without changes and verify the set is empty and the version is unchanged.
+     */
+    @Test
+    public void testDrainChangesReportsOnlyChangedCells() {
+        MoleGrid grid = new MoleGrid(9, 4, MoleColor.GREEN);
+
+        MoleChangeSet initial = grid.drainChanges();
+        assertEquals(1, initial.getChanges().size());
+        assertEquals(4, initial.getChanges().get(0).getCellId());
+        assertTrue(initial.getChanges().get(0).getNewMole().isVisible());
+
+        grid.show(8, MoleColor.BLUE);
+        MoleChangeSet moved = grid.drainChanges();
+        assertEquals(initial.getVersion(), moved.getBaseVersion());
+        assertEquals(2, moved.getChanges().size());
+
+        MoleChange hidden = moved.getChanges().get(0);
+        assertEquals(4, hidden.getCellId());
+        assertTrue(hidden.getOldMole().isVisible());
+        assertFalse(hidden.getNewMole().isVisible());
+
+        MoleChange shown = moved.getChanges().get(1);
+        assertEquals(8, shown.getCellId());
+        assertFalse(shown.getOldMole().isVisible());
+        assertTrue(shown.getNewMole().isVisible());
+        assertEquals(MoleColor.BLUE, shown.getNewMole().getColor());
+        assertSame(grid.snapshot().getMoles().get(8), shown.getNewMole());
+
+        MoleChangeSet unchanged = grid.drainChanges();
+        assertTrue(unchanged.getChanges().isEmpty());
+        assertEquals(moved.getVersion(), unchanged.getVersion());
+    }
+
+    /**
+     * Test revealing and hiding several moles at once.
+     * <p>
+     * Strategy:
+     * - Reveal two more moles next to the initial one and verify the count and snapshot.
+     * - Verify random hidden IDs never pick a visible mole.
+     * - Hide one and verify the drained changes report both reveals and the hide.
+     */
+    @Test
+    public void testSeveralVisibleMoles() {
+        MoleGrid grid = new MoleGrid(5, 0, MoleColor.RED);
+        grid.drainChanges();
+
+        grid.reveal(3, MoleColor.BLUE);
+        grid.reveal(4, MoleColor.GREEN);
+        MoleContainer snapshot = grid.snapshot();
+        assertEquals(3, grid.getVisibleCount());
+        assertEquals(3, snapshot.getVisibleCount());
+        assertTrue(snapshot.getMoles().get(0).isVisible());
+        assertTrue(snapshot.getMoles().get(3).isVisible());
+        assertEquals(MoleColor.GREEN, snapshot.getMoles().get(4).getColor());
+        assertSame(snapshot, grid.snapshot());
+
+        XoroshiroRandomSource random = new XoroshiroRandomSource(1);
+        for (int i = 0; i < 100; i++) {
+            int id = grid.randomHiddenId(random);
+            assertTrue(id == 1 || id == 2);
+        }
+
+        assertTrue(grid.hide(0));
+        assertFalse(grid.hide(0));
+        MoleChangeSet changes = grid.drainChanges();
+        assertEquals(3, changes.getChanges().size());
+        assertEquals(2, grid.getVisibleCount());
+        assertTrue(snapshot.getMoles().get(0).isVisible());
+        assertFalse(grid.snapshot().getMoles().get(0).isVisible());
+    }
+
+    /**
+     * Test that a cell changed and changed back is not reported.
+     */
+    @Test
+    public void testRevertedCellIsNotReported() {
+        MoleGrid grid = new MoleGrid(5, 0, MoleColor.RED);
+        grid.drainChanges();
+
+        grid.reveal(2, MoleColor.BLUE);
+        grid.hide(2);
+        grid.show(0, MoleColor.RED);
+        MoleChangeSet changes = grid.drainChanges();
+
+        assertTrue(changes.getChanges().isEmpty());
+        assertEquals(changes.getBaseVersion(), changes.getVersion());
+    }
+
+    /**
+     * Test that a revealed mole is the grid's flyweight for its cell and color.
+     * <p>
+     * Strategy:
+     * - Reveal a mole, hide it and reveal it again with the same color, then with another color.
+     * - Verify the same color gives the same instance and the other color a different one.
+     */
+    @Test
+    public void testRevealReusesVisibleMoles() {
+        MoleGrid grid = new MoleGrid(9, 0, MoleColor.RED);
+        grid.reveal(4, MoleColor.GREEN);
+        Mole first = grid.getMole(4);
+        grid.hide(4);
+        grid.reveal(4, MoleColor.GREEN);
+
+        assertSame(first, grid.getMole(4));
+        assertTrue(first.isVisible());
+        assertEquals(4, first.getId());
+        grid.reveal(4, MoleColor.PURPLE);
+        assertEquals(MoleColor.PURPLE, grid.getMole(4).getColor());
+    }
+
+    /**
+     * Test that spawning and hiding moles does not allocate.
+     * <p>
+     * Strategy:
+     * - Skip unless the JVM can report the bytes allocated by the current thread.
+     * - Warm up a loop that reveals a random hidden mole in a random color and hides the oldest
+     *   visible one, so it is compiled.
+     * - Run it again and verify the thread allocated far less than one object per spawn.
+     */
+    @Test
+    public void testRevealAndHideDoNotAllocate() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        MoleGrid grid = new MoleGrid(9, 0, MoleColor.RED);
+        XoroshiroRandomSource random = new XoroshiroRandomSource(1);
+        int spawns = 100_000;
+
+        spawnAndHide(grid, random, spawns);
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        spawnAndHide(grid, random, spawns);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue("allocated " + allocated + " bytes in " + spawns + " spawns",
+                allocated < spawns);
+    }
+
+    private static void spawnAndHide(MoleGrid grid, XoroshiroRandomSource random, int spawns) {
+        for (int i = 0; i < spawns; i++) {
+            grid.reveal(grid.randomHiddenId(random), MoleColor.randomColor(random));
+            if (grid.getVisibleCount() > 3) {
+                grid.hide(grid.getVisibleIdAt(0));
+            }
+        }
+        grid.hideAll();
+        grid.drainChanges();
+    }
+}
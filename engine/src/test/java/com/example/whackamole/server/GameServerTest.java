@@ -0,0 +1,270 @@
+package com.example.whackamole.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.util.RandomSource;
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class GameServerTest {
+
+    private static final GameConfig FAST = new GameConfig(3, 9, 200, 100, 5);
+    private static final GameConfig MULTI = new GameConfig(3, 16, 40, 20, 2,
+            GameConfig.DEFAULT.getMissedTickPolicy(), GameConfig.DEFAULT.getColorDistribution(),
+            3, 100);
+
+    private GameServer server;
+    private InetSocketAddress address;
+
+    @Before
+    public void setup() throws IOException {
+        server = new GameServer(FAST, 2);
+        address = server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    /**
+     * Test that the server hosts many sessions from several connections at once.
+     * <p>
+     * Strategy:
+     * - Start 500 sessions over two connections, which land on different loops.
+     * - Hit the first visible mole of every even session as soon as its initial state arrives,
+     *   and let every game run until it is over.
+     * - Verify every session ended, exactly the even ones scored, and the stats count every
+     *   session and every wheel tick.
+     * - End one connection's sessions explicitly and close the other, and verify the server
+     *   forgets them all.
+     */
+    @Test
+    public void testHostsManySessions() throws Exception {
+        int sessions = 500;
+        Map<Integer, SessionUpdate> finals = new ConcurrentHashMap<>();
+        CountDownLatch over = new CountDownLatch(sessions);
+        GameClient[] clients = new GameClient[2];
+        for (int c = 0; c < clients.length; c++) {
+            int client = c;
+            clients[c] = new GameClient(address, update -> {
+                int id = update.getSessionId();
+                if (update.isGameOver()) {
+                    if (finals.putIfAbsent(id, update) == null) {
+                        over.countDown();
+                    }
+                } else if (id % 2 == 0 && update.getMisses() == 0 && update.getScore() == 0) {
+                    try {
+                        clients[client].hit(id, update.getVisibleMoleId(0));
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            });
+        }
+        for (int id = 0; id < sessions; id++) {
+            clients[id % 2].start(id, id);
+        }
+
+        assertTrue(over.await(20, TimeUnit.SECONDS));
+        for (int id = 0; id < sessions; id++) {
+            SessionUpdate update = finals.get(id);
+            assertEquals(FAST.getMaxMisses(), update.getMisses());
+            assertEquals("session " + id, id % 2 == 0, update.getScore() > 0);
+        }
+        GameServer.Stats stats = server.getStats();
+        assertEquals(2, stats.getLoops());
+        assertEquals(sessions, stats.getActiveSessions());
+        assertEquals(sessions, stats.getSessionsStarted());
+        assertTrue(stats.getSessionsPerCore() > 0);
+        assertTrue(stats.getTickLatency().getCount() > 0);
+        assertTrue(stats.getP99TickLatencyMicros() <= stats.getTickLatency().getMax());
+
+        for (int id = 0; id < sessions; id += 2) {
+            clients[0].end(id);
+        }
+        clients[1].close();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (server.getStats().getActiveSessions() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, server.getStats().getActiveSessions());
+        clients[0].close();
+    }
+
+    /**
+     * Test starting a new game in a session, and that messages the server cannot act on are
+     * ignored.
+     * <p>
+     * Strategy:
+     * - Tap in a session that does not exist, then start one and play it until it is over.
+     * - Tap after the game is over, then start a new game in the same session.
+     * - Verify the new game starts from scratch, the connection stays open and the server counts
+     *   one session with two games.
+     */
+    @Test
+    public void testNewGameInSession() throws Exception {
+        BlockingQueue<SessionUpdate> updates = new LinkedBlockingQueue<>();
+        BlockingQueue<String> closed = new LinkedBlockingQueue<>();
+        GameClient client = new GameClient(address, new GameClient.Listener() {
+            @Override
+            public void onUpdate(SessionUpdate update) {
+                updates.add(update);
+            }
+
+            @Override
+            public void onClosed(IOException error) {
+                closed.add(String.valueOf(error));
+            }
+        });
+
+        client.hit(7, 0);
+        client.start(7, 42);
+        SessionUpdate first = updates.poll(5, TimeUnit.SECONDS);
+        assertEquals(7, first.getSessionId());
+        assertEquals(0, first.getMisses());
+        assertEquals(1, first.getVisibleCount());
+        SessionUpdate update = first;
+        while (!update.isGameOver()) {
+            update = updates.poll(5, TimeUnit.SECONDS);
+        }
+
+        client.hit(7, 0);
+        client.start(7, 43);
+        SessionUpdate restarted = updates.poll(5, TimeUnit.SECONDS);
+        assertFalse(restarted.isGameOver());
+        assertEquals(0, restarted.getMisses());
+        assertEquals(0, restarted.getScore());
+        GameServer.Stats stats = server.getStats();
+        assertEquals(1, stats.getActiveSessions());
+        assertEquals(2, stats.getSessionsStarted());
+        assertNull(closed.poll());
+
+        client.close();
+        assertEquals("null", closed.poll(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test that a session whose spawn throws fails alone.
+     * <p>
+     * Strategy:
+     * - Use random sources that throw on the first spawn of sessions started with seed 13.
+     * - Start ten sessions on one loop over two connections, one of them with seed 13.
+     * - Verify that session is reported over before its miss limit, every other session plays
+     *   until it has missed as often as the rules allow, and the server counts the failed
+     *   session as gone.
+     */
+    @Test
+    public void testFailingSpawnOnlyEndsItsSession() throws Exception {
+        server.close();
+        server = new GameServer(FAST, 1, FailingSpawns::new);
+        address = server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Map<Integer, SessionUpdate> finals = new ConcurrentHashMap<>();
+        CountDownLatch over = new CountDownLatch(10);
+        GameClient[] clients = new GameClient[2];
+        for (int c = 0; c < clients.length; c++) {
+            clients[c] = new GameClient(address, update -> {
+                if (update.isGameOver()
+                        && finals.putIfAbsent(update.getSessionId(), update) == null) {
+                    over.countDown();
+                }
+            });
+        }
+        for (int id = 0; id < 10; id++) {
+            clients[id % 2].start(id, id == 3 ? FailingSpawns.SEED : id);
+        }
+
+        assertTrue(over.await(10, TimeUnit.SECONDS));
+        assertTrue(finals.get(3).getMisses() < FAST.getMaxMisses());
+        assertEquals(0, finals.get(3).getVisibleCount());
+        for (int id = 0; id < 10; id++) {
+            if (id != 3) {
+                assertEquals("session " + id, FAST.getMaxMisses(), finals.get(id).getMisses());
+            }
+        }
+        assertEquals(9, server.getStats().getActiveSessions());
+        clients[0].close();
+        clients[1].close();
+    }
+
+    /**
+     * Test that sessions with several visible moles report each of them.
+     */
+    @Test
+    public void testReportsEveryVisibleMole() throws Exception {
+        server.close();
+        server = new GameServer(MULTI, 1);
+        address = server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        BlockingQueue<SessionUpdate> updates = new LinkedBlockingQueue<>();
+        GameClient client = new GameClient(address, updates::add);
+        client.start(1, 5);
+
+        int mostVisible = 0;
+        SessionUpdate update;
+        do {
+            update = updates.poll(5, TimeUnit.SECONDS);
+            mostVisible = Math.max(mostVisible, update.getVisibleCount());
+            for (int i = 0; i < update.getVisibleCount(); i++) {
+                assertTrue(update.getVisibleMoleId(i) >= 0 && update.getVisibleMoleId(i) < 16);
+            }
+        } while (!update.isGameOver());
+
+        assertTrue(mostVisible > 1);
+        client.close();
+    }
+
+    /**
+     * A random source that throws on the first spawn of a session seeded with {@link #SEED}:
+     * a new engine draws the initial mole's ID and color, and a spawn draws the next ID.
+     */
+    private static final class FailingSpawns implements RandomSource {
+
+        static final long SEED = 13;
+
+        private final XoroshiroRandomSource delegate = new XoroshiroRandomSource(0);
+        private long seed;
+        private int ints;
+
+        @Override
+        public void setSeed(long seed) {
+            this.seed = seed;
+            this.ints = 0;
+            delegate.setSeed(seed);
+        }
+
+        @Override
+        public long nextLong() {
+            return delegate.nextLong();
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            if (seed == SEED && ++ints > 1) {
+                throw new IllegalStateException("spawn failed");
+            }
+            return delegate.nextInt(bound);
+        }
+
+        @Override
+        public double nextDouble() {
+            return delegate.nextDouble();
+        }
+    }
+}
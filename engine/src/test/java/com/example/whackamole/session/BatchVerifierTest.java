@@ -0,0 +1,92 @@
+package com.example.whackamole.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.model.GameConfig;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class BatchVerifierTest {
+
+    private static final GameConfig SHORT = new GameConfig(1, 9, 800, 300, 50);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that a batch replays every session and reports only the forged ones.
+     * <p>
+     * Strategy:
+     * - Record 600 short sessions across two logs, so they span several batches, and a third
+     *   log with an honest session followed by a copy of it claiming a higher score.
+     * - Record a fourth log with an honest session whose first tap was processed while a spawn
+     *   was overdue.
+     * - Verify on four threads that every session was replayed and exactly the forged one is
+     *   reported, with its position, and that a missing file is reported as an error.
+     */
+    @Test
+    public void testReportsForgedSessions() throws IOException {
+        File first = record("first.log", 400, 1);
+        File second = record("second.log", 200, 2);
+        File forged = new File(folder.getRoot(), "forged.log");
+        try (SessionLogWriter writer = new SessionLogWriter(forged)) {
+            RecordedGames.play(GameConfig.DEFAULT, 1, 3, writer);
+            RecordedSession honest = SessionLog.read(forged).get(0);
+            rerecord(honest, honest.getFinalScore() + 100,
+                    new SessionRecorder(writer, Runnable::run));
+        }
+        File stalled = new File(folder.getRoot(), "stalled.log");
+        try (SessionLogWriter writer = new SessionLogWriter(stalled)) {
+            RecordedGames.playTapDuringStall(writer);
+        }
+        File missing = new File(folder.getRoot(), "missing.log");
+
+        BatchVerifier.Report report = new BatchVerifier(4)
+                .verify(List.of(first, second, forged, stalled, missing));
+
+        assertEquals(603, report.getSessions());
+        assertEquals(1, report.getMismatches().size());
+        BatchVerifier.Mismatch mismatch = report.getMismatches().get(0);
+        assertEquals(forged, mismatch.getFile());
+        assertEquals(1, mismatch.getIndex());
+        assertEquals(mismatch.getResult().getSession().getFinalScore() - 100,
+                mismatch.getResult().getReplayedScore());
+        assertEquals(1, report.getErrors().size());
+        assertTrue(report.getErrors().get(0).startsWith(missing.toString()));
+        assertTrue(report.getSessionsPerSecond() > 0);
+    }
+
+    private File record(String name, int sessions, long seed) throws IOException {
+        File log = new File(folder.getRoot(), name);
+        try (SessionLogWriter writer = new SessionLogWriter(log)) {
+            RecordedGames.play(SHORT, sessions, seed, writer);
+        }
+        return log;
+    }
+
+    /**
+     * Feeds a recorded session's inputs to a recorder again, ending with the given score.
+     */
+    private static void rerecord(RecordedSession session, int finalScore,
+                                 SessionRecorder recorder) {
+        recorder.onSessionStarted(session.getGameConfig(), session.getSeed(),
+                session.getStartTime());
+        for (int i = 0; i < session.getEventCount(); i++) {
+            if (session.isSpawn(i)) {
+                recorder.onSpawn(session.getEventTime(i));
+            } else if (session.isExpiry(i)) {
+                recorder.onExpiry(session.getEventTime(i));
+            } else {
+                recorder.onHit(session.getHitMoleId(i), session.getEventTime(i));
+            }
+        }
+        recorder.onSessionEnded(finalScore, session.getEndTime());
+    }
+}
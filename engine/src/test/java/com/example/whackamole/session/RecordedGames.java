@@ -0,0 +1,81 @@
+package com.example.whackamole.session;
+
+import com.example.whackamole.engine.GameEngine;
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.util.virtual.VirtualScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plays recorded games for the session tests.
+ */
+final class RecordedGames {
+
+    private RecordedGames() {
+    }
+
+    /**
+     * Plays whole sessions in one engine, resetting between them, with a recorder writing to the
+     * given sink. Taps come at irregular times, some on the wrong mole, and now and then the
+     * engine's thread stalls so that spawns run late.
+     *
+     * @return the final score of each session
+     */
+    static List<Integer> play(GameConfig config, int sessions, long seed,
+                              SessionRecorder.Sink sink) {
+        Random taps = new Random(seed);
+        VirtualScheduler scheduler = new VirtualScheduler(1000 * seed);
+        SessionRecorder recorder = new SessionRecorder(sink, Runnable::run);
+        GameEngine engine = new GameEngine.Builder(config, scheduler, state -> { })
+                .seed(seed)
+                .trace(recorder)
+                .build();
+        engine.start();
+
+        List<Integer> scores = new ArrayList<>();
+        while (true) {
+            if (taps.nextInt(10) == 0) {
+                // The engine's thread is busy, so whatever falls due meanwhile runs late
+                scheduler.stallTo(scheduler.now() + taps.nextInt(2500));
+            }
+            scheduler.advanceBy(1 + taps.nextInt(400));
+            if (engine.isGameOver()) {
+                scores.add(engine.getScore());
+                if (scores.size() == sessions) {
+                    return scores;
+                }
+                engine.resetGame();
+                continue;
+            }
+            int visibleId = engine.getMoles().getVisibleId();
+            engine.hitMole(visibleId >= 0 && taps.nextInt(4) > 0
+                    ? visibleId : taps.nextInt(config.getNumMoles()));
+        }
+    }
+
+    /**
+     * Plays one session whose first tap is processed while its first spawn is overdue: the
+     * engine's thread is busy from 10ms before the spawn falls due until 10ms after, and the tap
+     * that was queued meanwhile runs first. The session then runs to the end without taps.
+     *
+     * @return the final score
+     */
+    static int playTapDuringStall(SessionRecorder.Sink sink) {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        GameEngine engine = new GameEngine.Builder(new GameConfig(2, 9, 1000, 500, 100),
+                scheduler, state -> { })
+                .seed(1)
+                .trace(new SessionRecorder(sink, Runnable::run))
+                .build();
+        engine.start();
+        scheduler.advanceTo(990);
+        scheduler.stallTo(1010);
+        engine.hitMole(engine.getMoles().getVisibleId());
+        while (!engine.isGameOver() && scheduler.runNext()) {
+            // Runs every spawn on time
+        }
+        return engine.getScore();
+    }
+}
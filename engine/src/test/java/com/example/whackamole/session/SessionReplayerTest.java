@@ -0,0 +1,214 @@
+package com.example.whackamole.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.MissedTickPolicy;
+import com.example.whackamole.model.MoleColor;
+import com.example.whackamole.model.MoleColorDistribution;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class SessionReplayerTest {
+
+    private static final GameConfig CATCH_UP = new GameConfig(5, 9, 1000, 300, 40,
+            MissedTickPolicy.CATCH_UP, new MoleColorDistribution(
+                    Map.of(MoleColor.RED, 1, MoleColor.PURPLE, 0.25)));
+    private static final GameConfig MULTI = new GameConfig(6, 16, 600, 250, 20,
+            MissedTickPolicy.SKIP, MoleColorDistribution.UNIFORM, 4, 1500);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File logPath;
+    private SessionLogWriter writer;
+
+    @Before
+    public void setup() {
+        logPath = new File(folder.getRoot(), "sessions.log");
+        writer = new SessionLogWriter(logPath);
+    }
+
+    /**
+     * Test that recorded sessions replay to the same outcome.
+     * <p>
+     * Strategy:
+     * - Play three sessions in one engine per config, resetting between them, with taps at
+     *   irregular times, some on the wrong mole, and stalls that make spawns run late.
+     * - Read the log back and replay every session against a new engine.
+     * - Verify every replay matches and ends with the score the session ended with, and that
+     *   the sessions showing several moles at once recorded their expiries.
+     */
+    @Test
+    public void testRecordedSessionsReplay() throws IOException {
+        List<Integer> scores = new ArrayList<>();
+        scores.addAll(play(GameConfig.DEFAULT, 3, 1));
+        scores.addAll(play(CATCH_UP, 3, 2));
+        scores.addAll(play(MULTI, 3, 3));
+        writer.close();
+
+        List<RecordedSession> sessions = SessionLog.read(logPath);
+        assertEquals(9, sessions.size());
+        for (int i = 0; i < sessions.size(); i++) {
+            SessionReplayer.Result result = SessionReplayer.replay(sessions.get(i));
+            assertTrue("session " + i + " diverged at " + result.getDivergedAt(),
+                    result.isMatch());
+            assertEquals(scores.get(i).intValue(), result.getReplayedScore());
+            assertEquals(scores.get(i).intValue(), sessions.get(i).getFinalScore());
+        }
+        assertTrue(sessions.get(0).getEventCount() > 10);
+        int expiries = 0;
+        for (int i = 0; i < sessions.get(6).getEventCount(); i++) {
+            if (sessions.get(6).isExpiry(i)) {
+                expiries++;
+            }
+        }
+        assertTrue(expiries >= MULTI.getMaxMisses());
+    }
+
+    /**
+     * Test that a tap processed while a spawn was overdue replays in the order it was recorded.
+     * <p>
+     * Strategy:
+     * - Record a session whose first tap is processed during a stall that spans the first spawn,
+     *   before the late spawn gets to run.
+     * - Verify the log has the tap before any spawn, and that the replay matches.
+     */
+    @Test
+    public void testTapDuringStallReplays() throws IOException {
+        int score = RecordedGames.playTapDuringStall(writer);
+        writer.close();
+        RecordedSession session = SessionLog.read(logPath).get(0);
+        assertFalse(session.isSpawn(0));
+        assertEquals(1010, session.getEventTime(0));
+        assertTrue(session.isSpawn(1));
+
+        SessionReplayer.Result result = SessionReplayer.replay(session);
+        assertTrue("diverged at " + result.getDivergedAt(), result.isMatch());
+        assertEquals(score, result.getReplayedScore());
+    }
+
+    /**
+     * Test that a session whose taps were changed does not replay.
+     * <p>
+     * Strategy:
+     * - Record a session, then rebuild it with one scoring hit moved to a different mole.
+     * - Verify the replay reports a divergence.
+     */
+    @Test
+    public void testTamperedSessionDiverges() throws IOException {
+        play(GameConfig.DEFAULT, 1, 4);
+        writer.close();
+        RecordedSession session = SessionLog.read(logPath).get(0);
+
+        long[] times = new long[session.getEventCount()];
+        int[] moleIds = new int[session.getEventCount()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = session.getEventTime(i);
+            moleIds[i] = session.getHitMoleId(i);
+        }
+        int hit = 0;
+        while (session.isSpawn(hit)) {
+            hit++;
+        }
+        moleIds[hit] = (moleIds[hit] + 1) % GameConfig.DEFAULT.getNumMoles();
+        RecordedSession tampered = new RecordedSession(session.getSeed(),
+                session.getGameConfig(), session.getStartTime(), times, moleIds,
+                session.getFinalScore(), session.getEndTime());
+
+        assertFalse(SessionReplayer.replay(tampered).isMatch());
+    }
+
+    /**
+     * Test recovery from corrupt and torn frames.
+     * <p>
+     * Strategy:
+     * - Record three sessions, flip a byte in the second one's frame and append half a frame.
+     * - Verify reading skips the corrupt frame and stops at the torn one.
+     * - Record another session with a new writer and verify it is appended after the last
+     *   complete frame, so it can be read back.
+     */
+    @Test
+    public void testCorruptAndTornFrames() throws IOException {
+        play(GameConfig.DEFAULT, 1, 5);
+        long firstEnd = logPath.length();
+        play(GameConfig.DEFAULT, 2, 6);
+        writer.close();
+        try (RandomAccessFile file = new RandomAccessFile(logPath, "rw")) {
+            file.seek(firstEnd + 12);
+            int b = file.read();
+            file.seek(firstEnd + 12);
+            file.write(b ^ 0xFF);
+            file.seek(file.length());
+            // A 100-byte frame, little-endian, cut off after 7 bytes
+            file.writeInt(0x64000000);
+            file.write(new byte[7]);
+        }
+
+        SessionLog.Reader reader = new SessionLog.Reader(
+                ByteBuffer.wrap(Files.readAllBytes(logPath.toPath())));
+        assertNotNull(reader.next());
+        assertNotNull(reader.next());
+        assertNull(reader.next());
+        assertEquals(1, reader.getCorruptFrames());
+
+        writer = new SessionLogWriter(logPath);
+        play(CATCH_UP, 1, 7);
+        writer.close();
+        List<RecordedSession> sessions = SessionLog.read(logPath);
+        assertEquals(3, sessions.size());
+        assertEquals(CATCH_UP.getConfigId(), sessions.get(2).getGameConfig().getConfigId());
+        assertTrue(SessionReplayer.replay(sessions.get(2)).isMatch());
+    }
+
+    /**
+     * Test that a capped log is rotated and keeps the newest sessions.
+     * <p>
+     * Strategy:
+     * - Record ten sessions through a writer capped at a few sessions' worth of bytes.
+     * - Verify neither the log nor the rotated log is past the cap.
+     * - Verify the rotated log followed by the log hold the last sessions played, in order, and
+     *   each replays to its recorded score.
+     */
+    @Test
+    public void testCappedLogIsRotated() throws IOException {
+        long cap = 512;
+        writer = new SessionLogWriter(logPath, cap);
+        List<Integer> scores = play(GameConfig.DEFAULT, 10, 11);
+        writer.close();
+
+        File rotated = writer.getRotatedPath();
+        assertTrue(rotated.exists());
+        assertTrue(logPath.length() <= cap);
+        assertTrue(rotated.length() <= cap);
+        List<RecordedSession> sessions = new ArrayList<>(SessionLog.read(rotated));
+        sessions.addAll(SessionLog.read(logPath));
+        assertTrue(sessions.size() < scores.size());
+        List<Integer> kept = scores.subList(scores.size() - sessions.size(), scores.size());
+        for (int i = 0; i < sessions.size(); i++) {
+            SessionReplayer.Result result = SessionReplayer.replay(sessions.get(i));
+            assertTrue(result.isMatch());
+            assertEquals(kept.get(i).intValue(), result.getReplayedScore());
+        }
+    }
+
+    private List<Integer> play(GameConfig config, int sessions, long seed) {
+        return RecordedGames.play(config, sessions, seed, writer);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.whackamole.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+public class HighScoreFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that a new file has no record and that written scores survive reopening.
+     */
+    @Test
+    public void testWriteAndReopen() throws IOException {
+        File path = new File(folder.getRoot(), "high_score.bin");
+        try (HighScoreFile file = HighScoreFile.open(path)) {
+            assertFalse(file.hasRecord());
+            assertEquals(0, file.getHighScore());
+            file.write(10);
+            file.write(25);
+            file.sync();
+            assertEquals(25, file.getHighScore());
+        }
+
+        try (HighScoreFile file = HighScoreFile.open(path)) {
+            assertTrue(file.hasRecord());
+            assertEquals(25, file.getHighScore());
+        }
+    }
+
+    /**
+     * Test that a torn write falls back to the previous record.
+     * <p>
+     * Strategy:
+     * - Write two scores, so both slots hold a record and the second is newest.
+     * - Corrupt one byte of the newest record, as a torn write would.
+     * - Verify reopening returns the first score, and that writing again still works.
+     */
+    @Test
+    public void testCorruptNewestRecordFallsBackToPrevious() throws IOException {
+        File path = new File(folder.getRoot(), "high_score.bin");
+        try (HighScoreFile file = HighScoreFile.open(path)) {
+            file.write(10);
+            file.write(25);
+        }
+        // The second write (sequence 2) went to slot 0; flip a bit in its score
+        try (RandomAccessFile raw = new RandomAccessFile(path, "rw")) {
+            raw.seek(12);
+            int b = raw.read();
+            raw.seek(12);
+            raw.write(b ^ 1);
+        }
+
+        try (HighScoreFile file = HighScoreFile.open(path)) {
+            assertEquals(10, file.getHighScore());
+            file.write(30);
+        }
+        try (HighScoreFile file = HighScoreFile.open(path)) {
+            assertEquals(30, file.getHighScore());
+        }
+    }
+
+    /**
+     * Test that a file of garbage is treated as empty.
+     */
+    @Test
+    public void testGarbageFileHasNoRecord() throws IOException {
+        File path = folder.newFile("garbage.bin");
+        try (RandomAccessFile raw = new RandomAccessFile(path, "rw")) {
+            for (int i = 0; i < 64; i++) {
+                raw.write(i * 37);
+            }
+        }
+
+        try (HighScoreFile file = HighScoreFile.open(path)) {
+            assertFalse(file.hasRecord());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.whackamole.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.model.LeaderboardEntry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class LeaderboardTest {
+
+    private static final long CLASSIC = 1;
+    private static final long FRENZY = 2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Runnable> backgroundTasks = new ArrayList<>();
+    private final Executor background = backgroundTasks::add;
+    private File logPath;
+
+    @Before
+    public void setup() {
+        logPath = new File(folder.getRoot(), "leaderboard.log");
+    }
+
+    /**
+     * Test that each config keeps only its best entries, best first.
+     * <p>
+     * Strategy:
+     * - Record five classic sessions and one frenzy session with capacity 3.
+     * - Verify the classic board holds the three best scores in order, with the earlier of two
+     *   equal scores first, and the frenzy board is separate.
+     */
+    @Test
+    public void testTopEntriesPerConfig() throws IOException {
+        try (Leaderboard leaderboard = Leaderboard.open(logPath, 3, background)) {
+            assertTrue(leaderboard.record(new LeaderboardEntry(10, CLASSIC, 5000, 100)));
+            assertTrue(leaderboard.record(new LeaderboardEntry(30, CLASSIC, 5000, 200)));
+            assertTrue(leaderboard.record(new LeaderboardEntry(20, CLASSIC, 5000, 300)));
+            assertTrue(leaderboard.record(new LeaderboardEntry(20, CLASSIC, 5000, 250)));
+            assertFalse(leaderboard.record(new LeaderboardEntry(5, CLASSIC, 5000, 400)));
+            assertTrue(leaderboard.record(new LeaderboardEntry(7, FRENZY, 5000, 500)));
+
+            assertEquals(List.of(30, 20, 20), scores(leaderboard.top(CLASSIC)));
+            assertEquals(250, leaderboard.top(CLASSIC).get(1).getTimestampMs());
+            assertEquals(List.of(7), scores(leaderboard.top(FRENZY)));
+            assertTrue(leaderboard.top(3).isEmpty());
+        }
+    }
+
+    /**
+     * Test that the index is rebuilt on open, both from a checkpoint plus the log after it and
+     * from the log alone when the checkpoint is damaged.
+     */
+    @Test
+    public void testReopenRebuildsIndex() throws IOException {
+        try (Leaderboard leaderboard = Leaderboard.open(logPath, 3, background)) {
+            leaderboard.record(new LeaderboardEntry(10, CLASSIC, 5000, 100));
+            leaderboard.record(new LeaderboardEntry(30, CLASSIC, 5000, 200));
+        }
+        // Not closed, as if the process died, so the checkpoint does not cover the new record
+        Leaderboard abandoned = Leaderboard.open(logPath, 3, background);
+        assertEquals(List.of(30, 10), scores(abandoned.top(CLASSIC)));
+        abandoned.record(new LeaderboardEntry(20, CLASSIC, 5000, 300));
+        abandoned.sync();
+
+        try (Leaderboard leaderboard = Leaderboard.open(logPath, 3, background)) {
+            assertEquals(List.of(30, 20, 10), scores(leaderboard.top(CLASSIC)));
+        }
+
+        corruptLastByte(new File(logPath.getPath() + ".ckpt"));
+        try (Leaderboard leaderboard = Leaderboard.open(logPath, 3, background)) {
+            assertEquals(List.of(30, 20, 10), scores(leaderboard.top(CLASSIC)));
+        }
+        abandoned.close();
+    }
+
+    /**
+     * Test that a record torn by a crash is cut off, keeping the records before it.
+     */
+    @Test
+    public void testTornRecordIsDropped() throws IOException {
+        try (Leaderboard leaderboard = Leaderboard.open(logPath, 3, background)) {
+            leaderboard.record(new LeaderboardEntry(10, CLASSIC, 5000, 100));
+            leaderboard.record(new LeaderboardEntry(30, CLASSIC, 5000, 200));
+        }
+        new File(logPath.getPath() + ".ckpt").delete();
+        long intactLength = logPath.length();
+        corruptLastByte(logPath);
+        try (RandomAccessFile raw = new RandomAccessFile(logPath, "rw")) {
+            raw.setLength(intactLength + 10);
+        }
+
+        try (Leaderboard leaderboard = Leaderboard.open(logPath, 3, background)) {
+            assertEquals(List.of(10), scores(leaderboard.top(CLASSIC)));
+            leaderboard.record(new LeaderboardEntry(40, CLASSIC, 5000, 300));
+        }
+        try (Leaderboard leaderboard = Leaderboard.open(logPath, 3, background)) {
+            assertEquals(List.of(40, 10), scores(leaderboard.top(CLASSIC)));
+        }
+    }
+
+    /**
+     * Test that the log is compacted in the background once it outgrows the index.
+     * <p>
+     * Strategy:
+     * - Record enough sessions to trigger a compaction, and run the background work.
+     * - Verify the log shrank to the indexed entries, and the board survives reopening.
+     */
+    @Test
+    public void testLogIsCompactedInBackground() throws IOException {
+        try (Leaderboard leaderboard = Leaderboard.open(logPath, 3, background)) {
+            for (int i = 0; i < 2000; i++) {
+                leaderboard.record(new LeaderboardEntry(i % 500, i % 2 == 0 ? CLASSIC : FRENZY,
+                        5000, i));
+            }
+            long uncompactedLength = logPath.length();
+            while (!backgroundTasks.isEmpty()) {
+                backgroundTasks.remove(0).run();
+            }
+
+            assertTrue(logPath.length() < uncompactedLength / 10);
+            assertEquals(List.of(498, 498, 498), scores(leaderboard.top(CLASSIC)));
+            leaderboard.record(new LeaderboardEntry(1000, FRENZY, 5000, 5000));
+        }
+
+        try (Leaderboard leaderboard = Leaderboard.open(logPath, 3, background)) {
+            assertEquals(List.of(498, 498, 498), scores(leaderboard.top(CLASSIC)));
+            assertEquals(List.of(1000, 499, 499), scores(leaderboard.top(FRENZY)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testForeignFileIsRejected() throws IOException {
+        try (RandomAccessFile raw = new RandomAccessFile(logPath, "rw")) {
+            raw.write(new byte[64]);
+        }
+        Leaderboard.open(logPath, 3, background);
+    }
+
+    private static List<Integer> scores(List<LeaderboardEntry> entries) {
+        List<Integer> scores = new ArrayList<>();
+        for (LeaderboardEntry entry : entries) {
+            scores.add(entry.getScore());
+        }
+        return scores;
+    }
+
+    private static void corruptLastByte(File file) throws IOException {
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(raw.length() - 1);
+            int b = raw.read();
+            raw.seek(raw.length() - 1);
+            raw.write(b ^ 0xFF);
+        }
+    }
+}
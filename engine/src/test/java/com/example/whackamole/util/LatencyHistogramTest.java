@@ -0,0 +1,85 @@
+package com.example.whackamole.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    /**
+     * Test that small values are exact and percentiles follow the rank definition.
+     */
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);
+
+        assertEquals(51, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(25, histogram.getValueAtPercentile(50));
+        assertEquals(50, histogram.getValueAtPercentile(99));
+        assertEquals(50, histogram.getValueAtPercentile(100));
+        assertEquals(50, histogram.getMax());
+        assertEquals(25.0, histogram.getMean(), 1e-9);
+    }
+
+    /**
+     * Test that large values are read back within the histogram's precision, never below the
+     * value recorded.
+     * <p>
+     * Strategy:
+     * - Record values spread over many powers of two, including the largest long.
+     * - Verify each percentile is at least the exact value at that rank and at most 1/32 above it.
+     */
+    @Test
+    public void testLargeValuesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100L + (long) i * i * 997;
+            histogram.record(values[i]);
+        }
+        for (int p = 1; p <= 100; p++) {
+            long exact = values[(int) Math.ceil(p / 100.0 * values.length) - 1];
+            long read = histogram.getValueAtPercentile(p);
+            assertTrue(p + ": " + read + " < " + exact, read >= exact);
+            assertTrue(p + ": " + read + " > " + exact, read <= exact + exact / 32);
+        }
+
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    /**
+     * Test that adding histograms gives the same result as recording everything in one.
+     */
+    @Test
+    public void testAddMergesCounts() {
+        LatencyHistogram even = new LatencyHistogram();
+        LatencyHistogram odd = new LatencyHistogram();
+        LatencyHistogram all = new LatencyHistogram();
+        for (int i = 0; i < 10_000; i += 7) {
+            (i % 2 == 0 ? even : odd).record(i);
+            all.record(i);
+        }
+
+        LatencyHistogram merged = even.copy();
+        merged.add(odd);
+        assertEquals(all.getCount(), merged.getCount());
+        assertEquals(all.getMax(), merged.getMax());
+        for (int p = 0; p <= 100; p += 5) {
+            assertEquals(all.getValueAtPercentile(p), merged.getValueAtPercentile(p));
+        }
+        assertEquals(all.getCount(), even.getCount() + odd.getCount());
+
+        merged.reset();
+        assertEquals(0, merged.getCount());
+        assertEquals(0, merged.getValueAtPercentile(99));
+        assertThrows(IllegalArgumentException.class, () -> merged.getValueAtPercentile(101));
+    }
+}
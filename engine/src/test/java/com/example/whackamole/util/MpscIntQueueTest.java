@@ -0,0 +1,80 @@
+package com.example.whackamole.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+public class MpscIntQueueTest {
+
+    /**
+     * Test FIFO order, the capacity bound and wrap-around.
+     */
+    @Test
+    public void testFifoAndCapacity() {
+        MpscIntQueue queue = new MpscIntQueue(4);
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(queue.offer(lap * 10 + i));
+            }
+            assertFalse(queue.offer(99));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(lap * 10 + i, queue.poll());
+            }
+            assertEquals(MpscIntQueue.EMPTY, queue.poll());
+        }
+    }
+
+    /**
+     * Test that values from concurrent producers all arrive exactly once, in per-producer order.
+     * <p>
+     * Strategy:
+     * - Start several producers, each offering an increasing sequence tagged with its ID.
+     * - Consume on the test thread and verify each producer's values arrive in order.
+     * - Verify the total count.
+     */
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscIntQueue queue = new MpscIntQueue(64);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!queue.offer(i * producers + id)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        start.countDown();
+
+        int[] nextExpected = new int[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            int value = queue.poll();
+            if (value == MpscIntQueue.EMPTY) {
+                Thread.yield();
+                continue;
+            }
+            int id = value % producers;
+            assertEquals(nextExpected[id], value / producers);
+            nextExpected[id]++;
+            received++;
+        }
+        assertEquals(MpscIntQueue.EMPTY, queue.poll());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.whackamole.util.random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AliasTableTest {
+
+    /**
+     * Test that samples follow the weights.
+     * <p>
+     * Strategy:
+     * - Build a table with uneven weights, including a zero weight.
+     * - Draw many samples and verify each frequency is within 1% of its expected probability.
+     * - Verify the zero-weight index is never drawn.
+     */
+    @Test
+    public void testSamplesFollowWeights() {
+        double[] weights = {5, 3, 0, 1, 1};
+        AliasTable table = new AliasTable(weights);
+        XoroshiroRandomSource random = new XoroshiroRandomSource(11);
+        int draws = 1_000_000;
+        int[] counts = new int[weights.length];
+        for (int i = 0; i < draws; i++) {
+            counts[table.sample(random)]++;
+        }
+
+        assertEquals(0, counts[2]);
+        for (int i = 0; i < weights.length; i++) {
+            double expected = weights[i] / 10;
+            assertEquals(expected, counts[i] / (double) draws, 0.01);
+        }
+    }
+
+    /**
+     * Test that a large table stays in range and covers every index.
+     */
+    @Test
+    public void testLargeTableCoversEveryIndex() {
+        double[] weights = new double[1000];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 1 + i % 7;
+        }
+        AliasTable table = new AliasTable(weights);
+        XoroshiroRandomSource random = new XoroshiroRandomSource(3);
+        boolean[] seen = new boolean[weights.length];
+        for (int i = 0; i < 200_000; i++) {
+            seen[table.sample(random)] = true;
+        }
+
+        assertEquals(1000, table.size());
+        for (boolean s : seen) {
+            assertTrue(s);
+        }
+    }
+
+    /**
+     * Test that weights that are all zero are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsAllZeroWeights() {
+        new AliasTable(new double[]{0, 0});
+    }
+
+    /**
+     * Test that negative weights are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNegativeWeight() {
+        new AliasTable(new double[]{1, -1});
+    }
+}
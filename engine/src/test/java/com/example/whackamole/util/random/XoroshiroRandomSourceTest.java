@@ -0,0 +1,69 @@
+package com.example.whackamole.util.random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class XoroshiroRandomSourceTest {
+
+    /**
+     * Test that a seed fully determines the sequence, including after reseeding.
+     */
+    @Test
+    public void testSameSeedSameSequence() {
+        XoroshiroRandomSource first = new XoroshiroRandomSource(42);
+        XoroshiroRandomSource second = new XoroshiroRandomSource(7);
+        second.setSeed(42);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(first.nextLong(), second.nextLong());
+        }
+        assertNotEquals(new XoroshiroRandomSource(0).nextLong(),
+                new XoroshiroRandomSource(1).nextLong());
+    }
+
+    /**
+     * Test that bounded ints stay in range and are roughly uniform.
+     * <p>
+     * Strategy:
+     * - Draw many values for a small bound that is not a power of two.
+     * - Verify every value is in range and each bucket is within 5% of its expected count.
+     */
+    @Test
+    public void testNextIntIsBoundedAndUniform() {
+        XoroshiroRandomSource random = new XoroshiroRandomSource(2024);
+        int bound = 9;
+        int draws = 900_000;
+        int[] counts = new int[bound];
+        for (int i = 0; i < draws; i++) {
+            counts[random.nextInt(bound)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(Math.abs(count - draws / bound) < draws / bound / 20);
+        }
+        assertEquals(0, random.nextInt(1));
+    }
+
+    /**
+     * Test that doubles are in [0, 1).
+     */
+    @Test
+    public void testNextDoubleInUnitInterval() {
+        XoroshiroRandomSource random = new XoroshiroRandomSource(5);
+        for (int i = 0; i < 10_000; i++) {
+            double value = random.nextDouble();
+            assertTrue(value >= 0 && value < 1);
+        }
+    }
+
+    /**
+     * Test that a non-positive bound is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNextIntRejectsNonPositiveBound() {
+        new XoroshiroRandomSource(0).nextInt(0);
+    }
+}
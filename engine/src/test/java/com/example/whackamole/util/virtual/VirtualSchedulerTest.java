@@ -0,0 +1,206 @@
+package com.example.whackamole.util.virtual;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.util.TimerHandle;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class VirtualSchedulerTest {
+
+    private VirtualScheduler scheduler;
+    private List<String> log;
+
+    @Before
+    public void setup() {
+        scheduler = new VirtualScheduler();
+        log = new ArrayList<>();
+    }
+
+    private Runnable task(String name) {
+        return () -> log.add(name + "@" + scheduler.now());
+    }
+
+    /**
+     * Test that tasks run in deadline order, with ties broken by posting order.
+     */
+    @Test
+    public void testRunsInDeadlineThenPostingOrder() {
+        scheduler.postDelayed(task("c"), 300);
+        scheduler.postDelayed(task("a"), 100);
+        scheduler.postDelayed(task("b1"), 200);
+        scheduler.postDelayed(task("b2"), 200);
+
+        assertEquals(4, scheduler.advanceBy(1000));
+        assertEquals(List.of("a@100", "b1@200", "b2@200", "c@300"), log);
+        assertEquals(1000, scheduler.now());
+    }
+
+    /**
+     * Test that advancing only runs tasks that are due, including tasks posted along the way.
+     * <p>
+     * Strategy:
+     * - Post a task that re-posts itself every 100ms.
+     * - Advance by 350ms and verify it ran three times at the right times.
+     * - Verify exactly one task is left pending, due at 400ms.
+     */
+    @Test
+    public void testAdvanceRunsTasksPostedWhileAdvancing() {
+        Runnable[] repeating = new Runnable[1];
+        repeating[0] = () -> {
+            log.add("tick@" + scheduler.now());
+            scheduler.postDelayed(repeating[0], 100);
+        };
+        scheduler.postDelayed(repeating[0], 100);
+
+        assertEquals(3, scheduler.advanceBy(350));
+        assertEquals(List.of("tick@100", "tick@200", "tick@300"), log);
+        assertEquals(350, scheduler.now());
+        assertEquals(1, scheduler.pendingTasks());
+        assertEquals(400, scheduler.nextDeadline());
+    }
+
+    /**
+     * Test that removing callbacks cancels every pending post of that Runnable only.
+     */
+    @Test
+    public void testRemoveCallbacksCancelsOnlyThatRunnable() {
+        Runnable a = task("a");
+        scheduler.postDelayed(a, 100);
+        scheduler.postDelayed(task("b"), 150);
+        scheduler.postDelayed(a, 200);
+
+        scheduler.removeCallbacks(a);
+
+        assertEquals(1, scheduler.pendingTasks());
+        scheduler.advanceBy(1000);
+        assertEquals(List.of("b@150"), log);
+    }
+
+    /**
+     * Test that removing with a null token clears everything.
+     */
+    @Test
+    public void testRemoveCallbacksAndMessagesWithNullClearsAll() {
+        scheduler.postDelayed(task("a"), 100);
+        scheduler.postDelayed(task("b"), 200);
+
+        scheduler.removeCallbacksAndMessages(null);
+
+        assertEquals(0, scheduler.pendingTasks());
+        assertFalse(scheduler.runNext());
+        assertTrue(log.isEmpty());
+    }
+
+    /**
+     * Test that runNext jumps the clock to the next deadline.
+     */
+    @Test
+    public void testRunNextJumpsToDeadline() {
+        scheduler.postDelayed(task("a"), 500);
+
+        assertTrue(scheduler.runNext());
+        assertEquals(List.of("a@500"), log);
+        assertEquals(500, scheduler.now());
+    }
+
+    /**
+     * Test that tasks held up by a stall run late, in deadline order, at the stalled time.
+     */
+    @Test
+    public void testStalledTasksRunLate() {
+        scheduler.postDelayed(task("a"), 100);
+        scheduler.postDelayed(task("b"), 50);
+        scheduler.postDelayed(task("c"), 400);
+
+        scheduler.stallTo(250);
+        assertTrue(log.isEmpty());
+        assertEquals(250, scheduler.now());
+
+        assertEquals(2, scheduler.advanceTo(250));
+        assertEquals(List.of("b@250", "a@250"), log);
+        scheduler.advanceTo(500);
+        assertEquals("c@400", log.get(2));
+    }
+
+    /**
+     * Test ordering holds up under many interleaved posts and cancellations.
+     */
+    @Test
+    public void testManyTimersStayOrdered() {
+        List<Runnable> cancelled = new ArrayList<>();
+        long[] last = {-1};
+        for (int i = 0; i < 10_000; i++) {
+            long delay = (i * 7919L) % 5000;
+            Runnable r = () -> {
+                assertTrue(scheduler.now() >= last[0]);
+                last[0] = scheduler.now();
+            };
+            scheduler.postDelayed(r, delay);
+            if (i % 3 == 0) {
+                cancelled.add(r);
+            }
+        }
+        cancelled.forEach(scheduler::removeCallbacks);
+
+        assertEquals(10_000 - cancelled.size(), scheduler.advanceBy(5000));
+        assertEquals(0, scheduler.pendingTasks());
+    }
+
+    /**
+     * Test that the clock cannot move backwards.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdvanceToPastIsRejected() {
+        scheduler.advanceBy(100);
+        scheduler.advanceTo(50);
+    }
+
+    /**
+     * Test the timer handle semantics.
+     * <p>
+     * Strategy:
+     * - Arm a timer twice and verify it runs once, at the later time.
+     * - Verify cancel disarms it and a task can re-arm its own timer.
+     * - Verify removing all callbacks disarms it but leaves it reusable.
+     */
+    @Test
+    public void testTimerHandleSemantics() {
+        TimerHandle timer = scheduler.newTimer(task("t"));
+        timer.rescheduleAt(100);
+        timer.reschedule(300);
+        scheduler.advanceTo(1000);
+        assertEquals(List.of("t@300"), log);
+
+        timer.reschedule(50);
+        timer.cancel();
+        timer.cancel();
+        scheduler.advanceTo(2000);
+        assertEquals(1, log.size());
+
+        TimerHandle[] self = new TimerHandle[1];
+        self[0] = scheduler.newTimer(() -> {
+            log.add("r@" + scheduler.now());
+            if (log.size() < 3) {
+                self[0].reschedule(10);
+            }
+        });
+        self[0].reschedule(10);
+        scheduler.advanceTo(3000);
+        assertEquals(List.of("t@300", "r@2010", "r@2020"), log);
+
+        timer.reschedule(10);
+        scheduler.removeCallbacksAndMessages(null);
+        scheduler.advanceTo(4000);
+        assertEquals(3, log.size());
+        timer.reschedule(10);
+        scheduler.advanceTo(5000);
+        assertEquals("t@4010", log.get(3));
+    }
+}
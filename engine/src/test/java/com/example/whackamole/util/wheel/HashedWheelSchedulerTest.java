@@ -0,0 +1,146 @@
+package com.example.whackamole.util.wheel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.util.virtual.VirtualScheduler;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HashedWheelSchedulerTest {
+
+    private VirtualScheduler clock;
+    private HashedWheelScheduler wheel;
+    private final List<Long> runTimes = new ArrayList<>();
+    private final Runnable recordTime = () -> runTimes.add(clock.now());
+
+    @Before
+    public void setup() {
+        clock = new VirtualScheduler();
+        wheel = new HashedWheelScheduler(clock, 10, 8);
+    }
+
+    /**
+     * Test that tasks run on the first tick at or after their deadline, never early.
+     */
+    @Test
+    public void testTasksRunOnFirstTickAfterDeadline() {
+        wheel.postAtTime(recordTime, 25);
+        wheel.postAtTime(() -> runTimes.add(-clock.now()), 30);
+
+        clock.advanceTo(29);
+        assertTrue(runTimes.isEmpty());
+        clock.advanceTo(30);
+
+        assertEquals(List.of(30L, -30L), runTimes);
+    }
+
+    /**
+     * Test that many timers share a single callback on the backing scheduler.
+     * <p>
+     * Strategy:
+     * - Post a thousand tasks with distinct deadlines, several turns of the wheel apart.
+     * - Verify the backing scheduler only ever holds one pending task.
+     * - Verify every task ran, and the tick stops once the wheel is empty.
+     */
+    @Test
+    public void testManyTimersShareOneTick() {
+        int[] ran = new int[1];
+        for (int i = 0; i < 1000; i++) {
+            wheel.postDelayed(() -> ran[0]++, i * 7L);
+        }
+
+        assertEquals(1000, wheel.pendingTasks());
+        assertEquals(1, clock.pendingTasks());
+        clock.advanceTo(7000);
+
+        assertEquals(1000, ran[0]);
+        assertEquals(0, wheel.pendingTasks());
+        assertEquals(0, clock.pendingTasks());
+    }
+
+    /**
+     * Test that removed tasks do not run, and that removing the last task stops the tick.
+     */
+    @Test
+    public void testRemoveCallbacks() {
+        Runnable other = () -> runTimes.add(-1L);
+        wheel.postAtTime(recordTime, 50);
+        wheel.postAtTime(recordTime, 500);
+        wheel.postAtTime(other, 60);
+
+        wheel.removeCallbacks(recordTime);
+        clock.advanceTo(1000);
+        assertEquals(List.of(-1L), runTimes);
+
+        wheel.postAtTime(recordTime, 2000);
+        wheel.removeCallbacks(recordTime);
+        assertEquals(0, clock.pendingTasks());
+    }
+
+    /**
+     * Test that a task can cancel another task that expires on the same tick.
+     */
+    @Test
+    public void testTaskCanCancelTaskDueOnSameTick() {
+        Runnable cancelled = () -> runTimes.add(-1L);
+        wheel.postAtTime(() -> wheel.removeCallbacks(cancelled), 20);
+        wheel.postAtTime(cancelled, 20);
+
+        clock.advanceTo(100);
+
+        assertTrue(runTimes.isEmpty());
+    }
+
+    /**
+     * Test that a stalled tick runs everything that fell due while it was late.
+     */
+    @Test
+    public void testStalledTickCatchesUp() {
+        StallingScheduler stalling = new StallingScheduler();
+        HashedWheelScheduler stalledWheel = new HashedWheelScheduler(stalling, 10, 8);
+        int[] ran = new int[1];
+        for (int i = 1; i <= 50; i++) {
+            stalledWheel.postAtTime(() -> ran[0]++, i * 10L);
+        }
+        stalledWheel.postAtTime(() -> ran[0] += 100, 10_000);
+
+        stalling.advanceTo(600);
+
+        assertEquals(50, ran[0]);
+        assertEquals(1, stalledWheel.pendingTasks());
+    }
+
+    /**
+     * Test that removing all tasks only affects the wheel, not other users of the backing
+     * scheduler.
+     */
+    @Test
+    public void testRemoveAllLeavesBackingTasks() {
+        clock.postAtTime(recordTime, 40);
+        wheel.postAtTime(() -> runTimes.add(-1L), 30);
+
+        wheel.removeCallbacksAndMessages(null);
+        clock.advanceTo(100);
+
+        assertEquals(List.of(40L), runTimes);
+    }
+
+    /**
+     * A scheduler whose first callback runs 500ms late.
+     */
+    private static final class StallingScheduler extends VirtualScheduler {
+
+        private boolean stalled;
+
+        @Override
+        public void postAtTime(Runnable r, long uptimeMs) {
+            super.postAtTime(r, stalled ? uptimeMs : uptimeMs + 500);
+            stalled = true;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Drives simulated players against the engine and reports throughput and latency:
+// ./gradlew :loadgen:run --args="--sessions 10000 --threads 8 --format json"
+application {
+    mainClass.set("com.example.whackamole.loadgen.LoadGenerator")
+}
+
+dependencies {
+
+    implementation(project(":engine"))
+    testImplementation(libs.junit)
+}
+
+// Sweeps GameConfig grids with simulated players and reports score and game length distributions:
+// ./gradlew :loadgen:tuneConfig --args="--initial 1500,2000,2500 --misses 3,5 --games 1000000"
+tasks.register<JavaExec>("tuneConfig") {
+    description = "Plays simulated games across a grid of GameConfigs."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.whackamole.loadgen.ConfigTuner")
+}
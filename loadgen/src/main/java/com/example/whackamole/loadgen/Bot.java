@@ -0,0 +1,194 @@
+package com.example.whackamole.loadgen;
+
+import com.example.whackamole.engine.GameEngine;
+import com.example.whackamole.engine.SessionTrace;
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.model.GameState;
+import com.example.whackamole.model.Mole;
+import com.example.whackamole.util.RandomSource;
+import com.example.whackamole.util.Scheduler;
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+
+import java.util.List;
+
+/**
+ * A scripted player with its own engine.
+ * <p>
+ * When a mole it is not already aiming at appears, the bot aims at it and taps after a reaction
+ * time drawn from its {@link ReactionTime}. With probability {@code 1 - accuracy} the tap lands
+ * on a different mole. The mole may also have moved on by the time the tap lands, as it would for
+ * a slow player. When the game is over, the bot waits a moment and starts another, so the load
+ * stays constant for the whole run, unless it has played as many games as it was asked to. A bot
+ * can also be told to give up on a game that has gone on too long, so that even a player who
+ * outpaces the fastest spawns eventually finishes.
+ * <p>
+ * The wall-clock time of every tap ({@link GameEngine#hitMole(int)}) and every spawn (from the
+ * engine's {@link SessionTrace#onSpawn} to the state it publishes) is recorded in the bot's
+ * {@link LoadMetrics}. Like its engine, a bot must only be used on its scheduler's thread.
+ */
+final class Bot implements GameEngine.Listener, SessionTrace {
+
+    /**
+     * How long a bot looks at the final score before starting another game.
+     */
+    static final long RESTART_DELAY_MS = 1000;
+
+    private final GameConfig gameConfig;
+    private final Scheduler scheduler;
+    private final ReactionTime reactionTime;
+    private final double accuracy;
+    private final RandomSource random;
+    private final LoadMetrics metrics;
+    private final long giveUpAfterMs;
+    private final GameEngine engine;
+    private final Runnable tap = this::tap;
+    private final Runnable restart = this::restart;
+    private long gamesLeft;
+    private int target = -1;
+    private long spawnStartNanos;
+
+    /**
+     * Creates a bot and starts its first game.
+     *
+     * @param gameConfig   the rules to play by
+     * @param scheduler    the clock the game runs on
+     * @param reactionTime how long the bot takes to tap
+     * @param accuracy     the probability that a tap lands on the mole aimed at
+     * @param seed         seeds both the game and the bot
+     * @param metrics      where to count transitions; shared by the bots on one thread
+     */
+    Bot(GameConfig gameConfig, Scheduler scheduler, ReactionTime reactionTime, double accuracy,
+        long seed, LoadMetrics metrics) {
+        this(gameConfig, scheduler, reactionTime, accuracy, seed, metrics, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a bot that plays a limited number of games and starts the first.
+     *
+     * @param gameConfig    the rules to play by
+     * @param scheduler     the clock the game runs on
+     * @param reactionTime  how long the bot takes to tap
+     * @param accuracy      the probability that a tap lands on the mole aimed at
+     * @param seed          seeds both the game and the bot
+     * @param metrics       where to count transitions; shared by the bots on one thread
+     * @param gameLimit     how many games to play, or 0 to keep playing until stopped
+     * @param giveUpAfterMs how long into a game the bot stops tapping
+     */
+    Bot(GameConfig gameConfig, Scheduler scheduler, ReactionTime reactionTime, double accuracy,
+        long seed, LoadMetrics metrics, long gameLimit, long giveUpAfterMs) {
+        this.gameConfig = gameConfig;
+        this.scheduler = scheduler;
+        this.reactionTime = reactionTime;
+        this.accuracy = accuracy;
+        this.random = new XoroshiroRandomSource(XoroshiroRandomSource.mix(seed));
+        this.metrics = metrics;
+        this.giveUpAfterMs = giveUpAfterMs;
+        this.gamesLeft = gameLimit > 0 ? gameLimit - 1 : Long.MAX_VALUE;
+        this.engine = new GameEngine.Builder(gameConfig, scheduler, this)
+                .seed(seed)
+                .trace(this)
+                .build();
+        metrics.gamesStarted++;
+        engine.start();
+        aim(engine.getState());
+    }
+
+    /**
+     * Stops the bot's game and pending tap.
+     */
+    void stop() {
+        engine.stop();
+        scheduler.removeCallbacks(tap);
+        scheduler.removeCallbacks(restart);
+    }
+
+    @Override
+    public void onStateChanged(GameState state) {
+        metrics.transitions++;
+        if (spawnStartNanos != 0) {
+            metrics.spawnNanos.record(System.nanoTime() - spawnStartNanos);
+            spawnStartNanos = 0;
+        }
+        if (state.isGameOver()) {
+            metrics.gamesFinished++;
+            metrics.totalScore += state.getScore();
+            metrics.scores.record(state.getScore());
+            metrics.gameLengthMs.record(scheduler.uptimeMillis() - engine.getSessionStartTime());
+            scheduler.removeCallbacks(tap);
+            target = -1;
+            if (gamesLeft > 0) {
+                gamesLeft--;
+                scheduler.postDelayed(restart, RESTART_DELAY_MS);
+            }
+            return;
+        }
+        aim(state);
+    }
+
+    @Override
+    public void onSessionStarted(GameConfig gameConfig, long seed, long timeMs) {
+    }
+
+    @Override
+    public void onSpawn(long timeMs) {
+        spawnStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void onHit(int moleId, long timeMs) {
+    }
+
+    @Override
+    public void onExpiry(long timeMs) {
+    }
+
+    @Override
+    public void onSessionEnded(int score, long timeMs) {
+    }
+
+    /**
+     * Aims at a visible mole, unless the bot is still aiming at one.
+     */
+    private void aim(GameState state) {
+        List<Mole> moles = state.getMoles().getMoles();
+        if (target >= 0 && moles.get(target).isVisible()) {
+            return;
+        }
+        target = -1;
+        if (scheduler.uptimeMillis() - engine.getSessionStartTime() >= giveUpAfterMs) {
+            return;
+        }
+        for (int i = 0; i < moles.size(); i++) {
+            if (moles.get(i).isVisible()) {
+                target = i;
+                scheduler.removeCallbacks(tap);
+                scheduler.postDelayed(tap, reactionTime.sampleMs(random));
+                return;
+            }
+        }
+    }
+
+    private void tap() {
+        int moleId = target;
+        target = -1;
+        int numMoles = gameConfig.getNumMoles();
+        if (numMoles > 1 && random.nextDouble() >= accuracy) {
+            moleId = (moleId + 1 + random.nextInt(numMoles - 1)) % numMoles;
+        }
+
+        long start = System.nanoTime();
+        engine.hitMole(moleId);
+        metrics.hitNanos.record(System.nanoTime() - start);
+        metrics.taps++;
+
+        // A tap that missed publishes nothing, so look for the next mole here
+        if (target < 0 && !engine.isGameOver()) {
+            aim(engine.getState());
+        }
+    }
+
+    private void restart() {
+        metrics.gamesStarted++;
+        engine.resetGame(random.nextLong());
+    }
+}
@@ -0,0 +1,427 @@
+package com.example.whackamole.loadgen;
+
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.util.LatencyHistogram;
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+import com.example.whackamole.util.virtual.VirtualScheduler;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Sweeps a grid of {@link GameConfig}s and plays a large number of simulated games at each point,
+ * so designers can see how the rules shape scores and game lengths before picking values like
+ * {@link GameConfig#DEFAULT}.
+ * <p>
+ * Games are played by {@link Bot}s on the real engine, on virtual time, so results follow the
+ * rules exactly and run as fast as the CPU allows. Each point's games are split in halves on a
+ * {@link ForkJoinPool} until a piece is small enough for one thread to play with one
+ * {@link VirtualScheduler}; every point is submitted at once, so idle workers steal from whichever
+ * point still has work and all cores stay busy until the sweep ends.
+ * <p>
+ * Scores and game lengths are summarized in {@link LatencyHistogram}s, which have a fixed size and
+ * merge by adding counts. Each piece fills its own pair, and pairs merge on the way back up, so
+ * memory depends on the number of threads and points, never on the number of games. A sweep is
+ * deterministic: the same seed gives the same distributions, whatever the number of threads.
+ */
+public final class ConfigTuner {
+
+    /**
+     * Games played by one piece of work: the bots of one virtual clock, one after another.
+     */
+    private static final int GAMES_PER_LEAF = 2048;
+    private static final int BOTS_PER_LEAF = 64;
+    private static final double[] PERCENTILES = {10, 50, 90, 99};
+
+    private final int threads;
+    private final ReactionTime reactionTime;
+    private final double accuracy;
+    private final long giveUpAfterMs;
+    private final long seed;
+
+    /**
+     * Constructor
+     *
+     * @param threads       the number of worker threads
+     * @param reactionTime  how long the modeled players take to tap
+     * @param accuracy      the probability that a player's tap lands on the mole aimed at
+     * @param giveUpAfterMs how long into a game a player stops tapping, so games that the player
+     *                      would never lose still end
+     * @param seed          seeds every game and player
+     * @throws IllegalArgumentException if threads or giveUpAfterMs is not positive, or accuracy
+     *                                  is not a probability
+     */
+    public ConfigTuner(int threads, ReactionTime reactionTime, double accuracy,
+                       long giveUpAfterMs, long seed) {
+        if (threads < 1 || giveUpAfterMs < 1) {
+            throw new IllegalArgumentException("threads and give-up time must be greater than 0");
+        }
+        if (!(accuracy >= 0 && accuracy <= 1)) {
+            throw new IllegalArgumentException("accuracy must be between 0 and 1");
+        }
+        this.threads = threads;
+        this.reactionTime = reactionTime;
+        this.accuracy = accuracy;
+        this.giveUpAfterMs = giveUpAfterMs;
+        this.seed = seed;
+    }
+
+    /**
+     * Builds every combination of the given values, skipping those whose minimum interval is
+     * above their initial one.
+     *
+     * @return the grid, varying the last parameter fastest
+     */
+    public static List<GameConfig> grid(long[] initialIntervals, long[] minIntervals,
+                                        long[] intervalDecrements, int[] maxMisses) {
+        List<GameConfig> grid = new ArrayList<>();
+        for (long initialInterval : initialIntervals) {
+            for (long minInterval : minIntervals) {
+                if (minInterval > initialInterval) {
+                    continue;
+                }
+                for (long intervalDecrement : intervalDecrements) {
+                    for (int misses : maxMisses) {
+                        grid.add(new GameConfig(misses, GameConfig.DEFAULT.getNumMoles(),
+                                initialInterval, minInterval, intervalDecrement));
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Plays the given number of games at every point of the grid.
+     *
+     * @param grid  the configs to try
+     * @param games the games to play per config
+     * @return one result per config, in the grid's order
+     * @throws IllegalArgumentException if games is not positive
+     */
+    public List<PointResult> sweep(List<GameConfig> grid, long games) {
+        if (games < 1) {
+            throw new IllegalArgumentException("games must be greater than 0");
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Games> tasks = new ArrayList<>();
+            for (int i = 0; i < grid.size(); i++) {
+                tasks.add(new Games(grid.get(i), XoroshiroRandomSource.mix(seed + i), 0, games));
+            }
+            pool.invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                    return null;
+                }
+            });
+            List<PointResult> results = new ArrayList<>();
+            for (int i = 0; i < grid.size(); i++) {
+                results.add(new PointResult(grid.get(i), tasks.get(i).join()));
+            }
+            return Collections.unmodifiableList(results);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs a sweep and writes one row per config.
+     *
+     * @param args {@code [--initial MS,...] [--min MS,...] [--decrement MS,...]
+     *             [--misses N,...] [--games N] [--threads N] [--reaction SPEC] [--accuracy P]
+     *             [--give-up-ms N] [--seed N] [--format csv|json] [--output FILE]}
+     * @throws IOException if the results cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        GameConfig defaults = GameConfig.DEFAULT;
+        long[] initialIntervals = {defaults.getInitialInterval()};
+        long[] minIntervals = {defaults.getMinInterval()};
+        long[] decrements = {defaults.getIntervalDecrement()};
+        int[] maxMisses = {defaults.getMaxMisses()};
+        long games = 1_000_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        ReactionTime reactionTime = ReactionTime.logNormal(350, 0.3);
+        double accuracy = 0.9;
+        long giveUpAfterMs = 30 * 60_000;
+        long seed = 1;
+        String format = "csv";
+        String output = null;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--initial":
+                        initialIntervals = parseLongs(value);
+                        break;
+                    case "--min":
+                        minIntervals = parseLongs(value);
+                        break;
+                    case "--decrement":
+                        decrements = parseLongs(value);
+                        break;
+                    case "--misses":
+                        long[] misses = parseLongs(value);
+                        maxMisses = new int[misses.length];
+                        for (int m = 0; m < misses.length; m++) {
+                            maxMisses[m] = Math.toIntExact(misses[m]);
+                        }
+                        break;
+                    case "--games":
+                        games = Long.parseLong(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--reaction":
+                        reactionTime = ReactionTime.parse(value);
+                        break;
+                    case "--accuracy":
+                        accuracy = Double.parseDouble(value);
+                        break;
+                    case "--give-up-ms":
+                        giveUpAfterMs = Long.parseLong(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--format":
+                        format = value;
+                        break;
+                    case "--output":
+                        output = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option " + args[i]);
+                }
+            }
+            if (!format.equals("csv") && !format.equals("json")) {
+                throw new IllegalArgumentException("format must be csv or json");
+            }
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: ConfigTuner [--initial MS,...] [--min MS,...]"
+                    + " [--decrement MS,...] [--misses N,...] [--games N] [--threads N]"
+                    + " [--reaction SPEC] [--accuracy P] [--give-up-ms N] [--seed N]"
+                    + " [--format csv|json] [--output FILE]");
+            System.exit(2);
+            return;
+        }
+
+        List<GameConfig> grid = grid(initialIntervals, minIntervals, decrements, maxMisses);
+        long start = System.nanoTime();
+        List<PointResult> results = new ConfigTuner(threads, reactionTime, accuracy,
+                giveUpAfterMs, seed).sweep(grid, games);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf(Locale.ROOT, "%d configs, %d games in %.1f s (%.0f games/s) on %d"
+                + " threads%n", grid.size(), grid.size() * games, seconds,
+                grid.size() * games / seconds, threads);
+
+        try (Writer out = output == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : new FileWriter(output, StandardCharsets.UTF_8)) {
+            if (format.equals("json")) {
+                writeJson(results, out);
+            } else {
+                writeCsv(results, out);
+            }
+        }
+    }
+
+    /**
+     * Writes one CSV row per config, with a header row.
+     *
+     * @param results the sweep's results
+     * @param out     where to write
+     * @throws IOException if writing fails
+     */
+    public static void writeCsv(List<PointResult> results, Appendable out) throws IOException {
+        out.append("initial_ms,min_ms,decrement_ms,max_misses,games,mean_score");
+        for (double percentile : PERCENTILES) {
+            out.append(",score_p").append(label(percentile));
+        }
+        out.append(",mean_length_ms");
+        for (double percentile : PERCENTILES) {
+            out.append(",length_p").append(label(percentile)).append("_ms");
+        }
+        out.append('\n');
+        for (PointResult result : results) {
+            GameConfig config = result.getGameConfig();
+            out.append(String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%.2f",
+                    config.getInitialInterval(), config.getMinInterval(),
+                    config.getIntervalDecrement(), config.getMaxMisses(), result.getGames(),
+                    result.getScores().getMean()));
+            for (double percentile : PERCENTILES) {
+                out.append(',').append(String.valueOf(
+                        result.getScores().getValueAtPercentile(percentile)));
+            }
+            out.append(String.format(Locale.ROOT, ",%.0f", result.getGameLengths().getMean()));
+            for (double percentile : PERCENTILES) {
+                out.append(',').append(String.valueOf(
+                        result.getGameLengths().getValueAtPercentile(percentile)));
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Writes the results as a JSON array with one object per config.
+     *
+     * @param results the sweep's results
+     * @param out     where to write
+     * @throws IOException if writing fails
+     */
+    public static void writeJson(List<PointResult> results, Appendable out) throws IOException {
+        out.append('[');
+        String separator = "\n";
+        for (PointResult result : results) {
+            GameConfig config = result.getGameConfig();
+            out.append(separator).append(String.format(Locale.ROOT,
+                    "  {\"initial_ms\": %d, \"min_ms\": %d, \"decrement_ms\": %d,"
+                            + " \"max_misses\": %d, \"games\": %d, \"score\": ",
+                    config.getInitialInterval(), config.getMinInterval(),
+                    config.getIntervalDecrement(), config.getMaxMisses(), result.getGames()));
+            appendJson(result.getScores(), out);
+            out.append(", \"length_ms\": ");
+            appendJson(result.getGameLengths(), out);
+            out.append('}');
+            separator = ",\n";
+        }
+        out.append("\n]\n");
+    }
+
+    private static void appendJson(LatencyHistogram histogram, Appendable out)
+            throws IOException {
+        out.append(String.format(Locale.ROOT, "{\"mean\": %.2f", histogram.getMean()));
+        for (double percentile : PERCENTILES) {
+            out.append(", \"p").append(label(percentile)).append("\": ")
+                    .append(String.valueOf(histogram.getValueAtPercentile(percentile)));
+        }
+        out.append(", \"max\": ").append(String.valueOf(histogram.getMax())).append('}');
+    }
+
+    private static String label(double percentile) {
+        return String.valueOf((long) percentile);
+    }
+
+    private static long[] parseLongs(String list) {
+        String[] parts = list.split(",");
+        long[] values = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Long.parseLong(parts[i].trim());
+        }
+        return values;
+    }
+
+    /**
+     * The games played at one point of the grid.
+     */
+    public static final class PointResult {
+
+        private final GameConfig gameConfig;
+        private final LoadMetrics metrics;
+
+        PointResult(GameConfig gameConfig, LoadMetrics metrics) {
+            this.gameConfig = gameConfig;
+            this.metrics = metrics;
+        }
+
+        /**
+         * @return The config the games were played with.
+         */
+        public GameConfig getGameConfig() {
+            return gameConfig;
+        }
+
+        /**
+         * @return The number of games played.
+         */
+        public long getGames() {
+            return metrics.gamesFinished;
+        }
+
+        /**
+         * @return The distribution of final scores.
+         */
+        public LatencyHistogram getScores() {
+            return metrics.scores;
+        }
+
+        /**
+         * @return The distribution of game lengths, in milliseconds of game time.
+         */
+        public LatencyHistogram getGameLengths() {
+            return metrics.gameLengthMs;
+        }
+    }
+
+    /**
+     * Plays a range of one config's games, splitting it in halves while it is larger than a leaf.
+     * A leaf's seed depends only on the config's seed and the range, never on how work was
+     * stolen, which keeps sweeps deterministic. ForkJoinTask is Serializable, but tasks are never
+     * serialized.
+     */
+    @SuppressWarnings("serial")
+    private final class Games extends RecursiveTask<LoadMetrics> {
+
+        private final GameConfig gameConfig;
+        private final long pointSeed;
+        private final long from;
+        private final long to;
+
+        Games(GameConfig gameConfig, long pointSeed, long from, long to) {
+            this.gameConfig = gameConfig;
+            this.pointSeed = pointSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LoadMetrics compute() {
+            if (to - from > GAMES_PER_LEAF) {
+                long middle = from + (to - from) / 2;
+                Games left = new Games(gameConfig, pointSeed, from, middle);
+                left.fork();
+                LoadMetrics metrics = new Games(gameConfig, pointSeed, middle, to).compute();
+                metrics.add(left.join());
+                return metrics;
+            }
+            return play();
+        }
+
+        /**
+         * Shares the range's games out between a few bots on one virtual clock and plays them
+         * all.
+         */
+        private LoadMetrics play() {
+            VirtualScheduler scheduler = new VirtualScheduler();
+            LoadMetrics metrics = new LoadMetrics();
+            long games = to - from;
+            int bots = (int) Math.min(BOTS_PER_LEAF, games);
+            for (int b = 0; b < bots; b++) {
+                long share = games / bots + (b < games % bots ? 1 : 0);
+                new Bot(gameConfig, scheduler, reactionTime, accuracy,
+                        XoroshiroRandomSource.mix(pointSeed + from + b), metrics, share,
+                        giveUpAfterMs);
+            }
+            while (scheduler.runNext()) {
+                // Every bot stops scheduling once it has played its share
+            }
+            return metrics;
+        }
+    }
+}
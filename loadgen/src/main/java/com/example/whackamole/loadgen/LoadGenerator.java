@@ -0,0 +1,283 @@
+package com.example.whackamole.loadgen;
+
+import com.example.whackamole.model.GameConfig;
+import com.example.whackamole.server.EventLoop;
+import com.example.whackamole.util.virtual.VirtualScheduler;
+import com.example.whackamole.util.wheel.HashedWheelScheduler;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drives many simulated players against the game engine and reports how fast the engine keeps
+ * up with them.
+ * <p>
+ * Each session is a {@link Bot} with its own engine. Sessions are split into shards, and each
+ * shard only ever runs on one thread, so nothing is shared between threads but the final counts.
+ * Two clocks are supported:
+ * <ul>
+ *   <li>{@link TimeMode#VIRTUAL}: each shard runs on its own {@link VirtualScheduler} as fast as
+ *       the CPU allows, and shards are spread over a fixed thread pool. How much faster than real
+ *       time the sessions ran gives the number of real-time sessions one core can sustain.</li>
+ *   <li>{@link TimeMode#REAL}: each thread is an {@link EventLoop} whose sessions share one
+ *       {@link HashedWheelScheduler}, as in the game server, and the run lasts as long as it
+ *       simulates. Latencies then include waiting for the other sessions on the thread.</li>
+ * </ul>
+ * A virtual run is deterministic: the same seed gives the same games, whatever the number of
+ * threads. Only the measured latencies and throughput vary.
+ */
+public final class LoadGenerator {
+
+    /**
+     * The clock the sessions run on.
+     */
+    public enum TimeMode {
+        VIRTUAL,
+        REAL
+    }
+
+    private static final int SHARD_SIZE = 256;
+    private static final long WHEEL_TICK_MS = 5;
+    private static final int WHEEL_SIZE = 1024;
+
+    private final GameConfig gameConfig;
+    private final int sessions;
+    private final int threads;
+    private final TimeMode timeMode;
+    private final long durationMs;
+    private final ReactionTime reactionTime;
+    private final double accuracy;
+    private final long seed;
+
+    /**
+     * Constructor
+     *
+     * @param gameConfig   the rules every session plays by
+     * @param sessions     the number of simultaneous sessions
+     * @param threads      the number of threads to run them on
+     * @param timeMode     whether to run on virtual or real time
+     * @param durationMs   how long each session plays for, on its clock
+     * @param reactionTime how long the bots take to tap
+     * @param accuracy     the probability that a bot's tap lands on the mole it aimed at
+     * @param seed         seeds every game and bot
+     * @throws IllegalArgumentException if a count or the duration is not positive, or accuracy is
+     *                                  not a probability
+     */
+    public LoadGenerator(GameConfig gameConfig, int sessions, int threads, TimeMode timeMode,
+                         long durationMs, ReactionTime reactionTime, double accuracy, long seed) {
+        if (sessions < 1 || threads < 1 || durationMs < 1) {
+            throw new IllegalArgumentException(
+                    "sessions, threads and duration must be greater than 0");
+        }
+        if (!(accuracy >= 0 && accuracy <= 1)) {
+            throw new IllegalArgumentException("accuracy must be between 0 and 1");
+        }
+        this.gameConfig = gameConfig;
+        this.sessions = sessions;
+        this.threads = threads;
+        this.timeMode = timeMode;
+        this.durationMs = durationMs;
+        this.reactionTime = reactionTime;
+        this.accuracy = accuracy;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs every session for the configured duration.
+     *
+     * @return the counts and latencies of the run
+     * @throws InterruptedException if interrupted while waiting for the sessions
+     */
+    public LoadReport run() throws InterruptedException {
+        long start = System.nanoTime();
+        LoadMetrics metrics = timeMode == TimeMode.VIRTUAL ? runVirtual() : runReal();
+        long wallNanos = System.nanoTime() - start;
+        return new LoadReport(timeMode, sessions, threads, durationMs, wallNanos, metrics);
+    }
+
+    /**
+     * Runs a load and writes its report.
+     *
+     * @param args {@code [--sessions N] [--threads N] [--time virtual|real] [--duration-ms N]
+     *             [--reaction fixed:MS|uniform:MIN:MAX|lognormal:MEDIAN:SIGMA]
+     *             [--accuracy P] [--seed N] [--format csv|json] [--output FILE]}
+     * @throws IOException          if the report cannot be written
+     * @throws InterruptedException if interrupted while running
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        TimeMode timeMode = TimeMode.VIRTUAL;
+        long durationMs = 60_000;
+        ReactionTime reactionTime = ReactionTime.logNormal(350, 0.3);
+        double accuracy = 0.9;
+        long seed = 1;
+        String format = "csv";
+        String output = null;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--sessions":
+                        sessions = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--time":
+                        timeMode = TimeMode.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--duration-ms":
+                        durationMs = Long.parseLong(value);
+                        break;
+                    case "--reaction":
+                        reactionTime = ReactionTime.parse(value);
+                        break;
+                    case "--accuracy":
+                        accuracy = Double.parseDouble(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--format":
+                        format = value;
+                        break;
+                    case "--output":
+                        output = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option " + args[i]);
+                }
+            }
+            if (!format.equals("csv") && !format.equals("json")) {
+                throw new IllegalArgumentException("format must be csv or json");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: LoadGenerator [--sessions N] [--threads N]"
+                    + " [--time virtual|real] [--duration-ms N] [--reaction SPEC]"
+                    + " [--accuracy P] [--seed N] [--format csv|json] [--output FILE]");
+            System.exit(2);
+            return;
+        }
+
+        LoadReport report = new LoadGenerator(GameConfig.DEFAULT, sessions, threads, timeMode,
+                durationMs, reactionTime, accuracy, seed).run();
+        try (Writer out = output == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : new FileWriter(output, StandardCharsets.UTF_8)) {
+            if (format.equals("json")) {
+                report.writeJson(out);
+            } else {
+                report.writeCsv(out);
+            }
+        }
+    }
+
+    /**
+     * Runs fixed shards of sessions on a thread pool, each shard on its own virtual clock.
+     */
+    private LoadMetrics runVirtual() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<LoadMetrics>> shards = new ArrayList<>();
+            for (int from = 0; from < sessions; from += SHARD_SIZE) {
+                int first = from;
+                int last = Math.min(sessions, from + SHARD_SIZE);
+                shards.add(pool.submit(() -> runVirtualShard(first, last)));
+            }
+            LoadMetrics total = new LoadMetrics();
+            for (Future<LoadMetrics> shard : shards) {
+                total.add(shard.get());
+            }
+            return total;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("a shard failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private LoadMetrics runVirtualShard(int first, int last) {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        LoadMetrics metrics = new LoadMetrics();
+        List<Bot> bots = new ArrayList<>(last - first);
+        for (int i = first; i < last; i++) {
+            bots.add(new Bot(gameConfig, scheduler, reactionTime, accuracy, seed + i, metrics));
+        }
+        scheduler.advanceTo(durationMs);
+        for (Bot bot : bots) {
+            bot.stop();
+        }
+        return metrics;
+    }
+
+    /**
+     * Runs the sessions on event loops for the configured time, dealing them out in turn.
+     */
+    private LoadMetrics runReal() throws InterruptedException {
+        List<EventLoop> loops = new ArrayList<>();
+        List<List<Bot>> bots = new ArrayList<>();
+        List<LoadMetrics> metrics = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                EventLoop loop = new EventLoop("loadgen-loop-" + t);
+                loops.add(loop);
+                bots.add(new ArrayList<>());
+                metrics.add(new LoadMetrics());
+            }
+            for (int t = 0; t < threads; t++) {
+                EventLoop loop = loops.get(t);
+                List<Bot> loopBots = bots.get(t);
+                LoadMetrics loopMetrics = metrics.get(t);
+                int first = t;
+                loop.execute(() -> {
+                    HashedWheelScheduler wheel =
+                            new HashedWheelScheduler(loop, WHEEL_TICK_MS, WHEEL_SIZE);
+                    for (int i = first; i < sessions; i += threads) {
+                        loopBots.add(new Bot(gameConfig, wheel, reactionTime, accuracy, seed + i,
+                                loopMetrics));
+                    }
+                });
+            }
+            Thread.sleep(durationMs);
+
+            LoadMetrics total = new LoadMetrics();
+            for (int t = 0; t < threads; t++) {
+                List<Bot> loopBots = bots.get(t);
+                LoadMetrics loopMetrics = metrics.get(t);
+                CompletableFuture<LoadMetrics> stopped = new CompletableFuture<>();
+                loops.get(t).execute(() -> {
+                    for (Bot bot : loopBots) {
+                        bot.stop();
+                    }
+                    stopped.complete(loopMetrics);
+                });
+                total.add(stopped.get(10, TimeUnit.SECONDS));
+            }
+            return total;
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("an event loop did not stop", e);
+        } finally {
+            for (EventLoop loop : loops) {
+                loop.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.whackamole.loadgen;
+
+import com.example.whackamole.util.LatencyHistogram;
+
+/**
+ * Counters for the bots sharing one thread. Shards are merged with {@link #add} once they are
+ * done, so counting needs no synchronization.
+ */
+final class LoadMetrics {
+
+    final LatencyHistogram hitNanos = new LatencyHistogram();
+    final LatencyHistogram spawnNanos = new LatencyHistogram();
+    final LatencyHistogram scores = new LatencyHistogram();
+    final LatencyHistogram gameLengthMs = new LatencyHistogram();
+    long transitions;
+    long taps;
+    long gamesStarted;
+    long gamesFinished;
+    long totalScore;
+
+    void add(LoadMetrics other) {
+        hitNanos.add(other.hitNanos);
+        spawnNanos.add(other.spawnNanos);
+        scores.add(other.scores);
+        gameLengthMs.add(other.gameLengthMs);
+        transitions += other.transitions;
+        taps += other.taps;
+        gamesStarted += other.gamesStarted;
+        gamesFinished += other.gamesFinished;
+        totalScore += other.totalScore;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.whackamole.loadgen;
+
+import com.example.whackamole.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The outcome of a {@link LoadGenerator} run: what was run, how much work was done, and the
+ * distribution of transition latencies, in nanoseconds of wall-clock time.
+ * <p>
+ * Reports can be written as CSV, one {@code section,name,value} row per figure, or as one JSON
+ * object with the same sections. Histograms are summarized HDR-style by their count, mean, a
+ * ladder of percentiles and their maximum.
+ */
+public final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final LoadGenerator.TimeMode timeMode;
+    private final int sessions;
+    private final int threads;
+    private final long durationMs;
+    private final long wallNanos;
+    private final LoadMetrics metrics;
+
+    LoadReport(LoadGenerator.TimeMode timeMode, int sessions, int threads, long durationMs,
+               long wallNanos, LoadMetrics metrics) {
+        this.timeMode = timeMode;
+        this.sessions = sessions;
+        this.threads = threads;
+        this.durationMs = durationMs;
+        this.wallNanos = wallNanos;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return The number of state transitions (spawns, scoring taps, expiries and new games).
+     */
+    public long getTransitions() {
+        return metrics.transitions;
+    }
+
+    /**
+     * @return The number of taps, whether or not they scored.
+     */
+    public long getTaps() {
+        return metrics.taps;
+    }
+
+    /**
+     * @return The number of games played to the end.
+     */
+    public long getGamesFinished() {
+        return metrics.gamesFinished;
+    }
+
+    /**
+     * @return The mean score of the games played to the end, or 0 if none was.
+     */
+    public double getMeanScore() {
+        return metrics.gamesFinished == 0 ? 0 : (double) metrics.totalScore / metrics.gamesFinished;
+    }
+
+    /**
+     * @return The wall-clock time the run took, in nanoseconds.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return Transitions per second of wall-clock time.
+     */
+    public double getTransitionsPerSecond() {
+        return wallNanos == 0 ? 0 : metrics.transitions * 1e9 / wallNanos;
+    }
+
+    /**
+     * Returns how many sessions one core sustains in real time. For a virtual run this is the
+     * session time simulated per second of each thread's time, so it is the capacity of the game
+     * logic alone. For a real-time run it is simply the sessions hosted per thread; check the
+     * latencies to see whether the threads kept up.
+     *
+     * @return real-time sessions per core
+     */
+    public double getSessionsPerCore() {
+        if (timeMode == LoadGenerator.TimeMode.REAL) {
+            return (double) sessions / threads;
+        }
+        return wallNanos == 0 ? 0 : sessions * (durationMs * 1e6 / wallNanos) / threads;
+    }
+
+    /**
+     * @return How long each {@code hitMole} call took, in nanoseconds.
+     */
+    public LatencyHistogram getHitLatency() {
+        return metrics.hitNanos;
+    }
+
+    /**
+     * @return How long each spawn took, from the spawn timer firing to the new state being
+     * published, in nanoseconds.
+     */
+    public LatencyHistogram getSpawnLatency() {
+        return metrics.spawnNanos;
+    }
+
+    /**
+     * Writes the report as CSV with a header row.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("section,name,value\n");
+        for (Map.Entry<String, Map<String, Object>> section : sections().entrySet()) {
+            for (Map.Entry<String, Object> figure : section.getValue().entrySet()) {
+                out.append(section.getKey()).append(',').append(figure.getKey()).append(',')
+                        .append(format(figure.getValue())).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes the report as a single JSON object, one member per section.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Appendable out) throws IOException {
+        out.append("{");
+        String sectionSeparator = "\n";
+        for (Map.Entry<String, Map<String, Object>> section : sections().entrySet()) {
+            out.append(sectionSeparator).append("  \"").append(section.getKey()).append("\": {");
+            String separator = "";
+            for (Map.Entry<String, Object> figure : section.getValue().entrySet()) {
+                Object value = figure.getValue();
+                out.append(separator).append('"').append(figure.getKey()).append("\": ");
+                if (value instanceof String) {
+                    out.append('"').append((String) value).append('"');
+                } else {
+                    out.append(format(value));
+                }
+                separator = ", ";
+            }
+            out.append("}");
+            sectionSeparator = ",\n";
+        }
+        out.append("\n}\n");
+    }
+
+    private Map<String, Map<String, Object>> sections() {
+        Map<String, Map<String, Object>> sections = new LinkedHashMap<>();
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("time", timeMode.name().toLowerCase(Locale.ROOT));
+        run.put("sessions", sessions);
+        run.put("threads", threads);
+        run.put("duration_ms", durationMs);
+        run.put("wall_ms", wallNanos / 1_000_000);
+        sections.put("run", run);
+
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        throughput.put("transitions", metrics.transitions);
+        throughput.put("taps", metrics.taps);
+        throughput.put("games_started", metrics.gamesStarted);
+        throughput.put("games_finished", metrics.gamesFinished);
+        throughput.put("mean_score", getMeanScore());
+        throughput.put("transitions_per_sec", getTransitionsPerSecond());
+        throughput.put("sessions_per_core", getSessionsPerCore());
+        sections.put("throughput", throughput);
+
+        sections.put("hit_ns", summarize(metrics.hitNanos));
+        sections.put("spawn_ns", summarize(metrics.spawnNanos));
+        return sections;
+    }
+
+    private static Map<String, Object> summarize(LatencyHistogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getCount());
+        summary.put("mean", histogram.getMean());
+        for (double percentile : PERCENTILES) {
+            String name = "p" + (percentile == Math.rint(percentile)
+                    ? String.valueOf((long) percentile)
+                    : String.valueOf(percentile).replace('.', '_'));
+            summary.put(name, histogram.getValueAtPercentile(percentile));
+        }
+        summary.put("max", histogram.getMax());
+        return summary;
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Double) {
+            return String.format(Locale.ROOT, "%.2f", (Double) value);
+        }
+        return String.valueOf(value);
+    }
+}
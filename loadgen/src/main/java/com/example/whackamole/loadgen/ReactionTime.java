@@ -0,0 +1,102 @@
+package com.example.whackamole.loadgen;
+
+import com.example.whackamole.util.RandomSource;
+
+/**
+ * How long a simulated player takes to tap a mole after it appears.
+ */
+public interface ReactionTime {
+
+    /**
+     * @param random the player's random source
+     * @return A reaction time in milliseconds; never negative.
+     */
+    long sampleMs(RandomSource random);
+
+    /**
+     * @param ms the reaction time
+     * @return A player who always takes exactly the given time.
+     * @throws IllegalArgumentException if ms is negative
+     */
+    static ReactionTime fixed(long ms) {
+        if (ms < 0) {
+            throw new IllegalArgumentException("reaction time must not be negative");
+        }
+        return random -> ms;
+    }
+
+    /**
+     * @param minMs the fastest reaction
+     * @param maxMs the slowest reaction
+     * @return A player whose reaction times are spread evenly between the bounds, inclusive.
+     * @throws IllegalArgumentException if the bounds are negative or out of order
+     */
+    static ReactionTime uniform(long minMs, long maxMs) {
+        if (minMs < 0 || maxMs < minMs) {
+            throw new IllegalArgumentException("bounds must satisfy 0 <= min <= max");
+        }
+        long span = maxMs - minMs + 1;
+        return random -> minMs + (long) (random.nextDouble() * span);
+    }
+
+    /**
+     * Human reaction times are skewed: most are close to a typical value, with a long tail of
+     * slow ones. A log-normal distribution models this well.
+     *
+     * @param medianMs the typical reaction time
+     * @param sigma    the spread of the log of the reaction time; about 0.2 to 0.4 for people
+     * @return A player whose reaction times are log-normally distributed.
+     * @throws IllegalArgumentException if medianMs is not positive or sigma is negative
+     */
+    static ReactionTime logNormal(double medianMs, double sigma) {
+        if (!(medianMs > 0) || !(sigma >= 0)) {
+            throw new IllegalArgumentException("median must be positive and sigma not negative");
+        }
+        double mu = Math.log(medianMs);
+        return random -> {
+            // Box-Muller; 1 - u keeps the logarithm finite
+            double u = 1 - random.nextDouble();
+            double v = random.nextDouble();
+            double gaussian = Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+            return Math.round(Math.exp(mu + sigma * gaussian));
+        };
+    }
+
+    /**
+     * Parses a distribution from the command line: {@code fixed:MS}, {@code uniform:MIN:MAX} or
+     * {@code lognormal:MEDIAN:SIGMA}.
+     *
+     * @param spec the distribution
+     * @return the distribution
+     * @throws IllegalArgumentException if spec is not one of the forms above
+     */
+    static ReactionTime parse(String spec) {
+        String[] parts = spec.split(":");
+        try {
+            switch (parts[0]) {
+                case "fixed":
+                    if (parts.length == 2) {
+                        return fixed(Long.parseLong(parts[1]));
+                    }
+                    break;
+                case "uniform":
+                    if (parts.length == 3) {
+                        return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                    }
+                    break;
+                case "lognormal":
+                    if (parts.length == 3) {
+                        return logNormal(Double.parseDouble(parts[1]),
+                                Double.parseDouble(parts[2]));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad reaction time " + spec, e);
+        }
+        throw new IllegalArgumentException("bad reaction time " + spec
+                + "; expected fixed:MS, uniform:MIN:MAX or lognormal:MEDIAN:SIGMA");
+    }
+}
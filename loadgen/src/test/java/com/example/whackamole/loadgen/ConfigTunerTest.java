@@ -0,0 +1,112 @@
+package com.example.whackamole.loadgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.model.GameConfig;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+public class ConfigTunerTest {
+
+    private static final ReactionTime HUMAN = ReactionTime.logNormal(350, 0.3);
+
+    /**
+     * Test that a sweep plays every game at every point and does not depend on the number of
+     * threads.
+     * <p>
+     * Strategy:
+     * - Build a grid where one combination has its minimum interval above its initial one.
+     * - Sweep it with 5000 games per point, which splits into several leaves, on one thread and
+     *   on three.
+     * - Verify the invalid combination was skipped, every point played exactly 5000 games, and
+     *   both sweeps found the same distributions.
+     */
+    @Test
+    public void testSweepIsDeterministic() {
+        List<GameConfig> grid = ConfigTuner.grid(new long[]{500, 2000}, new long[]{400, 600},
+                new long[]{100}, new int[]{3, 5});
+        assertEquals(6, grid.size());
+
+        List<ConfigTuner.PointResult> single = new ConfigTuner(1, HUMAN, 0.9, 600_000, 7)
+                .sweep(grid, 5000);
+        List<ConfigTuner.PointResult> parallel = new ConfigTuner(3, HUMAN, 0.9, 600_000, 7)
+                .sweep(grid, 5000);
+
+        for (int i = 0; i < grid.size(); i++) {
+            ConfigTuner.PointResult a = single.get(i);
+            ConfigTuner.PointResult b = parallel.get(i);
+            assertEquals(grid.get(i), a.getGameConfig());
+            assertEquals(5000, a.getGames());
+            assertEquals(5000, a.getScores().getCount());
+            assertEquals(a.getScores().getMean(), b.getScores().getMean(), 0);
+            assertEquals(a.getGameLengths().getMean(), b.getGameLengths().getMean(), 0);
+            assertEquals(a.getScores().getValueAtPercentile(90),
+                    b.getScores().getValueAtPercentile(90));
+        }
+    }
+
+    /**
+     * Test that the rules move the distributions the way a designer would expect.
+     * <p>
+     * Strategy:
+     * - Sweep the miss limit with everything else at its default.
+     * - Verify that allowing more misses gives higher scores and longer games.
+     */
+    @Test
+    public void testMoreMissesGiveLongerGames() {
+        GameConfig defaults = GameConfig.DEFAULT;
+        List<ConfigTuner.PointResult> results = new ConfigTuner(2, HUMAN, 0.9, 600_000, 3)
+                .sweep(ConfigTuner.grid(new long[]{defaults.getInitialInterval()},
+                        new long[]{defaults.getMinInterval()},
+                        new long[]{defaults.getIntervalDecrement()}, new int[]{1, 3, 6}), 3000);
+
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i).getScores().getMean()
+                    > results.get(i - 1).getScores().getMean());
+            assertTrue(results.get(i).getGameLengths().getValueAtPercentile(50)
+                    > results.get(i - 1).getGameLengths().getValueAtPercentile(50));
+        }
+    }
+
+    /**
+     * Test that a player who never misses still finishes by giving up.
+     */
+    @Test
+    public void testPerfectPlayerGivesUp() {
+        List<ConfigTuner.PointResult> results = new ConfigTuner(1, ReactionTime.fixed(50), 1,
+                20_000, 5).sweep(List.of(GameConfig.DEFAULT), 200);
+
+        ConfigTuner.PointResult result = results.get(0);
+        assertEquals(200, result.getGames());
+        assertTrue(result.getGameLengths().getValueAtPercentile(0) >= 20_000);
+        assertTrue(result.getScores().getValueAtPercentile(0) > 0);
+    }
+
+    /**
+     * Test that the CSV and JSON outputs have a row or object per config.
+     */
+    @Test
+    public void testOutputFormats() throws IOException {
+        List<ConfigTuner.PointResult> results = new ConfigTuner(1, HUMAN, 0.9, 600_000, 1)
+                .sweep(ConfigTuner.grid(new long[]{1500, 2000}, new long[]{500},
+                        new long[]{100}, new int[]{5}), 100);
+
+        StringBuilder csv = new StringBuilder();
+        ConfigTuner.writeCsv(results, csv);
+        String[] rows = csv.toString().split("\n");
+        assertEquals(3, rows.length);
+        assertEquals(rows[0].split(",").length, rows[1].split(",").length);
+        assertTrue(rows[0].startsWith("initial_ms,min_ms,decrement_ms,max_misses,games,"));
+        assertTrue(rows[2].startsWith("2000,500,100,5,100,"));
+
+        StringBuilder json = new StringBuilder();
+        ConfigTuner.writeJson(results, json);
+        assertTrue(json.toString().startsWith("[\n  {\"initial_ms\": 1500,"));
+        assertTrue(json.indexOf("\"score\": {\"mean\": ") > 0);
+        assertTrue(json.toString().endsWith("}\n]\n"));
+    }
+}
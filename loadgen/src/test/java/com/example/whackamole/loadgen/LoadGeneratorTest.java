@@ -0,0 +1,102 @@
+package com.example.whackamole.loadgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.model.GameConfig;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class LoadGeneratorTest {
+
+    private static final ReactionTime HUMAN = ReactionTime.uniform(300, 900);
+
+    /**
+     * Test that a virtual run plays the same games whatever the number of threads.
+     * <p>
+     * Strategy:
+     * - Run 600 sessions, which make three shards, for two simulated minutes on one thread and
+     *   on three.
+     * - Verify both runs counted the same transitions, taps, games and scores, and that every
+     *   tap and spawn was timed.
+     */
+    @Test
+    public void testVirtualRunIsDeterministic() throws InterruptedException {
+        LoadReport single = virtual(600, 1, HUMAN, 0.8).run();
+        LoadReport parallel = virtual(600, 3, HUMAN, 0.8).run();
+
+        assertEquals(single.getTransitions(), parallel.getTransitions());
+        assertEquals(single.getTaps(), parallel.getTaps());
+        assertEquals(single.getGamesFinished(), parallel.getGamesFinished());
+        assertEquals(single.getMeanScore(), parallel.getMeanScore(), 0);
+        assertTrue(single.getGamesFinished() > 600);
+        assertEquals(single.getTaps(), single.getHitLatency().getCount());
+        assertTrue(single.getSpawnLatency().getCount() > 0);
+        assertTrue(single.getSessionsPerCore() > 0);
+    }
+
+    /**
+     * Test that bots only score when their taps land.
+     */
+    @Test
+    public void testAccuracyDrivesScore() throws InterruptedException {
+        LoadReport accurate = virtual(100, 1, HUMAN, 1).run();
+        LoadReport hopeless = virtual(100, 1, HUMAN, 0).run();
+
+        assertTrue(accurate.getMeanScore() > 0);
+        assertEquals(0, hopeless.getMeanScore(), 0);
+        assertTrue(hopeless.getGamesFinished() > accurate.getGamesFinished());
+    }
+
+    /**
+     * Test a short run on real time across two event loops.
+     */
+    @Test
+    public void testRealTimeRun() throws InterruptedException {
+        LoadReport report = new LoadGenerator(GameConfig.DEFAULT, 50, 2,
+                LoadGenerator.TimeMode.REAL, 700, ReactionTime.fixed(100), 1, 3).run();
+
+        assertTrue(report.getTaps() >= 50);
+        assertEquals(report.getTaps(), report.getHitLatency().getCount());
+        assertEquals(25, report.getSessionsPerCore(), 0);
+        assertTrue(report.getWallNanos() >= 700_000_000L);
+    }
+
+    /**
+     * Test that the CSV and JSON reports carry every section.
+     */
+    @Test
+    public void testReportFormats() throws IOException, InterruptedException {
+        LoadReport report = virtual(10, 1, HUMAN, 0.9).run();
+
+        StringBuilder csv = new StringBuilder();
+        report.writeCsv(csv);
+        String[] rows = csv.toString().split("\n");
+        assertEquals("section,name,value", rows[0]);
+        assertTrue(csv.indexOf("run,sessions,10\n") > 0);
+        assertTrue(csv.indexOf("throughput,taps," + report.getTaps() + "\n") > 0);
+        assertTrue(csv.indexOf("hit_ns,p99_9,") > 0);
+        assertTrue(csv.indexOf("spawn_ns,max,") > 0);
+
+        StringBuilder json = new StringBuilder();
+        report.writeJson(json);
+        assertTrue(json.toString().startsWith("{\n  \"run\": {\"time\": \"virtual\""));
+        assertTrue(json.indexOf("\"hit_ns\": {\"count\": " + report.getTaps() + ",") > 0);
+        assertTrue(json.toString().endsWith("}\n}\n"));
+    }
+
+    @Test
+    public void testInvalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> virtual(0, 1, HUMAN, 1));
+        assertThrows(IllegalArgumentException.class, () -> virtual(1, 1, HUMAN, 1.5));
+    }
+
+    private static LoadGenerator virtual(int sessions, int threads, ReactionTime reactionTime,
+                                         double accuracy) {
+        return new LoadGenerator(GameConfig.DEFAULT, sessions, threads,
+                LoadGenerator.TimeMode.VIRTUAL, 120_000, reactionTime, accuracy, 11);
+    }
+}
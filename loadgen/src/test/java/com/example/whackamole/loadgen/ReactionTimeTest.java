@@ -0,0 +1,53 @@
+package com.example.whackamole.loadgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.example.whackamole.util.random.XoroshiroRandomSource;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class ReactionTimeTest {
+
+    /**
+     * Test that each distribution stays in its range and is centred where it should be.
+     */
+    @Test
+    public void testDistributions() {
+        XoroshiroRandomSource random = new XoroshiroRandomSource(1);
+        assertEquals(250, ReactionTime.parse("fixed:250").sampleMs(random));
+
+        ReactionTime uniform = ReactionTime.parse("uniform:200:400");
+        boolean sawMin = false;
+        boolean sawMax = false;
+        for (int i = 0; i < 10_000; i++) {
+            long sample = uniform.sampleMs(random);
+            assertTrue(sample >= 200 && sample <= 400);
+            sawMin |= sample == 200;
+            sawMax |= sample == 400;
+        }
+        assertTrue(sawMin && sawMax);
+
+        ReactionTime logNormal = ReactionTime.parse("lognormal:350:0.3");
+        long[] samples = new long[10_001];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = logNormal.sampleMs(random);
+            assertTrue(samples[i] >= 0);
+        }
+        Arrays.sort(samples);
+        assertEquals(350, samples[samples.length / 2], 10);
+        // The tail is long: the 99th percentile is about exp(2.33 * 0.3) times the median
+        assertEquals(350 * Math.exp(2.326 * 0.3), samples[samples.length * 99 / 100], 30);
+    }
+
+    @Test
+    public void testBadSpecsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ReactionTime.parse("fixed"));
+        assertThrows(IllegalArgumentException.class, () -> ReactionTime.parse("uniform:5:1"));
+        assertThrows(IllegalArgumentException.class, () -> ReactionTime.parse("gamma:1:2"));
+        assertThrows(IllegalArgumentException.class, () -> ReactionTime.parse("fixed:abc"));
+    }
+}
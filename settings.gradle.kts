@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "whackAmole"
 include(":app")
+include(":engine")
+include(":loadgen")
  
\ No newline at end of file